@@ -0,0 +1,386 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2020 Tom.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.bicycleGeometryWorkshop.analysis;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import org.bicycleGeometryWorkshop.app.VisualPreferences;
+import org.bicycleGeometryWorkshop.attributes.AttributeSet;
+import org.bicycleGeometryWorkshop.attributes.BaseAttribute;
+import org.bicycleGeometryWorkshop.attributes.BooleanAttribute;
+import org.bicycleGeometryWorkshop.attributes.DoubleAttribute;
+import org.bicycleGeometryWorkshop.attributes.EnumAttribute;
+import org.bicycleGeometryWorkshop.components.BaseComponent;
+import org.bicycleGeometryWorkshop.components.Bicycle;
+import org.bicycleGeometryWorkshop.components.ComponentChangeEvent;
+import org.bicycleGeometryWorkshop.components.ComponentOwner;
+import org.bicycleGeometryWorkshop.components.FrameSet;
+import org.bicycleGeometryWorkshop.components.RiderMeasurements;
+import org.bicycleGeometryWorkshop.components.RiderPose;
+import org.bicycleGeometryWorkshop.report.Report;
+
+/**
+ * A private copy of a bicycle with its rider and pose used to evaluate changes
+ * without touching the project.  The copy is not connected to the UI or the
+ * undo stack so it can be used from a worker thread.  Each thread must use its
+ * own evaluator.
+ * <p>
+ * The bicycle component attributes of the copy do not send notifications, so
+ * setting a value does not rebuild the bicycle.  Call evaluate() after setting
+ * the values to rebuild once and get the report.
+ *
+ * @author Tom
+ */
+public class BicycleEvaluator implements ComponentOwner {
+
+    private RiderMeasurements _rider;
+    private RiderPose _pose;
+    private VisualPreferences _visualPrefs;
+    private Bicycle _bicycle;
+
+    private HashMap<String, AttributeSet> _sets;
+
+    /**
+     * Class constructor.  Copies the bicycle, rider and pose.  This reads the
+     * source objects so it must be called on the thread that owns them (the UI
+     * thread for project bicycles).
+     *
+     * @param source The bicycle to copy.
+     * @param rider The rider measurements to copy.
+     * @param pose The rider pose to copy.
+     */
+    public BicycleEvaluator(Bicycle source, RiderMeasurements rider, RiderPose pose) {
+
+        this(source.getBicycleName(), captureValues(source, rider, pose, null), false);
+
+    }
+
+    /**
+     * Class constructor.  Builds the copy from values captured with
+     * captureValues(), so it can be called from a worker thread.
+     *
+     * @param name The name of the bicycle.
+     * @param values The captured values by AttributeSet name and attribute name.
+     * @param renderable True to build the display shapes so the copy can be rendered.
+     */
+    public BicycleEvaluator(String name, HashMap<String, HashMap<String, Object>> values, boolean renderable) {
+
+        _rider = new RiderMeasurements(this);
+        _pose = new RiderPose(this);
+        _visualPrefs = new VisualPreferences(this);
+        _bicycle = new Bicycle(name, _rider, _pose, _visualPrefs);
+
+        //the copy is not rendered - skip the display shapes
+        if (!renderable) {
+            for (BaseComponent comp : _bicycle.getComponentList()) {
+                if (comp instanceof FrameSet) {
+                    ((FrameSet) comp).setShapesEnabled(false);
+                }
+            }
+        }
+
+        _sets = collectSets(_bicycle, _rider, _pose);
+        _sets.put(_visualPrefs.getAttributeSet().getName(), _visualPrefs.getAttributeSet());
+
+        //rider and pose keep notifications (the rider recalculates internal values on change)
+        //the bicycle is rebuilt once in evaluate()
+        for (AttributeSet attSet : _bicycle.getAttributeSets()) {
+            for (BaseAttribute att : attSet.getAttributes()) {
+                att.enableNotification(false);
+            }
+        }
+
+        applyValues(values);
+
+    }
+
+    /**
+     * Copy the values of a bicycle, rider and pose into this evaluator.
+     *
+     * @param source The bicycle to copy.
+     * @param rider The rider measurements to copy.
+     * @param pose The rider pose to copy.
+     */
+    public final void copyFrom(Bicycle source, RiderMeasurements rider, RiderPose pose) {
+
+        applyValues(captureValues(source, rider, pose, null));
+
+    }
+
+    /**
+     * Set the values of this evaluator from captured values and rebuild the bicycle.
+     *
+     * @param values The values by AttributeSet name and attribute name.
+     */
+    public final void applyValues(HashMap<String, HashMap<String, Object>> values) {
+
+        for (HashMap.Entry<String, HashMap<String, Object>> setEntry : values.entrySet()) {
+
+            AttributeSet dstSet = _sets.get(setEntry.getKey());
+            if (dstSet == null) {
+                continue;
+            }
+
+            for (HashMap.Entry<String, Object> attEntry : setEntry.getValue().entrySet()) {
+
+                BaseAttribute dstAtt = dstSet.getAttribute(attEntry.getKey());
+                if (dstAtt != null) {
+                    dstAtt.setFromObject(attEntry.getValue());
+                }
+            }
+        }
+
+        _bicycle.updateAllComponents();
+
+    }
+
+    /**
+     * Capture the attribute values of a bicycle, rider, pose and visual
+     * preferences.  The values are immutable (numbers, booleans and strings)
+     * so they can be handed to a worker thread.  This reads the source objects
+     * so it must be called on the thread that owns them.
+     *
+     * @param source The bicycle.
+     * @param rider The rider measurements.
+     * @param pose The rider pose.
+     * @param vPrefs The visual preferences (bicycle layout), or null for the defaults.
+     * @return The values by AttributeSet name and attribute name.
+     */
+    public static HashMap<String, HashMap<String, Object>> captureValues(Bicycle source, RiderMeasurements rider, RiderPose pose, VisualPreferences vPrefs) {
+
+        HashMap<String, AttributeSet> sourceSets = collectSets(source, rider, pose);
+
+        if (vPrefs != null) {
+            sourceSets.put(vPrefs.getAttributeSet().getName(), vPrefs.getAttributeSet());
+        }
+
+        HashMap<String, HashMap<String, Object>> values = new HashMap();
+
+        for (AttributeSet srcSet : sourceSets.values()) {
+            values.put(srcSet.getName(), captureSet(srcSet));
+        }
+
+        return values;
+    }
+
+    /**
+     * Capture the attribute values of one AttributeSet (see captureValues()).
+     *
+     * @param attSet The AttributeSet.
+     * @return The values by attribute name, in the order of the set.
+     */
+    public static HashMap<String, Object> captureSet(AttributeSet attSet) {
+
+        HashMap<String, Object> setValues = new LinkedHashMap();
+
+        for (BaseAttribute att : attSet.getAttributes()) {
+            setValues.put(att.getName(), getAttributeValue(att));
+        }
+
+        return setValues;
+    }
+
+    /**
+     * Get a double attribute of the copy.
+     *
+     * @param tableName The AttributeSet (table) name, i.e. "Stem".
+     * @param attName The attribute name, i.e. "Length".
+     * @return The attribute or null if not found or not a double attribute.
+     */
+    public DoubleAttribute getDoubleAttribute(String tableName, String attName) {
+        return findDoubleAttribute(_sets, tableName, attName);
+    }
+
+    /**
+     * Get an enum attribute of the copy.
+     *
+     * @param tableName The AttributeSet (table) name, i.e. "Handlebar".
+     * @param attName The attribute name, i.e. "BarType".
+     * @return The attribute or null if not found or not an enum attribute.
+     */
+    public EnumAttribute getEnumAttribute(String tableName, String attName) {
+
+        AttributeSet attSet = _sets.get(tableName);
+
+        if (attSet != null) {
+            BaseAttribute att = attSet.getAttribute(attName);
+            if (att instanceof EnumAttribute) {
+                return (EnumAttribute) att;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Get all the AttributeSets of the copy: rider, pose, then the bicycle
+     * and its components in component order.
+     *
+     * @return The sets.
+     */
+    public ArrayList<AttributeSet> getAttributeSets() {
+
+        ArrayList<AttributeSet> sets = new ArrayList();
+        sets.add(_rider.getAttributeSet());
+        sets.add(_pose.getAttributeSet());
+        sets.addAll(_bicycle.getAttributeSets());
+
+        return sets;
+    }
+
+    /**
+     * Get the double attributes of the bicycle components as parameters, in
+     * component order.
+     *
+     * @return The parameters.
+     */
+    public ArrayList<FitParameter> getBicycleParameters() {
+
+        ArrayList<FitParameter> params = new ArrayList();
+
+        for (AttributeSet attSet : _bicycle.getAttributeSets()) {
+            for (BaseAttribute att : attSet.getAttributes()) {
+                if (att instanceof DoubleAttribute) {
+                    params.add(new FitParameter(attSet.getName(), att.getName()));
+                }
+            }
+        }
+
+        return params;
+    }
+
+    /**
+     * Rebuild the bicycle and get the report.  The report is owned by the
+     * evaluator and is updated by the next call.
+     *
+     * @return The bicycle report.
+     */
+    public Report evaluate() {
+
+        _bicycle.updateAllComponents();
+
+        return _bicycle.getReport();
+    }
+
+    /**
+     * Get the bicycle copy.
+     *
+     * @return The bicycle.
+     */
+    public Bicycle getBicycle() {
+        return _bicycle;
+    }
+
+    /**
+     * Get the rider measurements copy.
+     *
+     * @return The rider measurements.
+     */
+    public RiderMeasurements getRiderMeasurements() {
+        return _rider;
+    }
+
+    /**
+     * Get the rider pose copy.
+     *
+     * @return The rider pose.
+     */
+    public RiderPose getRiderPose() {
+        return _pose;
+    }
+
+    /**
+     * Changes are pulled in evaluate() - nothing to do.
+     *
+     * @param compEvent The component event.
+     */
+    @Override
+    public void componentChanged(ComponentChangeEvent compEvent) {
+
+    }
+
+    /**
+     * Find a double attribute in a set map.
+     *
+     * @param sets The AttributeSets by name.
+     * @param tableName The AttributeSet (table) name.
+     * @param attName The attribute name.
+     * @return The attribute or null if not found or not a double attribute.
+     */
+    static DoubleAttribute findDoubleAttribute(HashMap<String, AttributeSet> sets, String tableName, String attName) {
+
+        AttributeSet attSet = sets.get(tableName);
+
+        if (attSet != null) {
+            BaseAttribute att = attSet.getAttribute(attName);
+            if (att instanceof DoubleAttribute) {
+                return (DoubleAttribute) att;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Get the AttributeSets of a bicycle, rider and pose by their name.
+     *
+     * @param bicycle The bicycle.
+     * @param rider The rider measurements.
+     * @param pose The rider pose.
+     * @return The sets by name.
+     */
+    static HashMap<String, AttributeSet> collectSets(Bicycle bicycle, RiderMeasurements rider, RiderPose pose) {
+
+        HashMap<String, AttributeSet> sets = new HashMap();
+
+        sets.put(rider.getAttributeSet().getName(), rider.getAttributeSet());
+        sets.put(pose.getAttributeSet().getName(), pose.getAttributeSet());
+
+        for (AttributeSet attSet : bicycle.getAttributeSets()) {
+            sets.put(attSet.getName(), attSet);
+        }
+
+        return sets;
+    }
+
+    /**
+     * Get the value of an attribute as an object accepted by setFromObject().
+     *
+     * @param att The attribute.
+     * @return The value.
+     */
+    private static Object getAttributeValue(BaseAttribute att) {
+
+        if (att instanceof DoubleAttribute) {
+            return ((DoubleAttribute) att).getDoubleValue();
+        } else if (att instanceof BooleanAttribute) {
+            return ((BooleanAttribute) att).getBooleanValue();
+        }
+
+        //string form for text, enums and colors
+        return att.getSQLInsert();
+    }
+
+}
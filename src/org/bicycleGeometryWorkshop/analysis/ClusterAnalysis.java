@@ -0,0 +1,271 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2020 Tom.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.bicycleGeometryWorkshop.analysis;
+
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.Arrays;
+import org.bicycleGeometryWorkshop.components.Bicycle;
+import org.bicycleGeometryWorkshop.components.KeyPoint;
+import org.bicycleGeometryWorkshop.report.Report;
+import org.bicycleGeometryWorkshop.report.ReportField;
+
+/**
+ * Groups bicycles with effectively identical fits.  Each bicycle is described
+ * by its report values and its key points (see KeyPoint).  The distance
+ * between two bicycles is the root mean square of the differences of these
+ * values - lengths in mm and angles in degrees, so a tolerance of 1 allows
+ * about 1 mm or 1 degree per value.
+ * <p>
+ * The distance matrix is computed in parallel (see DistanceMatrix) and the
+ * bicycles are then grouped by complete linkage hierarchical clustering: two
+ * clusters are merged while every pair of bicycles in the merged cluster is
+ * within the tolerance.
+ *
+ * @author Tom
+ */
+public class ClusterAnalysis {
+
+    private ArrayList<String> _names;
+    private double[][] _values;
+    private double _tolerance;
+    private int _threads;
+
+    /**
+     * Class constructor.  The report values and key points are read here, so
+     * this must be called on the thread that owns the bicycles (the UI thread
+     * for project bicycles).  run() can then be called from any thread.
+     *
+     * @param bicycles The bicycles to group.
+     */
+    public ClusterAnalysis(ArrayList<Bicycle> bicycles) {
+
+        int count = bicycles.size();
+        KeyPoint[] keys = KeyPoint.values();
+        ReportField[] fields = ReportField.values();
+
+        _names = new ArrayList();
+        double[][] raw = new double[count][fields.length + keys.length * 2];
+
+        for (int i = 0; i < count; i++) {
+
+            Bicycle b = bicycles.get(i);
+            _names.add(b.getBicycleName());
+
+            Report report = b.getReport();
+            int v = 0;
+
+            for (ReportField field : fields) {
+                raw[i][v++] = report.getValue(field);
+            }
+
+            for (KeyPoint key : keys) {
+                Point2D p = b.getKeyPoint(key);
+                raw[i][v++] = p.getX();
+                raw[i][v++] = p.getY();
+            }
+        }
+
+        _values = dropMissing(raw);
+        _tolerance = 1;
+        _threads = Runtime.getRuntime().availableProcessors();
+
+    }
+
+    /**
+     * Remove the values missing (NaN) on any bicycle - the name field and
+     * anything not reported.
+     *
+     * @param raw The values [bicycle][value].
+     * @return The values found on all bicycles.
+     */
+    private static double[][] dropMissing(double[][] raw) {
+
+        if (raw.length == 0) {
+            return raw;
+        }
+
+        int width = raw[0].length;
+        boolean[] keep = new boolean[width];
+        int kept = 0;
+
+        for (int v = 0; v < width; v++) {
+
+            keep[v] = true;
+            for (double[] row : raw) {
+                if (Double.isNaN(row[v]) || Double.isInfinite(row[v])) {
+                    keep[v] = false;
+                    break;
+                }
+            }
+
+            if (keep[v]) {
+                kept++;
+            }
+        }
+
+        double[][] values = new double[raw.length][kept];
+
+        for (int i = 0; i < raw.length; i++) {
+            int k = 0;
+            for (int v = 0; v < width; v++) {
+                if (keep[v]) {
+                    values[i][k++] = raw[i][v];
+                }
+            }
+        }
+
+        return values;
+    }
+
+    /**
+     * Set the tolerance - the largest distance between two bicycles of a
+     * cluster.
+     *
+     * @param tolerance The tolerance (mm or degrees).
+     */
+    public void setTolerance(double tolerance) {
+        _tolerance = Math.max(0, tolerance);
+    }
+
+    /**
+     * Set the number of threads for the distance matrix.
+     *
+     * @param threads The number of threads.
+     */
+    public void setThreads(int threads) {
+        _threads = Math.max(1, threads);
+    }
+
+    /**
+     * Compute the distances and group the bicycles.
+     *
+     * @return The result.
+     * @throws InterruptedException Thrown if the thread is interrupted while running.
+     * @throws Exception Thrown if a thread fails.
+     */
+    public ClusterResult run() throws InterruptedException, Exception {
+
+        int count = _values.length;
+        int width = count > 0 ? _values[0].length : 1;
+
+        double[][] matrix = DistanceMatrix.compute(_values, Math.max(1, width), _threads);
+
+        int[] cluster = link(matrix);
+
+        return new ClusterResult(_names, cluster, matrix);
+    }
+
+    /**
+     * Complete linkage clustering.  The cluster distances start as a copy of
+     * the matrix; after each merge the distance to the merged cluster is the
+     * larger of the two (Lance-Williams update for complete linkage).
+     *
+     * @param matrix The distance matrix.
+     * @return The cluster of each bicycle, numbered from 0 in order of first member.
+     * @throws InterruptedException Thrown if the thread is interrupted.
+     */
+    private int[] link(double[][] matrix) throws InterruptedException {
+
+        int count = matrix.length;
+
+        double[][] dist = new double[count][];
+        for (int i = 0; i < count; i++) {
+            dist[i] = matrix[i].clone();
+        }
+
+        //cluster of each bicycle, identified by its first member
+        int[] root = new int[count];
+        boolean[] active = new boolean[count];
+        for (int i = 0; i < count; i++) {
+            root[i] = i;
+            active[i] = true;
+        }
+
+        while (true) {
+
+            if (Thread.currentThread().isInterrupted()) {
+                throw new InterruptedException();
+            }
+
+            //closest pair of clusters
+            int bestA = -1;
+            int bestB = -1;
+            double best = _tolerance;
+
+            for (int a = 0; a < count; a++) {
+
+                if (!active[a]) {
+                    continue;
+                }
+
+                double[] row = dist[a];
+                for (int b = a + 1; b < count; b++) {
+                    if (active[b] && row[b] <= best) {
+                        best = row[b];
+                        bestA = a;
+                        bestB = b;
+                    }
+                }
+            }
+
+            if (bestA == -1) {
+                break;
+            }
+
+            //merge b into a
+            active[bestB] = false;
+
+            for (int c = 0; c < count; c++) {
+                if (active[c] && c != bestA) {
+                    double d = Math.max(dist[bestA][c], dist[bestB][c]);
+                    dist[bestA][c] = d;
+                    dist[c][bestA] = d;
+                }
+            }
+
+            for (int i = 0; i < count; i++) {
+                if (root[i] == bestB) {
+                    root[i] = bestA;
+                }
+            }
+        }
+
+        //number the clusters in project order
+        int[] cluster = new int[count];
+        int[] number = new int[count];
+        Arrays.fill(number, -1);
+        int next = 0;
+
+        for (int i = 0; i < count; i++) {
+            if (number[root[i]] == -1) {
+                number[root[i]] = next++;
+            }
+            cluster[i] = number[root[i]];
+        }
+
+        return cluster;
+    }
+
+}
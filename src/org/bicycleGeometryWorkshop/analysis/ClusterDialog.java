@@ -0,0 +1,251 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2020 Tom.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.bicycleGeometryWorkshop.analysis;
+
+import java.awt.BorderLayout;
+import java.awt.Dimension;
+import java.awt.FlowLayout;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.ArrayList;
+import javax.swing.JButton;
+import javax.swing.JCheckBox;
+import javax.swing.JDialog;
+import javax.swing.JFrame;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTable;
+import javax.swing.JTextField;
+import javax.swing.SwingWorker;
+import javax.swing.table.DefaultTableModel;
+import org.bicycleGeometryWorkshop.components.Bicycle;
+import org.bicycleGeometryWorkshop.diagnostics.Log;
+import org.bicycleGeometryWorkshop.diagnostics.Logger;
+
+/**
+ * Cluster dialog.  Groups the bicycles of the project with effectively
+ * identical fits in the background and lists the groups.
+ *
+ * @author Tom
+ */
+public class ClusterDialog extends JDialog {
+
+    private static final Logger LOG = Log.getLogger(ClusterDialog.class);
+
+    private ClusterAnalysis _analysis;
+    private ClusterResult _result;
+
+    private DefaultTableModel _resultModel;
+
+    private JTextField _toleranceField;
+    private JCheckBox _navigatorBox;
+    private JButton _runButton;
+    private JLabel _status;
+
+    /**
+     * Class constructor.
+     *
+     * @param owner The owner frame.
+     * @param bicycles The bicycles to group.  The values are read here, the
+     * bicycles are not kept.
+     */
+    public ClusterDialog(JFrame owner, ArrayList<Bicycle> bicycles) {
+        super(owner, true);
+
+        _analysis = new ClusterAnalysis(bicycles);
+        _result = null;
+
+        init();
+        runAnalysis();
+
+    }
+
+    /**
+     * Get the result shown in the dialog.
+     *
+     * @return The result or null if the analysis has not finished.
+     */
+    public ClusterResult getResult() {
+        return _result;
+    }
+
+    /**
+     * Check if the groups should be shown in the navigator.
+     *
+     * @return True to show the groups.
+     */
+    public boolean isNavigatorEnabled() {
+        return _navigatorBox.isSelected();
+    }
+
+    /**
+     * Initialize the components and do the layout.
+     */
+    private void init() {
+
+        this.setTitle("Group Identical Fits");
+        this.setLayout(new BorderLayout());
+
+        String[] resultHeads = {"Group", "Size", "Representative", "Spread", "Members"};
+        _resultModel = new DefaultTableModel(resultHeads, 0) {
+
+            @Override
+            public boolean isCellEditable(int row, int col) {
+                return false;
+            }
+
+        };
+
+        JTable resultTable = new JTable(_resultModel);
+        JScrollPane resultScroll = new JScrollPane(resultTable);
+        resultScroll.setPreferredSize(new Dimension(640, 300));
+
+        //controls
+        _toleranceField = new JTextField("1.0", 4);
+        _toleranceField.setToolTipText("Largest root mean square difference of the report values and key points in a group (mm or degrees).");
+        _navigatorBox = new JCheckBox("Show in Navigator", true);
+        _status = new JLabel(" ");
+
+        _runButton = new JButton("Run");
+        JButton closeButton = new JButton("Close");
+
+        //run action
+        ActionListener runAction = (ActionEvent ev) -> {
+            runAnalysis();
+        };
+        _runButton.addActionListener(runAction);
+
+        //close action
+        ActionListener closeAction = (ActionEvent ev) -> {
+            this.setVisible(false);
+        };
+        closeButton.addActionListener(closeAction);
+
+        JPanel controlPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        controlPanel.add(new JLabel("Tolerance"));
+        controlPanel.add(_toleranceField);
+        controlPanel.add(_navigatorBox);
+        controlPanel.add(_runButton);
+        controlPanel.add(closeButton);
+
+        JPanel southPanel = new JPanel(new BorderLayout());
+        southPanel.add(controlPanel, BorderLayout.CENTER);
+        southPanel.add(_status, BorderLayout.SOUTH);
+
+        this.add(resultScroll, BorderLayout.CENTER);
+        this.add(southPanel, BorderLayout.SOUTH);
+
+        this.pack();
+        this.setLocationRelativeTo(this.getOwner());
+
+    }
+
+    /**
+     * Set the tolerance from the dialog and run the analysis in the background.
+     */
+    private void runAnalysis() {
+
+        double tolerance;
+        try {
+            tolerance = Double.parseDouble(_toleranceField.getText().trim());
+        } catch (NumberFormatException ex) {
+            _status.setText("Invalid tolerance.");
+            return;
+        }
+
+        ClusterAnalysis analysis = _analysis;
+        analysis.setTolerance(tolerance);
+
+        _runButton.setEnabled(false);
+        _resultModel.setRowCount(0);
+        _status.setText("Running...");
+
+        long start = System.currentTimeMillis();
+
+        SwingWorker<ClusterResult, Void> worker = new SwingWorker<ClusterResult, Void>() {
+
+            @Override
+            protected ClusterResult doInBackground() throws Exception {
+                return analysis.run();
+            }
+
+            @Override
+            protected void done() {
+
+                _runButton.setEnabled(true);
+
+                try {
+                    _result = get();
+                    showResult(_result);
+                    _status.setText(String.format("%d bicycles in %d groups and %d single in %.2f s", _result.getCount(),
+                            _result.getGroups().size(), _result.getClusterCount() - _result.getGroups().size(),
+                            (System.currentTimeMillis() - start) / 1000.0));
+                } catch (Exception ex) {
+                    _status.setText("Cluster analysis failed: " + ex.getMessage());
+                    LOG.error(ex.getMessage(), ex);
+                }
+            }
+
+        };
+
+        worker.execute();
+
+    }
+
+    /**
+     * List the groups.
+     *
+     * @param result The result.
+     */
+    private void showResult(ClusterResult result) {
+
+        ArrayList<Integer> groups = result.getGroups();
+
+        for (int g = 0; g < groups.size(); g++) {
+
+            int cluster = groups.get(g);
+            ArrayList<Integer> members = result.getMembers(cluster);
+
+            StringBuilder names = new StringBuilder();
+            for (int i : members) {
+                if (names.length() > 0) {
+                    names.append(", ");
+                }
+                names.append(result.getName(i));
+            }
+
+            Object[] row = new Object[5];
+            row[0] = Integer.toString(g + 1);
+            row[1] = Integer.toString(members.size());
+            row[2] = result.getName(result.getRepresentative(cluster));
+            row[3] = String.format("%.2f", result.getSpread(cluster));
+            row[4] = names.toString();
+
+            _resultModel.addRow(row);
+        }
+
+    }
+
+}
@@ -0,0 +1,205 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2020 Tom.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.bicycleGeometryWorkshop.analysis;
+
+import java.util.ArrayList;
+
+/**
+ * The result of a cluster analysis: the cluster of each bicycle and the
+ * distance matrix the clusters were built from.
+ *
+ * @author Tom
+ */
+public class ClusterResult {
+
+    private ArrayList<String> _names;
+    private int[] _cluster;
+    private double[][] _matrix;
+    private int _clusterCount;
+
+    /**
+     * Class constructor.
+     *
+     * @param names The bicycle names.
+     * @param cluster The cluster of each bicycle, numbered from 0.
+     * @param matrix The distance matrix [bicycle][bicycle].
+     */
+    public ClusterResult(ArrayList<String> names, int[] cluster, double[][] matrix) {
+
+        _names = names;
+        _cluster = cluster;
+        _matrix = matrix;
+
+        _clusterCount = 0;
+        for (int c : cluster) {
+            _clusterCount = Math.max(_clusterCount, c + 1);
+        }
+
+    }
+
+    /**
+     * Get the number of bicycles.
+     *
+     * @return The number of bicycles.
+     */
+    public int getCount() {
+        return _names.size();
+    }
+
+    /**
+     * Get the name of a bicycle.
+     *
+     * @param index The bicycle index.
+     * @return The name.
+     */
+    public String getName(int index) {
+        return _names.get(index);
+    }
+
+    /**
+     * Get the number of clusters, including single bicycles.
+     *
+     * @return The number of clusters.
+     */
+    public int getClusterCount() {
+        return _clusterCount;
+    }
+
+    /**
+     * Get the cluster of a bicycle.
+     *
+     * @param index The bicycle index.
+     * @return The cluster number.
+     */
+    public int getCluster(int index) {
+        return _cluster[index];
+    }
+
+    /**
+     * Get the bicycles of a cluster.
+     *
+     * @param cluster The cluster number.
+     * @return The bicycle indexes in project order.
+     */
+    public ArrayList<Integer> getMembers(int cluster) {
+
+        ArrayList<Integer> members = new ArrayList();
+
+        for (int i = 0; i < _cluster.length; i++) {
+            if (_cluster[i] == cluster) {
+                members.add(i);
+            }
+        }
+
+        return members;
+    }
+
+    /**
+     * Get the clusters of more than one bicycle - the groups of effectively
+     * identical fits.
+     *
+     * @return The cluster numbers, largest first.
+     */
+    public ArrayList<Integer> getGroups() {
+
+        int[] size = new int[_clusterCount];
+        for (int c : _cluster) {
+            size[c]++;
+        }
+
+        ArrayList<Integer> groups = new ArrayList();
+        for (int c = 0; c < _clusterCount; c++) {
+            if (size[c] > 1) {
+                groups.add(c);
+            }
+        }
+
+        //largest first, then in project order
+        groups.sort((Integer a, Integer b) -> size[b] != size[a] ? size[b] - size[a] : a - b);
+
+        return groups;
+    }
+
+    /**
+     * Get the representative bicycle of a cluster - the member with the
+     * smallest largest distance to the other members (the medoid).
+     *
+     * @param cluster The cluster number.
+     * @return The bicycle index.
+     */
+    public int getRepresentative(int cluster) {
+
+        ArrayList<Integer> members = getMembers(cluster);
+
+        int best = members.get(0);
+        double bestSpread = Double.MAX_VALUE;
+
+        for (int i : members) {
+
+            double spread = 0;
+            for (int j : members) {
+                spread = Math.max(spread, _matrix[i][j]);
+            }
+
+            if (spread < bestSpread) {
+                bestSpread = spread;
+                best = i;
+            }
+        }
+
+        return best;
+    }
+
+    /**
+     * Get the largest distance between two members of a cluster.
+     *
+     * @param cluster The cluster number.
+     * @return The distance.
+     */
+    public double getSpread(int cluster) {
+
+        ArrayList<Integer> members = getMembers(cluster);
+        double spread = 0;
+
+        for (int i : members) {
+            for (int j : members) {
+                spread = Math.max(spread, _matrix[i][j]);
+            }
+        }
+
+        return spread;
+    }
+
+    /**
+     * Get the distance between two bicycles.
+     *
+     * @param i The first bicycle index.
+     * @param j The second bicycle index.
+     * @return The distance.
+     */
+    public double getDistance(int i, int j) {
+        return _matrix[i][j];
+    }
+
+}
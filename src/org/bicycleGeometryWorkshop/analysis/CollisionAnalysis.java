@@ -0,0 +1,331 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2020 Tom.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.bicycleGeometryWorkshop.analysis;
+
+import java.awt.geom.Line2D;
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import org.bicycleGeometryWorkshop.attributes.DoubleAttribute;
+import org.bicycleGeometryWorkshop.components.Bicycle;
+import org.bicycleGeometryWorkshop.components.RiderMeasurements;
+import org.bicycleGeometryWorkshop.components.RiderPose;
+import org.bicycleGeometryWorkshop.database.DataBaseKeys;
+import org.bicycleGeometryWorkshop.geometry.IntersectionPoint;
+import org.bicycleGeometryWorkshop.geometry.IntersectionPointResult;
+import org.bicycleGeometryWorkshop.geometry.Utilities;
+
+/**
+ * Toe overlap and pedal clearance check.  The crank is swept through a full
+ * revolution and at each position the rider's right foot and toe lines are
+ * tested against the front tire while the steering is swept from straight to
+ * the maximum steering angle.  The left foot is the same sweep turned the
+ * other way, so only the right side is checked.
+ * <p>
+ * The model is a side view, so steering is projected: turning the wheel by an
+ * angle shrinks the side view of the tire horizontally by its cosine, and only
+ * the part of the tire behind the axle that has swung out past the inside of
+ * the shoe (the lateral offset) can be touched.  The test is done in a frame
+ * scaled back to the wheel circle so Utilities.lineCircleIntersect() does the
+ * narrow phase.
+ * <p>
+ * Broad phase checks keep this cheap for large projects: a bicycle is skipped
+ * without sweeping if the furthest reach of the foot around the bottom bracket
+ * can't get to the tire, a crank position is skipped without rebuilding the
+ * bicycle if the reach of the foot around the crank point can't get to the
+ * tire, and the steering sweep is skipped where the bounding box of the foot
+ * misses the tire.
+ *
+ * @author Tom
+ */
+public class CollisionAnalysis {
+
+    private static final String CRANK_ROTATION = "CrankRotation";
+
+    private ArrayList<BicycleEvaluator> _evaluators;
+
+    private double _crankStep;
+    private double _maxSteer;
+    private double _steerStep;
+    private double _lateralOffset;
+
+    /**
+     * Class constructor.  The bicycles, rider and pose are copied here, so this
+     * must be called on the thread that owns them (the UI thread for project
+     * bicycles).  run() can then be called from any thread.
+     *
+     * @param bicycles The bicycles to check.
+     * @param rider The rider measurements.
+     * @param pose The rider pose.
+     */
+    public CollisionAnalysis(ArrayList<Bicycle> bicycles, RiderMeasurements rider, RiderPose pose) {
+
+        _evaluators = new ArrayList();
+
+        for (Bicycle b : bicycles) {
+            _evaluators.add(new BicycleEvaluator(b, rider, pose));
+        }
+
+        _crankStep = 5;
+        _maxSteer = 45;
+        _steerStep = 1;
+        _lateralOffset = 70;
+
+    }
+
+    /**
+     * Set the crank sweep step.
+     *
+     * @param degrees The step in degrees.
+     */
+    public void setCrankStep(double degrees) {
+        _crankStep = Math.max(0.5, degrees);
+    }
+
+    /**
+     * Set the largest steering angle to check.
+     *
+     * @param degrees The maximum steering angle in degrees (1 to 89).
+     */
+    public void setMaxSteer(double degrees) {
+        _maxSteer = Math.max(1, Math.min(89, degrees));
+    }
+
+    /**
+     * Set the steering sweep step.
+     *
+     * @param degrees The step in degrees.
+     */
+    public void setSteerStep(double degrees) {
+        _steerStep = Math.max(0.1, degrees);
+    }
+
+    /**
+     * Set the lateral offset - the distance from the bicycle centerline to the
+     * inside of the shoe, less half the tire width.
+     *
+     * @param offset The lateral offset (mm).
+     */
+    public void setLateralOffset(double offset) {
+        _lateralOffset = Math.max(0, offset);
+    }
+
+    /**
+     * Check all the bicycles.
+     *
+     * @return A result for each bicycle, in order.
+     * @throws InterruptedException Thrown if the thread is interrupted while running.
+     */
+    public ArrayList<CollisionResult> run() throws InterruptedException {
+
+        ArrayList<CollisionResult> results = new ArrayList();
+
+        for (BicycleEvaluator eval : _evaluators) {
+
+            if (Thread.currentThread().isInterrupted()) {
+                throw new InterruptedException();
+            }
+
+            results.add(check(eval));
+        }
+
+        return results;
+    }
+
+    /**
+     * Check one bicycle.
+     *
+     * @param eval The evaluator of the bicycle.
+     * @return The result.
+     */
+    private CollisionResult check(BicycleEvaluator eval) {
+
+        Bicycle bicycle = eval.getBicycle();
+        String name = bicycle.getBicycleName();
+
+        //pedal clearance - the pedal is a fixed offset from the crank point
+        //so the lowest point over a revolution is found from one position
+        Point2D bbPoint = bicycle.getBottomBracketPoint();
+        Point2D crankPoint = bicycle.getCrankPointRight();
+        Line2D pedal = bicycle.getPedalLineRight();
+
+        double crankLength = bbPoint.distance(crankPoint);
+        double pedalDrop = Math.min(0, Math.min(pedal.getY1(), pedal.getY2()) - crankPoint.getY());
+        double pedalClearance = bbPoint.getY() - crankLength + pedalDrop - bicycle.getGroundHeight();
+
+        //front tire
+        Point2D center = bicycle.getFrontWheelCenter();
+        double radius = bicycle.getWheelRadius();
+
+        //broad phase: the foot hangs from the ball of the foot at the pedal point
+        Line2D foot = bicycle.getFootLineRight();
+        Line2D toe = bicycle.getToeLineRight();
+        double footReach = crankPoint.distance(bicycle.getPedalPointRight()) + lineLength(foot) + lineLength(toe);
+
+        if (bbPoint.distance(center) > crankLength + footReach + radius) {
+            return new CollisionResult(name, true, 0, Double.NaN, Double.NaN, pedalClearance, 0);
+        }
+
+        //the tire box and the part of it that can be touched at full steering
+        Rectangle2D tireBox = new Rectangle2D.Double(center.getX() - radius, center.getY() - radius, radius * 2, radius * 2);
+        double reachableX = center.getX() - _lateralOffset / Math.tan(Utilities.degreesToRadians(_maxSteer));
+
+        DoubleAttribute crankAtt = eval.getDoubleAttribute(DataBaseKeys.POSE.toString(), CRANK_ROTATION);
+        double startRotation = crankAtt.getDoubleValue();
+
+        //reused for every crank position
+        Point2D crankAt = new Point2D.Double();
+        Rectangle2D footBox = new Rectangle2D.Double();
+
+        double toeOverlap = 0;
+        double contactSteer = Double.NaN;
+        double contactCrank = Double.NaN;
+
+        int steps = (int) Math.round(360 / _crankStep);
+        int evaluated = 0;
+
+        for (int i = 0; i < steps; i++) {
+
+            double crankAngle = i * _crankStep;
+
+            //broad phase: the crank point is known without a rebuild (clockwise from horizontal)
+            Utilities.polarPoint(bbPoint, crankLength, -Utilities.degreesToRadians(crankAngle), crankAt);
+            if (crankAt.distance(center) > footReach + radius) {
+                continue;
+            }
+
+            crankAtt.setDouble(crankAngle);
+            eval.evaluate();
+            evaluated++;
+
+            bicycle.getFootLineRight(foot);
+            bicycle.getToeLineRight(toe);
+
+            footBox.setFrameFromDiagonal(foot.getX1(), foot.getY1(), foot.getX2(), foot.getY2());
+            footBox.add(toe.getX1(), toe.getY1());
+            footBox.add(toe.getX2(), toe.getY2());
+
+            //broad phase: nothing near the tire at this crank position
+            if (!footBox.intersects(tireBox)) {
+                continue;
+            }
+
+            //side view overlap with the wheel straight
+            double dist = Math.min(foot.ptSegDist(center), toe.ptSegDist(center));
+            toeOverlap = Math.max(toeOverlap, radius - dist);
+
+            //broad phase: the foot is in front of any part of the tire that swings out
+            if (footBox.getMinX() > reachableX) {
+                continue;
+            }
+
+            //only steering angles smaller than the best contact so far
+            double maxSteer = Double.isNaN(contactSteer) ? _maxSteer : contactSteer - _steerStep;
+
+            for (double steer = _steerStep; steer <= maxSteer + 1e-9; steer += _steerStep) {
+
+                double steerRad = Utilities.degreesToRadians(steer);
+
+                if (hitsSteeredTire(foot, center, radius, steerRad) || hitsSteeredTire(toe, center, radius, steerRad)) {
+                    contactSteer = steer;
+                    contactCrank = crankAngle;
+                    break;
+                }
+            }
+
+        }//end for
+
+        //leave the copy as it was
+        crankAtt.setDouble(startRotation);
+        eval.evaluate();
+
+        return new CollisionResult(name, false, toeOverlap, contactSteer, contactCrank, pedalClearance, evaluated);
+    }
+
+    /**
+     * Test a foot line against the steered tire.  The line is scaled about the
+     * axle by 1 / cos(steer), which turns the side view of the steered tire back
+     * into the wheel circle, and clipped to the part of the tire that has swung
+     * out past the lateral offset.
+     *
+     * @param line The foot or toe line.
+     * @param center The front wheel center.
+     * @param radius The tire radius.
+     * @param steer The steering angle in radians.
+     * @return True if the line touches the tire.
+     */
+    private boolean hitsSteeredTire(Line2D line, Point2D center, double radius, double steer) {
+
+        double cx = center.getX();
+        double scale = 1 / Math.cos(steer);
+
+        double x1 = cx + (line.getX1() - cx) * scale;
+        double y1 = line.getY1();
+        double x2 = cx + (line.getX2() - cx) * scale;
+        double y2 = line.getY2();
+
+        //tire points behind this are outside the lateral offset
+        double limitX = cx - _lateralOffset / Math.sin(steer);
+
+        if (x1 > limitX && x2 > limitX) {
+            return false;
+        }
+
+        //clip to the limit
+        if (x1 > limitX) {
+            double t = (limitX - x2) / (x1 - x2);
+            y1 = y2 + t * (y1 - y2);
+            x1 = limitX;
+        } else if (x2 > limitX) {
+            double t = (limitX - x1) / (x2 - x1);
+            y2 = y1 + t * (y2 - y1);
+            x2 = limitX;
+        }
+
+        Point2D sp = new Point2D.Double(x1, y1);
+        Point2D ep = new Point2D.Double(x2, y2);
+
+        //inside the tire
+        double rSq = radius * radius;
+        if (sp.distanceSq(center) <= rSq || ep.distanceSq(center) <= rSq) {
+            return true;
+        }
+
+        //crosses the tire
+        IntersectionPoint ip = Utilities.lineCircleIntersect(sp, ep, center, radius);
+
+        return ip.result() != IntersectionPointResult.FAILURE;
+    }
+
+    /**
+     * Get the length of a line.
+     *
+     * @param line The line.
+     * @return The length.
+     */
+    private static double lineLength(Line2D line) {
+        return line.getP1().distance(line.getP2());
+    }
+
+}
@@ -0,0 +1,238 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2020 Tom.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.bicycleGeometryWorkshop.analysis;
+
+import java.awt.BorderLayout;
+import java.awt.Dimension;
+import java.awt.FlowLayout;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.ArrayList;
+import javax.swing.JButton;
+import javax.swing.JDialog;
+import javax.swing.JFrame;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTable;
+import javax.swing.JTextField;
+import javax.swing.SwingWorker;
+import javax.swing.table.DefaultTableModel;
+import org.bicycleGeometryWorkshop.components.Bicycle;
+import org.bicycleGeometryWorkshop.components.RiderMeasurements;
+import org.bicycleGeometryWorkshop.components.RiderPose;
+import org.bicycleGeometryWorkshop.diagnostics.Log;
+import org.bicycleGeometryWorkshop.diagnostics.Logger;
+
+/**
+ * Collision dialog.  Runs the toe overlap and pedal clearance check on all the
+ * bicycles of the project in the background and lists the results.
+ *
+ * @author Tom
+ */
+public class CollisionDialog extends JDialog {
+
+    private static final Logger LOG = Log.getLogger(CollisionDialog.class);
+
+    private ArrayList<Bicycle> _bicycles;
+    private RiderMeasurements _rider;
+    private RiderPose _pose;
+
+    private DefaultTableModel _resultModel;
+
+    private JTextField _maxSteerField;
+    private JTextField _offsetField;
+    private JButton _runButton;
+    private JLabel _status;
+
+    /**
+     * Class constructor.
+     *
+     * @param owner The owner frame.
+     * @param bicycles The bicycles to check.
+     * @param rider The project rider measurements.
+     * @param pose The project rider pose.
+     */
+    public CollisionDialog(JFrame owner, ArrayList<Bicycle> bicycles, RiderMeasurements rider, RiderPose pose) {
+        super(owner, true);
+
+        _bicycles = bicycles;
+        _rider = rider;
+        _pose = pose;
+
+        init();
+        runAnalysis();
+
+    }
+
+    /**
+     * Initialize the components and do the layout.
+     */
+    private void init() {
+
+        this.setTitle("Collision Check");
+        this.setLayout(new BorderLayout());
+
+        String[] resultHeads = {"Bicycle", "Toe Overlap", "Contact Steer", "Contact Crank", "Pedal Clearance", "Sweep"};
+        _resultModel = new DefaultTableModel(resultHeads, 0) {
+
+            @Override
+            public boolean isCellEditable(int row, int col) {
+                return false;
+            }
+
+        };
+
+        JTable resultTable = new JTable(_resultModel);
+        JScrollPane resultScroll = new JScrollPane(resultTable);
+        resultScroll.setPreferredSize(new Dimension(640, 300));
+
+        //controls
+        _maxSteerField = new JTextField("45", 4);
+        _offsetField = new JTextField("70", 4);
+        _offsetField.setToolTipText("Distance from the bicycle centerline to the inside of the shoe, less half the tire width (mm).");
+        _status = new JLabel(" ");
+
+        _runButton = new JButton("Run");
+        JButton closeButton = new JButton("Close");
+
+        //run action
+        ActionListener runAction = (ActionEvent ev) -> {
+            runAnalysis();
+        };
+        _runButton.addActionListener(runAction);
+
+        //close action
+        ActionListener closeAction = (ActionEvent ev) -> {
+            this.setVisible(false);
+        };
+        closeButton.addActionListener(closeAction);
+
+        JPanel controlPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        controlPanel.add(new JLabel("Max Steer"));
+        controlPanel.add(_maxSteerField);
+        controlPanel.add(new JLabel("Lateral Offset"));
+        controlPanel.add(_offsetField);
+        controlPanel.add(_runButton);
+        controlPanel.add(closeButton);
+
+        JPanel southPanel = new JPanel(new BorderLayout());
+        southPanel.add(controlPanel, BorderLayout.CENTER);
+        southPanel.add(_status, BorderLayout.SOUTH);
+
+        this.add(resultScroll, BorderLayout.CENTER);
+        this.add(southPanel, BorderLayout.SOUTH);
+
+        this.pack();
+        this.setLocationRelativeTo(this.getOwner());
+
+    }
+
+    /**
+     * Build the analysis from the dialog and run it in the background.
+     */
+    private void runAnalysis() {
+
+        double maxSteer;
+        double offset;
+        try {
+            maxSteer = Double.parseDouble(_maxSteerField.getText().trim());
+            offset = Double.parseDouble(_offsetField.getText().trim());
+        } catch (NumberFormatException ex) {
+            _status.setText("Invalid steering angle or offset.");
+            return;
+        }
+
+        //copy the bicycles here on the UI thread
+        CollisionAnalysis analysis = new CollisionAnalysis(_bicycles, _rider, _pose);
+        analysis.setMaxSteer(maxSteer);
+        analysis.setLateralOffset(offset);
+
+        _runButton.setEnabled(false);
+        _resultModel.setRowCount(0);
+        _status.setText("Running...");
+
+        long start = System.currentTimeMillis();
+
+        SwingWorker<ArrayList<CollisionResult>, Void> worker = new SwingWorker<ArrayList<CollisionResult>, Void>() {
+
+            @Override
+            protected ArrayList<CollisionResult> doInBackground() throws Exception {
+                return analysis.run();
+            }
+
+            @Override
+            protected void done() {
+
+                _runButton.setEnabled(true);
+
+                try {
+                    ArrayList<CollisionResult> results = get();
+                    showResults(results);
+                    _status.setText(String.format("%d bicycles in %.2f s", results.size(), (System.currentTimeMillis() - start) / 1000.0));
+                } catch (Exception ex) {
+                    _status.setText("Collision check failed: " + ex.getMessage());
+                    LOG.error(ex.getMessage(), ex);
+                }
+            }
+
+        };
+
+        worker.execute();
+
+    }
+
+    /**
+     * List the results.
+     *
+     * @param results The result of each bicycle.
+     */
+    private void showResults(ArrayList<CollisionResult> results) {
+
+        for (CollisionResult r : results) {
+
+            Object[] row = new Object[6];
+            row[0] = r.getBicycleName();
+            row[1] = format(r.getToeOverlap());
+            row[2] = r.hasToeContact() ? format(r.getOverlapSteerAngle()) : "None";
+            row[3] = r.hasToeContact() ? format(r.getOverlapCrankAngle()) : "";
+            row[4] = format(r.getPedalClearance());
+            row[5] = r.isPruned() ? "Skipped" : Integer.toString(r.getSweepSteps());
+
+            _resultModel.addRow(row);
+        }
+
+    }
+
+    /**
+     * Format a result value.
+     *
+     * @param value The value.
+     * @return The formatted value.
+     */
+    private String format(double value) {
+        return String.format("%.1f", value);
+    }
+
+}
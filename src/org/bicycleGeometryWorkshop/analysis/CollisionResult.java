@@ -0,0 +1,143 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2020 Tom.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.bicycleGeometryWorkshop.analysis;
+
+/**
+ * The collision check result of one bicycle.  Angles are in degrees and
+ * distances in the model units (mm).
+ *
+ * @author Tom
+ */
+public class CollisionResult {
+
+    private String _bicycleName;
+
+    private boolean _pruned;
+    private double _toeOverlap;
+    private double _overlapSteerAngle;
+    private double _overlapCrankAngle;
+    private double _pedalClearance;
+    private int _sweepSteps;
+
+    /**
+     * Class constructor.
+     *
+     * @param bicycleName The name of the bicycle.
+     * @param pruned True if the foot can't reach the front wheel and the sweep was skipped.
+     * @param toeOverlap The side view overlap of the foot and the front tire.
+     * @param overlapSteerAngle The smallest steering angle with contact, or NaN for none.
+     * @param overlapCrankAngle The crank angle of the contact, or NaN for none.
+     * @param pedalClearance The lowest pedal or crank height above the ground.
+     * @param sweepSteps The number of crank positions rebuilt and tested.
+     */
+    CollisionResult(String bicycleName, boolean pruned, double toeOverlap, double overlapSteerAngle,
+            double overlapCrankAngle, double pedalClearance, int sweepSteps) {
+
+        _bicycleName = bicycleName;
+        _pruned = pruned;
+        _toeOverlap = toeOverlap;
+        _overlapSteerAngle = overlapSteerAngle;
+        _overlapCrankAngle = overlapCrankAngle;
+        _pedalClearance = pedalClearance;
+        _sweepSteps = sweepSteps;
+
+    }
+
+    /**
+     * Get the name of the bicycle.
+     *
+     * @return The bicycle name.
+     */
+    public String getBicycleName() {
+        return _bicycleName;
+    }
+
+    /**
+     * Check if the bicycle was rejected by the broad phase (the foot can't reach
+     * the front wheel at any crank angle).
+     *
+     * @return True if the crank sweep was skipped.
+     */
+    public boolean isPruned() {
+        return _pruned;
+    }
+
+    /**
+     * Get the side view toe overlap - the greatest distance the foot reaches
+     * into the front tire circle with the wheel straight.
+     *
+     * @return The overlap, or 0 for none.
+     */
+    public double getToeOverlap() {
+        return _toeOverlap;
+    }
+
+    /**
+     * Check if the foot hits the front tire within the steering sweep.
+     *
+     * @return True if there is contact.
+     */
+    public boolean hasToeContact() {
+        return !Double.isNaN(_overlapSteerAngle);
+    }
+
+    /**
+     * Get the smallest steering angle at which the foot hits the front tire.
+     *
+     * @return The steering angle in degrees, or NaN if there is no contact.
+     */
+    public double getOverlapSteerAngle() {
+        return _overlapSteerAngle;
+    }
+
+    /**
+     * Get the crank angle of the first contact.
+     *
+     * @return The crank angle in degrees, or NaN if there is no contact.
+     */
+    public double getOverlapCrankAngle() {
+        return _overlapCrankAngle;
+    }
+
+    /**
+     * Get the lowest height of the cranks and pedals above the ground over a
+     * full crank revolution (upright, no lean).  Negative values hit the ground.
+     *
+     * @return The pedal clearance.
+     */
+    public double getPedalClearance() {
+        return _pedalClearance;
+    }
+
+    /**
+     * Get the number of crank positions that were rebuilt and tested (the
+     * others were rejected by the broad phase).
+     *
+     * @return The number of sweep steps (0 if pruned).
+     */
+    public int getSweepSteps() {
+        return _sweepSteps;
+    }
+
+}
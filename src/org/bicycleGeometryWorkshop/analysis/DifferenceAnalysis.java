@@ -0,0 +1,119 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2020 Tom.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.bicycleGeometryWorkshop.analysis;
+
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import org.bicycleGeometryWorkshop.components.Bicycle;
+import org.bicycleGeometryWorkshop.components.KeyPoint;
+
+/**
+ * Geometric differences between bicycles.  The key points of each bicycle
+ * (see KeyPoint) are compared to a reference bicycle, and a pairwise distance
+ * matrix is built for all the bicycles.  The distance between two bicycles is
+ * the root mean square of the distances between their key points.
+ * The matrix rows are split between threads (see DistanceMatrix).
+ *
+ * @author Tom
+ */
+public class DifferenceAnalysis {
+
+    private ArrayList<String> _names;
+    private double[][] _points;
+    private int _reference;
+    private int _threads;
+
+    /**
+     * Class constructor.  The key points are read here, so this must be called
+     * on the thread that owns the bicycles (the UI thread for project
+     * bicycles).  run() can then be called from any thread.
+     *
+     * @param bicycles The bicycles to compare.
+     * @param reference The index of the reference bicycle.
+     */
+    public DifferenceAnalysis(ArrayList<Bicycle> bicycles, int reference) {
+
+        int count = bicycles.size();
+        KeyPoint[] keys = KeyPoint.values();
+
+        _names = new ArrayList();
+        _points = new double[count][keys.length * 2];
+
+        for (int i = 0; i < count; i++) {
+
+            Bicycle b = bicycles.get(i);
+            _names.add(b.getBicycleName());
+
+            for (int k = 0; k < keys.length; k++) {
+                Point2D p = b.getKeyPoint(keys[k]);
+                _points[i][k * 2] = p.getX();
+                _points[i][k * 2 + 1] = p.getY();
+            }
+        }
+
+        _reference = Math.max(0, Math.min(count - 1, reference));
+        _threads = Runtime.getRuntime().availableProcessors();
+
+    }
+
+    /**
+     * Set the number of threads for the distance matrix.
+     *
+     * @param threads The number of threads.
+     */
+    public void setThreads(int threads) {
+        _threads = Math.max(1, threads);
+    }
+
+    /**
+     * Compute the deltas to the reference and the distance matrix.
+     *
+     * @return The result.
+     * @throws InterruptedException Thrown if the thread is interrupted while running.
+     * @throws Exception Thrown if a thread fails.
+     */
+    public DifferenceResult run() throws InterruptedException, Exception {
+
+        int count = _points.length;
+        int values = KeyPoint.values().length * 2;
+
+        //deltas to the reference
+        double[][] deltas = new double[count][values];
+
+        if (count > 0) {
+            double[] ref = _points[_reference];
+            for (int i = 0; i < count; i++) {
+                for (int v = 0; v < values; v++) {
+                    deltas[i][v] = _points[i][v] - ref[v];
+                }
+            }
+        }
+
+        //pairwise matrix - root mean square of the key point distances
+        double[][] matrix = DistanceMatrix.compute(_points, KeyPoint.values().length, _threads);
+
+        return new DifferenceResult(_names, _reference, deltas, matrix);
+    }
+
+}
@@ -0,0 +1,280 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2020 Tom.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.bicycleGeometryWorkshop.analysis;
+
+import java.awt.BorderLayout;
+import java.awt.Dimension;
+import java.awt.FlowLayout;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import javax.swing.JButton;
+import javax.swing.JCheckBox;
+import javax.swing.JDialog;
+import javax.swing.JFrame;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTabbedPane;
+import javax.swing.JTable;
+import javax.swing.SwingWorker;
+import javax.swing.table.DefaultTableModel;
+import org.bicycleGeometryWorkshop.components.Bicycle;
+import org.bicycleGeometryWorkshop.components.KeyPoint;
+import org.bicycleGeometryWorkshop.geometry.Utilities;
+import org.bicycleGeometryWorkshop.diagnostics.Log;
+import org.bicycleGeometryWorkshop.diagnostics.Logger;
+
+/**
+ * Difference dialog.  Compares the key points of all the bicycles of the
+ * project to a reference bicycle, and builds the pairwise distance matrix in
+ * the background.
+ *
+ * @author Tom
+ */
+public class DifferenceDialog extends JDialog {
+
+    private static final Logger LOG = Log.getLogger(DifferenceDialog.class);
+
+    private String _referenceName;
+    private DifferenceAnalysis _analysis;
+
+    private DifferenceResult _result;
+
+    private DefaultTableModel _deltaModel;
+    private DefaultTableModel _matrixModel;
+
+    private JCheckBox _overlayBox;
+    private JButton _runButton;
+    private JLabel _status;
+
+    /**
+     * Class constructor.
+     *
+     * @param owner The owner frame.
+     * @param bicycles The bicycles to compare.  The key points are read here,
+     * the bicycles are not kept.
+     * @param reference The index of the reference bicycle.
+     */
+    public DifferenceDialog(JFrame owner, ArrayList<Bicycle> bicycles, int reference) {
+        super(owner, true);
+
+        _referenceName = bicycles.get(reference).getBicycleName();
+        _analysis = new DifferenceAnalysis(bicycles, reference);
+        _result = null;
+
+        init();
+        runAnalysis();
+
+    }
+
+    /**
+     * Get the result shown in the dialog.
+     *
+     * @return The result or null if the analysis has not finished.
+     */
+    public DifferenceResult getResult() {
+        return _result;
+    }
+
+    /**
+     * Check if the differences should be overlaid on the bicycles.
+     *
+     * @return True to show the overlay.
+     */
+    public boolean isOverlayEnabled() {
+        return _overlayBox.isSelected();
+    }
+
+    /**
+     * Initialize the components and do the layout.
+     */
+    private void init() {
+
+        this.setTitle("Difference - " + _referenceName);
+        this.setLayout(new BorderLayout());
+
+        //deltas to the reference
+        KeyPoint[] keys = KeyPoint.values();
+        String[] deltaHeads = new String[keys.length + 2];
+        deltaHeads[0] = "Bicycle";
+        deltaHeads[1] = "RMS";
+        for (int k = 0; k < keys.length; k++) {
+            deltaHeads[k + 2] = keys[k].name();
+        }
+
+        _deltaModel = new DefaultTableModel(deltaHeads, 0) {
+
+            @Override
+            public boolean isCellEditable(int row, int col) {
+                return false;
+            }
+
+        };
+
+        JTable deltaTable = new JTable(_deltaModel);
+        JScrollPane deltaScroll = new JScrollPane(deltaTable);
+        deltaScroll.setPreferredSize(new Dimension(720, 300));
+
+        //pairwise distances
+        _matrixModel = new DefaultTableModel() {
+
+            @Override
+            public boolean isCellEditable(int row, int col) {
+                return false;
+            }
+
+        };
+
+        JTable matrixTable = new JTable(_matrixModel);
+        matrixTable.setAutoResizeMode(JTable.AUTO_RESIZE_OFF);
+        JScrollPane matrixScroll = new JScrollPane(matrixTable);
+
+        JTabbedPane tabs = new JTabbedPane();
+        tabs.addTab("Reference", deltaScroll);
+        tabs.addTab("Distance Matrix", matrixScroll);
+
+        //controls
+        _overlayBox = new JCheckBox("Show Overlay", true);
+        _status = new JLabel(" ");
+
+        _runButton = new JButton("Run");
+        JButton closeButton = new JButton("Close");
+
+        //run action
+        ActionListener runAction = (ActionEvent ev) -> {
+            runAnalysis();
+        };
+        _runButton.addActionListener(runAction);
+
+        //close action
+        ActionListener closeAction = (ActionEvent ev) -> {
+            this.setVisible(false);
+        };
+        closeButton.addActionListener(closeAction);
+
+        JPanel controlPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        controlPanel.add(_overlayBox);
+        controlPanel.add(_runButton);
+        controlPanel.add(closeButton);
+
+        JPanel southPanel = new JPanel(new BorderLayout());
+        southPanel.add(controlPanel, BorderLayout.CENTER);
+        southPanel.add(_status, BorderLayout.SOUTH);
+
+        this.add(tabs, BorderLayout.CENTER);
+        this.add(southPanel, BorderLayout.SOUTH);
+
+        this.pack();
+        this.setLocationRelativeTo(this.getOwner());
+
+    }
+
+    /**
+     * Run the analysis in the background.
+     */
+    private void runAnalysis() {
+
+        DifferenceAnalysis analysis = _analysis;
+
+        _runButton.setEnabled(false);
+        _deltaModel.setRowCount(0);
+        _status.setText("Running...");
+
+        long start = System.currentTimeMillis();
+
+        SwingWorker<DifferenceResult, Void> worker = new SwingWorker<DifferenceResult, Void>() {
+
+            @Override
+            protected DifferenceResult doInBackground() throws Exception {
+                return analysis.run();
+            }
+
+            @Override
+            protected void done() {
+
+                _runButton.setEnabled(true);
+
+                try {
+                    _result = get();
+                    showResult(_result);
+                    _status.setText(String.format("%d bicycles in %.2f s", _result.getCount(), (System.currentTimeMillis() - start) / 1000.0));
+                } catch (Exception ex) {
+                    _status.setText("Difference analysis failed: " + ex.getMessage());
+                    LOG.error(ex.getMessage(), ex);
+                }
+            }
+
+        };
+
+        worker.execute();
+
+    }
+
+    /**
+     * List the result.
+     *
+     * @param result The result.
+     */
+    private void showResult(DifferenceResult result) {
+
+        KeyPoint[] keys = KeyPoint.values();
+        int count = result.getCount();
+        int reference = result.getReference();
+
+        for (int i = 0; i < count; i++) {
+
+            Object[] row = new Object[keys.length + 2];
+            row[0] = result.getName(i);
+            row[1] = Utilities.formatLengthDisplayUnits(result.getDistance(i, reference));
+
+            for (int k = 0; k < keys.length; k++) {
+                Point2D delta = result.getDelta(i, keys[k]);
+                row[k + 2] = Utilities.formatLengthDisplayUnits(delta.distance(0, 0));
+            }
+
+            _deltaModel.addRow(row);
+        }
+
+        //matrix - names down the first column
+        Object[] heads = new Object[count + 1];
+        Object[][] rows = new Object[count][count + 1];
+        heads[0] = "Bicycle";
+
+        for (int i = 0; i < count; i++) {
+
+            heads[i + 1] = result.getName(i);
+            rows[i][0] = result.getName(i);
+
+            for (int j = 0; j < count; j++) {
+                rows[i][j + 1] = Utilities.formatLengthDisplayUnits(result.getDistance(i, j));
+            }
+        }
+
+        _matrixModel.setDataVector(rows, heads);
+
+    }
+
+}
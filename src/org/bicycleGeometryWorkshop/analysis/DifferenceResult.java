@@ -0,0 +1,144 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2020 Tom.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.bicycleGeometryWorkshop.analysis;
+
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import org.bicycleGeometryWorkshop.components.KeyPoint;
+
+/**
+ * The result of a difference analysis: the key point deltas of each bicycle
+ * to the reference bicycle, and the pairwise distance matrix.
+ *
+ * @author Tom
+ */
+public class DifferenceResult {
+
+    private ArrayList<String> _names;
+    private int _reference;
+    private double[][] _deltas;
+    private double[][] _matrix;
+
+    /**
+     * Class constructor.
+     *
+     * @param names The bicycle names.
+     * @param reference The index of the reference bicycle.
+     * @param deltas The key point deltas [bicycle][key point x, y].
+     * @param matrix The distance matrix [bicycle][bicycle].
+     */
+    public DifferenceResult(ArrayList<String> names, int reference, double[][] deltas, double[][] matrix) {
+
+        _names = names;
+        _reference = reference;
+        _deltas = deltas;
+        _matrix = matrix;
+
+    }
+
+    /**
+     * Get the number of bicycles.
+     *
+     * @return The number of bicycles.
+     */
+    public int getCount() {
+        return _names.size();
+    }
+
+    /**
+     * Get the name of a bicycle.
+     *
+     * @param index The bicycle index.
+     * @return The name.
+     */
+    public String getName(int index) {
+        return _names.get(index);
+    }
+
+    /**
+     * Get the index of the reference bicycle.
+     *
+     * @return The index.
+     */
+    public int getReference() {
+        return _reference;
+    }
+
+    /**
+     * Get the delta of a key point from the reference bicycle.
+     *
+     * @param index The bicycle index.
+     * @param point The key point.
+     * @return The delta (x, y).
+     */
+    public Point2D getDelta(int index, KeyPoint point) {
+
+        int k = point.ordinal() * 2;
+
+        return new Point2D.Double(_deltas[index][k], _deltas[index][k + 1]);
+    }
+
+    /**
+     * Get the distance between two bicycles - the root mean square of the
+     * distances between their key points.
+     *
+     * @param i The first bicycle index.
+     * @param j The second bicycle index.
+     * @return The distance.
+     */
+    public double getDistance(int i, int j) {
+        return _matrix[i][j];
+    }
+
+    /**
+     * Get the distance matrix.  Don't change it.
+     *
+     * @return The matrix [bicycle][bicycle].
+     */
+    public double[][] getMatrix() {
+        return _matrix;
+    }
+
+    /**
+     * Get the bicycle nearest to another.
+     *
+     * @param index The bicycle index.
+     * @return The index of the nearest bicycle, or -1 if there is only one bicycle.
+     */
+    public int getNearest(int index) {
+
+        int nearest = -1;
+        double best = Double.MAX_VALUE;
+
+        for (int j = 0; j < _matrix.length; j++) {
+            if (j != index && _matrix[index][j] < best) {
+                best = _matrix[index][j];
+                nearest = j;
+            }
+        }
+
+        return nearest;
+    }
+
+}
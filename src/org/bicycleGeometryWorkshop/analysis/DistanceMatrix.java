@@ -0,0 +1,129 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2020 Tom.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.bicycleGeometryWorkshop.analysis;
+
+import java.util.ArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Pairwise distances between rows of values.  The distance between two rows
+ * is the square root of the sum of the squared differences over a divisor
+ * (the number of values for a root mean square).
+ * <p>
+ * The rows are split between threads in blocks.  Each task fills the upper
+ * half of its rows and mirrors them, so no two threads write the same cell.
+ *
+ * @author Tom
+ */
+class DistanceMatrix {
+
+    //rows per task - small enough to balance the triangle between threads
+    private static final int ROWS_PER_TASK = 8;
+
+    /**
+     * Compute the distance matrix.
+     *
+     * @param values The values [row][value].  All the rows must be the same length.
+     * @param divisor The divisor of the sum of squares.
+     * @param threads The number of threads.
+     * @return The matrix [row][row].
+     * @throws InterruptedException Thrown if the thread is interrupted while running.
+     * @throws Exception Thrown if a thread fails.
+     */
+    static double[][] compute(double[][] values, double divisor, int threads) throws InterruptedException, Exception {
+
+        int count = values.length;
+        double[][] matrix = new double[count][count];
+
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, threads));
+
+        try {
+
+            ArrayList<Future<?>> futures = new ArrayList();
+
+            for (int start = 0; start < count; start += ROWS_PER_TASK) {
+
+                int first = start;
+                int last = Math.min(count, start + ROWS_PER_TASK);
+
+                futures.add(pool.submit(() -> {
+                    fillRows(values, divisor, matrix, first, last);
+                    return null;
+                }));
+            }
+
+            for (Future<?> future : futures) {
+                future.get();
+            }
+
+        } finally {
+            pool.shutdownNow();
+        }
+
+        return matrix;
+    }
+
+    /**
+     * Fill the upper half of a range of matrix rows and mirror it.
+     *
+     * @param values The values.
+     * @param divisor The divisor of the sum of squares.
+     * @param matrix The matrix.
+     * @param first The first row.
+     * @param last The row after the last row.
+     * @throws InterruptedException Thrown if the thread is interrupted.
+     */
+    private static void fillRows(double[][] values, double divisor, double[][] matrix, int first, int last) throws InterruptedException {
+
+        int count = values.length;
+
+        for (int i = first; i < last; i++) {
+
+            if (Thread.currentThread().isInterrupted()) {
+                throw new InterruptedException();
+            }
+
+            double[] a = values[i];
+
+            for (int j = i + 1; j < count; j++) {
+
+                double[] b = values[j];
+                double sum = 0;
+
+                for (int v = 0; v < a.length; v++) {
+                    double d = a[v] - b[v];
+                    sum += d * d;
+                }
+
+                double dist = Math.sqrt(sum / divisor);
+                matrix[i][j] = dist;
+                matrix[j][i] = dist;
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,317 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2020 Tom.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.bicycleGeometryWorkshop.analysis;
+
+import java.awt.BorderLayout;
+import java.awt.FlowLayout;
+import java.awt.GridLayout;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.ArrayList;
+import javax.swing.BorderFactory;
+import javax.swing.JButton;
+import javax.swing.JCheckBox;
+import javax.swing.JDialog;
+import javax.swing.JFrame;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTextArea;
+import javax.swing.JTextField;
+import javax.swing.SwingWorker;
+import org.bicycleGeometryWorkshop.app.BGWProject;
+import org.bicycleGeometryWorkshop.components.Bicycle;
+import org.bicycleGeometryWorkshop.components.RiderMeasurements;
+import org.bicycleGeometryWorkshop.components.RiderPose;
+import org.bicycleGeometryWorkshop.database.DataBaseKeys;
+import org.bicycleGeometryWorkshop.report.Report;
+import org.bicycleGeometryWorkshop.report.ReportField;
+import org.bicycleGeometryWorkshop.diagnostics.Log;
+import org.bicycleGeometryWorkshop.diagnostics.Logger;
+
+/**
+ * Fit dialog.  The user enters target rider angles and picks the setup
+ * parameters to vary, the FitSolver proposes values and they can be applied
+ * to the bicycle.
+ *
+ * @author Tom
+ */
+public class FitDialog extends JDialog {
+
+    private static final Logger LOG = Log.getLogger(FitDialog.class);
+
+    //target fields offered in the dialog
+    private static final ReportField[] TARGET_FIELDS = {ReportField.RKnee, ReportField.TorsoH, ReportField.Elbow};
+
+    private BGWProject _project;
+    private Bicycle _bicycle;
+    private RiderMeasurements _rider;
+    private RiderPose _pose;
+
+    private JCheckBox[] _targetChecks;
+    private JTextField[] _targetValues;
+
+    private ArrayList<FitParameter> _paramOptions;
+    private ArrayList<JCheckBox> _paramChecks;
+
+    private JTextArea _resultText;
+    private JButton _solveButton;
+    private JButton _applyButton;
+
+    private FitSolver _solver;
+    private FitResult _result;
+
+    /**
+     * Class constructor.
+     *
+     * @param owner The owner frame.
+     * @param project The project (rider, pose and undo).
+     * @param bicycle The bicycle to fit.
+     */
+    public FitDialog(JFrame owner, BGWProject project, Bicycle bicycle) {
+        super(owner, true);
+
+        _project = project;
+        _bicycle = bicycle;
+        _rider = project.getRiderSize();
+        _pose = project.getRiderPose();
+
+        _solver = null;
+        _result = null;
+
+        init();
+
+    }
+
+    /**
+     * Initialize the components and do the layout.
+     */
+    private void init() {
+
+        this.setTitle("Fit - " + _bicycle.getBicycleName());
+        this.setLayout(new BorderLayout());
+
+        //targets - default to the current values
+        Report report = _bicycle.getReport();
+
+        JPanel targetPanel = new JPanel(new GridLayout(TARGET_FIELDS.length, 2, 4, 4));
+        targetPanel.setBorder(BorderFactory.createTitledBorder("Targets (degrees)"));
+
+        _targetChecks = new JCheckBox[TARGET_FIELDS.length];
+        _targetValues = new JTextField[TARGET_FIELDS.length];
+
+        for (int i = 0; i < TARGET_FIELDS.length; i++) {
+
+            double value = report.getValue(TARGET_FIELDS[i]);
+
+            _targetChecks[i] = new JCheckBox(TARGET_FIELDS[i].name(), true);
+            _targetValues[i] = new JTextField(Double.isNaN(value) ? "" : String.format("%.1f", value));
+
+            targetPanel.add(_targetChecks[i]);
+            targetPanel.add(_targetValues[i]);
+        }
+
+        //parameters - bounded to a practical fitting range
+        _paramOptions = new ArrayList();
+        _paramOptions.add(new FitParameter(DataBaseKeys.SEATPOST.toString(), "Height", 0, 400));
+        _paramOptions.add(new FitParameter(DataBaseKeys.SADDLE.toString(), "MountOffset", -50, 50));
+        _paramOptions.add(new FitParameter(DataBaseKeys.STEM.toString(), "Length", 40, 160));
+        _paramOptions.add(new FitParameter(DataBaseKeys.STEM.toString(), "Angle", -40, 40));
+        _paramOptions.add(new FitParameter(DataBaseKeys.STEM.toString(), "Spacer", 0, 60));
+        _paramOptions.add(new FitParameter(DataBaseKeys.POSE.toString(), "ArmAngle", 0, 90));
+
+        JPanel paramPanel = new JPanel(new GridLayout(_paramOptions.size(), 1));
+        paramPanel.setBorder(BorderFactory.createTitledBorder("Vary"));
+
+        _paramChecks = new ArrayList();
+        for (FitParameter param : _paramOptions) {
+
+            //the pose is shared by all bicycles and the stem angle is usually fixed - off by default
+            boolean checked = !param.getTableName().equals(DataBaseKeys.POSE.toString()) && !param.getAttributeName().equals("Angle");
+
+            JCheckBox check = new JCheckBox(param.toString() + " [" + param.getMin() + ", " + param.getMax() + "]", checked);
+            _paramChecks.add(check);
+            paramPanel.add(check);
+        }
+
+        JPanel inputPanel = new JPanel(new BorderLayout());
+        inputPanel.add(targetPanel, BorderLayout.NORTH);
+        inputPanel.add(paramPanel, BorderLayout.CENTER);
+
+        _resultText = new JTextArea(8, 36);
+        _resultText.setEditable(false);
+
+        _solveButton = new JButton("Solve");
+        _applyButton = new JButton("Apply");
+        _applyButton.setEnabled(false);
+        JButton closeButton = new JButton("Close");
+
+        //solve action
+        ActionListener solveAction = (ActionEvent ev) -> {
+            solve();
+        };
+        _solveButton.addActionListener(solveAction);
+
+        //apply action
+        ActionListener applyAction = (ActionEvent ev) -> {
+            applyResult();
+        };
+        _applyButton.addActionListener(applyAction);
+
+        //close action
+        ActionListener closeAction = (ActionEvent ev) -> {
+            this.setVisible(false);
+        };
+        closeButton.addActionListener(closeAction);
+
+        JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+        buttonPanel.add(_solveButton);
+        buttonPanel.add(_applyButton);
+        buttonPanel.add(closeButton);
+
+        this.add(inputPanel, BorderLayout.NORTH);
+        this.add(new JScrollPane(_resultText), BorderLayout.CENTER);
+        this.add(buttonPanel, BorderLayout.SOUTH);
+
+        this.pack();
+        this.setLocationRelativeTo(this.getOwner());
+
+    }
+
+    /**
+     * Build the solver from the dialog and run it in the background.
+     */
+    private void solve() {
+
+        _solver = new FitSolver(_bicycle, _rider, _pose);
+        _result = null;
+
+        for (int i = 0; i < TARGET_FIELDS.length; i++) {
+
+            if (_targetChecks[i].isSelected()) {
+                try {
+                    double target = Double.parseDouble(_targetValues[i].getText());
+                    _solver.addTarget(new FitTarget(TARGET_FIELDS[i], target));
+                } catch (NumberFormatException ex) {
+                    _resultText.setText("Invalid target for " + TARGET_FIELDS[i].name());
+                    return;
+                }
+            }
+        }
+
+        for (int i = 0; i < _paramOptions.size(); i++) {
+            if (_paramChecks.get(i).isSelected()) {
+                _solver.addParameter(_paramOptions.get(i));
+            }
+        }
+
+        if (_solver.getParameters().isEmpty()) {
+            _resultText.setText("Select at least one parameter to vary.");
+            return;
+        }
+
+        _solveButton.setEnabled(false);
+        _applyButton.setEnabled(false);
+        _resultText.setText("Solving...");
+
+        FitSolver solver = _solver;
+
+        SwingWorker<FitResult, Void> worker = new SwingWorker<FitResult, Void>() {
+
+            @Override
+            protected FitResult doInBackground() throws Exception {
+                return solver.solve();
+            }
+
+            @Override
+            protected void done() {
+
+                _solveButton.setEnabled(true);
+
+                try {
+                    showResult(solver, get());
+                } catch (Exception ex) {
+                    _resultText.setText("Fit failed: " + ex.getMessage());
+                    LOG.error(ex.getMessage(), ex);
+                }
+            }
+
+        };
+
+        worker.execute();
+
+    }
+
+    /**
+     * Show a result.
+     *
+     * @param solver The solver that produced the result.
+     * @param result The result.
+     */
+    private void showResult(FitSolver solver, FitResult result) {
+
+        //ignore results of a replaced solver
+        if (solver != _solver) {
+            return;
+        }
+
+        _result = result;
+
+        StringBuilder sb = new StringBuilder();
+
+        ArrayList<FitParameter> params = solver.getParameters();
+        for (int i = 0; i < params.size(); i++) {
+            sb.append(String.format("%s = %.1f%n", params.get(i), result.getValue(i)));
+        }
+
+        sb.append(String.format("%n"));
+
+        for (int i = 0; i < TARGET_FIELDS.length; i++) {
+            if (_targetChecks[i].isSelected()) {
+                ReportField f = TARGET_FIELDS[i];
+                sb.append(String.format("%s: %.1f (target %s)%n", f.name(), result.getAchieved(f), _targetValues[i].getText()));
+            }
+        }
+
+        sb.append(String.format("%nError: %.4f  Evaluations: %d", result.getError(), result.getEvaluations()));
+
+        _resultText.setText(sb.toString());
+        _applyButton.setEnabled(true);
+
+    }
+
+    /**
+     * Apply the result to the bicycle as a single undo step.
+     */
+    private void applyResult() {
+
+        if (_solver != null && _result != null) {
+            _project.undoOpenGroup();
+            _solver.apply(_result);
+            _project.undoCloseGroup();
+            _applyButton.setEnabled(false);
+        }
+
+    }
+
+}
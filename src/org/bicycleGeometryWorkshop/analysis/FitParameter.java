@@ -0,0 +1,112 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2020 Tom.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.bicycleGeometryWorkshop.analysis;
+
+/**
+ * A design parameter for the fit solver - a double attribute of the bicycle,
+ * rider or pose identified by its table (AttributeSet) name and attribute name.
+ * The search is bounded by the attribute's min/max unless narrower bounds are given.
+ *
+ * @author Tom
+ */
+public class FitParameter {
+
+    private String _tableName;
+    private String _attName;
+    private double _min;
+    private double _max;
+
+    /**
+     * Class constructor.  The parameter is bounded by the attribute's min/max.
+     *
+     * @param tableName The AttributeSet (table) name, i.e. "Stem".
+     * @param attName The attribute name, i.e. "Length".
+     */
+    public FitParameter(String tableName, String attName) {
+        this(tableName, attName, Double.NaN, Double.NaN);
+    }
+
+    /**
+     * Class constructor with bounds.  The bounds are still held to the
+     * attribute's min/max.
+     *
+     * @param tableName The AttributeSet (table) name, i.e. "Stem".
+     * @param attName The attribute name, i.e. "Length".
+     * @param min The lower bound (NaN to use the attribute minimum).
+     * @param max The upper bound (NaN to use the attribute maximum).
+     */
+    public FitParameter(String tableName, String attName, double min, double max) {
+        _tableName = tableName;
+        _attName = attName;
+        _min = min;
+        _max = max;
+    }
+
+    /**
+     * Get the table (AttributeSet) name.
+     *
+     * @return The table name.
+     */
+    public String getTableName() {
+        return _tableName;
+    }
+
+    /**
+     * Get the attribute name.
+     *
+     * @return The attribute name.
+     */
+    public String getAttributeName() {
+        return _attName;
+    }
+
+    /**
+     * Get the lower bound.
+     *
+     * @return The lower bound or NaN to use the attribute minimum.
+     */
+    public double getMin() {
+        return _min;
+    }
+
+    /**
+     * Get the upper bound.
+     *
+     * @return The upper bound or NaN to use the attribute maximum.
+     */
+    public double getMax() {
+        return _max;
+    }
+
+    /**
+     * Get the display name of the parameter.
+     *
+     * @return The table and attribute name.
+     */
+    @Override
+    public String toString() {
+        return _tableName + "." + _attName;
+    }
+
+}
@@ -0,0 +1,129 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2020 Tom.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.bicycleGeometryWorkshop.analysis;
+
+import java.util.EnumMap;
+import org.bicycleGeometryWorkshop.report.ReportField;
+
+/**
+ * The result of a fit - the proposed parameter values and the report values
+ * they achieve.
+ *
+ * @author Tom
+ */
+public class FitResult {
+
+    private double[] _values;
+    private double _error;
+    private int _evaluations;
+    private EnumMap<ReportField, Double> _achieved;
+
+    /**
+     * Class constructor.
+     *
+     * @param values The parameter values (in the order of the solver parameters).
+     * @param error The remaining error.
+     * @param evaluations The number of evaluations used.
+     */
+    FitResult(double[] values, double error, int evaluations) {
+        _values = values;
+        _error = error;
+        _evaluations = evaluations;
+        _achieved = new EnumMap(ReportField.class);
+    }
+
+    /**
+     * Get a proposed parameter value.
+     *
+     * @param index The parameter index.
+     * @return The value.
+     */
+    public double getValue(int index) {
+        return _values[index];
+    }
+
+    /**
+     * Get the number of parameter values.
+     *
+     * @return The number of values.
+     */
+    public int getValueCount() {
+        return _values.length;
+    }
+
+    /**
+     * Get the remaining (weighted squared) error.
+     *
+     * @return The error.
+     */
+    public double getError() {
+        return _error;
+    }
+
+    /**
+     * Get the number of bicycle evaluations used.
+     *
+     * @return The number of evaluations.
+     */
+    public int getEvaluations() {
+        return _evaluations;
+    }
+
+    /**
+     * Set the number of bicycle evaluations used.
+     *
+     * @param evaluations The number of evaluations.
+     */
+    void setEvaluations(int evaluations) {
+        _evaluations = evaluations;
+    }
+
+    /**
+     * Get the value achieved for a target field.
+     *
+     * @param field The target field.
+     * @return The achieved value or NaN if the field was not a target.
+     */
+    public double getAchieved(ReportField field) {
+
+        Double value = _achieved.get(field);
+
+        if (value == null) {
+            return Double.NaN;
+        }
+
+        return value;
+    }
+
+    /**
+     * Set the value achieved for a target field.
+     *
+     * @param field The target field.
+     * @param value The achieved value.
+     */
+    void setAchieved(ReportField field, double value) {
+        _achieved.put(field, value);
+    }
+
+}
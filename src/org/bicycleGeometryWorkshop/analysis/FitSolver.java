@@ -0,0 +1,537 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2020 Tom.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.bicycleGeometryWorkshop.analysis;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Random;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.bicycleGeometryWorkshop.attributes.AttributeSet;
+import org.bicycleGeometryWorkshop.attributes.DoubleAttribute;
+import org.bicycleGeometryWorkshop.components.Bicycle;
+import org.bicycleGeometryWorkshop.components.RiderMeasurements;
+import org.bicycleGeometryWorkshop.components.RiderPose;
+import org.bicycleGeometryWorkshop.report.Report;
+import org.bicycleGeometryWorkshop.diagnostics.Log;
+import org.bicycleGeometryWorkshop.diagnostics.Logger;
+
+/**
+ * Inverse fit solver.  Finds values for a set of double attributes (saddle
+ * height, stem length, etc.) that bring the report values (knee, torso and
+ * elbow angles, etc.) as close as possible to a set of targets.
+ * <p>
+ * The solver uses the Nelder-Mead simplex method in a space normalized to the
+ * parameter bounds, so parameters with large ranges don't dominate the search.
+ * Points are held to the bounds.  Several starts are run in parallel on a thread
+ * pool, the first from the current values and the rest from random points, and
+ * the best result is returned.
+ * <p>
+ * Each thread evaluates a private copy of the bicycle (BicycleEvaluator), so the
+ * project is not touched until the result is applied.  The simplex work arrays
+ * are allocated once per start, the search loop itself does not allocate.
+ *
+ * @author Tom
+ */
+public class FitSolver {
+
+    private static final Logger LOG = Log.getLogger(FitSolver.class);
+
+    //error used for poses the geometry can't solve
+    private static final double PENALTY = 1.0e12;
+
+    private static final double REFLECT = 1.0;
+    private static final double EXPAND = 2.0;
+    private static final double CONTRACT = 0.5;
+    private static final double SHRINK = 0.5;
+
+    //size of the initial simplex in normalized units
+    private static final double INITIAL_STEP = 0.1;
+
+    private Bicycle _source;
+    private RiderMeasurements _rider;
+    private RiderPose _pose;
+
+    private ArrayList<FitParameter> _parameters;
+    private ArrayList<FitTarget> _targets;
+
+    private ArrayBlockingQueue<BicycleEvaluator> _evaluators;
+
+    private int _starts;
+    private int _maxEvaluations;
+    private double _tolerance;
+    private long _seed;
+
+    /**
+     * Class constructor using a thread per processor.
+     *
+     * @param source The bicycle to fit.
+     * @param rider The rider measurements.
+     * @param pose The rider pose.
+     */
+    public FitSolver(Bicycle source, RiderMeasurements rider, RiderPose pose) {
+        this(source, rider, pose, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Class constructor.  The bicycle, rider and pose are copied here, so this
+     * must be called on the thread that owns them (the UI thread for project
+     * bicycles).  solve() can then be called from any thread.
+     *
+     * @param source The bicycle to fit.
+     * @param rider The rider measurements.
+     * @param pose The rider pose.
+     * @param threads The number of threads (and bicycle copies) to use.
+     */
+    public FitSolver(Bicycle source, RiderMeasurements rider, RiderPose pose, int threads) {
+
+        _source = source;
+        _rider = rider;
+        _pose = pose;
+
+        _parameters = new ArrayList();
+        _targets = new ArrayList();
+
+        int count = Math.max(1, threads);
+        _evaluators = new ArrayBlockingQueue(count);
+        for (int i = 0; i < count; i++) {
+            _evaluators.add(new BicycleEvaluator(source, rider, pose));
+        }
+
+        _starts = 8;
+        _maxEvaluations = 400;
+        _tolerance = 1.0e-4;
+        _seed = 1;
+
+    }
+
+    /**
+     * Add a parameter to vary.
+     *
+     * @param param The parameter.
+     * @return True if the parameter was added, false if there is no such double attribute.
+     */
+    public boolean addParameter(FitParameter param) {
+
+        if (_evaluators.peek().getDoubleAttribute(param.getTableName(), param.getAttributeName()) == null) {
+            LOG.warn("Fit parameter not found", "parameter", param);
+            return false;
+        }
+
+        _parameters.add(param);
+        return true;
+    }
+
+    /**
+     * Add a target to match.
+     *
+     * @param target The target.
+     */
+    public void addTarget(FitTarget target) {
+        _targets.add(target);
+    }
+
+    /**
+     * Get the parameters in the order of the result values.
+     *
+     * @return The parameters.
+     */
+    public ArrayList<FitParameter> getParameters() {
+        return new ArrayList(_parameters);
+    }
+
+    /**
+     * Set the number of starts (the first start is from the current values).
+     *
+     * @param starts The number of starts.
+     */
+    public void setStarts(int starts) {
+        _starts = Math.max(1, starts);
+    }
+
+    /**
+     * Set the maximum number of bicycle evaluations per start.
+     *
+     * @param maxEvaluations The maximum number of evaluations.
+     */
+    public void setMaxEvaluations(int maxEvaluations) {
+        _maxEvaluations = maxEvaluations;
+    }
+
+    /**
+     * Set the convergence tolerance (spread of the error over the simplex).
+     *
+     * @param tolerance The tolerance.
+     */
+    public void setTolerance(double tolerance) {
+        _tolerance = tolerance;
+    }
+
+    /**
+     * Set the seed of the random starts.
+     *
+     * @param seed The seed.
+     */
+    public void setSeed(long seed) {
+        _seed = seed;
+    }
+
+    /**
+     * Run the fit.
+     *
+     * @return The best result of all the starts.
+     * @throws InterruptedException Thrown if the thread is interrupted while solving.
+     * @throws ExecutionException Thrown if a start fails.
+     */
+    public FitResult solve() throws InterruptedException, ExecutionException {
+
+        int n = _parameters.size();
+
+        if (n == 0 || _targets.isEmpty()) {
+            throw new IllegalStateException("The fit needs at least one parameter and one target.");
+        }
+
+        //bounds and current values (all copies are the same before solving)
+        double[] lo = new double[n];
+        double[] hi = new double[n];
+        double[] current = new double[n];
+
+        BicycleEvaluator first = _evaluators.peek();
+        for (int i = 0; i < n; i++) {
+
+            FitParameter param = _parameters.get(i);
+            DoubleAttribute att = first.getDoubleAttribute(param.getTableName(), param.getAttributeName());
+
+            lo[i] = Double.isNaN(param.getMin()) ? att.getMin() : Math.max(param.getMin(), att.getMin());
+            hi[i] = Double.isNaN(param.getMax()) ? att.getMax() : Math.min(param.getMax(), att.getMax());
+
+            double range = hi[i] - lo[i];
+            current[i] = range > 0 ? clamp((att.getDoubleValue() - lo[i]) / range) : 0;
+        }
+
+        Random random = new Random(_seed);
+        ExecutorService pool = Executors.newFixedThreadPool(_evaluators.size());
+
+        FitResult best = null;
+        int evaluations = 0;
+
+        try {
+
+            ArrayList<Future<FitResult>> futures = new ArrayList();
+
+            for (int s = 0; s < _starts; s++) {
+
+                final double[] start = new double[n];
+                for (int i = 0; i < n; i++) {
+                    start[i] = (s == 0) ? current[i] : random.nextDouble();
+                }
+
+                futures.add(pool.submit(() -> runStart(start, lo, hi)));
+            }
+
+            for (Future<FitResult> future : futures) {
+
+                FitResult result = future.get();
+                evaluations += result.getEvaluations();
+
+                if (best == null || result.getError() < best.getError()) {
+                    best = result;
+                }
+            }
+
+        } finally {
+            pool.shutdownNow();
+        }
+
+        best.setEvaluations(evaluations);
+
+        return best;
+    }
+
+    /**
+     * Apply a result to the source bicycle, rider and pose.  The attributes are
+     * set normally, so the changes are undoable - open an undo group around
+     * the call to undo them in one step.  Call on the UI thread.
+     *
+     * @param result The result to apply.
+     */
+    public void apply(FitResult result) {
+
+        HashMap<String, AttributeSet> sets = BicycleEvaluator.collectSets(_source, _rider, _pose);
+
+        for (int i = 0; i < _parameters.size(); i++) {
+
+            FitParameter param = _parameters.get(i);
+            DoubleAttribute att = BicycleEvaluator.findDoubleAttribute(sets, param.getTableName(), param.getAttributeName());
+
+            if (att != null) {
+                att.setDouble(result.getValue(i));
+            }
+        }
+
+    }
+
+    /**
+     * Run one Nelder-Mead search from a start point.
+     *
+     * @param start The normalized start point.
+     * @param lo The parameter lower bounds.
+     * @param hi The parameter upper bounds.
+     * @return The result of the start.
+     * @throws InterruptedException Thrown if interrupted waiting for an evaluator.
+     */
+    private FitResult runStart(double[] start, double[] lo, double[] hi) throws InterruptedException {
+
+        BicycleEvaluator eval = _evaluators.take();
+
+        try {
+
+            int n = start.length;
+            int m = n + 1;
+
+            DoubleAttribute[] atts = new DoubleAttribute[n];
+            for (int i = 0; i < n; i++) {
+                FitParameter param = _parameters.get(i);
+                atts[i] = eval.getDoubleAttribute(param.getTableName(), param.getAttributeName());
+            }
+
+            FitTarget[] targets = _targets.toArray(new FitTarget[_targets.size()]);
+
+            //work arrays
+            double[][] simplex = new double[m][n];
+            double[] f = new double[m];
+            double[] centroid = new double[n];
+            double[] trial = new double[n];
+            double[] trial2 = new double[n];
+
+            //initial simplex - step along each axis, back if it would leave the bounds
+            for (int j = 0; j < m; j++) {
+
+                System.arraycopy(start, 0, simplex[j], 0, n);
+
+                if (j > 0) {
+                    int axis = j - 1;
+                    simplex[j][axis] += (start[axis] + INITIAL_STEP <= 1.0) ? INITIAL_STEP : -INITIAL_STEP;
+                }
+
+                f[j] = objective(eval, atts, targets, lo, hi, simplex[j]);
+            }
+
+            int evaluations = m;
+
+            while (evaluations < _maxEvaluations && !Thread.currentThread().isInterrupted()) {
+
+                //find best, worst and second worst
+                int best = 0;
+                int worst = 0;
+                for (int j = 1; j < m; j++) {
+                    if (f[j] < f[best]) {
+                        best = j;
+                    }
+                    if (f[j] > f[worst]) {
+                        worst = j;
+                    }
+                }
+
+                int second = best;
+                for (int j = 0; j < m; j++) {
+                    if (j != worst && f[j] > f[second]) {
+                        second = j;
+                    }
+                }
+
+                //converged
+                if (f[worst] - f[best] <= _tolerance) {
+                    break;
+                }
+
+                //centroid of all but the worst
+                for (int i = 0; i < n; i++) {
+
+                    double sum = 0;
+                    for (int j = 0; j < m; j++) {
+                        if (j != worst) {
+                            sum += simplex[j][i];
+                        }
+                    }
+                    centroid[i] = sum / n;
+                }
+
+                //reflect
+                for (int i = 0; i < n; i++) {
+                    trial[i] = clamp(centroid[i] + REFLECT * (centroid[i] - simplex[worst][i]));
+                }
+                double fr = objective(eval, atts, targets, lo, hi, trial);
+                evaluations++;
+
+                if (fr < f[best]) {
+
+                    //expand
+                    for (int i = 0; i < n; i++) {
+                        trial2[i] = clamp(centroid[i] + EXPAND * (trial[i] - centroid[i]));
+                    }
+                    double fe = objective(eval, atts, targets, lo, hi, trial2);
+                    evaluations++;
+
+                    if (fe < fr) {
+                        System.arraycopy(trial2, 0, simplex[worst], 0, n);
+                        f[worst] = fe;
+                    } else {
+                        System.arraycopy(trial, 0, simplex[worst], 0, n);
+                        f[worst] = fr;
+                    }
+
+                } else if (fr < f[second]) {
+
+                    System.arraycopy(trial, 0, simplex[worst], 0, n);
+                    f[worst] = fr;
+
+                } else {
+
+                    //contract - outside if the reflection improved on the worst, inside otherwise
+                    boolean outside = fr < f[worst];
+                    for (int i = 0; i < n; i++) {
+                        double toward = outside ? trial[i] : simplex[worst][i];
+                        trial2[i] = clamp(centroid[i] + CONTRACT * (toward - centroid[i]));
+                    }
+                    double fc = objective(eval, atts, targets, lo, hi, trial2);
+                    evaluations++;
+
+                    if (fc < Math.min(fr, f[worst])) {
+
+                        System.arraycopy(trial2, 0, simplex[worst], 0, n);
+                        f[worst] = fc;
+
+                    } else {
+
+                        //shrink toward the best
+                        for (int j = 0; j < m; j++) {
+
+                            if (j == best) {
+                                continue;
+                            }
+
+                            for (int i = 0; i < n; i++) {
+                                simplex[j][i] = simplex[best][i] + SHRINK * (simplex[j][i] - simplex[best][i]);
+                            }
+                            f[j] = objective(eval, atts, targets, lo, hi, simplex[j]);
+                            evaluations++;
+                        }
+                    }
+                }
+
+            }//end while
+
+            int best = 0;
+            for (int j = 1; j < m; j++) {
+                if (f[j] < f[best]) {
+                    best = j;
+                }
+            }
+
+            double[] values = new double[n];
+            for (int i = 0; i < n; i++) {
+                values[i] = denormalize(simplex[best][i], lo[i], hi[i]);
+            }
+
+            FitResult result = new FitResult(values, f[best], evaluations);
+
+            //re-evaluate the best for the achieved values
+            objective(eval, atts, targets, lo, hi, simplex[best]);
+            Report report = eval.evaluate();
+            for (FitTarget t : targets) {
+                result.setAchieved(t.getField(), report.getValue(t.getField()));
+            }
+
+            return result;
+
+        } finally {
+            _evaluators.put(eval);
+        }
+
+    }
+
+    /**
+     * Evaluate the error at a normalized point.
+     *
+     * @param eval The evaluator.
+     * @param atts The parameter attributes of the evaluator.
+     * @param targets The targets.
+     * @param lo The parameter lower bounds.
+     * @param hi The parameter upper bounds.
+     * @param point The normalized point.
+     * @return The weighted squared error.
+     */
+    private double objective(BicycleEvaluator eval, DoubleAttribute[] atts, FitTarget[] targets, double[] lo, double[] hi, double[] point) {
+
+        for (int i = 0; i < atts.length; i++) {
+            atts[i].setDouble(denormalize(point[i], lo[i], hi[i]));
+        }
+
+        Report report = eval.evaluate();
+
+        double error = 0;
+
+        for (FitTarget t : targets) {
+
+            double value = report.getValue(t.getField());
+
+            //pose could not be solved
+            if (Double.isNaN(value)) {
+                return PENALTY;
+            }
+
+            double diff = value - t.getTarget();
+            error += t.getWeight() * diff * diff;
+        }
+
+        return error;
+    }
+
+    /**
+     * Convert a normalized value to a parameter value.
+     *
+     * @param u The normalized value (0-1).
+     * @param lo The lower bound.
+     * @param hi The upper bound.
+     * @return The parameter value.
+     */
+    private static double denormalize(double u, double lo, double hi) {
+        return lo + u * (hi - lo);
+    }
+
+    /**
+     * Hold a normalized value to 0-1.
+     *
+     * @param u The normalized value.
+     * @return The value in range.
+     */
+    private static double clamp(double u) {
+        return Math.max(0.0, Math.min(1.0, u));
+    }
+
+}
@@ -0,0 +1,91 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2020 Tom.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.bicycleGeometryWorkshop.analysis;
+
+import org.bicycleGeometryWorkshop.report.ReportField;
+
+/**
+ * A target value for the fit solver.  The error of a target is the weighted
+ * squared difference between the report value and the target.  Angles are in
+ * degrees and lengths in mm, so a weight of 1 treats 1 degree the same as 1 mm.
+ *
+ * @author Tom
+ */
+public class FitTarget {
+
+    private ReportField _field;
+    private double _target;
+    private double _weight;
+
+    /**
+     * Class constructor with a weight of 1.
+     *
+     * @param field The report field to match.
+     * @param target The target value.
+     */
+    public FitTarget(ReportField field, double target) {
+        this(field, target, 1.0);
+    }
+
+    /**
+     * Class constructor.
+     *
+     * @param field The report field to match.
+     * @param target The target value.
+     * @param weight The weight of this target in the total error.
+     */
+    public FitTarget(ReportField field, double target, double weight) {
+        _field = field;
+        _target = target;
+        _weight = weight;
+    }
+
+    /**
+     * Get the report field.
+     *
+     * @return The report field.
+     */
+    public ReportField getField() {
+        return _field;
+    }
+
+    /**
+     * Get the target value.
+     *
+     * @return The target value.
+     */
+    public double getTarget() {
+        return _target;
+    }
+
+    /**
+     * Get the weight.
+     *
+     * @return The weight.
+     */
+    public double getWeight() {
+        return _weight;
+    }
+
+}
@@ -0,0 +1,344 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2020 Tom.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.bicycleGeometryWorkshop.analysis;
+
+import java.util.ArrayList;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import org.bicycleGeometryWorkshop.attributes.DoubleAttribute;
+import org.bicycleGeometryWorkshop.components.Bicycle;
+import org.bicycleGeometryWorkshop.components.RiderMeasurements;
+import org.bicycleGeometryWorkshop.components.RiderPose;
+import org.bicycleGeometryWorkshop.report.Report;
+import org.bicycleGeometryWorkshop.report.ReportField;
+import org.bicycleGeometryWorkshop.diagnostics.Log;
+import org.bicycleGeometryWorkshop.diagnostics.Logger;
+
+/**
+ * Monte Carlo tolerance analysis.  Samples frame and rider attributes from their
+ * tolerances, rebuilds the bicycle for each sample and collects the report
+ * values in streaming histograms, so memory stays the same for any number of
+ * samples.
+ * <p>
+ * The samples are split into chunks run on a thread pool.  Each chunk has its
+ * own random stream split from the seed and the chunk count depends only on the
+ * number of samples, so a run is repeatable for a seed on any number of threads.
+ * Each pool thread uses its own copy of the bicycle.  A short pilot run sets the
+ * histogram ranges.
+ *
+ * @author Tom
+ */
+public class MonteCarloAnalysis {
+
+    private static final Logger LOG = Log.getLogger(MonteCarloAnalysis.class);
+
+    private static final int PILOT_SAMPLES = 1000;
+    //chunk size - the thread count must not change the chunks
+    private static final int CHUNK_SAMPLES = 2000;
+    private static final int MAX_CHUNKS = 256;
+
+    private BicycleEvaluator _template;
+
+    private ArrayList<Tolerance> _tolerances;
+    private ArrayList<ReportField> _outputs;
+
+    private long _samples;
+    private long _seed;
+    private int _threads;
+    private int _bins;
+
+    private AtomicLong _completed;
+
+    /**
+     * Class constructor.  The outputs default to Trail, RKnee and WheelBase.
+     * The bicycle, rider and pose are copied here, so this must be called on
+     * the thread that owns them (the UI thread for project bicycles).  run()
+     * can then be called from any thread.
+     *
+     * @param source The bicycle to analyze.
+     * @param rider The rider measurements.
+     * @param pose The rider pose.
+     */
+    public MonteCarloAnalysis(Bicycle source, RiderMeasurements rider, RiderPose pose) {
+
+        _template = new BicycleEvaluator(source, rider, pose);
+
+        _tolerances = new ArrayList();
+        _outputs = new ArrayList();
+        _outputs.add(ReportField.Trail);
+        _outputs.add(ReportField.RKnee);
+        _outputs.add(ReportField.WheelBase);
+
+        _samples = 100000;
+        _seed = 1;
+        _threads = Runtime.getRuntime().availableProcessors();
+        _bins = 2000;
+
+        _completed = new AtomicLong();
+
+    }
+
+    /**
+     * Add a tolerance.
+     *
+     * @param tolerance The tolerance.
+     * @return True if added, false if there is no such double attribute.
+     */
+    public boolean addTolerance(Tolerance tolerance) {
+
+        if (_template.getDoubleAttribute(tolerance.getTableName(), tolerance.getAttributeName()) == null) {
+            LOG.warn("Tolerance attribute not found", "tolerance", tolerance);
+            return false;
+        }
+
+        _tolerances.add(tolerance);
+        return true;
+    }
+
+    /**
+     * Set the report fields to collect.
+     *
+     * @param outputs The report fields.
+     */
+    public void setOutputs(ArrayList<ReportField> outputs) {
+        _outputs = new ArrayList(outputs);
+    }
+
+    /**
+     * Set the number of samples.
+     *
+     * @param samples The number of samples.
+     */
+    public void setSamples(long samples) {
+        _samples = Math.max(1, samples);
+    }
+
+    /**
+     * Set the random seed.
+     *
+     * @param seed The seed.
+     */
+    public void setSeed(long seed) {
+        _seed = seed;
+    }
+
+    /**
+     * Set the number of threads.
+     *
+     * @param threads The number of threads.
+     */
+    public void setThreads(int threads) {
+        _threads = Math.max(1, threads);
+    }
+
+    /**
+     * Set the number of histogram bins.
+     *
+     * @param bins The number of bins.
+     */
+    public void setBins(int bins) {
+        _bins = Math.max(1, bins);
+    }
+
+    /**
+     * Get the progress of a run.
+     *
+     * @return The fraction of samples completed (0-1).
+     */
+    public double getProgress() {
+        return Math.min(1.0, (double) _completed.get() / _samples);
+    }
+
+    /**
+     * Run the analysis.
+     *
+     * @return The result.
+     * @throws InterruptedException Thrown if the thread is interrupted while running.
+     * @throws ExecutionException Thrown if a chunk fails.
+     */
+    public MonteCarloResult run() throws InterruptedException, ExecutionException {
+
+        _completed.set(0);
+
+        int outCount = _outputs.size();
+        ReportField[] outputs = _outputs.toArray(new ReportField[outCount]);
+
+        //nominal values
+        double[] nominal = new double[_tolerances.size()];
+        for (int i = 0; i < nominal.length; i++) {
+            Tolerance t = _tolerances.get(i);
+            nominal[i] = _template.getDoubleAttribute(t.getTableName(), t.getAttributeName()).getDoubleValue();
+        }
+
+        SplittableRandom root = new SplittableRandom(_seed);
+
+        //pilot run on a copy to set the histogram ranges
+        int pilotCount = (int) Math.min(PILOT_SAMPLES, _samples);
+        double[][] pilot = new double[outCount][pilotCount];
+
+        BicycleEvaluator pilotEval = new BicycleEvaluator(_template.getBicycle(), _template.getRiderMeasurements(), _template.getRiderPose());
+        runSamples(pilotEval, root.split(), pilotCount, nominal, outputs, pilot, null);
+
+        StreamingHistogram[] histograms = new StreamingHistogram[outCount];
+        for (int k = 0; k < outCount; k++) {
+
+            double lo = Double.POSITIVE_INFINITY;
+            double hi = Double.NEGATIVE_INFINITY;
+            for (double v : pilot[k]) {
+                if (!Double.isNaN(v)) {
+                    lo = Math.min(lo, v);
+                    hi = Math.max(hi, v);
+                }
+            }
+
+            //no solved values - arbitrary range (everything falls outside)
+            if (lo > hi) {
+                lo = 0;
+                hi = 1;
+            }
+
+            //pad the range for the tails the pilot missed
+            double pad = Math.max((hi - lo) * 0.5, 1.0e-6);
+            histograms[k] = new StreamingHistogram(lo - pad, hi + pad, _bins);
+
+            for (double v : pilot[k]) {
+                histograms[k].add(v);
+            }
+        }
+
+        //split the rest into chunks with their own random streams
+        long remaining = _samples - pilotCount;
+        long chunks = (remaining + CHUNK_SAMPLES - 1) / CHUNK_SAMPLES;
+        int chunkCount = (int) Math.max(1, Math.min(chunks, MAX_CHUNKS));
+
+        ThreadLocal<BicycleEvaluator> evaluators = ThreadLocal.withInitial(() -> {
+            return new BicycleEvaluator(_template.getBicycle(), _template.getRiderMeasurements(), _template.getRiderPose());
+        });
+
+        ExecutorService pool = Executors.newFixedThreadPool(_threads);
+
+        try {
+
+            ArrayList<Future<StreamingHistogram[]>> futures = new ArrayList();
+
+            for (int c = 0; c < chunkCount && remaining > 0; c++) {
+
+                long count = remaining / (chunkCount - c);
+                remaining -= count;
+
+                SplittableRandom rng = root.split();
+
+                futures.add(pool.submit(() -> {
+
+                    StreamingHistogram[] chunk = new StreamingHistogram[outCount];
+                    for (int k = 0; k < outCount; k++) {
+                        chunk[k] = histograms[k].emptyCopy();
+                    }
+
+                    runSamples(evaluators.get(), rng, count, nominal, outputs, null, chunk);
+
+                    return chunk;
+                }));
+            }
+
+            for (Future<StreamingHistogram[]> future : futures) {
+
+                StreamingHistogram[] chunk = future.get();
+                for (int k = 0; k < outCount; k++) {
+                    histograms[k].merge(chunk[k]);
+                }
+            }
+
+        } finally {
+            pool.shutdownNow();
+        }
+
+        return new MonteCarloResult(outputs, histograms, _samples);
+    }
+
+    /**
+     * Evaluate a run of samples.  Values are either stored (pilot) or added to
+     * histograms.
+     *
+     * @param eval The evaluator of this thread.
+     * @param rng The random stream of this run.
+     * @param count The number of samples.
+     * @param nominal The nominal values of the toleranced attributes.
+     * @param outputs The report fields to collect.
+     * @param store Array to store the values [output][sample], or null.
+     * @param histograms Histograms to add the values to, or null.
+     * @throws InterruptedException Thrown if the thread is interrupted.
+     */
+    private void runSamples(BicycleEvaluator eval, SplittableRandom rng, long count, double[] nominal, ReportField[] outputs,
+            double[][] store, StreamingHistogram[] histograms) throws InterruptedException {
+
+        int tolCount = _tolerances.size();
+
+        Tolerance[] tolerances = _tolerances.toArray(new Tolerance[tolCount]);
+        DoubleAttribute[] atts = new DoubleAttribute[tolCount];
+        for (int i = 0; i < tolCount; i++) {
+            atts[i] = eval.getDoubleAttribute(tolerances[i].getTableName(), tolerances[i].getAttributeName());
+        }
+
+        for (long s = 0; s < count; s++) {
+
+            for (int i = 0; i < tolCount; i++) {
+                double v = nominal[i] + tolerances[i].sample(rng);
+                atts[i].setDouble(Math.max(atts[i].getMin(), Math.min(atts[i].getMax(), v)));
+            }
+
+            Report report = eval.evaluate();
+
+            for (int k = 0; k < outputs.length; k++) {
+
+                double v = report.getValue(outputs[k]);
+
+                if (store != null) {
+                    store[k][(int) s] = v;
+                } else {
+                    histograms[k].add(v);
+                }
+            }
+
+            //report progress and check for cancel every so often
+            if ((s & 255) == 255) {
+
+                _completed.addAndGet(256);
+
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new InterruptedException();
+                }
+            }
+
+        }
+
+        _completed.addAndGet(count & 255);
+
+    }
+
+}
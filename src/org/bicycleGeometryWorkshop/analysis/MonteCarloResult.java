@@ -0,0 +1,107 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2020 Tom.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.bicycleGeometryWorkshop.analysis;
+
+import org.bicycleGeometryWorkshop.report.ReportField;
+
+/**
+ * The result of a Monte Carlo analysis - a histogram of each report field.
+ *
+ * @author Tom
+ */
+public class MonteCarloResult {
+
+    private ReportField[] _outputs;
+    private StreamingHistogram[] _histograms;
+    private long _samples;
+
+    /**
+     * Class constructor.
+     *
+     * @param outputs The report fields.
+     * @param histograms The histogram of each field.
+     * @param samples The number of samples.
+     */
+    MonteCarloResult(ReportField[] outputs, StreamingHistogram[] histograms, long samples) {
+        _outputs = outputs;
+        _histograms = histograms;
+        _samples = samples;
+    }
+
+    /**
+     * Get the number of report fields.
+     *
+     * @return The number of fields.
+     */
+    public int getOutputCount() {
+        return _outputs.length;
+    }
+
+    /**
+     * Get a report field.
+     *
+     * @param index The field index.
+     * @return The report field.
+     */
+    public ReportField getOutput(int index) {
+        return _outputs[index];
+    }
+
+    /**
+     * Get the histogram of a report field.
+     *
+     * @param index The field index.
+     * @return The histogram.
+     */
+    public StreamingHistogram getHistogram(int index) {
+        return _histograms[index];
+    }
+
+    /**
+     * Get the histogram of a report field.
+     *
+     * @param field The report field.
+     * @return The histogram or null if the field was not collected.
+     */
+    public StreamingHistogram getHistogram(ReportField field) {
+
+        for (int i = 0; i < _outputs.length; i++) {
+            if (_outputs[i] == field) {
+                return _histograms[i];
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Get the number of samples.
+     *
+     * @return The number of samples.
+     */
+    public long getSamples() {
+        return _samples;
+    }
+
+}
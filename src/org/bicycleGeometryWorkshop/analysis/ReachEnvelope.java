@@ -0,0 +1,422 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2020 Tom.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.bicycleGeometryWorkshop.analysis;
+
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import org.bicycleGeometryWorkshop.attributes.AttributeSet;
+import org.bicycleGeometryWorkshop.attributes.BaseAttribute;
+import org.bicycleGeometryWorkshop.attributes.DoubleAttribute;
+import org.bicycleGeometryWorkshop.attributes.EnumAttribute;
+import org.bicycleGeometryWorkshop.components.Bicycle;
+import org.bicycleGeometryWorkshop.components.HandleBarType;
+import org.bicycleGeometryWorkshop.components.RiderMeasurements;
+import org.bicycleGeometryWorkshop.components.RiderPose;
+import org.bicycleGeometryWorkshop.database.DataBaseKeys;
+import org.bicycleGeometryWorkshop.geometry.ConcaveHull;
+import org.bicycleGeometryWorkshop.report.Report;
+import org.bicycleGeometryWorkshop.report.ReportField;
+
+/**
+ * Reach and stack envelope of the hand position.  Sweeps the stem length,
+ * stem angle, spacers and handlebar type over their ranges, collects the hand
+ * point of the pose hand position with the rider elbow and torso angles, and
+ * reduces the hand points to a concave hull.
+ * <p>
+ * The hand points are stored relative to the bottom bracket, so the hull does
+ * not depend on the bicycle layout and can be drawn on the bicycle for any
+ * stem or bar setting.  The sweep runs on a thread pool with a copy of the
+ * bicycle per thread (see MonteCarloAnalysis).
+ *
+ * @author Tom
+ */
+public class ReachEnvelope {
+
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    private static final String STEM_LENGTH = "Length";
+    private static final String STEM_ANGLE = "Angle";
+    private static final String STEM_SPACER = "Spacer";
+    private static final String BAR_TYPE = "BarType";
+
+    private BicycleEvaluator _template;
+
+    private double[] _lengthRange;
+    private double[] _angleRange;
+    private double[] _spacerRange;
+    private ArrayList<HandleBarType> _barTypes;
+
+    private double _concavity;
+    private int _threads;
+
+    private AtomicLong _completed;
+    private long _total;
+
+    /**
+     * Class constructor.  The bicycle, rider and pose are copied here, so this
+     * must be called on the thread that owns them (the UI thread for project
+     * bicycles).  run() can then be called from any thread.
+     *
+     * @param source The bicycle to analyze.
+     * @param rider The rider measurements.
+     * @param pose The rider pose.
+     */
+    public ReachEnvelope(Bicycle source, RiderMeasurements rider, RiderPose pose) {
+
+        _template = new BicycleEvaluator(source, rider, pose);
+
+        //range: min, max, step
+        _lengthRange = new double[]{60, 140, 10};
+        _angleRange = new double[]{-20, 20, 5};
+        _spacerRange = new double[]{0, 40, 10};
+
+        _barTypes = new ArrayList();
+        for (HandleBarType hbt : HandleBarType.values()) {
+            _barTypes.add(hbt);
+        }
+
+        _concavity = 2.0;
+        _threads = Runtime.getRuntime().availableProcessors();
+
+        _completed = new AtomicLong();
+        _total = 1;
+
+    }
+
+    /**
+     * Set the stem length range.
+     *
+     * @param min The minimum length.
+     * @param max The maximum length.
+     * @param step The step.
+     */
+    public void setLengthRange(double min, double max, double step) {
+        _lengthRange = new double[]{min, max, step};
+    }
+
+    /**
+     * Set the stem angle range.
+     *
+     * @param min The minimum angle (degrees).
+     * @param max The maximum angle (degrees).
+     * @param step The step (degrees).
+     */
+    public void setAngleRange(double min, double max, double step) {
+        _angleRange = new double[]{min, max, step};
+    }
+
+    /**
+     * Set the spacer range.
+     *
+     * @param min The minimum spacer height.
+     * @param max The maximum spacer height.
+     * @param step The step.
+     */
+    public void setSpacerRange(double min, double max, double step) {
+        _spacerRange = new double[]{min, max, step};
+    }
+
+    /**
+     * Set the handlebar types to sweep.
+     *
+     * @param barTypes The handlebar types.
+     */
+    public void setBarTypes(ArrayList<HandleBarType> barTypes) {
+        _barTypes = new ArrayList(barTypes);
+    }
+
+    /**
+     * Set the hull concavity (see ConcaveHull).
+     *
+     * @param concavity The concavity, 1 or more.
+     */
+    public void setConcavity(double concavity) {
+        _concavity = Math.max(1.0, concavity);
+    }
+
+    /**
+     * Set the number of threads.
+     *
+     * @param threads The number of threads.
+     */
+    public void setThreads(int threads) {
+        _threads = Math.max(1, threads);
+    }
+
+    /**
+     * Get the number of configurations the sweep will evaluate.
+     *
+     * @return The sample count.
+     */
+    public int getSampleCount() {
+        return steps(_lengthRange) * steps(_angleRange) * steps(_spacerRange) * _barTypes.size();
+    }
+
+    /**
+     * Get the progress of a run.
+     *
+     * @return The fraction of samples completed (0-1).
+     */
+    public double getProgress() {
+        return Math.min(1.0, (double) _completed.get() / _total);
+    }
+
+    /**
+     * Get the cache key of this envelope.  The key holds the sweep settings and
+     * every attribute value that moves the hand relative to the bottom bracket
+     * or changes the rider angles - the frame, the other components, the rider
+     * and the pose.  The swept attributes and the bicycle's own set (name,
+     * colors, etc.) are left out, so bicycles sharing a frame share an envelope.
+     *
+     * @return The key.
+     */
+    public String getCacheKey() {
+
+        StringBuilder key = new StringBuilder();
+
+        key.append(format(_lengthRange)).append('|');
+        key.append(format(_angleRange)).append('|');
+        key.append(format(_spacerRange)).append('|');
+        key.append(_barTypes).append('|');
+        key.append(_concavity).append('|');
+
+        String bicycleSet = _template.getBicycle().getAttributeSet().getName();
+        String stem = DataBaseKeys.STEM.toString();
+        String handlebar = DataBaseKeys.HANDLEBAR.toString();
+
+        for (AttributeSet attSet : _template.getAttributeSets()) {
+
+            String setName = attSet.getName();
+            if (setName.equals(bicycleSet)) {
+                continue;
+            }
+
+            key.append(setName).append('{');
+
+            for (BaseAttribute att : attSet.getAttributes()) {
+
+                String attName = att.getName();
+
+                if (setName.equals(stem) && (attName.equals(STEM_LENGTH) || attName.equals(STEM_ANGLE) || attName.equals(STEM_SPACER))) {
+                    continue;
+                }
+
+                if (setName.equals(handlebar) && attName.equals(BAR_TYPE)) {
+                    continue;
+                }
+
+                key.append(attName).append('=').append(att.getSQLInsert()).append(';');
+            }
+
+            key.append('}');
+        }
+
+        return key.toString();
+    }
+
+    /**
+     * Run the sweep.
+     *
+     * @return The result.
+     * @throws InterruptedException Thrown if the thread is interrupted while running.
+     * @throws ExecutionException Thrown if a chunk fails.
+     */
+    public ReachEnvelopeResult run() throws InterruptedException, ExecutionException {
+
+        int count = getSampleCount();
+
+        _completed.set(0);
+        _total = Math.max(1, count);
+
+        double[] handX = new double[count];
+        double[] handY = new double[count];
+        double[] elbow = new double[count];
+        double[] torso = new double[count];
+
+        int chunkCount = Math.max(1, Math.min(count, _threads * CHUNKS_PER_THREAD));
+
+        ThreadLocal<BicycleEvaluator> evaluators = ThreadLocal.withInitial(() -> {
+            return new BicycleEvaluator(_template.getBicycle(), _template.getRiderMeasurements(), _template.getRiderPose());
+        });
+
+        ExecutorService pool = Executors.newFixedThreadPool(_threads);
+
+        try {
+
+            ArrayList<Future<?>> futures = new ArrayList();
+
+            //each chunk writes its own range of the arrays
+            int start = 0;
+            for (int c = 0; c < chunkCount; c++) {
+
+                int end = start + (count - start) / (chunkCount - c);
+                int from = start;
+
+                futures.add(pool.submit(() -> {
+                    runSamples(evaluators.get(), from, end, handX, handY, elbow, torso);
+                    return null;
+                }));
+
+                start = end;
+            }
+
+            for (Future<?> future : futures) {
+                future.get();
+            }
+
+        } finally {
+            pool.shutdownNow();
+        }
+
+        int[] hull = ConcaveHull.concaveHull(handX, handY, count, _concavity);
+
+        return new ReachEnvelopeResult(handX, handY, elbow, torso, ConcaveHull.toPath(handX, handY, hull));
+    }
+
+    /**
+     * Evaluate a range of the sweep.
+     *
+     * @param eval The evaluator of this thread.
+     * @param from The first sample index.
+     * @param to The sample index after the last.
+     * @param handX Hand X values relative to the bottom bracket.
+     * @param handY Hand Y values relative to the bottom bracket.
+     * @param elbow Elbow angle values.
+     * @param torso Torso angle values.
+     * @throws InterruptedException Thrown if the thread is interrupted.
+     */
+    private void runSamples(BicycleEvaluator eval, int from, int to, double[] handX, double[] handY, double[] elbow, double[] torso) throws InterruptedException {
+
+        String stem = DataBaseKeys.STEM.toString();
+
+        DoubleAttribute length = eval.getDoubleAttribute(stem, STEM_LENGTH);
+        DoubleAttribute angle = eval.getDoubleAttribute(stem, STEM_ANGLE);
+        DoubleAttribute spacer = eval.getDoubleAttribute(stem, STEM_SPACER);
+        EnumAttribute barType = eval.getEnumAttribute(DataBaseKeys.HANDLEBAR.toString(), BAR_TYPE);
+
+        int lengthSteps = steps(_lengthRange);
+        int angleSteps = steps(_angleRange);
+        int spacerSteps = steps(_spacerRange);
+
+        Bicycle bicycle = eval.getBicycle();
+
+        //reused for every sample
+        Point2D hand = new Point2D.Double();
+        Point2D bb = new Point2D.Double();
+
+        for (int s = from; s < to; s++) {
+
+            //sample index to sweep position (length varies fastest)
+            int i = s;
+            int li = i % lengthSteps;
+            i /= lengthSteps;
+            int ai = i % angleSteps;
+            i /= angleSteps;
+            int si = i % spacerSteps;
+            i /= spacerSteps;
+
+            setClamped(length, value(_lengthRange, li));
+            setClamped(angle, value(_angleRange, ai));
+            setClamped(spacer, value(_spacerRange, si));
+            barType.setEnum(_barTypes.get(i));
+
+            Report report = eval.evaluate();
+
+            bicycle.getHandPoint(hand);
+            bicycle.getBottomBracketPoint(bb);
+
+            handX[s] = hand.getX() - bb.getX();
+            handY[s] = hand.getY() - bb.getY();
+            elbow[s] = report.getValue(ReportField.Elbow);
+            torso[s] = report.getValue(ReportField.TorsoH);
+
+            //report progress and check for cancel every so often
+            if (((s - from) & 63) == 63) {
+
+                _completed.addAndGet(64);
+
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new InterruptedException();
+                }
+            }
+
+        }
+
+        _completed.addAndGet((to - from) & 63);
+
+    }
+
+    /**
+     * Set a double attribute inside its limits.
+     *
+     * @param att The attribute.
+     * @param value The value.
+     */
+    private void setClamped(DoubleAttribute att, double value) {
+        att.setDouble(Math.max(att.getMin(), Math.min(att.getMax(), value)));
+    }
+
+    /**
+     * Get the number of steps of a range (at least one).
+     *
+     * @param range The range: min, max, step.
+     * @return The number of values.
+     */
+    private static int steps(double[] range) {
+
+        if (range[2] <= 0 || range[1] <= range[0]) {
+            return 1;
+        }
+
+        //small tolerance so the max is included
+        return (int) Math.floor((range[1] - range[0]) / range[2] + 1.0e-9) + 1;
+    }
+
+    /**
+     * Get the value of a range step.
+     *
+     * @param range The range: min, max, step.
+     * @param index The step index.
+     * @return The value.
+     */
+    private static double value(double[] range, int index) {
+        return range[0] + index * range[2];
+    }
+
+    /**
+     * Format a range for the cache key.
+     *
+     * @param range The range: min, max, step.
+     * @return The formatted range.
+     */
+    private static String format(double[] range) {
+        return range[0] + ":" + range[1] + ":" + range[2];
+    }
+
+}
@@ -0,0 +1,87 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2020 Tom.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.bicycleGeometryWorkshop.analysis;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Cache of reach envelopes by their key (see ReachEnvelope.getCacheKey()), so
+ * the envelope of a frame that was swept already is shown without running the
+ * sweep again.  The least recently used envelopes are dropped when the cache
+ * is full.  Used on the UI thread only.
+ *
+ * @author Tom
+ */
+public class ReachEnvelopeCache {
+
+    private static final int MAX_ENTRIES = 32;
+
+    private LinkedHashMap<String, ReachEnvelopeResult> _results;
+
+    /**
+     * Class constructor.
+     */
+    public ReachEnvelopeCache() {
+
+        //access order for least recently used
+        _results = new LinkedHashMap<String, ReachEnvelopeResult>(16, 0.75f, true) {
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, ReachEnvelopeResult> eldest) {
+                return size() > MAX_ENTRIES;
+            }
+
+        };
+
+    }
+
+    /**
+     * Get a cached envelope.
+     *
+     * @param key The envelope key.
+     * @return The envelope or null if it is not cached.
+     */
+    public ReachEnvelopeResult get(String key) {
+        return _results.get(key);
+    }
+
+    /**
+     * Cache an envelope.
+     *
+     * @param key The envelope key.
+     * @param result The envelope.
+     */
+    public void put(String key, ReachEnvelopeResult result) {
+        _results.put(key, result);
+    }
+
+    /**
+     * Drop all cached envelopes.
+     */
+    public void clear() {
+        _results.clear();
+    }
+
+}
@@ -0,0 +1,449 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2020 Tom.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.bicycleGeometryWorkshop.analysis;
+
+import java.awt.BorderLayout;
+import java.awt.Dimension;
+import java.awt.FlowLayout;
+import java.awt.GridLayout;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.ArrayList;
+import javax.swing.BorderFactory;
+import javax.swing.JButton;
+import javax.swing.JCheckBox;
+import javax.swing.JDialog;
+import javax.swing.JFrame;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JProgressBar;
+import javax.swing.JScrollPane;
+import javax.swing.JTable;
+import javax.swing.JTextField;
+import javax.swing.SwingWorker;
+import javax.swing.Timer;
+import javax.swing.table.DefaultTableModel;
+import org.bicycleGeometryWorkshop.components.Bicycle;
+import org.bicycleGeometryWorkshop.components.HandleBarType;
+import org.bicycleGeometryWorkshop.components.RiderMeasurements;
+import org.bicycleGeometryWorkshop.components.RiderPose;
+import org.bicycleGeometryWorkshop.diagnostics.Log;
+import org.bicycleGeometryWorkshop.diagnostics.Logger;
+
+/**
+ * Reach envelope dialog.  The user sets the stem and handlebar ranges, the
+ * sweep runs in the background and the hand reach/stack and rider angle ranges
+ * are listed.  Envelopes are kept in the cache, so reopening the dialog on the
+ * same frame shows the envelope right away.  After the dialog closes the
+ * owner can overlay the envelope on the bicycle (see getResult()).
+ *
+ * @author Tom
+ */
+public class ReachEnvelopeDialog extends JDialog {
+
+    private static final Logger LOG = Log.getLogger(ReachEnvelopeDialog.class);
+
+    private Bicycle _bicycle;
+    private RiderMeasurements _rider;
+    private RiderPose _pose;
+    private ReachEnvelopeCache _cache;
+
+    private ReachEnvelopeResult _result;
+
+    private JTextField[] _lengthFields;
+    private JTextField[] _angleFields;
+    private JTextField[] _spacerFields;
+    private JCheckBox[] _barTypeBoxes;
+    private JTextField _concavityField;
+    private JCheckBox _overlayBox;
+
+    private DefaultTableModel _resultModel;
+
+    private JProgressBar _progress;
+    private JButton _runButton;
+    private JButton _cancelButton;
+    private JLabel _status;
+
+    private SwingWorker<ReachEnvelopeResult, Void> _worker;
+    private Timer _progressTimer;
+
+    /**
+     * Class constructor.
+     *
+     * @param owner The owner frame.
+     * @param bicycle The bicycle to analyze.
+     * @param rider The project rider measurements.
+     * @param pose The project rider pose.
+     * @param cache The envelope cache.
+     */
+    public ReachEnvelopeDialog(JFrame owner, Bicycle bicycle, RiderMeasurements rider, RiderPose pose, ReachEnvelopeCache cache) {
+        super(owner, true);
+
+        _bicycle = bicycle;
+        _rider = rider;
+        _pose = pose;
+        _cache = cache;
+
+        _result = null;
+        _worker = null;
+        _progressTimer = null;
+
+        init();
+
+        //show the cached envelope for the default settings
+        ReachEnvelope envelope = buildEnvelope();
+        if (envelope != null) {
+
+            ReachEnvelopeResult cached = _cache.get(envelope.getCacheKey());
+            if (cached != null) {
+                showResult(cached);
+                _status.setText("Cached envelope.");
+            }
+        }
+
+    }
+
+    /**
+     * Get the envelope shown in the dialog.
+     *
+     * @return The envelope or null if none was run or found in the cache.
+     */
+    public ReachEnvelopeResult getResult() {
+        return _result;
+    }
+
+    /**
+     * Check if the envelope should be overlaid on the bicycle.
+     *
+     * @return True to show the overlay.
+     */
+    public boolean isOverlayEnabled() {
+        return _overlayBox.isSelected();
+    }
+
+    /**
+     * Initialize the components and do the layout.
+     */
+    private void init() {
+
+        this.setTitle("Reach Envelope - " + _bicycle.getBicycleName());
+        this.setLayout(new BorderLayout());
+
+        //sweep ranges
+        JPanel rangePanel = new JPanel(new GridLayout(0, 4, 4, 2));
+        rangePanel.setBorder(BorderFactory.createTitledBorder("Sweep"));
+
+        rangePanel.add(new JLabel(""));
+        rangePanel.add(new JLabel("Min"));
+        rangePanel.add(new JLabel("Max"));
+        rangePanel.add(new JLabel("Step"));
+
+        _lengthFields = addRangeRow(rangePanel, "Stem Length", 60, 140, 10);
+        _angleFields = addRangeRow(rangePanel, "Stem Angle", -20, 20, 5);
+        _spacerFields = addRangeRow(rangePanel, "Spacers", 0, 40, 10);
+
+        //bar types
+        JPanel barPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        barPanel.add(new JLabel("Bar Types"));
+
+        HandleBarType[] barTypes = HandleBarType.values();
+        _barTypeBoxes = new JCheckBox[barTypes.length];
+        for (int i = 0; i < barTypes.length; i++) {
+            _barTypeBoxes[i] = new JCheckBox(barTypes[i].name(), true);
+            barPanel.add(_barTypeBoxes[i]);
+        }
+
+        _concavityField = new JTextField("2.0", 4);
+        barPanel.add(new JLabel("Concavity"));
+        barPanel.add(_concavityField);
+
+        JPanel northPanel = new JPanel(new BorderLayout());
+        northPanel.add(rangePanel, BorderLayout.CENTER);
+        northPanel.add(barPanel, BorderLayout.SOUTH);
+
+        //result table
+        String[] resultHeads = {"Value", "Min", "Max"};
+        _resultModel = new DefaultTableModel(resultHeads, 0) {
+
+            @Override
+            public boolean isCellEditable(int row, int col) {
+                return false;
+            }
+
+        };
+
+        JTable resultTable = new JTable(_resultModel);
+        JScrollPane resultScroll = new JScrollPane(resultTable);
+        resultScroll.setPreferredSize(new Dimension(460, 110));
+        resultScroll.setBorder(BorderFactory.createTitledBorder("Envelope"));
+
+        //controls
+        _progress = new JProgressBar(0, 1000);
+        _status = new JLabel(" ");
+        _overlayBox = new JCheckBox("Show Overlay", true);
+
+        _runButton = new JButton("Run");
+        _cancelButton = new JButton("Cancel");
+        _cancelButton.setEnabled(false);
+        JButton closeButton = new JButton("Close");
+
+        //run action
+        ActionListener runAction = (ActionEvent ev) -> {
+            runEnvelope();
+        };
+        _runButton.addActionListener(runAction);
+
+        //cancel action
+        ActionListener cancelAction = (ActionEvent ev) -> {
+            cancelEnvelope();
+        };
+        _cancelButton.addActionListener(cancelAction);
+
+        //close action
+        ActionListener closeAction = (ActionEvent ev) -> {
+            cancelEnvelope();
+            this.setVisible(false);
+        };
+        closeButton.addActionListener(closeAction);
+
+        JPanel controlPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        controlPanel.add(_overlayBox);
+        controlPanel.add(_progress);
+        controlPanel.add(_runButton);
+        controlPanel.add(_cancelButton);
+        controlPanel.add(closeButton);
+
+        JPanel southPanel = new JPanel(new BorderLayout());
+        southPanel.add(resultScroll, BorderLayout.CENTER);
+        southPanel.add(controlPanel, BorderLayout.SOUTH);
+
+        this.add(northPanel, BorderLayout.NORTH);
+        this.add(southPanel, BorderLayout.CENTER);
+        this.add(_status, BorderLayout.SOUTH);
+
+        this.pack();
+        this.setLocationRelativeTo(this.getOwner());
+
+    }
+
+    /**
+     * Add a min/max/step row to the range panel.
+     *
+     * @param panel The range panel.
+     * @param label The row label.
+     * @param min The default minimum.
+     * @param max The default maximum.
+     * @param step The default step.
+     * @return The min, max and step fields.
+     */
+    private JTextField[] addRangeRow(JPanel panel, String label, double min, double max, double step) {
+
+        JTextField[] fields = {
+            new JTextField(Double.toString(min), 6),
+            new JTextField(Double.toString(max), 6),
+            new JTextField(Double.toString(step), 6)
+        };
+
+        panel.add(new JLabel(label));
+        for (JTextField field : fields) {
+            panel.add(field);
+        }
+
+        return fields;
+    }
+
+    /**
+     * Build the envelope from the dialog settings.
+     *
+     * @return The envelope or null if a setting is invalid.
+     */
+    private ReachEnvelope buildEnvelope() {
+
+        ArrayList<HandleBarType> barTypes = new ArrayList();
+        HandleBarType[] values = HandleBarType.values();
+        for (int i = 0; i < values.length; i++) {
+            if (_barTypeBoxes[i].isSelected()) {
+                barTypes.add(values[i]);
+            }
+        }
+
+        if (barTypes.isEmpty()) {
+            _status.setText("Select at least one bar type.");
+            return null;
+        }
+
+        ReachEnvelope envelope = new ReachEnvelope(_bicycle, _rider, _pose);
+
+        try {
+            double[] length = parseRange(_lengthFields);
+            double[] angle = parseRange(_angleFields);
+            double[] spacer = parseRange(_spacerFields);
+
+            envelope.setLengthRange(length[0], length[1], length[2]);
+            envelope.setAngleRange(angle[0], angle[1], angle[2]);
+            envelope.setSpacerRange(spacer[0], spacer[1], spacer[2]);
+            envelope.setConcavity(Double.parseDouble(_concavityField.getText().trim()));
+
+        } catch (NumberFormatException ex) {
+            _status.setText("Invalid sweep value.");
+            return null;
+        }
+
+        envelope.setBarTypes(barTypes);
+
+        return envelope;
+    }
+
+    /**
+     * Parse a min/max/step row.
+     *
+     * @param fields The row fields.
+     * @return The min, max and step.
+     */
+    private double[] parseRange(JTextField[] fields) {
+
+        double[] range = new double[fields.length];
+        for (int i = 0; i < fields.length; i++) {
+            range[i] = Double.parseDouble(fields[i].getText().trim());
+        }
+
+        return range;
+    }
+
+    /**
+     * Run the sweep in the background, or show the cached envelope.
+     */
+    private void runEnvelope() {
+
+        ReachEnvelope envelope = buildEnvelope();
+
+        if (envelope == null) {
+            return;
+        }
+
+        String key = envelope.getCacheKey();
+
+        ReachEnvelopeResult cached = _cache.get(key);
+        if (cached != null) {
+            showResult(cached);
+            _progress.setValue(_progress.getMaximum());
+            _status.setText("Cached envelope.");
+            return;
+        }
+
+        int samples = envelope.getSampleCount();
+
+        _runButton.setEnabled(false);
+        _cancelButton.setEnabled(true);
+        _resultModel.setRowCount(0);
+        _status.setText("Running...");
+
+        long start = System.currentTimeMillis();
+
+        _worker = new SwingWorker<ReachEnvelopeResult, Void>() {
+
+            @Override
+            protected ReachEnvelopeResult doInBackground() throws Exception {
+                return envelope.run();
+            }
+
+            @Override
+            protected void done() {
+
+                _progressTimer.stop();
+                _runButton.setEnabled(true);
+                _cancelButton.setEnabled(false);
+
+                if (isCancelled()) {
+                    _status.setText("Cancelled.");
+                    return;
+                }
+
+                try {
+                    ReachEnvelopeResult result = get();
+                    _cache.put(key, result);
+                    showResult(result);
+                    _progress.setValue(_progress.getMaximum());
+                    _status.setText(String.format("%d configurations in %.1f s", samples, (System.currentTimeMillis() - start) / 1000.0));
+                } catch (Exception ex) {
+                    _status.setText("Envelope failed: " + ex.getMessage());
+                    LOG.error(ex.getMessage(), ex);
+                }
+            }
+
+        };
+
+        //poll the progress
+        ActionListener progressAction = (ActionEvent ev) -> {
+            _progress.setValue((int) (envelope.getProgress() * _progress.getMaximum()));
+        };
+        _progressTimer = new Timer(200, progressAction);
+        _progressTimer.start();
+
+        _worker.execute();
+
+    }
+
+    /**
+     * Cancel a running sweep.
+     */
+    private void cancelEnvelope() {
+
+        if (_worker != null && !_worker.isDone()) {
+            _worker.cancel(true);
+        }
+
+    }
+
+    /**
+     * List the ranges of an envelope.
+     *
+     * @param result The envelope.
+     */
+    private void showResult(ReachEnvelopeResult result) {
+
+        _result = result;
+
+        _resultModel.setRowCount(0);
+        addResultRow("Hand Reach", result.getReachRange());
+        addResultRow("Hand Stack", result.getStackRange());
+        addResultRow("Elbow", result.getElbowRange());
+        addResultRow("TorsoH", result.getTorsoRange());
+
+    }
+
+    /**
+     * Add a range row to the result table.
+     *
+     * @param name The value name.
+     * @param range The min and max.
+     */
+    private void addResultRow(String name, double[] range) {
+
+        Object[] row = {name, String.format("%.2f", range[0]), String.format("%.2f", range[1])};
+        _resultModel.addRow(row);
+
+    }
+
+}
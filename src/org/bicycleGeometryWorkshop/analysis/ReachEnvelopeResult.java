@@ -0,0 +1,178 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2020 Tom.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.bicycleGeometryWorkshop.analysis;
+
+import java.awt.Shape;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Path2D;
+import java.awt.geom.Point2D;
+
+/**
+ * The result of a reach envelope sweep - the hand point cloud relative to the
+ * bottom bracket with the rider angles of each point, and the concave hull of
+ * the hand points.  Results are not changed after the sweep, so they can be
+ * cached and shared.
+ *
+ * @author Tom
+ */
+public class ReachEnvelopeResult {
+
+    private double[] _handX;
+    private double[] _handY;
+    private double[] _elbow;
+    private double[] _torso;
+
+    private Path2D _hull;
+
+    /**
+     * Class constructor.
+     *
+     * @param handX Hand X values relative to the bottom bracket (reach).
+     * @param handY Hand Y values relative to the bottom bracket (stack).
+     * @param elbow Elbow angle of each sample.
+     * @param torso Torso angle of each sample.
+     * @param hull The hull of the hand points relative to the bottom bracket.
+     */
+    ReachEnvelopeResult(double[] handX, double[] handY, double[] elbow, double[] torso, Path2D hull) {
+        _handX = handX;
+        _handY = handY;
+        _elbow = elbow;
+        _torso = torso;
+        _hull = hull;
+    }
+
+    /**
+     * Get the number of samples.
+     *
+     * @return The number of samples.
+     */
+    public int getSampleCount() {
+        return _handX.length;
+    }
+
+    /**
+     * Get a hand point relative to the bottom bracket.
+     *
+     * @param index The sample index.
+     * @return The hand point (x is reach, y is stack).
+     */
+    public Point2D getHandPoint(int index) {
+        return new Point2D.Double(_handX[index], _handY[index]);
+    }
+
+    /**
+     * Get the elbow angle of a sample.
+     *
+     * @param index The sample index.
+     * @return The elbow angle.
+     */
+    public double getElbow(int index) {
+        return _elbow[index];
+    }
+
+    /**
+     * Get the torso angle of a sample.
+     *
+     * @param index The sample index.
+     * @return The torso angle.
+     */
+    public double getTorsoH(int index) {
+        return _torso[index];
+    }
+
+    /**
+     * Get the hull placed on a bottom bracket.
+     *
+     * @param bottomBracket The bottom bracket point of the bicycle to overlay.
+     * @return The hull shape.
+     */
+    public Shape getHull(Point2D bottomBracket) {
+
+        AffineTransform trans = AffineTransform.getTranslateInstance(bottomBracket.getX(), bottomBracket.getY());
+
+        return trans.createTransformedShape(_hull);
+    }
+
+    /**
+     * Get the hand reach range.
+     *
+     * @return Min and max reach from the bottom bracket.
+     */
+    public double[] getReachRange() {
+        return range(_handX);
+    }
+
+    /**
+     * Get the hand stack range.
+     *
+     * @return Min and max stack from the bottom bracket.
+     */
+    public double[] getStackRange() {
+        return range(_handY);
+    }
+
+    /**
+     * Get the elbow angle range.
+     *
+     * @return Min and max elbow angle.
+     */
+    public double[] getElbowRange() {
+        return range(_elbow);
+    }
+
+    /**
+     * Get the torso angle range.
+     *
+     * @return Min and max torso angle.
+     */
+    public double[] getTorsoRange() {
+        return range(_torso);
+    }
+
+    /**
+     * Get the range of values, skipping NaN (unsolved) values.
+     *
+     * @param values The values.
+     * @return Min and max, NaN if there are no values.
+     */
+    private static double[] range(double[] values) {
+
+        double lo = Double.POSITIVE_INFINITY;
+        double hi = Double.NEGATIVE_INFINITY;
+
+        for (double v : values) {
+            if (!Double.isNaN(v)) {
+                lo = Math.min(lo, v);
+                hi = Math.max(hi, v);
+            }
+        }
+
+        if (lo > hi) {
+            return new double[]{Double.NaN, Double.NaN};
+        }
+
+        return new double[]{lo, hi};
+    }
+
+}
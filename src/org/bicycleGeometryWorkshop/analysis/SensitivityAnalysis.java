@@ -0,0 +1,198 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2020 Tom.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.bicycleGeometryWorkshop.analysis;
+
+import java.util.ArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.bicycleGeometryWorkshop.attributes.DoubleAttribute;
+import org.bicycleGeometryWorkshop.components.Bicycle;
+import org.bicycleGeometryWorkshop.components.RiderMeasurements;
+import org.bicycleGeometryWorkshop.components.RiderPose;
+import org.bicycleGeometryWorkshop.report.Report;
+import org.bicycleGeometryWorkshop.report.ReportField;
+
+/**
+ * Sensitivity analysis.  Computes the Jacobian of the report values with respect
+ * to every double attribute of a bicycle's components - how much each report
+ * value changes per unit (mm or degree) of each attribute.
+ * <p>
+ * Each column (input attribute) is a central difference: the attribute is moved
+ * a step up and down and the change in the report is divided by the distance.
+ * Steps are held to the attribute's min/max.  Columns are computed in parallel,
+ * each pool thread using its own copy of the bicycle.
+ *
+ * @author Tom
+ */
+public class SensitivityAnalysis {
+
+    private BicycleEvaluator _template;
+
+    private ArrayList<FitParameter> _inputs;
+    private ReportField[] _outputs;
+
+    private double _step;
+    private int _threads;
+
+    /**
+     * Class constructor.  The bicycle, rider and pose are copied here, so this
+     * must be called on the thread that owns them (the UI thread for project
+     * bicycles).  compute() can then be called from any thread.
+     *
+     * @param source The bicycle to analyze.
+     * @param rider The rider measurements.
+     * @param pose The rider pose.
+     */
+    public SensitivityAnalysis(Bicycle source, RiderMeasurements rider, RiderPose pose) {
+
+        _template = new BicycleEvaluator(source, rider, pose);
+        _inputs = _template.getBicycleParameters();
+
+        //all the numeric fields
+        ReportField[] fields = ReportField.values();
+        _outputs = new ReportField[fields.length - 1];
+        int k = 0;
+        for (ReportField f : fields) {
+            if (f != ReportField.Name) {
+                _outputs[k++] = f;
+            }
+        }
+
+        _step = 0.1;
+        _threads = Runtime.getRuntime().availableProcessors();
+
+    }
+
+    /**
+     * Set the half step of the central differences.
+     *
+     * @param step The step in attribute units (mm or degrees).
+     */
+    public void setStep(double step) {
+        _step = step;
+    }
+
+    /**
+     * Set the number of threads to use.
+     *
+     * @param threads The number of threads.
+     */
+    public void setThreads(int threads) {
+        _threads = Math.max(1, threads);
+    }
+
+    /**
+     * Compute the Jacobian.
+     *
+     * @return The result.
+     * @throws InterruptedException Thrown if the thread is interrupted while computing.
+     * @throws ExecutionException Thrown if a column fails.
+     */
+    public SensitivityResult compute() throws InterruptedException, ExecutionException {
+
+        int rows = _outputs.length;
+        int cols = _inputs.size();
+
+        double[][] jacobian = new double[rows][cols];
+        double[] base = new double[rows];
+
+        //base values - before any thread copies the template
+        Report report = _template.evaluate();
+        for (int k = 0; k < rows; k++) {
+            base[k] = report.getValue(_outputs[k]);
+        }
+
+        //one bicycle copy per pool thread
+        ThreadLocal<BicycleEvaluator> evaluators = ThreadLocal.withInitial(() -> {
+            return new BicycleEvaluator(_template.getBicycle(), _template.getRiderMeasurements(), _template.getRiderPose());
+        });
+
+        ExecutorService pool = Executors.newFixedThreadPool(_threads);
+
+        try {
+
+            ArrayList<Future<?>> futures = new ArrayList();
+
+            for (int j = 0; j < cols; j++) {
+
+                final int col = j;
+                futures.add(pool.submit(() -> computeColumn(evaluators.get(), col, jacobian)));
+            }
+
+            for (Future<?> future : futures) {
+                future.get();
+            }
+
+        } finally {
+            pool.shutdownNow();
+        }
+
+        return new SensitivityResult(new ArrayList(_inputs), _outputs.clone(), jacobian, base, _step);
+    }
+
+    /**
+     * Compute one column of the Jacobian.  Each column writes only its own
+     * entries, so columns can run at the same time.
+     *
+     * @param eval The evaluator of this thread.
+     * @param col The column (input) index.
+     * @param jacobian The Jacobian [output][input].
+     */
+    private void computeColumn(BicycleEvaluator eval, int col, double[][] jacobian) {
+
+        FitParameter param = _inputs.get(col);
+        DoubleAttribute att = eval.getDoubleAttribute(param.getTableName(), param.getAttributeName());
+
+        double x0 = att.getDoubleValue();
+        double hi = Math.min(x0 + _step, att.getMax());
+        double lo = Math.max(x0 - _step, att.getMin());
+
+        //no room to move
+        if (hi <= lo) {
+            return;
+        }
+
+        int rows = _outputs.length;
+        double[] plus = new double[rows];
+
+        att.setDouble(hi);
+        Report report = eval.evaluate();
+        for (int k = 0; k < rows; k++) {
+            plus[k] = report.getValue(_outputs[k]);
+        }
+
+        att.setDouble(lo);
+        report = eval.evaluate();
+        for (int k = 0; k < rows; k++) {
+            jacobian[k][col] = (plus[k] - report.getValue(_outputs[k])) / (hi - lo);
+        }
+
+        //restore for the next column on this thread
+        att.setDouble(x0);
+
+    }
+
+}
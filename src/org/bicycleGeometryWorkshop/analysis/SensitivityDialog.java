@@ -0,0 +1,145 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2020 Tom.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.bicycleGeometryWorkshop.analysis;
+
+import java.awt.BorderLayout;
+import java.awt.Dimension;
+import java.awt.FlowLayout;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import javax.swing.JButton;
+import javax.swing.JDialog;
+import javax.swing.JFrame;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.SwingWorker;
+import org.bicycleGeometryWorkshop.components.Bicycle;
+import org.bicycleGeometryWorkshop.components.RiderMeasurements;
+import org.bicycleGeometryWorkshop.components.RiderPose;
+import org.bicycleGeometryWorkshop.diagnostics.Log;
+import org.bicycleGeometryWorkshop.diagnostics.Logger;
+
+/**
+ * Sensitivity dialog.  Computes the sensitivity of the report values to the
+ * bicycle attributes in the background and shows the result as a heat map.
+ *
+ * @author Tom
+ */
+public class SensitivityDialog extends JDialog {
+
+    private static final Logger LOG = Log.getLogger(SensitivityDialog.class);
+
+    private SensitivityAnalysis _analysis;
+    private SensitivityHeatMap _heatMap;
+    private JLabel _status;
+
+    /**
+     * Class constructor.
+     *
+     * @param owner The owner frame.
+     * @param bicycle The bicycle to analyze.
+     * @param rider The project rider measurements.
+     * @param pose The project rider pose.
+     */
+    public SensitivityDialog(JFrame owner, Bicycle bicycle, RiderMeasurements rider, RiderPose pose) {
+        super(owner, true);
+
+        //copy the bicycle here on the UI thread
+        _analysis = new SensitivityAnalysis(bicycle, rider, pose);
+
+        init(bicycle.getBicycleName());
+        compute();
+
+    }
+
+    /**
+     * Initialize the components and do the layout.
+     *
+     * @param bicycleName The name of the bicycle for the title.
+     */
+    private void init(String bicycleName) {
+
+        this.setTitle("Sensitivity - " + bicycleName);
+        this.setLayout(new BorderLayout());
+
+        _heatMap = new SensitivityHeatMap();
+        _status = new JLabel("Computing...");
+
+        JScrollPane scroll = new JScrollPane(_heatMap);
+        scroll.setPreferredSize(new Dimension(900, 600));
+        scroll.getVerticalScrollBar().setUnitIncrement(16);
+
+        JButton closeButton = new JButton("Close");
+
+        //close action
+        ActionListener closeAction = (ActionEvent ev) -> {
+            this.setVisible(false);
+        };
+        closeButton.addActionListener(closeAction);
+
+        JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+        buttonPanel.add(_status);
+        buttonPanel.add(closeButton);
+
+        this.add(scroll, BorderLayout.CENTER);
+        this.add(buttonPanel, BorderLayout.SOUTH);
+
+        this.pack();
+        this.setLocationRelativeTo(this.getOwner());
+
+    }
+
+    /**
+     * Compute the Jacobian in the background and show it.
+     */
+    private void compute() {
+
+        SwingWorker<SensitivityResult, Void> worker = new SwingWorker<SensitivityResult, Void>() {
+
+            @Override
+            protected SensitivityResult doInBackground() throws Exception {
+                return _analysis.compute();
+            }
+
+            @Override
+            protected void done() {
+
+                try {
+                    SensitivityResult result = get();
+                    _heatMap.setResult(result);
+                    _status.setText(String.format("Change per mm/degree (step \u00b1%.2f)", result.getStep()));
+                } catch (Exception ex) {
+                    _status.setText("Sensitivity failed: " + ex.getMessage());
+                    LOG.error(ex.getMessage(), ex);
+                }
+            }
+
+        };
+
+        worker.execute();
+
+    }
+
+}
@@ -0,0 +1,202 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2020 Tom.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.bicycleGeometryWorkshop.analysis;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.event.MouseEvent;
+import java.util.ArrayList;
+import javax.swing.JPanel;
+
+/**
+ * Heat map of a sensitivity result.  Rows are the attributes that affect the
+ * report, columns are the report fields.  Each column is colored relative to
+ * its largest derivative (red positive, blue negative) since the fields mix
+ * angles and lengths.  Hovering a cell shows the derivative.
+ *
+ * @author Tom
+ */
+public class SensitivityHeatMap extends JPanel {
+
+    private static final int CELL_WIDTH = 72;
+    private static final int CELL_HEIGHT = 18;
+    private static final int ROW_HEAD_WIDTH = 210;
+    private static final int COL_HEAD_HEIGHT = 22;
+
+    private static final Color NAN_COLOR = new Color(160, 160, 160);
+
+    private SensitivityResult _result;
+
+    //the inputs shown (those with an effect)
+    private ArrayList<Integer> _rows;
+    private double[] _columnMax;
+
+    /**
+     * Class constructor.
+     */
+    public SensitivityHeatMap() {
+
+        _result = null;
+        _rows = new ArrayList();
+        _columnMax = new double[0];
+
+        setBackground(Color.WHITE);
+        //enable tool tips
+        setToolTipText("");
+
+    }
+
+    /**
+     * Set the result to display.
+     *
+     * @param result The sensitivity result.
+     */
+    public void setResult(SensitivityResult result) {
+
+        _result = result;
+        _rows.clear();
+
+        for (int j = 0; j < result.getInputCount(); j++) {
+            if (result.hasEffect(j)) {
+                _rows.add(j);
+            }
+        }
+
+        //largest magnitude per output for the color scale
+        _columnMax = new double[result.getOutputCount()];
+        for (int k = 0; k < _columnMax.length; k++) {
+            for (int j : _rows) {
+                double v = Math.abs(result.getValue(k, j));
+                if (v > _columnMax[k]) {
+                    _columnMax[k] = v;
+                }
+            }
+        }
+
+        setPreferredSize(new Dimension(ROW_HEAD_WIDTH + _columnMax.length * CELL_WIDTH, COL_HEAD_HEIGHT + _rows.size() * CELL_HEIGHT));
+        revalidate();
+        repaint();
+
+    }
+
+    /**
+     * Paint the heat map.
+     *
+     * @param g The graphics object to paint to.
+     */
+    @Override
+    protected void paintComponent(Graphics g) {
+        super.paintComponent(g);
+
+        if (_result == null) {
+            return;
+        }
+
+        Graphics2D g2 = (Graphics2D) g;
+        g2.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+
+        FontMetrics fm = g2.getFontMetrics();
+        int textOffset = (CELL_HEIGHT + fm.getAscent()) / 2 - 2;
+
+        //column heads
+        g2.setColor(Color.BLACK);
+        for (int k = 0; k < _result.getOutputCount(); k++) {
+            g2.drawString(_result.getOutput(k).name(), ROW_HEAD_WIDTH + k * CELL_WIDTH + 4, textOffset + 2);
+        }
+
+        for (int r = 0; r < _rows.size(); r++) {
+
+            int j = _rows.get(r);
+            int y = COL_HEAD_HEIGHT + r * CELL_HEIGHT;
+
+            //row head
+            g2.setColor(Color.BLACK);
+            g2.drawString(_result.getInput(j).toString(), 4, y + textOffset);
+
+            for (int k = 0; k < _result.getOutputCount(); k++) {
+
+                int x = ROW_HEAD_WIDTH + k * CELL_WIDTH;
+
+                g2.setColor(getCellColor(k, _result.getValue(k, j)));
+                g2.fillRect(x, y, CELL_WIDTH - 1, CELL_HEIGHT - 1);
+            }
+        }
+
+    }
+
+    /**
+     * Show the derivative of the cell under the mouse.
+     *
+     * @param e The mouse event.
+     * @return The tool tip text or null if not over a cell.
+     */
+    @Override
+    public String getToolTipText(MouseEvent e) {
+
+        if (_result == null) {
+            return null;
+        }
+
+        int k = (e.getX() - ROW_HEAD_WIDTH) / CELL_WIDTH;
+        int r = (e.getY() - COL_HEAD_HEIGHT) / CELL_HEIGHT;
+
+        if (e.getX() < ROW_HEAD_WIDTH || e.getY() < COL_HEAD_HEIGHT || k >= _result.getOutputCount() || r >= _rows.size()) {
+            return null;
+        }
+
+        int j = _rows.get(r);
+
+        return String.format("%s / %s: %.4f per unit", _result.getOutput(k).name(), _result.getInput(j), _result.getValue(k, j));
+    }
+
+    /**
+     * Get the color of a cell.  White is no change, full red or blue is the
+     * largest change of the column.
+     *
+     * @param output The output (column) index.
+     * @param value The derivative.
+     * @return The cell color.
+     */
+    private Color getCellColor(int output, double value) {
+
+        if (Double.isNaN(value)) {
+            return NAN_COLOR;
+        }
+
+        double max = _columnMax[output];
+        float t = (max > 0) ? (float) Math.min(1.0, Math.abs(value) / max) : 0f;
+        int fade = Math.round(255 * (1f - t));
+
+        if (value > 0) {
+            return new Color(255, fade, fade);
+        }
+
+        return new Color(fade, fade, 255);
+    }
+
+}
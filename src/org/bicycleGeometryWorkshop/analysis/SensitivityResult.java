@@ -0,0 +1,145 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2020 Tom.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.bicycleGeometryWorkshop.analysis;
+
+import java.util.ArrayList;
+import org.bicycleGeometryWorkshop.report.ReportField;
+
+/**
+ * The result of a sensitivity analysis - the Jacobian of the report values
+ * (rows) with respect to the bicycle attributes (columns).
+ *
+ * @author Tom
+ */
+public class SensitivityResult {
+
+    private ArrayList<FitParameter> _inputs;
+    private ReportField[] _outputs;
+    private double[][] _jacobian;
+    private double[] _base;
+    private double _step;
+
+    /**
+     * Class constructor.
+     *
+     * @param inputs The input attributes (columns).
+     * @param outputs The report fields (rows).
+     * @param jacobian The Jacobian [output][input].
+     * @param base The report values at the current attribute values.
+     * @param step The half step used for the differences.
+     */
+    SensitivityResult(ArrayList<FitParameter> inputs, ReportField[] outputs, double[][] jacobian, double[] base, double step) {
+        _inputs = inputs;
+        _outputs = outputs;
+        _jacobian = jacobian;
+        _base = base;
+        _step = step;
+    }
+
+    /**
+     * Get the number of inputs (columns).
+     *
+     * @return The number of inputs.
+     */
+    public int getInputCount() {
+        return _inputs.size();
+    }
+
+    /**
+     * Get an input attribute.
+     *
+     * @param index The input index.
+     * @return The input attribute.
+     */
+    public FitParameter getInput(int index) {
+        return _inputs.get(index);
+    }
+
+    /**
+     * Get the number of outputs (rows).
+     *
+     * @return The number of outputs.
+     */
+    public int getOutputCount() {
+        return _outputs.length;
+    }
+
+    /**
+     * Get an output field.
+     *
+     * @param index The output index.
+     * @return The report field.
+     */
+    public ReportField getOutput(int index) {
+        return _outputs[index];
+    }
+
+    /**
+     * Get the report value of an output at the current attribute values.
+     *
+     * @param output The output index.
+     * @return The value.
+     */
+    public double getBaseValue(int output) {
+        return _base[output];
+    }
+
+    /**
+     * Get a derivative - the change of an output per unit of an input.
+     *
+     * @param output The output index.
+     * @param input The input index.
+     * @return The derivative (NaN if the geometry could not be solved).
+     */
+    public double getValue(int output, int input) {
+        return _jacobian[output][input];
+    }
+
+    /**
+     * Check if an input changes any output.
+     *
+     * @param input The input index.
+     * @return True if any derivative of the input is not (numerically) zero.
+     */
+    public boolean hasEffect(int input) {
+
+        for (double[] row : _jacobian) {
+            if (!(Math.abs(row[input]) < 1.0e-9)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Get the half step used for the differences.
+     *
+     * @return The step.
+     */
+    public double getStep() {
+        return _step;
+    }
+
+}
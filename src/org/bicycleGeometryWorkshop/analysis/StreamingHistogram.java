@@ -0,0 +1,277 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2020 Tom.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.bicycleGeometryWorkshop.analysis;
+
+/**
+ * Fixed size histogram for streaming values.  Memory does not grow with the
+ * number of values, percentiles are interpolated within the bins.  Values
+ * outside the range are counted (and held in the exact min/max) but not binned.
+ * Histograms with the same range can be merged, so each thread can fill its own.
+ *
+ * @author Tom
+ */
+public class StreamingHistogram {
+
+    private double _lo;
+    private double _hi;
+    private double _binWidth;
+    private long[] _bins;
+
+    private long _below;
+    private long _above;
+    private long _count;
+    private long _nanCount;
+
+    private double _sum;
+    private double _sumSq;
+    private double _min;
+    private double _max;
+
+    /**
+     * Class constructor.
+     *
+     * @param lo The low end of the binned range.
+     * @param hi The high end of the binned range.
+     * @param bins The number of bins.
+     */
+    public StreamingHistogram(double lo, double hi, int bins) {
+
+        _lo = lo;
+        _hi = (hi > lo) ? hi : lo + 1.0;
+        _bins = new long[Math.max(1, bins)];
+        _binWidth = (_hi - _lo) / _bins.length;
+
+        _below = 0;
+        _above = 0;
+        _count = 0;
+        _nanCount = 0;
+
+        _sum = 0;
+        _sumSq = 0;
+        _min = Double.POSITIVE_INFINITY;
+        _max = Double.NEGATIVE_INFINITY;
+
+    }
+
+    /**
+     * Create an empty histogram with the same range and bins.
+     *
+     * @return The empty histogram.
+     */
+    public StreamingHistogram emptyCopy() {
+        return new StreamingHistogram(_lo, _hi, _bins.length);
+    }
+
+    /**
+     * Add a value.  NaN values (unsolved geometry) are only counted.
+     *
+     * @param value The value.
+     */
+    public void add(double value) {
+
+        if (Double.isNaN(value)) {
+            _nanCount++;
+            return;
+        }
+
+        if (value < _lo) {
+            _below++;
+        } else if (value >= _hi) {
+            _above++;
+        } else {
+            int bin = (int) ((value - _lo) / _binWidth);
+            _bins[Math.min(bin, _bins.length - 1)]++;
+        }
+
+        _count++;
+        _sum += value;
+        _sumSq += value * value;
+
+        if (value < _min) {
+            _min = value;
+        }
+        if (value > _max) {
+            _max = value;
+        }
+
+    }
+
+    /**
+     * Add the counts of another histogram with the same range and bins.
+     *
+     * @param other The histogram to merge.
+     */
+    public void merge(StreamingHistogram other) {
+
+        for (int i = 0; i < _bins.length; i++) {
+            _bins[i] += other._bins[i];
+        }
+
+        _below += other._below;
+        _above += other._above;
+        _count += other._count;
+        _nanCount += other._nanCount;
+
+        _sum += other._sum;
+        _sumSq += other._sumSq;
+        _min = Math.min(_min, other._min);
+        _max = Math.max(_max, other._max);
+
+    }
+
+    /**
+     * Get a percentile.
+     *
+     * @param p The percentile (0-100).
+     * @return The value or NaN if there are no values.
+     */
+    public double getPercentile(double p) {
+
+        if (_count == 0) {
+            return Double.NaN;
+        }
+
+        double rank = Math.max(0.0, Math.min(100.0, p)) / 100.0 * _count;
+
+        //in the values below the range
+        if (rank <= _below) {
+            return _below == 0 ? _lo : _min + (_lo - _min) * rank / _below;
+        }
+
+        double cumulative = _below;
+
+        for (int i = 0; i < _bins.length; i++) {
+
+            long n = _bins[i];
+
+            if (n > 0 && cumulative + n >= rank) {
+                double fraction = (rank - cumulative) / n;
+                return _lo + (i + fraction) * _binWidth;
+            }
+
+            cumulative += n;
+        }
+
+        //in the values above the range
+        return _above == 0 ? _hi : _hi + (_max - _hi) * (rank - cumulative) / _above;
+    }
+
+    /**
+     * Get the number of values (not including NaN).
+     *
+     * @return The count.
+     */
+    public long getCount() {
+        return _count;
+    }
+
+    /**
+     * Get the number of NaN (unsolved) values.
+     *
+     * @return The NaN count.
+     */
+    public long getNaNCount() {
+        return _nanCount;
+    }
+
+    /**
+     * Get the mean.
+     *
+     * @return The mean or NaN if there are no values.
+     */
+    public double getMean() {
+        return _count == 0 ? Double.NaN : _sum / _count;
+    }
+
+    /**
+     * Get the standard deviation.
+     *
+     * @return The standard deviation or NaN if there are no values.
+     */
+    public double getStandardDeviation() {
+
+        if (_count == 0) {
+            return Double.NaN;
+        }
+
+        double mean = _sum / _count;
+        return Math.sqrt(Math.max(0.0, _sumSq / _count - mean * mean));
+    }
+
+    /**
+     * Get the smallest value.
+     *
+     * @return The minimum.
+     */
+    public double getMin() {
+        return _min;
+    }
+
+    /**
+     * Get the largest value.
+     *
+     * @return The maximum.
+     */
+    public double getMax() {
+        return _max;
+    }
+
+    /**
+     * Get the number of bins.
+     *
+     * @return The number of bins.
+     */
+    public int getBinCount() {
+        return _bins.length;
+    }
+
+    /**
+     * Get the count of a bin.
+     *
+     * @param bin The bin index.
+     * @return The count.
+     */
+    public long getBin(int bin) {
+        return _bins[bin];
+    }
+
+    /**
+     * Get the low end of the binned range.
+     *
+     * @return The low end.
+     */
+    public double getLow() {
+        return _lo;
+    }
+
+    /**
+     * Get the high end of the binned range.
+     *
+     * @return The high end.
+     */
+    public double getHigh() {
+        return _hi;
+    }
+
+}
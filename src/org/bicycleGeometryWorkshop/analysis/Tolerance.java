@@ -0,0 +1,143 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2020 Tom.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.bicycleGeometryWorkshop.analysis;
+
+import java.util.SplittableRandom;
+
+/**
+ * A tolerance on a double attribute for the Monte Carlo analysis, i.e. head tube
+ * angle +/- 0.5 degrees.  Samples are offsets from the nominal value.
+ *
+ * @author Tom
+ */
+public class Tolerance {
+
+    private String _tableName;
+    private String _attName;
+    private ToleranceDistribution _distribution;
+    private double _tolerance;
+
+    /**
+     * Class constructor.
+     *
+     * @param tableName The AttributeSet (table) name, i.e. "FrameSet".
+     * @param attName The attribute name, i.e. "HeadTubeAngle".
+     * @param distribution The distribution of the samples.
+     * @param tolerance The tolerance (+/-) in attribute units.
+     */
+    public Tolerance(String tableName, String attName, ToleranceDistribution distribution, double tolerance) {
+        _tableName = tableName;
+        _attName = attName;
+        _distribution = distribution;
+        _tolerance = Math.abs(tolerance);
+    }
+
+    /**
+     * Get the table (AttributeSet) name.
+     *
+     * @return The table name.
+     */
+    public String getTableName() {
+        return _tableName;
+    }
+
+    /**
+     * Get the attribute name.
+     *
+     * @return The attribute name.
+     */
+    public String getAttributeName() {
+        return _attName;
+    }
+
+    /**
+     * Get the distribution.
+     *
+     * @return The distribution.
+     */
+    public ToleranceDistribution getDistribution() {
+        return _distribution;
+    }
+
+    /**
+     * Get the tolerance.
+     *
+     * @return The tolerance (+/-).
+     */
+    public double getTolerance() {
+        return _tolerance;
+    }
+
+    /**
+     * Sample an offset from the nominal value.
+     *
+     * @param rng The random number stream of the calling thread.
+     * @return The offset.
+     */
+    public double sample(SplittableRandom rng) {
+
+        switch (_distribution) {
+            case Normal:
+                return nextGaussian(rng) * _tolerance / 3.0;
+            case Triangular:
+                return (rng.nextDouble() - rng.nextDouble()) * _tolerance;
+            default:
+                return (2.0 * rng.nextDouble() - 1.0) * _tolerance;
+        }
+
+    }
+
+    /**
+     * Get the display name of the tolerance.
+     *
+     * @return The table and attribute name.
+     */
+    @Override
+    public String toString() {
+        return _tableName + "." + _attName;
+    }
+
+    /**
+     * Standard normal sample (polar method).  SplittableRandom has no gaussian
+     * in Java 8.
+     *
+     * @param rng The random number stream.
+     * @return The sample.
+     */
+    private static double nextGaussian(SplittableRandom rng) {
+
+        double u;
+        double v;
+        double s;
+
+        do {
+            u = 2.0 * rng.nextDouble() - 1.0;
+            v = 2.0 * rng.nextDouble() - 1.0;
+            s = u * u + v * v;
+        } while (s >= 1.0 || s == 0.0);
+
+        return u * Math.sqrt(-2.0 * Math.log(s) / s);
+    }
+
+}
@@ -0,0 +1,382 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2020 Tom.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.bicycleGeometryWorkshop.analysis;
+
+import java.awt.BorderLayout;
+import java.awt.Dimension;
+import java.awt.FlowLayout;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import javax.swing.BorderFactory;
+import javax.swing.DefaultCellEditor;
+import javax.swing.JButton;
+import javax.swing.JComboBox;
+import javax.swing.JDialog;
+import javax.swing.JFrame;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JProgressBar;
+import javax.swing.JScrollPane;
+import javax.swing.JTable;
+import javax.swing.JTextField;
+import javax.swing.SwingWorker;
+import javax.swing.Timer;
+import javax.swing.table.DefaultTableModel;
+import org.bicycleGeometryWorkshop.components.Bicycle;
+import org.bicycleGeometryWorkshop.components.RiderMeasurements;
+import org.bicycleGeometryWorkshop.components.RiderPose;
+import org.bicycleGeometryWorkshop.database.DataBaseKeys;
+import org.bicycleGeometryWorkshop.diagnostics.Log;
+import org.bicycleGeometryWorkshop.diagnostics.Logger;
+
+/**
+ * Tolerance dialog.  The user sets the tolerances of the frame and rider
+ * attributes and the number of samples, the Monte Carlo analysis runs in the
+ * background and the percentile bands of the report values are listed.
+ *
+ * @author Tom
+ */
+public class ToleranceDialog extends JDialog {
+
+    private static final Logger LOG = Log.getLogger(ToleranceDialog.class);
+
+    private static final int COL_USE = 0;
+    private static final int COL_TABLE = 1;
+    private static final int COL_ATTRIBUTE = 2;
+    private static final int COL_DISTRIBUTION = 3;
+    private static final int COL_TOLERANCE = 4;
+
+    private static final double[] PERCENTILES = {5, 25, 50, 75, 95};
+
+    private Bicycle _bicycle;
+    private RiderMeasurements _rider;
+    private RiderPose _pose;
+
+    private DefaultTableModel _tolModel;
+    private DefaultTableModel _resultModel;
+
+    private JTextField _samplesField;
+    private JProgressBar _progress;
+    private JButton _runButton;
+    private JButton _cancelButton;
+    private JLabel _status;
+
+    private SwingWorker<MonteCarloResult, Void> _worker;
+    private Timer _progressTimer;
+
+    /**
+     * Class constructor.
+     *
+     * @param owner The owner frame.
+     * @param bicycle The bicycle to analyze.
+     * @param rider The project rider measurements.
+     * @param pose The project rider pose.
+     */
+    public ToleranceDialog(JFrame owner, Bicycle bicycle, RiderMeasurements rider, RiderPose pose) {
+        super(owner, true);
+
+        _bicycle = bicycle;
+        _rider = rider;
+        _pose = pose;
+
+        _worker = null;
+        _progressTimer = null;
+
+        init();
+
+    }
+
+    /**
+     * Initialize the components and do the layout.
+     */
+    private void init() {
+
+        this.setTitle("Tolerance Analysis - " + _bicycle.getBicycleName());
+        this.setLayout(new BorderLayout());
+
+        //tolerance table
+        String[] tolHeads = {"Use", "Table", "Attribute", "Distribution", "+/-"};
+        _tolModel = new DefaultTableModel(tolHeads, 0) {
+
+            @Override
+            public Class<?> getColumnClass(int col) {
+                if (col == COL_USE) {
+                    return Boolean.class;
+                } else if (col == COL_TOLERANCE) {
+                    return Double.class;
+                }
+                return Object.class;
+            }
+
+            @Override
+            public boolean isCellEditable(int row, int col) {
+                return col == COL_USE || col == COL_DISTRIBUTION || col == COL_TOLERANCE;
+            }
+
+        };
+
+        String frame = DataBaseKeys.FRAMESET.toString();
+        String riderTable = DataBaseKeys.RIDER_MEASURE.toString();
+
+        addToleranceRow(true, frame, "HeadTubeAngle", 0.5);
+        addToleranceRow(true, frame, "SeatTubeAngle", 0.5);
+        addToleranceRow(true, frame, "Stack", 2);
+        addToleranceRow(true, frame, "Reach", 2);
+        addToleranceRow(false, frame, "Chainstay", 2);
+        addToleranceRow(false, frame, "BottomBracketDrop", 2);
+        addToleranceRow(false, frame, "ForkRake", 1);
+        addToleranceRow(false, riderTable, "Inseam", 10);
+        addToleranceRow(false, riderTable, "HipHeight", 10);
+        addToleranceRow(false, riderTable, "KneeHeight", 10);
+        addToleranceRow(false, riderTable, "SternalNotch", 10);
+
+        JTable tolTable = new JTable(_tolModel);
+        tolTable.getColumnModel().getColumn(COL_DISTRIBUTION).setCellEditor(new DefaultCellEditor(new JComboBox(ToleranceDistribution.values())));
+
+        JScrollPane tolScroll = new JScrollPane(tolTable);
+        tolScroll.setPreferredSize(new Dimension(560, 220));
+        tolScroll.setBorder(BorderFactory.createTitledBorder("Tolerances"));
+
+        //result table
+        String[] resultHeads = {"Field", "Mean", "P5", "P25", "P50", "P75", "P95", "Min", "Max"};
+        _resultModel = new DefaultTableModel(resultHeads, 0) {
+
+            @Override
+            public boolean isCellEditable(int row, int col) {
+                return false;
+            }
+
+        };
+
+        JTable resultTable = new JTable(_resultModel);
+        JScrollPane resultScroll = new JScrollPane(resultTable);
+        resultScroll.setPreferredSize(new Dimension(560, 100));
+        resultScroll.setBorder(BorderFactory.createTitledBorder("Results"));
+
+        //controls
+        _samplesField = new JTextField("100000", 8);
+        _progress = new JProgressBar(0, 1000);
+        _status = new JLabel(" ");
+
+        _runButton = new JButton("Run");
+        _cancelButton = new JButton("Cancel");
+        _cancelButton.setEnabled(false);
+        JButton closeButton = new JButton("Close");
+
+        //run action
+        ActionListener runAction = (ActionEvent ev) -> {
+            runAnalysis(tolTable);
+        };
+        _runButton.addActionListener(runAction);
+
+        //cancel action
+        ActionListener cancelAction = (ActionEvent ev) -> {
+            cancelAnalysis();
+        };
+        _cancelButton.addActionListener(cancelAction);
+
+        //close action
+        ActionListener closeAction = (ActionEvent ev) -> {
+            cancelAnalysis();
+            this.setVisible(false);
+        };
+        closeButton.addActionListener(closeAction);
+
+        JPanel controlPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        controlPanel.add(new JLabel("Samples"));
+        controlPanel.add(_samplesField);
+        controlPanel.add(_progress);
+        controlPanel.add(_runButton);
+        controlPanel.add(_cancelButton);
+        controlPanel.add(closeButton);
+
+        JPanel southPanel = new JPanel(new BorderLayout());
+        southPanel.add(resultScroll, BorderLayout.CENTER);
+        southPanel.add(controlPanel, BorderLayout.SOUTH);
+
+        this.add(tolScroll, BorderLayout.NORTH);
+        this.add(southPanel, BorderLayout.CENTER);
+        this.add(_status, BorderLayout.SOUTH);
+
+        this.pack();
+        this.setLocationRelativeTo(this.getOwner());
+
+    }
+
+    /**
+     * Add a row to the tolerance table.
+     *
+     * @param use True to use the tolerance by default.
+     * @param table The table (AttributeSet) name.
+     * @param attribute The attribute name.
+     * @param tolerance The default tolerance.
+     */
+    private void addToleranceRow(boolean use, String table, String attribute, double tolerance) {
+
+        Object[] row = {use, table, attribute, ToleranceDistribution.Normal, tolerance};
+        _tolModel.addRow(row);
+
+    }
+
+    /**
+     * Build the analysis from the dialog and run it in the background.
+     *
+     * @param tolTable The tolerance table (to stop any edit in progress).
+     */
+    private void runAnalysis(JTable tolTable) {
+
+        if (tolTable.isEditing()) {
+            tolTable.getCellEditor().stopCellEditing();
+        }
+
+        long samples;
+        try {
+            samples = Long.parseLong(_samplesField.getText().trim());
+        } catch (NumberFormatException ex) {
+            _status.setText("Invalid number of samples.");
+            return;
+        }
+
+        MonteCarloAnalysis analysis = new MonteCarloAnalysis(_bicycle, _rider, _pose);
+        analysis.setSamples(samples);
+
+        int used = 0;
+        for (int r = 0; r < _tolModel.getRowCount(); r++) {
+
+            if (Boolean.TRUE.equals(_tolModel.getValueAt(r, COL_USE))) {
+
+                String table = (String) _tolModel.getValueAt(r, COL_TABLE);
+                String attribute = (String) _tolModel.getValueAt(r, COL_ATTRIBUTE);
+                ToleranceDistribution dist = (ToleranceDistribution) _tolModel.getValueAt(r, COL_DISTRIBUTION);
+                double tol = ((Number) _tolModel.getValueAt(r, COL_TOLERANCE)).doubleValue();
+
+                if (analysis.addTolerance(new Tolerance(table, attribute, dist, tol))) {
+                    used++;
+                }
+            }
+        }
+
+        if (used == 0) {
+            _status.setText("Select at least one tolerance.");
+            return;
+        }
+
+        _runButton.setEnabled(false);
+        _cancelButton.setEnabled(true);
+        _resultModel.setRowCount(0);
+        _status.setText("Running...");
+
+        long start = System.currentTimeMillis();
+
+        _worker = new SwingWorker<MonteCarloResult, Void>() {
+
+            @Override
+            protected MonteCarloResult doInBackground() throws Exception {
+                return analysis.run();
+            }
+
+            @Override
+            protected void done() {
+
+                _progressTimer.stop();
+                _runButton.setEnabled(true);
+                _cancelButton.setEnabled(false);
+
+                if (isCancelled()) {
+                    _status.setText("Cancelled.");
+                    return;
+                }
+
+                try {
+                    showResult(get());
+                    _progress.setValue(_progress.getMaximum());
+                    _status.setText(String.format("%d samples in %.1f s", samples, (System.currentTimeMillis() - start) / 1000.0));
+                } catch (Exception ex) {
+                    _status.setText("Analysis failed: " + ex.getMessage());
+                    LOG.error(ex.getMessage(), ex);
+                }
+            }
+
+        };
+
+        //poll the progress
+        ActionListener progressAction = (ActionEvent ev) -> {
+            _progress.setValue((int) (analysis.getProgress() * _progress.getMaximum()));
+        };
+        _progressTimer = new Timer(200, progressAction);
+        _progressTimer.start();
+
+        _worker.execute();
+
+    }
+
+    /**
+     * Cancel a running analysis.
+     */
+    private void cancelAnalysis() {
+
+        if (_worker != null && !_worker.isDone()) {
+            _worker.cancel(true);
+        }
+
+    }
+
+    /**
+     * List the percentile bands of a result.
+     *
+     * @param result The result.
+     */
+    private void showResult(MonteCarloResult result) {
+
+        for (int k = 0; k < result.getOutputCount(); k++) {
+
+            StreamingHistogram h = result.getHistogram(k);
+
+            Object[] row = new Object[PERCENTILES.length + 4];
+            row[0] = result.getOutput(k).name();
+            row[1] = format(h.getMean());
+
+            for (int p = 0; p < PERCENTILES.length; p++) {
+                row[p + 2] = format(h.getPercentile(PERCENTILES[p]));
+            }
+
+            row[PERCENTILES.length + 2] = format(h.getMin());
+            row[PERCENTILES.length + 3] = format(h.getMax());
+
+            _resultModel.addRow(row);
+        }
+
+    }
+
+    /**
+     * Format a result value.
+     *
+     * @param value The value.
+     * @return The formatted value.
+     */
+    private String format(double value) {
+        return String.format("%.2f", value);
+    }
+
+}
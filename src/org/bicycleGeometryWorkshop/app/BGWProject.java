@@ -23,7 +23,12 @@
  */
 package org.bicycleGeometryWorkshop.app;
 
+import org.bicycleGeometryWorkshop.analysis.BicycleEvaluator;
+import org.bicycleGeometryWorkshop.database.BGWBinaryFile;
 import org.bicycleGeometryWorkshop.database.BGWDataBase;
+import org.bicycleGeometryWorkshop.database.ChangeLogStore;
+import org.bicycleGeometryWorkshop.database.ProjectStore;
+import org.bicycleGeometryWorkshop.database.LazyBicycleLoader;
 import org.bicycleGeometryWorkshop.components.BicycleListener;
 import org.bicycleGeometryWorkshop.geometry.Utilities;
 import org.bicycleGeometryWorkshop.components.Bicycle;
@@ -31,10 +36,12 @@ import org.bicycleGeometryWorkshop.components.ComponentOwner;
 import org.bicycleGeometryWorkshop.report.Report;
 import org.bicycleGeometryWorkshop.components.RiderMeasurements;
 import org.bicycleGeometryWorkshop.components.RiderPose;
+import java.awt.Component;
 import java.awt.Graphics2D;
 import java.awt.geom.Rectangle2D;
 import java.io.File;
 import java.util.ArrayList;
+import java.util.HashMap;
 import javax.swing.JFrame;
 import javax.swing.JOptionPane;
 import org.bicycleGeometryWorkshop.app.undo.AttributeUndo;
@@ -50,6 +57,8 @@ import org.bicycleGeometryWorkshop.components.BicycleEventType;
 import org.bicycleGeometryWorkshop.components.ComponentChangeEvent;
 import org.bicycleGeometryWorkshop.report.ReportValue;
 import org.bicycleGeometryWorkshop.ui.BicycleGeometryWorkshopUI;
+import org.bicycleGeometryWorkshop.diagnostics.Log;
+import org.bicycleGeometryWorkshop.diagnostics.Logger;
 
 /**
  * This is the main class for the project presented in the UI. The project
@@ -69,6 +78,8 @@ import org.bicycleGeometryWorkshop.ui.BicycleGeometryWorkshopUI;
  */
 public class BGWProject implements ComponentOwner, BicycleListener {
 
+    private static final Logger LOG = Log.getLogger(BGWProject.class);
+
     private RiderMeasurements _riderSize;
     private RiderPose _riderPose;
 
@@ -79,11 +90,27 @@ public class BGWProject implements ComponentOwner, BicycleListener {
 
     private ProjectListener _listener;
 
+    //other listeners for bicycle changes (i.e. the viewer)
+    private ArrayList<BicycleListener> _bicycleListeners;
+
     private BGWDataBase _db;
+    //file store used for open/save - the database unless replaced
+    private ProjectStore _store;
     private boolean _isDirty;
 
     private UndoManager _undo;
 
+    //loader for bicycles still pending from a lazy open (null if none)
+    private LazyBicycleLoader _lazyLoader;
+
+    //rebuilds geometry off the UI thread - null to update on the UI thread
+    private GeometryWorker _geometry;
+    //last captured values of each bicycle - reused when only the rider or pose changes
+    private HashMap<Bicycle, HashMap<String, HashMap<String, Object>>> _captured;
+
+    //projects with more bicycles than this finish loading in the background
+    private static final int LAZY_OPEN_THRESHOLD = 25;
+
     /**
      * Class constructor. The class is initialized with the project listener
      * (UI).
@@ -96,8 +123,21 @@ public class BGWProject implements ComponentOwner, BicycleListener {
 
         _db = new BGWDataBase();
 
+        //experimental change log store
+        if (Boolean.getBoolean("bgw.changeLogStore")) {
+            ChangeLogStore logStore = new ChangeLogStore();
+            if (listener instanceof Component) {
+                logStore.setParent((Component) listener);
+            }
+            _store = logStore;
+        } else {
+            _store = _db;
+        }
+
         _listener = listener;
 
+        _bicycleListeners = new ArrayList();
+
         _riderSize = new RiderMeasurements(this);
         _riderPose = new RiderPose(this);
 
@@ -109,6 +149,11 @@ public class BGWProject implements ComponentOwner, BicycleListener {
 
         _undo = new UndoManager();
 
+        _lazyLoader = null;
+
+        _geometry = null;
+        _captured = new HashMap();
+
         //create default bicycle
         createDefaultBicycle();
 
@@ -172,7 +217,8 @@ public class BGWProject implements ComponentOwner, BicycleListener {
             //check results
             if (result == JOptionPane.YES_OPTION) {
                 //atempt to save
-                proceed = _db.saveFile(this);
+                finishLazyLoad();
+                proceed = _store.saveFile(this);
             } else if (result == JOptionPane.NO_OPTION) {
                 //discard changes
                 proceed = true;
@@ -193,7 +239,8 @@ public class BGWProject implements ComponentOwner, BicycleListener {
      */
     public void saveFile() {
 
-        _db.saveFile(this);
+        finishLazyLoad();
+        _store.saveFile(this);
         _isDirty = false;
     }
 
@@ -202,23 +249,57 @@ public class BGWProject implements ComponentOwner, BicycleListener {
      */
     public void saveFileAs() {
 
-        _db.saveFileAs(this);
+        finishLazyLoad();
+        _store.saveFileAs(this);
         _isDirty = false;
     }
 
+    /**
+     * Open a file.  Bicycle names and visibility are loaded first and the
+     * navigator is populated right away.  For large projects the bicycle
+     * components are then loaded in the background (or on selection).
+     */
     public void openFile() {
 
         if (!dirtyCheck()) {
             return;
         }
 
-        boolean opened = _db.openFile(this);
+        //other stores load the whole project
+        if (_store != _db) {
+
+            if (_store.openFile(this)) {
+                cancelLazyLoad();
+                postLoadUpdate();
+            }
+            return;
+        }
+
+        LazyBicycleLoader loader = _db.openFileLazy(this, this::bicyclesLoaded);
+        boolean opened = loader != null;
 
         if (opened) {
 
+            cancelLazyLoad();
+            _lazyLoader = loader;
+
+            //small projects load right away
+            if (_bicycles.size() <= LAZY_OPEN_THRESHOLD) {
+                _lazyLoader.loadAll();
+            }
+
             postLoadUpdate();
+
+            _lazyLoader.start();
+
+            if (_db.isReadOnly()) {
+                String mssg = "The file is from a newer version or could not be updated and was opened read-only.\n";
+                mssg += "Saving will ask for a new file.";
+                JFrame frame = BicycleGeometryWorkshopUI.getActiveFrame();
+                JOptionPane.showMessageDialog(frame, mssg, "Read-only file", JOptionPane.WARNING_MESSAGE);
+            }
 //            _undo.reset();
-//            System.out.println("--Updating after open...");
+//            LOG.debug("Updating after open");
 //            //attach geometry listeners to bicycles
 //            for (Bicycle b : _bicycles) {
 //                b.setBicycleListener(this);
@@ -253,14 +334,88 @@ public class BGWProject implements ComponentOwner, BicycleListener {
             //do update on successfull load
             if (_db.openFile(this, path)) {
 
+                cancelLazyLoad();
+
                 postLoadUpdate();
-                //reset the database flags for open file
-                _db.resetOpenFlags();
+                //reset the store flags for open file
+                resetOpenFlags();
+
+            }
+
+        }
+
+    }
+
+    /**
+     * Open a project file without prompting.  All the bicycles are loaded
+     * before this returns - used for batch (headless) work.
+     *
+     * @param path The path of the .bgw file.
+     * @return True if the file was loaded, false on error.
+     */
+    public boolean openFile(String path) {
+
+        boolean opened = _db.openFile(this, path);
 
+        if (opened) {
+            cancelLazyLoad();
+            postLoadUpdate();
+            //the other store is still on the previous file
+            if (_store != _db) {
+                _store.resetOpenFlags();
             }
+        }
+
+        return opened;
+    }
+
+    /**
+     * Write the project to a compact binary file.  This does not change the
+     * current .bgw file path or the dirty flag.
+     *
+     * @param path The path of the binary file.
+     * @return True if the file was written, false on error.
+     */
+    public boolean exportBinaryFile(String path) {
+
+        finishLazyLoad();
+
+        BGWBinaryFile binFile = new BGWBinaryFile();
+        return binFile.writeFile(this, path);
+    }
 
+    /**
+     * Open a project from a compact binary file.
+     *
+     * @param path The path of the binary file.
+     * @return True if the file was loaded, false on error.
+     */
+    public boolean openBinaryFile(String path) {
+
+        BGWBinaryFile binFile = new BGWBinaryFile();
+        boolean opened = binFile.openFile(this, path);
+
+        if (opened) {
+            cancelLazyLoad();
+            postLoadUpdate();
+            //not a .bgw file - request a path on save
+            resetOpenFlags();
         }
 
+        return opened;
+    }
+
+    /**
+     * Reset the open flags of the database and the project store so the next
+     * save asks for a new file.
+     */
+    private void resetOpenFlags() {
+
+        _db.resetOpenFlags();
+
+        if (_store != _db) {
+            _store.resetOpenFlags();
+        }
     }
 
     /**
@@ -269,11 +424,25 @@ public class BGWProject implements ComponentOwner, BicycleListener {
     private void postLoadUpdate() {
 
         _undo.reset();
-        System.out.println("--Updating after open...");
+        LOG.debug("Updating after open");
         //attach geometry listeners to bicycles
         for (Bicycle b : _bicycles) {
             b.setBicycleListener(this);
-            b.updateAllComponents();
+            //pending bicycles are updated when they load
+            if (isBicycleLoaded(b)) {
+                b.updateAllComponents();
+            }
+        }
+
+        //the snapshots are of the old bicycles
+        _captured.clear();
+
+        if (_geometry != null) {
+            _geometry.clear();
+            for (Bicycle b : _bicycles) {
+                b.setDeferredGeometry(true);
+                requestGeometry(b);
+            }
         }
 
         _listener.projectedLoadedFromDB();
@@ -286,6 +455,62 @@ public class BGWProject implements ComponentOwner, BicycleListener {
 
     }
 
+    /**
+     * Set the store used for opening and saving project files.  The default is
+     * the SQLite database.
+     *
+     * @param store The project store.
+     */
+    public void setProjectStore(ProjectStore store) {
+        _store = store;
+    }
+
+    /**
+     * Check if a bicycle's components are loaded.  This is false for bicycles
+     * that are still pending from a lazy open.
+     *
+     * @param bicycle The bicycle to check.
+     * @return True if the bicycle is fully loaded.
+     */
+    public boolean isBicycleLoaded(Bicycle bicycle) {
+        return _lazyLoader == null || !_lazyLoader.isPending(bicycle);
+    }
+
+    /**
+     * Load a bicycle's components now if it is pending from a lazy open.
+     * Called when a bicycle is selected.
+     *
+     * @param bicycle The bicycle to load.
+     */
+    public void ensureBicycleLoaded(Bicycle bicycle) {
+
+        if (_lazyLoader != null) {
+            _lazyLoader.ensureLoaded(bicycle);
+        }
+    }
+
+    /**
+     * Finish loading all the pending bicycles from a lazy open.
+     */
+    private void finishLazyLoad() {
+
+        if (_lazyLoader != null) {
+            _lazyLoader.loadAll();
+            _lazyLoader = null;
+        }
+    }
+
+    /**
+     * Stop loading pending bicycles - the project is being replaced.
+     */
+    private void cancelLazyLoad() {
+
+        if (_lazyLoader != null) {
+            _lazyLoader.cancel();
+            _lazyLoader = null;
+        }
+    }
+
     /**
      * Get the saved file path (path and file name). If the file has not been
      * saved this will be an empty string.
@@ -293,7 +518,7 @@ public class BGWProject implements ComponentOwner, BicycleListener {
      * @return The file path or an empty string.
      */
     public String getFilePath() {
-        return _db.getFilePath();
+        return _store.getFilePath();
     }
 
     /**
@@ -322,6 +547,11 @@ public class BGWProject implements ComponentOwner, BicycleListener {
 
         _bicycles.add(bicycle);
 
+        if (_geometry != null) {
+            bicycle.setDeferredGeometry(true);
+            requestGeometry(bicycle);
+        }
+
         //project changed
         _isDirty = true;
 
@@ -358,6 +588,8 @@ public class BGWProject implements ComponentOwner, BicycleListener {
         }
 
 
+        requestGeometry(bicycle);
+
         //project changed
         _isDirty = true;
 
@@ -383,6 +615,11 @@ public class BGWProject implements ComponentOwner, BicycleListener {
                 int index = _bicycles.indexOf(bicycle);
                 _bicycles.remove(bicycle);
 
+                if (_geometry != null) {
+                    _geometry.remove(bicycle);
+                }
+                _captured.remove(bicycle);
+
                 //push undo
                 BicycleDeleteUndo deleteUndo = new BicycleDeleteUndo(this, bicycle, index);
                 _undo.pushUndo(deleteUndo);
@@ -508,6 +745,159 @@ public class BGWProject implements ComponentOwner, BicycleListener {
 
     }
 
+    /**
+     * Called as pending bicycles finish loading from a lazy open.
+     */
+    private void bicyclesLoaded() {
+
+        //request the loaded bicycles without a snapshot
+        if (_geometry != null) {
+            for (Bicycle b : _bicycles) {
+                if (isBicycleLoaded(b) && _geometry.getSnapshot(b) == null && !_geometry.isRequested(b)) {
+                    requestGeometry(b);
+                }
+            }
+        }
+
+        updateUI();
+    }
+
+    /**
+     * Rebuild bicycle geometry on a worker thread.  When set, changes only
+     * mark the project bicycles stale and the viewer, report and bounds are
+     * drawn from snapshots published by the worker (see GeometryWorker), so
+     * edits don't rebuild the bicycles on the UI thread.  The project
+     * bicycles still rebuild when their geometry is read directly.
+     *
+     * @param background True to rebuild on a worker thread.
+     */
+    public void setBackgroundGeometry(boolean background) {
+
+        if (background == (_geometry != null)) {
+            return;
+        }
+
+        if (background) {
+            _geometry = new GeometryWorker(this::updateUI);
+        } else {
+            _geometry.shutdown();
+            _geometry = null;
+        }
+
+        _captured.clear();
+
+        for (Bicycle b : _bicycles) {
+            b.setDeferredGeometry(background);
+            requestGeometry(b);
+        }
+
+    }
+
+    /**
+     * Get the bicycle to draw and report for a project bicycle - the latest
+     * snapshot when the geometry is rebuilt on a worker thread, otherwise the
+     * bicycle itself.  Until the first snapshot of a bicycle is published the
+     * bicycle itself is returned.
+     *
+     * @param bicycle The project bicycle.
+     * @return The bicycle to draw.  Don't change it.
+     */
+    public Bicycle getDisplayBicycle(Bicycle bicycle) {
+
+        if (_geometry != null) {
+            BicycleSnapshot snapshot = _geometry.getSnapshot(bicycle);
+            if (snapshot != null) {
+                return snapshot.getBicycle();
+            }
+        }
+
+        return bicycle;
+    }
+
+    /**
+     * Get the version of the published geometry snapshots.  This changes each
+     * time the worker publishes and is always zero without a worker.
+     *
+     * @return The version.
+     */
+    public long getGeometryVersion() {
+        return _geometry != null ? _geometry.getVersion() : 0;
+    }
+
+    /**
+     * Get the version of the latest geometry snapshot of a bicycle.
+     *
+     * @param bicycle The project bicycle.
+     * @return The version, or zero if there is no snapshot.
+     */
+    public long getGeometryVersion(Bicycle bicycle) {
+
+        if (_geometry != null) {
+            BicycleSnapshot snapshot = _geometry.getSnapshot(bicycle);
+            if (snapshot != null) {
+                return snapshot.getVersion();
+            }
+        }
+
+        return 0;
+    }
+
+    /**
+     * Request a snapshot of a bicycle from the geometry worker.  All the
+     * values of the bicycle are captured.
+     *
+     * @param bicycle The project bicycle.
+     */
+    private void requestGeometry(Bicycle bicycle) {
+
+        if (_geometry != null && isBicycleLoaded(bicycle)) {
+
+            HashMap<String, HashMap<String, Object>> values = BicycleEvaluator.captureValues(bicycle, _riderSize, _riderPose, _visualPrefs);
+            _captured.put(bicycle, values);
+
+            _geometry.request(bicycle, values);
+        }
+    }
+
+    /**
+     * Request snapshots of all the bicycles after a rider or pose change.  The
+     * bicycle values captured last time are reused with the new rider and
+     * pose values.  The captured maps are never changed once handed to the
+     * worker, so they are copied rather than updated.
+     */
+    private void requestRiderPoseGeometry() {
+
+        if (_geometry == null) {
+            return;
+        }
+
+        String riderName = _riderSize.getAttributeSet().getName();
+        String poseName = _riderPose.getAttributeSet().getName();
+        HashMap<String, Object> riderValues = BicycleEvaluator.captureSet(_riderSize.getAttributeSet());
+        HashMap<String, Object> poseValues = BicycleEvaluator.captureSet(_riderPose.getAttributeSet());
+
+        for (Bicycle b : _bicycles) {
+
+            HashMap<String, HashMap<String, Object>> last = _captured.get(b);
+
+            if (last == null) {
+                requestGeometry(b);
+                continue;
+            }
+
+            if (!isBicycleLoaded(b)) {
+                continue;
+            }
+
+            HashMap<String, HashMap<String, Object>> values = new HashMap(last);
+            values.put(riderName, riderValues);
+            values.put(poseName, poseValues);
+            _captured.put(b, values);
+
+            _geometry.request(b, values);
+        }
+    }
+
     /**
      * Common UI Update tasks to call on listener
      */
@@ -534,7 +924,14 @@ public class BGWProject implements ComponentOwner, BicycleListener {
         for (int i = 0; i < bCount; i++) {
 
             Bicycle b = _bicycles.get(i);
-            Report r = b.getReport();
+            Report r = getDisplayBicycle(b).getReport();
+
+            //no analysis until loaded
+            if (!isBicycleLoaded(b)) {
+                r = new Report();
+                r.setName(b.getBicycleName());
+            }
+
             ReportValue[] dataRow = r.getDataRow(cols);
             data[i] = dataRow;
 
@@ -553,12 +950,17 @@ public class BGWProject implements ComponentOwner, BicycleListener {
     public void componentChanged(ComponentChangeEvent compEvent) {
 
         String compName = compEvent.getComponent().getName();
-        System.out.println(">>Shared Component Changed: " + compName);
+        LOG.debug("Shared component changed", "component", compName);
 
         for (Bicycle b : _bicycles) {
             b.updateFromRiderPose(compEvent);
         }
 
+        requestRiderPoseGeometry();
+
+        //every bicycle changed - one event for all of them
+        fireBicycleChanged(new BicycleChangeEvent(null, compEvent));
+
         //update the report
         _listener.updateReport();
         //redraw the viewer
@@ -586,6 +988,10 @@ public class BGWProject implements ComponentOwner, BicycleListener {
         //project changed
         _isDirty = true;
 
+        requestGeometry(bicycleEvent.getBicycle());
+
+        fireBicycleChanged(bicycleEvent);
+
         //notify UI to redraw viewer
         // System.out.println("Bicycle in project changed");
         _listener.updateReport();
@@ -612,6 +1018,41 @@ public class BGWProject implements ComponentOwner, BicycleListener {
 
     }
 
+    /**
+     * Add a listener for changes to the bicycles of the project.  Changes to
+     * the rider or pose are sent once, as an event with no bicycle (all the
+     * bicycles changed).
+     *
+     * @param listener The listener to add.
+     */
+    public void addBicycleListener(BicycleListener listener) {
+
+        if (!_bicycleListeners.contains(listener)) {
+            _bicycleListeners.add(listener);
+        }
+    }
+
+    /**
+     * Remove a bicycle change listener.
+     *
+     * @param listener The listener to remove.
+     */
+    public void removeBicycleListener(BicycleListener listener) {
+        _bicycleListeners.remove(listener);
+    }
+
+    /**
+     * Send a bicycle change to the bicycle listeners.
+     *
+     * @param bicycleEvent The bicycle change event.
+     */
+    private void fireBicycleChanged(BicycleChangeEvent bicycleEvent) {
+
+        for (BicycleListener listener : _bicycleListeners) {
+            listener.bicycleChanged(bicycleEvent);
+        }
+    }
+
     /**
      * Start an undo group. Catch all undo events in a group. (used mainly for
      * import)
@@ -678,8 +1119,14 @@ public class BGWProject implements ComponentOwner, BicycleListener {
         boolean hasFirst = false;
 
         for (Bicycle b : _bicycles) {
+
+            //skip until loaded
+            if (!isBicycleLoaded(b)) {
+                continue;
+            }
+
             //get the bounds
-            Rectangle2D cb = b.getBounds();
+            Rectangle2D cb = getDisplayBicycle(b).getBounds();
 
             //get the area of the bounds - invisible bouns have area < 1
             double area = cb.getWidth() * cb.getHeight();
@@ -707,6 +1154,18 @@ public class BGWProject implements ComponentOwner, BicycleListener {
      * @param scale  The scale of the current view - used for scaling line weights, etc.
      */
     public void render(Graphics2D g2, float scale) {
+        render(g2, scale, null);
+    }
+
+    /**
+     * Renders the bicycles in the project that intersect the visible part of
+     * the world.  Bicycles outside of it are skipped.
+     *
+     * @param g2  The graphics object to render to.
+     * @param scale  The scale of the current view - used for scaling line weights, etc.
+     * @param visible The visible world bounds, or null to render all the bicycles.
+     */
+    public void render(Graphics2D g2, float scale, Rectangle2D visible) {
 
         int bikeCount = _bicycles.size();
 
@@ -714,10 +1173,52 @@ public class BGWProject implements ComponentOwner, BicycleListener {
         for (int i = bikeCount - 1; i >= 0; i--) {
 
             Bicycle b = _bicycles.get(i);
-            b.render(g2, scale, _visualPrefs);
 
+            //pending bicycles are drawn once loaded
+            if (isRenderable(b, visible)) {
+                getDisplayBicycle(b).render(g2, scale, _visualPrefs, visible);
+            }
+
+        }
+
+    }
+
+    /**
+     * Renders the bicycles in the project without the parts that move with
+     * the cranks.  Used by the pedal stroke animation.
+     *
+     * @param g2  The graphics object to render to.
+     * @param scale  The scale of the current view - used for scaling line weights, etc.
+     * @param visible The visible world bounds, or null to render all the bicycles.
+     */
+    public void renderStatic(Graphics2D g2, float scale, Rectangle2D visible) {
+
+        for (int i = _bicycles.size() - 1; i >= 0; i--) {
+
+            Bicycle b = _bicycles.get(i);
+
+            if (isRenderable(b, visible)) {
+                getDisplayBicycle(b).renderStatic(g2, scale, _visualPrefs, visible);
+            }
+
+        }
+
+    }
+
+    /**
+     * Check if a bicycle is loaded and intersects the visible part of the world.
+     *
+     * @param bicycle The bicycle to check.
+     * @param visible The visible world bounds, or null for no culling.
+     * @return True if the bicycle should be rendered.
+     */
+    private boolean isRenderable(Bicycle bicycle, Rectangle2D visible) {
+
+        if (!isBicycleLoaded(bicycle)) {
+            return false;
         }
 
+        return getDisplayBicycle(bicycle).isInView(visible);
     }
 
 
@@ -0,0 +1,94 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2020 Tom.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.bicycleGeometryWorkshop.app;
+
+import org.bicycleGeometryWorkshop.analysis.BicycleEvaluator;
+import org.bicycleGeometryWorkshop.components.Bicycle;
+
+/**
+ * A published copy of a project bicycle's geometry built on the geometry
+ * worker.  The copy is never changed after it is published, so the UI thread
+ * can paint and read it while the worker builds the next version.
+ *
+ * @author Tom
+ */
+public final class BicycleSnapshot {
+
+    private final Bicycle _source;
+    private final BicycleEvaluator _copy;
+    private final long _version;
+
+    /**
+     * Class constructor.
+     *
+     * @param source The project bicycle the snapshot was built from.
+     * @param copy The evaluator holding the rebuilt copy.
+     * @param version The request version (increases with each request).
+     */
+    BicycleSnapshot(Bicycle source, BicycleEvaluator copy, long version) {
+
+        _source = source;
+        _copy = copy;
+        _version = version;
+
+    }
+
+    /**
+     * Get the project bicycle the snapshot was built from.
+     *
+     * @return The project bicycle.
+     */
+    public Bicycle getSource() {
+        return _source;
+    }
+
+    /**
+     * Get the rebuilt copy - for painting and reading only.
+     *
+     * @return The copy.
+     */
+    public Bicycle getBicycle() {
+        return _copy.getBicycle();
+    }
+
+    /**
+     * Get the evaluator holding the copy - reused by the worker once the
+     * snapshot is replaced.
+     *
+     * @return The evaluator.
+     */
+    BicycleEvaluator getEvaluator() {
+        return _copy;
+    }
+
+    /**
+     * Get the version of the request the snapshot was built for.
+     *
+     * @return The version.
+     */
+    public long getVersion() {
+        return _version;
+    }
+
+}
@@ -0,0 +1,346 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2020 Tom.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.bicycleGeometryWorkshop.app;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.swing.SwingUtilities;
+import org.bicycleGeometryWorkshop.analysis.BicycleEvaluator;
+import org.bicycleGeometryWorkshop.components.Bicycle;
+import org.bicycleGeometryWorkshop.diagnostics.Metric;
+import org.bicycleGeometryWorkshop.diagnostics.Metrics;
+import org.bicycleGeometryWorkshop.diagnostics.Log;
+import org.bicycleGeometryWorkshop.diagnostics.Logger;
+
+/**
+ * Rebuilds bicycle geometry on a worker thread and publishes the results as
+ * immutable, versioned snapshots.
+ * <p>
+ * The UI thread captures the attribute values of a changed bicycle and posts
+ * a request.  Only the latest request of each bicycle is kept - a request that
+ * is replaced before the worker gets to it is dropped.  The worker builds a
+ * copy of the bicycle for each request and swaps a new snapshot map into an
+ * atomic reference, then calls the publish callback on the UI thread.
+ * <p>
+ * The copies of replaced snapshots are reused for later requests, but only
+ * after the publish callback has run - the UI thread never holds on to a
+ * snapshot past the event that read it, so by then nothing paints the copy.
+ *
+ * @author Tom
+ */
+public class GeometryWorker {
+
+    private static final Logger LOG = Log.getLogger(GeometryWorker.class);
+
+    //the worker thread ends when idle
+    private static final long IDLE_SECONDS = 10;
+
+    //metrics shown in the diagnostics dialog
+    private static final Metric REQUEST_COUNTER = Metrics.counter("GeometryWorker.requests");
+    private static final Metric REBUILD_COUNTER = Metrics.counter("GeometryWorker.rebuilds");
+    private static final Metric DRAIN_TIMER = Metrics.timer("GeometryWorker.drain");
+
+    private ThreadPoolExecutor _executor;
+
+    //latest request of each bicycle not started yet
+    private ConcurrentHashMap<Bicycle, Request> _requests;
+    private AtomicBoolean _scheduled;
+    private AtomicLong _requestVersion;
+
+    private AtomicReference<Published> _published;
+    //incremented by clear() - snapshots built before a clear are dropped
+    private AtomicLong _clearCount;
+
+    //copies of replaced snapshots ready to reuse
+    private ConcurrentLinkedQueue<BicycleEvaluator> _spare;
+
+    private Runnable _onPublish;
+
+    /**
+     * Class constructor.
+     *
+     * @param onPublish Called on the UI thread after snapshots are published.
+     */
+    public GeometryWorker(Runnable onPublish) {
+
+        _onPublish = onPublish;
+
+        _executor = new ThreadPoolExecutor(1, 1, IDLE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue(), (Runnable r) -> {
+            Thread t = new Thread(r, "Geometry Worker");
+            t.setDaemon(true);
+            return t;
+        });
+        _executor.allowCoreThreadTimeOut(true);
+
+        _requests = new ConcurrentHashMap();
+        _scheduled = new AtomicBoolean(false);
+        _requestVersion = new AtomicLong();
+
+        _published = new AtomicReference(new Published(0, new HashMap()));
+        _clearCount = new AtomicLong();
+
+        _spare = new ConcurrentLinkedQueue();
+
+    }
+
+    /**
+     * Request a rebuild of a bicycle.  Replaces a request of the same bicycle
+     * the worker has not started.
+     *
+     * @param bicycle The project bicycle.
+     * @param values The attribute values captured with BicycleEvaluator.captureValues().
+     */
+    public void request(Bicycle bicycle, HashMap<String, HashMap<String, Object>> values) {
+
+        _requests.put(bicycle, new Request(bicycle.getBicycleName(), values, _requestVersion.incrementAndGet()));
+        REQUEST_COUNTER.increment();
+        schedule();
+
+    }
+
+    /**
+     * Remove the snapshot of a bicycle (deleted from the project).
+     *
+     * @param bicycle The project bicycle.
+     */
+    public void remove(Bicycle bicycle) {
+
+        _requests.put(bicycle, new Request(null, null, _requestVersion.incrementAndGet()));
+        schedule();
+
+    }
+
+    /**
+     * Drop all the snapshots and requests - used when the project is reloaded.
+     */
+    public void clear() {
+
+        _requests.clear();
+        _clearCount.incrementAndGet();
+
+        Published current = _published.get();
+        _published.set(new Published(current.version + 1, new HashMap()));
+
+    }
+
+    /**
+     * Get the latest snapshot of a bicycle.
+     *
+     * @param bicycle The project bicycle.
+     * @return The snapshot or null if none has been published.
+     */
+    public BicycleSnapshot getSnapshot(Bicycle bicycle) {
+        return _published.get().snapshots.get(bicycle);
+    }
+
+    /**
+     * Check if a request for a bicycle is waiting for the worker.
+     *
+     * @param bicycle The project bicycle.
+     * @return True if requested.
+     */
+    public boolean isRequested(Bicycle bicycle) {
+        return _requests.containsKey(bicycle);
+    }
+
+    /**
+     * Get the version of the published snapshots.  This increases each time
+     * snapshots are published.
+     *
+     * @return The version.
+     */
+    public long getVersion() {
+        return _published.get().version;
+    }
+
+    /**
+     * Stop the worker - requests not started are dropped.
+     */
+    public void shutdown() {
+
+        _requests.clear();
+        _executor.shutdownNow();
+
+    }
+
+    /**
+     * Schedule a drain of the requests if one is not waiting already.
+     */
+    private void schedule() {
+
+        if (_scheduled.compareAndSet(false, true)) {
+            _executor.execute(this::drain);
+        }
+    }
+
+    /**
+     * Build the requested snapshots and publish them.  Runs on the worker.
+     */
+    private void drain() {
+
+        //requests from here on schedule another drain
+        _scheduled.set(false);
+
+        long start = DRAIN_TIMER.start();
+        long clearCount = _clearCount.get();
+
+        HashMap<Bicycle, BicycleSnapshot> built = new HashMap();
+        HashMap<Bicycle, Request> removed = new HashMap();
+
+        try {
+
+            for (Bicycle b : _requests.keySet()) {
+
+                Request r = _requests.remove(b);
+                if (r == null) {
+                    continue;
+                }
+
+                if (r.values == null) {
+                    removed.put(b, r);
+                    built.remove(b);
+                    continue;
+                }
+
+                try {
+                    BicycleEvaluator copy = _spare.poll();
+
+                    if (copy == null) {
+                        copy = new BicycleEvaluator(r.name, r.values, true);
+                    } else {
+                        copy.applyValues(r.values);
+                    }
+
+                    built.put(b, new BicycleSnapshot(b, copy, r.version));
+                    removed.remove(b);
+                } catch (Exception ex) {
+                    LOG.error("Error rebuilding bicycle geometry: " + r.name, ex);
+                }
+
+                if (Thread.currentThread().isInterrupted()) {
+                    return;
+                }
+            }
+
+        } finally {
+            DRAIN_TIMER.stop(start);
+        }
+
+        REBUILD_COUNTER.add(built.size());
+
+        if (built.isEmpty() && removed.isEmpty()) {
+            return;
+        }
+
+        //copy on write - the UI thread may be reading the current map (retry if cleared meanwhile)
+        Published current;
+        Published next;
+
+        do {
+            current = _published.get();
+
+            //cleared since the drain started - the snapshots are of the old project
+            if (_clearCount.get() != clearCount) {
+                for (BicycleSnapshot s : built.values()) {
+                    _spare.add(s.getEvaluator());
+                }
+                return;
+            }
+
+            HashMap<Bicycle, BicycleSnapshot> snapshots = new HashMap(current.snapshots);
+            snapshots.putAll(built);
+
+            for (Bicycle b : removed.keySet()) {
+                snapshots.remove(b);
+            }
+
+            next = new Published(current.version + 1, snapshots);
+
+        } while (!_published.compareAndSet(current, next));
+
+        //the copies replaced by this publish
+        ArrayList<BicycleEvaluator> replaced = new ArrayList();
+
+        for (Bicycle b : built.keySet()) {
+            BicycleSnapshot old = current.snapshots.get(b);
+            if (old != null) {
+                replaced.add(old.getEvaluator());
+            }
+        }
+
+        for (Bicycle b : removed.keySet()) {
+            BicycleSnapshot old = current.snapshots.get(b);
+            if (old != null) {
+                replaced.add(old.getEvaluator());
+            }
+        }
+
+        SwingUtilities.invokeLater(() -> {
+            _onPublish.run();
+            _spare.addAll(replaced);
+        });
+
+    }
+
+    /**
+     * A rebuild request - the values are null to remove the snapshot.
+     */
+    private static class Request {
+
+        private final String name;
+        private final HashMap<String, HashMap<String, Object>> values;
+        private final long version;
+
+        Request(String name, HashMap<String, HashMap<String, Object>> values, long version) {
+            this.name = name;
+            this.values = values;
+            this.version = version;
+        }
+    }
+
+    /**
+     * The published snapshots - never changed after it is set.
+     */
+    private static class Published {
+
+        private final long version;
+        private final Map<Bicycle, BicycleSnapshot> snapshots;
+
+        Published(long version, HashMap<Bicycle, BicycleSnapshot> snapshots) {
+            this.version = version;
+            this.snapshots = Collections.unmodifiableMap(snapshots);
+        }
+    }
+
+}
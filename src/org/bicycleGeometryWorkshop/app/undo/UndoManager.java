@@ -24,6 +24,8 @@
 package org.bicycleGeometryWorkshop.app.undo;
 
 import java.util.Stack;
+import org.bicycleGeometryWorkshop.diagnostics.Log;
+import org.bicycleGeometryWorkshop.diagnostics.Logger;
 
 /**
  * 
@@ -32,6 +34,8 @@ import java.util.Stack;
  * @author Tom
  */
 public class UndoManager {
+
+    private static final Logger LOG = Log.getLogger(UndoManager.class);
     
     private static final int STACK_LIMIT = 50;
     
@@ -99,7 +103,7 @@ public class UndoManager {
             } else {
                 
                 //do normal undo - no group
-                System.out.println("***Pushing undo.");
+                LOG.debug("Pushing undo");
                 //push undo to stack
                 _undoStack.push(undo);
 
@@ -130,7 +134,7 @@ public class UndoManager {
             
             
         } else {
-            System.out.println("***Refused undo, updating...");
+            LOG.debug("Refused undo, updating");
         }
         
         
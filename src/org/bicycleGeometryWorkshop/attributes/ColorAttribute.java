@@ -25,12 +25,16 @@ package org.bicycleGeometryWorkshop.attributes;
 
 import java.awt.Color;
 import javax.swing.JComponent;
+import org.bicycleGeometryWorkshop.diagnostics.Log;
+import org.bicycleGeometryWorkshop.diagnostics.Logger;
 
 /**
  *  Attribute to hold a color value with alpha.
  * @author Tom
  */
 public class ColorAttribute extends BaseAttribute {
+
+    private static final Logger LOG = Log.getLogger(ColorAttribute.class);
     
   
     private Color _value;
@@ -95,7 +99,7 @@ public class ColorAttribute extends BaseAttribute {
         if(!cString.startsWith(prefix)) {
             cString = prefix + cString;
         }
-        System.out.println("Decoding color: " + cString);
+        LOG.debug("Decoding color", "color", cString);
         //check it out...
         try {
             
@@ -111,7 +115,7 @@ public class ColorAttribute extends BaseAttribute {
            result = true;
         } catch (NumberFormatException ex) {
             //do nothing here.. 
-            System.out.println("Failed to Decode color: " + cString);
+            LOG.warn("Failed to decode color", "color", cString);
             
         }
         
@@ -102,6 +102,22 @@ public class DoubleAttribute extends BaseAttribute {
     public double getDoubleValue() {
         return _value;
     }
+
+    /**
+     * Get the minimum value allowed.
+     * @return The minimum value.
+     */
+    public double getMin() {
+        return _min;
+    }
+
+    /**
+     * Get the maximum value allowed.
+     * @return The maximum value.
+     */
+    public double getMax() {
+        return _max;
+    }
     
     /**
      * Parse the double from a String.
@@ -24,7 +24,6 @@
 package org.bicycleGeometryWorkshop.components;
 
 import java.awt.Color;
-import org.bicycleGeometryWorkshop.geometry.Utilities;
 import org.bicycleGeometryWorkshop.attributes.AttributeSet;
 import org.bicycleGeometryWorkshop.attributes.AttributeSetOwner;
 import org.bicycleGeometryWorkshop.attributes.DoubleAttribute;
@@ -37,6 +36,7 @@ import java.awt.geom.Ellipse2D;
 import java.awt.geom.Line2D;
 import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
+import java.awt.geom.RectangularShape;
 import java.net.URL;
 import java.util.ArrayList;
 import javax.swing.ImageIcon;
@@ -370,25 +370,56 @@ public abstract class BaseComponent implements AttributeSetOwner {
      */
     protected void updateBounds() {
         
-        
-      Rectangle2D bounds = new Rectangle2D.Double();
+      double minX = 0;
+      double minY = 0;
+      double maxX = 0;
+      double maxY = 0;
       boolean hasFirst = false;
         
        for(Shape s : _geometry) {
            
-           Rectangle2D curBounds = s.getBounds2D();
+           double x1;
+           double y1;
+           double x2;
+           double y2;
+           
+           //lines and ellipses are read directly - getBounds2D() allocates
+           if (s instanceof Line2D) {
+               Line2D l = (Line2D) s;
+               x1 = Math.min(l.getX1(), l.getX2());
+               y1 = Math.min(l.getY1(), l.getY2());
+               x2 = Math.max(l.getX1(), l.getX2());
+               y2 = Math.max(l.getY1(), l.getY2());
+           } else if (s instanceof RectangularShape) {
+               RectangularShape r = (RectangularShape) s;
+               x1 = r.getMinX();
+               y1 = r.getMinY();
+               x2 = r.getMaxX();
+               y2 = r.getMaxY();
+           } else {
+               Rectangle2D curBounds = s.getBounds2D();
+               x1 = curBounds.getMinX();
+               y1 = curBounds.getMinY();
+               x2 = curBounds.getMaxX();
+               y2 = curBounds.getMaxY();
+           }
            
            if(!hasFirst) {
-               bounds = new Rectangle2D.Double();
-               bounds.setFrame(curBounds);
+               minX = x1;
+               minY = y1;
+               maxX = x2;
+               maxY = y2;
                hasFirst = true;
            } else {
-              bounds = Utilities.getUnionBoolean(bounds, curBounds);
+               minX = Math.min(minX, x1);
+               minY = Math.min(minY, y1);
+               maxX = Math.max(maxX, x2);
+               maxY = Math.max(maxY, y2);
            }
            
        }//end for
         
-        _bounds.setFrame(bounds);
+        _bounds.setFrame(minX, minY, maxX - minX, maxY - minY);
                 
     }
     
@@ -444,6 +475,16 @@ public abstract class BaseComponent implements AttributeSetOwner {
         return new Point2D.Double(_basePoint.getX(),_basePoint.getY() );
     }
     
+    /**
+     * Get the Base Point into an existing point (no allocation).
+     * @param result The point to set.
+     * @return The result point.
+     */
+    public Point2D getBasePoint(Point2D result) {
+        result.setLocation(_basePoint);
+        return result;
+    }
+    
     /**
      * Event notification from the attribute set that an attribute has changed.
      * @param attSet  The attribute set that has changed (same as the one stored internally)
@@ -25,8 +25,7 @@ package org.bicycleGeometryWorkshop.components;
 
 import org.bicycleGeometryWorkshop.report.ReportField;
 import org.bicycleGeometryWorkshop.report.Report;
-import org.bicycleGeometryWorkshop.geometry.IntersectionPoint;
-import org.bicycleGeometryWorkshop.geometry.IntersectionPointResult;
+import org.bicycleGeometryWorkshop.geometry.SpatialGrid;
 import org.bicycleGeometryWorkshop.geometry.Utilities;
 import org.bicycleGeometryWorkshop.attributes.AttributeSet;
 import org.bicycleGeometryWorkshop.attributes.BooleanAttribute;
@@ -37,12 +36,17 @@ import org.bicycleGeometryWorkshop.attributes.StringAttribute;
 import java.awt.BasicStroke;
 import java.awt.Color;
 import java.awt.Graphics2D;
+import java.awt.Shape;
 import java.awt.geom.Line2D;
+import java.awt.geom.PathIterator;
 import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
+import java.awt.geom.RectangularShape;
 import java.util.ArrayList;
 import org.bicycleGeometryWorkshop.app.VisualPreferences;
 import org.bicycleGeometryWorkshop.database.DataBaseKeys;
+import org.bicycleGeometryWorkshop.diagnostics.Metric;
+import org.bicycleGeometryWorkshop.diagnostics.Metrics;
 import org.bicycleGeometryWorkshop.attributes.AttributeChangeEvent;
 import org.bicycleGeometryWorkshop.ui.Graphics;
 
@@ -54,6 +58,17 @@ import org.bicycleGeometryWorkshop.ui.Graphics;
  */
 public class Bicycle extends BaseComponent implements ComponentOwner {
 
+    //on-screen bicycle widths (pixels) below which less detail is drawn
+    private static final double LOD_CENTERLINE_SIZE = 120;
+    private static final double LOD_SIMPLIFIED_SIZE = 360;
+
+    //curve flattening for the snap index (world units)
+    private static final double SNAP_FLATNESS = 1;
+
+    //timers shown in the diagnostics dialog
+    private static final Metric UPDATE_TIMER = Metrics.timer("Bicycle.updateGeometry");
+    private static final Metric RENDER_TIMER = Metrics.timer("Bicycle.render");
+
     private FrameSet _frame;
 
     private Wheel _wheels;
@@ -73,6 +88,10 @@ public class Bicycle extends BaseComponent implements ComponentOwner {
 
     private boolean _isUpdating;
 
+    //deferred geometry - changes only mark the geometry stale, it is rebuilt when next read
+    private boolean _deferGeometry;
+    private boolean _geometryStale;
+
     private BicycleListener _bicycleListener;
 
   
@@ -93,6 +112,33 @@ public class Bicycle extends BaseComponent implements ComponentOwner {
     private ColorAttribute _componentColor;
 
     private Point2D _outOfSaddlePoint;
+
+    //working points reused by updateGeometry()
+    private Point2D _cpBottomBracket;
+    private Point2D _cpStemPoint;
+    private Point2D _cpStemMount;
+    private Point2D _cpSeatPoint;
+    private Point2D _cpBase;
+    private Point2D _cpSeatMount;
+    private Point2D _cpCrankRight;
+    private Point2D _cpCrankLeft;
+    private Point2D _cpOutOfSaddle;
+    private Point2D _cpPedalRight;
+    private Point2D _cpPedalLeft;
+
+    //working points reused by updateAnalysis()
+    private Point2D _cpRearWheel;
+    private Point2D _cpFrontWheel;
+    private Point2D _cpGroundStart;
+    private Point2D _cpGroundEnd;
+    private Point2D _cpFrontGround;
+    private Point2D _cpRake;
+    private Point2D _cpHeadProj;
+    private Point2D _cpReachStack;
+    private Point2D _cpTopTube;
+
+    //bounds of the bicycle and its displayed components
+    private Rectangle2D _cpBounds;
     
 
 
@@ -185,6 +231,29 @@ public class Bicycle extends BaseComponent implements ComponentOwner {
         //attribute set editor to edit database
         //_attrSetEditor = new AttributeSetEditor(name);
         _outOfSaddlePoint = new Point2D.Double(0, 0);
+        _cpBottomBracket = new Point2D.Double();
+        _cpStemPoint = new Point2D.Double();
+        _cpStemMount = new Point2D.Double();
+        _cpSeatPoint = new Point2D.Double();
+        _cpBase = new Point2D.Double();
+        _cpSeatMount = new Point2D.Double();
+        _cpCrankRight = new Point2D.Double();
+        _cpCrankLeft = new Point2D.Double();
+        _cpOutOfSaddle = new Point2D.Double();
+        _cpPedalRight = new Point2D.Double();
+        _cpPedalLeft = new Point2D.Double();
+
+        _cpRearWheel = new Point2D.Double();
+        _cpFrontWheel = new Point2D.Double();
+        _cpGroundStart = new Point2D.Double();
+        _cpGroundEnd = new Point2D.Double();
+        _cpFrontGround = new Point2D.Double();
+        _cpRake = new Point2D.Double();
+        _cpHeadProj = new Point2D.Double();
+        _cpReachStack = new Point2D.Double();
+        _cpTopTube = new Point2D.Double();
+
+        _cpBounds = new Rectangle2D.Double();
 
         _bicycleListener = null;
 
@@ -198,6 +267,8 @@ public class Bicycle extends BaseComponent implements ComponentOwner {
         //_attrSetEditor.loadDataBase(_attrDB);
         _isUpdating = false;
 
+        _deferGeometry = false;
+        _geometryStale = false;
         
         //do initial build
         update();
@@ -233,6 +304,32 @@ public class Bicycle extends BaseComponent implements ComponentOwner {
         return _componentList;
     }
 
+    /**
+     * Get all the AttributeSets of the bicycle.  This is the bicycle set
+     * followed by all the component and sub-component sets.
+     *
+     * @return A new list of the bicycle's AttributeSets.
+     */
+    public ArrayList<AttributeSet> getAttributeSets() {
+
+        ArrayList<AttributeSet> sets = new ArrayList();
+        sets.add(getAttributeSet());
+
+        for (BaseComponent comp : _componentList) {
+
+            sets.add(comp.getAttributeSet());
+
+            //do for any sub components as well
+            if (comp.hasSubComponents()) {
+                for (BaseComponent subComp : comp.getSubComponents()) {
+                    sets.add(subComp.getAttributeSet());
+                }
+            }
+        }
+
+        return sets;
+    }
+
     /**
      * Set the Geometry Listener. Listens for model changes.
      *
@@ -267,10 +364,62 @@ public class Bicycle extends BaseComponent implements ComponentOwner {
         _rider.update();
 
         // _isUpdating = false;
+        _geometryStale = false;
         update();
 
     }
 
+    /**
+     * Defer geometry updates.  When deferred, component, rider and pose changes
+     * only mark the geometry stale and notify the listener - the geometry is
+     * rebuilt the next time it is read (getters, render, etc.).  This is used
+     * when the project draws from snapshots built on a worker thread, so edits
+     * don't rebuild the bicycle on the UI thread.
+     *
+     * @param defer True to defer geometry updates.
+     */
+    public void setDeferredGeometry(boolean defer) {
+
+        _deferGeometry = defer;
+
+        if (!defer) {
+            validateGeometry();
+        }
+    }
+
+    /**
+     * Check if the geometry is up to date with the attributes.
+     *
+     * @return True if the geometry is current.
+     */
+    public boolean isGeometryValid() {
+        return !_geometryStale;
+    }
+
+    /**
+     * Rebuild the geometry if it is stale from a deferred update.
+     */
+    public void validateGeometry() {
+
+        if (_geometryStale) {
+            _geometryStale = false;
+            update();
+        }
+    }
+
+    /**
+     * Get the bounds of the bicycle - rebuilt first if stale.
+     *
+     * @return The bounds of the geometry.
+     */
+    @Override
+    public Rectangle2D getBounds() {
+
+        validateGeometry();
+
+        return super.getBounds();
+    }
+
     /**
      * Get the Bicycle analysis report.
      *
@@ -278,6 +427,9 @@ public class Bicycle extends BaseComponent implements ComponentOwner {
      */
     public Report getReport() {
 
+        validateGeometry();
+
+
         //update the report name for renames
         String bName = getBicycleName();
         _report.setName(bName); 
@@ -337,6 +489,190 @@ public class Bicycle extends BaseComponent implements ComponentOwner {
     public Color getComponentColor() {
         return _componentColor.getColor();
     }     
+
+    /**
+     * Get the center of the front wheel.  Used by analysis.
+     *
+     * @return The front wheel center point.
+     */
+    public Point2D getFrontWheelCenter() {
+        validateGeometry();
+        return Utilities.translatePoint(_wheels.getBasePoint(), _frame.getWheelBase(), 0);
+    }
+
+    /**
+     * Get the wheel radius (to the outside of the tire).  Used by analysis.
+     *
+     * @return The wheel radius.
+     */
+    public double getWheelRadius() {
+        return _wheels.getWheelRadius();
+    }
+
+    /**
+     * Get the height of the ground line.  Used by analysis.
+     *
+     * @return The Y value of the ground.
+     */
+    public double getGroundHeight() {
+        validateGeometry();
+        return _wheels.getBasePoint().getY() - _wheels.getWheelRadius();
+    }
+
+    /**
+     * Get the bottom bracket center.  Used by analysis.
+     *
+     * @return The bottom bracket point.
+     */
+    public Point2D getBottomBracketPoint() {
+        validateGeometry();
+        return _frame.getBottomBracketPoint();
+    }
+
+    /**
+     * Get the bottom bracket point into an existing point (no allocation).
+     *
+     * @param result The point to set.
+     * @return The result point.
+     */
+    public Point2D getBottomBracketPoint(Point2D result) {
+        validateGeometry();
+        return _frame.getBottomBracketPoint(result);
+    }
+
+    /**
+     * Get a key point of the bicycle.  Used to compare bicycles.
+     *
+     * @param point The key point.
+     * @return A copy of the point.
+     */
+    public Point2D getKeyPoint(KeyPoint point) {
+
+        validateGeometry();
+
+        Point2D p;
+
+        switch (point) {
+            case BottomBracket:
+                p = _frame.getBottomBracketPoint();
+                break;
+            case StemPoint:
+                p = _frame.getStemPoint();
+                break;
+            case SeatPoint:
+                p = _frame.getSeatPoint();
+                break;
+            case HandPoint:
+                p = _handlebars.getHandPoint(_pose.getHandleBarPosition());
+                break;
+            case SitPoint:
+                p = _saddle.getSitPoint();
+                break;
+            case RearAxle:
+                p = _wheels.getBasePoint();
+                break;
+            default:
+                p = getFrontWheelCenter();
+                break;
+        }
+
+        return new Point2D.Double(p.getX(), p.getY());
+    }
+
+    /**
+     * Get the right crank (pedal axle) point.  Used by analysis.
+     *
+     * @return The right crank point.
+     */
+    public Point2D getCrankPointRight() {
+        validateGeometry();
+        return _cranks.getCrankPointRight();
+    }
+
+    /**
+     * Get the hand point of the current hand position of the pose.  Used by analysis.
+     *
+     * @return A copy of the hand point.
+     */
+    public Point2D getHandPoint() {
+        validateGeometry();
+        Point2D hp = _handlebars.getHandPoint(_pose.getHandleBarPosition());
+        return new Point2D.Double(hp.getX(), hp.getY());
+    }
+
+    /**
+     * Get the hand point into an existing point (no allocation).
+     *
+     * @param result The point to set.
+     * @return The result point.
+     */
+    public Point2D getHandPoint(Point2D result) {
+        validateGeometry();
+        result.setLocation(_handlebars.getHandPoint(_pose.getHandleBarPosition()));
+        return result;
+    }
+
+    /**
+     * Get the right pedal point (ball of the foot).  Used by analysis.
+     *
+     * @return The right pedal point.
+     */
+    public Point2D getPedalPointRight() {
+        validateGeometry();
+        return _pedals.getPedalPointRight();
+    }
+
+    /**
+     * Get the right pedal platform line.  Used by analysis.
+     *
+     * @return The pedal line.
+     */
+    public Line2D getPedalLineRight() {
+        validateGeometry();
+        return _pedals.getPedalLineRight();
+    }
+
+    /**
+     * Get the rider's right foot line (ankle to ball of the foot).  Used by analysis.
+     *
+     * @return The foot line.
+     */
+    public Line2D getFootLineRight() {
+        validateGeometry();
+        return _rider.getFootLineRight();
+    }
+
+    /**
+     * Get the rider's right foot line into an existing line (no allocation).
+     *
+     * @param result The line to set.
+     * @return The result line.
+     */
+    public Line2D getFootLineRight(Line2D result) {
+        validateGeometry();
+        return _rider.getFootLineRight(result);
+    }
+
+    /**
+     * Get the rider's right toe line (ball of the foot to the toe).  Used by analysis.
+     *
+     * @return The toe line.
+     */
+    public Line2D getToeLineRight() {
+        validateGeometry();
+        return _rider.getToeLineRight();
+    }
+
+    /**
+     * Get the rider's right toe line into an existing line (no allocation).
+     *
+     * @param result The line to set.
+     * @return The result line.
+     */
+    public Line2D getToeLineRight(Line2D result) {
+        validateGeometry();
+        return _rider.getToeLineRight(result);
+    }
     
 
     /**
@@ -353,7 +689,12 @@ public class Bicycle extends BaseComponent implements ComponentOwner {
 
         //check for flag and rebuild
         if (!_isUpdating) {
-            update();
+
+            if (_deferGeometry) {
+                _geometryStale = true;
+            } else {
+                update();
+            }
             
             BicycleChangeEvent bce = new BicycleChangeEvent(this, compEvent);
             //notify listener
@@ -402,7 +743,11 @@ public class Bicycle extends BaseComponent implements ComponentOwner {
     public void updateFromRiderPose(ComponentChangeEvent compEvent) {
         
         //update geometry and bounds
-        update();
+        if (_deferGeometry) {
+            _geometryStale = true;
+        } else {
+            update();
+        }
         
     }
   
@@ -419,9 +764,9 @@ public class Bicycle extends BaseComponent implements ComponentOwner {
         //hmm... this shouldn't be - no overlap between exposed and internally needed vars - seperate ...
         _isUpdating = true;
 
-        Point2D basePoint = getBasePoint();
-         
-        basePoint = resolveBasePoint();
+        long start = UPDATE_TIMER.start();
+
+        Point2D basePoint = resolveBasePoint();
         
         _frame.setBasePoint(basePoint);
         _frame.update();
@@ -429,42 +774,42 @@ public class Bicycle extends BaseComponent implements ComponentOwner {
         //BicycleDisplay display = BicycleDisplay.valueOf(_bicycleDisplay.getSQLInsert());
         //get the wheel base
         // double wb = _frame.getWheelBase();
-        Point2D bbPoint = _frame.getBottomBracketPoint();
+        Point2D bbPoint = _frame.getBottomBracketPoint(_cpBottomBracket);
 
         //update the wheels with bae point and wheelbase
         _wheels.updateWheel(basePoint, _frame.getWheelBase());
 
         //update the stem with base point and the head tube angle
-        _stem.updateStem(_frame.getStemPoint(), _frame.getHeadTubeAngle());
+        _stem.updateStem(_frame.getStemPoint(_cpStemPoint), _frame.getHeadTubeAngle());
 
         //update handlebars from stem
-        _handlebars.updateHandleBar(_stem.getMountPoint());
+        _handlebars.updateHandleBar(_stem.getMountPoint(_cpStemMount));
 
         //update the seat post
-        _seatPost.updateSeatPost(_frame.getSeatPoint(), _frame.getSeatTubeAngle());
+        _seatPost.updateSeatPost(_frame.getSeatPoint(_cpSeatPoint), _frame.getSeatTubeAngle());
 
         //update the saddle
-        _saddle.updateSaddle(_seatPost.getMountPoint());
+        _saddle.updateSaddle(_seatPost.getMountPoint(_cpSeatMount));
 
         //update the cranks - bottom bracket base point and pose crankRotation
         _cranks.updateCranks(bbPoint, _pose.getCrankRotation());
 
         //update the pedals from the cranks and ankle rotation from the pose
-        _pedals.updatePedals(_cranks.getCrankPointRight(), _cranks.getCrankPointLeft(), _pose.getPedalRotation());
+        _pedals.updatePedals(_cranks.getCrankPointRight(_cpCrankRight), _cranks.getCrankPointLeft(_cpCrankLeft), _pose.getPedalRotation());
 
         /**
          * Resolve Rider Position - seated or out of saddle
          */
         //update rider position
         //out of saddle point : x,y offset as point
-        Point2D ousp = _pose.getOutOfSaddlePoint();
+        Point2D ousp = _pose.getOutOfSaddlePoint(_cpOutOfSaddle);
         double x = bbPoint.getX() + ousp.getX();//offset from bottom bracket
         double y = bbPoint.getY() + ousp.getY();//offset from bottom bracket
 
         //update out of saddle position
         _outOfSaddlePoint.setLocation(x, y);
-        //prep an empty point for rider base point
-        Point2D riderBasePoint = new Point2D.Double();
+        //rider base point
+        Point2D riderBasePoint = _outOfSaddlePoint;
 
         //get the current setting
         SaddlePosition sp = _pose.getSaddlePosition();
@@ -486,7 +831,7 @@ public class Bicycle extends BaseComponent implements ComponentOwner {
         //get the handpoint
         Point2D handPoint = _handlebars.getHandPoint(_pose.getHandleBarPosition());
         //update the rider with the base point, pedal points, and hand point
-        _rider.updateRider(riderBasePoint, _pedals.getPedalPointRight(), _pedals.getPedalPointLeft(), handPoint);
+        _rider.updateRider(riderBasePoint, _pedals.getPedalPointRight(_cpPedalRight), _pedals.getPedalPointLeft(_cpPedalLeft), handPoint);
 
         //update analysis
         updateAnalysis();
@@ -494,6 +839,7 @@ public class Bicycle extends BaseComponent implements ComponentOwner {
         //update bounds
         updateBounds();
 
+        UPDATE_TIMER.stop(start);
 
         _isUpdating = false;
 
@@ -509,7 +855,7 @@ public class Bicycle extends BaseComponent implements ComponentOwner {
      */
     private Point2D resolveBasePoint() {
         
-        Point2D basePoint = getBasePoint();
+        Point2D basePoint = getBasePoint(_cpBase);
         
         double wheelRad  = _wheels.getWheelRadius();
         double wheelBase = _frame.getWheelBase();
@@ -521,7 +867,7 @@ public class Bicycle extends BaseComponent implements ComponentOwner {
             case RearGround :
                 
                 //move above ground based on wheel radius
-                basePoint = Utilities.translatePoint(basePoint, 0, wheelRad);                 
+                Utilities.translatePoint(basePoint, 0, wheelRad, basePoint);
                 
                 break;
                 
@@ -534,12 +880,12 @@ public class Bicycle extends BaseComponent implements ComponentOwner {
                 
             case FrontGround :
                 //move to front wheet above ground based on wheel radius
-                basePoint = Utilities.translatePoint(basePoint, -wheelBase, wheelRad); 
+                Utilities.translatePoint(basePoint, -wheelBase, wheelRad, basePoint);
                 break;
                 
             case FrontWheel :
                 //move to front wheel
-                basePoint = Utilities.translatePoint(basePoint, -wheelBase, 0); 
+                Utilities.translatePoint(basePoint, -wheelBase, 0, basePoint);
                 break;
                 
             case BottomBracket :
@@ -576,38 +922,39 @@ public class Bicycle extends BaseComponent implements ComponentOwner {
     public void updateBounds() {
         //if not visible - use minimal bounds
         if (!_bicycleVisible.getBooleanValue()) {
-            Rectangle2D bounds = new Rectangle2D.Double(0, 0, 0.001, 0.001);
-            setBounds(bounds);
+            _cpBounds.setRect(0, 0, 0.001, 0.001);
+            setBounds(_cpBounds);
             return;
         }
 
 //        BicycleDisplay display = BicycleDisplay.valueOf(_bicycleDisplay.getValue());
         BicycleDisplay display = (BicycleDisplay)_bicycleDisplay.getEnum();
 
-        //update bounds
-        Rectangle2D bounds = _frame.getBounds();
+        //update bounds - built in place, never the frame's own bounds
+        Rectangle2D bounds = _cpBounds;
+        bounds.setRect(_frame.getBounds());
 
         if (display != BicycleDisplay.FrameOnly) {
 
-            bounds = Utilities.getUnionBoolean(bounds, _wheels.getBounds());
+            Utilities.getUnionBoolean(bounds, _wheels.getBounds(), bounds);
 
-            bounds = Utilities.getUnionBoolean(bounds, _stem.getBounds());
+            Utilities.getUnionBoolean(bounds, _stem.getBounds(), bounds);
 
-            bounds = Utilities.getUnionBoolean(bounds, _seatPost.getBounds());
-            bounds = Utilities.getUnionBoolean(bounds, _saddle.getBounds());
+            Utilities.getUnionBoolean(bounds, _seatPost.getBounds(), bounds);
+            Utilities.getUnionBoolean(bounds, _saddle.getBounds(), bounds);
 
             
-            bounds = Utilities.getUnionBoolean(bounds, _cranks.getBounds());
-            bounds = Utilities.getUnionBoolean(bounds, _pedals.getBounds());
+            Utilities.getUnionBoolean(bounds, _cranks.getBounds(), bounds);
+            Utilities.getUnionBoolean(bounds, _pedals.getBounds(), bounds);
 
-            bounds = Utilities.getUnionBoolean(bounds, _handlebars.getBounds());
+            Utilities.getUnionBoolean(bounds, _handlebars.getBounds(), bounds);
 
         }
 
         if (display == BicycleDisplay.BicycleAndRider) {
 
             //include rider bounds if showing
-            bounds = Utilities.getUnionBoolean(bounds, _rider.getBounds());
+            Utilities.getUnionBoolean(bounds, _rider.getBounds(), bounds);
         }
 
         //set the bounds
@@ -625,11 +972,234 @@ public class Bicycle extends BaseComponent implements ComponentOwner {
      * @param vPrefs The visual preferences to reference when rendering.
      */
     public void render(Graphics2D g2, float scale, final VisualPreferences vPrefs) {
+        render(g2, scale, vPrefs, true, null);
+    }
+
+    /**
+     * Render the parts of the bicycle that are in view.  Components outside of
+     * the visible bounds are skipped.
+     *
+     * @param g2  The graphics object to render to.
+     * @param scale  The scale of the current view - used to scale line weights, etc.
+     * @param vPrefs The visual preferences to reference when rendering.
+     * @param visible The visible world bounds, or null to render everything.
+     */
+    public void render(Graphics2D g2, float scale, final VisualPreferences vPrefs, Rectangle2D visible) {
+        render(g2, scale, vPrefs, true, visible);
+    }
+
+    /**
+     * Render the bicycle without the parts that move with the cranks (rider,
+     * cranks and pedals).  Used with PedalFrame snapshots for the pedal stroke
+     * animation.
+     *
+     * @param g2  The graphics object to render to.
+     * @param scale  The scale of the current view - used to scale line weights, etc.
+     * @param vPrefs The visual preferences to reference when rendering.
+     */
+    public void renderStatic(Graphics2D g2, float scale, final VisualPreferences vPrefs) {
+        render(g2, scale, vPrefs, false, null);
+    }
+
+    /**
+     * Render the parts of the bicycle that are in view, without the parts that
+     * move with the cranks.
+     *
+     * @param g2  The graphics object to render to.
+     * @param scale  The scale of the current view - used to scale line weights, etc.
+     * @param vPrefs The visual preferences to reference when rendering.
+     * @param visible The visible world bounds, or null to render everything.
+     */
+    public void renderStatic(Graphics2D g2, float scale, final VisualPreferences vPrefs, Rectangle2D visible) {
+        render(g2, scale, vPrefs, false, visible);
+    }
+
+    /**
+     * Check if the bicycle is in view.
+     *
+     * @param visible The visible world bounds, or null if everything is in view.
+     * @return True if the bounds of the bicycle touch the visible bounds.
+     */
+    public boolean isInView(Rectangle2D visible) {
+        return isInView(getBounds(), visible);
+    }
+
+    /**
+     * Add the key points and line segments of the displayed parts to a grid
+     * index, owned by this bicycle - used for snapping and picking.  Line end
+     * points (frame joints, etc.), circle centers, the hand points, the sit
+     * and out of saddle points and the pedal points are key points.  Lines,
+     * circles and curves are added as segments (curves flattened).
+     *
+     * @param grid The grid to add to.
+     */
+    public void addSnapGeometry(SpatialGrid grid) {
+        addSnapGeometry(grid, this);
+    }
+
+    /**
+     * Add the key points and line segments of the displayed parts to a grid
+     * index with another owner - used to index a snapshot copy of a bicycle
+     * as the bicycle it was copied from.
+     *
+     * @param grid The grid to add to.
+     * @param owner The owner of the grid items.
+     */
+    public void addSnapGeometry(SpatialGrid grid, Object owner) {
 
         if (!_bicycleVisible.getBooleanValue()) {
             return;
         }
 
+        validateGeometry();
+
+        BicycleDisplay display = (BicycleDisplay)_bicycleDisplay.getEnum();
+
+        addSnapShapes(grid, owner, _frame.getGeometry());
+
+        if (display != BicycleDisplay.FrameOnly) {
+
+            for (BaseComponent comp : _componentList) {
+                if (comp != _frame) {
+                    addSnapShapes(grid, owner, comp.getGeometry());
+                }
+            }
+
+            Point2D pl = _pedals.getPedalPointLeft();
+            Point2D pr = _pedals.getPedalPointRight();
+            grid.addPoint(owner, pl.getX(), pl.getY());
+            grid.addPoint(owner, pr.getX(), pr.getY());
+
+            for (HandleBarPosition pos : HandleBarPosition.values()) {
+                Point2D hp = _handlebars.getHandPoint(pos);
+                grid.addPoint(owner, hp.getX(), hp.getY());
+            }
+
+            Point2D sp = _saddle.getSitPoint();
+            grid.addPoint(owner, sp.getX(), sp.getY());
+        }
+
+        if (display == BicycleDisplay.BicycleAndRider) {
+
+            addSnapShapes(grid, owner, _rider.getGeometry());
+
+            grid.addPoint(owner, _outOfSaddlePoint.getX(), _outOfSaddlePoint.getY());
+        }
+
+    }
+
+    /**
+     * Add component geometry to a grid index.
+     *
+     * @param grid The grid to add to.
+     * @param owner The owner of the grid items.
+     * @param shapes The component geometry.
+     */
+    private void addSnapShapes(SpatialGrid grid, Object owner, ArrayList<Shape> shapes) {
+
+        double[] c = new double[6];
+
+        for (Shape s : shapes) {
+
+            if (s instanceof Line2D) {
+
+                Line2D l = (Line2D) s;
+                grid.addSegment(owner, l.getX1(), l.getY1(), l.getX2(), l.getY2());
+                grid.addPoint(owner, l.getX1(), l.getY1());
+                grid.addPoint(owner, l.getX2(), l.getY2());
+                continue;
+            }
+
+            if (s instanceof RectangularShape) {
+                RectangularShape r = (RectangularShape) s;
+                grid.addPoint(owner, r.getCenterX(), r.getCenterY());
+            }
+
+            //outline as flattened segments
+            double startX = 0;
+            double startY = 0;
+            double lastX = 0;
+            double lastY = 0;
+
+            for (PathIterator pi = s.getPathIterator(null, SNAP_FLATNESS); !pi.isDone(); pi.next()) {
+
+                switch (pi.currentSegment(c)) {
+                    case PathIterator.SEG_MOVETO:
+                        startX = c[0];
+                        startY = c[1];
+                        break;
+                    case PathIterator.SEG_LINETO:
+                        grid.addSegment(owner, lastX, lastY, c[0], c[1]);
+                        break;
+                    case PathIterator.SEG_CLOSE:
+                        grid.addSegment(owner, lastX, lastY, startX, startY);
+                        c[0] = startX;
+                        c[1] = startY;
+                        break;
+                    default:
+                        break;
+                }
+
+                lastX = c[0];
+                lastY = c[1];
+            }
+        }
+
+    }
+
+    /**
+     * Get the level of detail for the on-screen size of the bicycle.
+     *
+     * @param scale The scale of the current view (pixels per world unit).
+     * @return The level of detail.
+     */
+    public DetailLevel getDetailLevel(float scale) {
+
+        double size = getBounds().getWidth() * scale;
+
+        if (size < LOD_CENTERLINE_SIZE) {
+            return DetailLevel.Centerline;
+        } else if (size < LOD_SIMPLIFIED_SIZE) {
+            return DetailLevel.Simplified;
+        }
+
+        return DetailLevel.Full;
+    }
+
+    /**
+     * Get a snapshot of the parts that move with the cranks at the current
+     * crank rotation.
+     *
+     * @param dx X offset to move the snapshot by (to line it up with another copy of the bicycle).
+     * @param dy Y offset to move the snapshot by.
+     * @return The snapshot.
+     */
+    public PedalFrame getPedalFrame(double dx, double dy) {
+        validateGeometry();
+        return new PedalFrame(this, _rider, _cranks, _pedals, dx, dy);
+    }
+
+    /**
+     * Render the bicycle.
+     *
+     * @param g2  The graphics object to render to.
+     * @param scale  The scale of the current view - used to scale line weights, etc.
+     * @param vPrefs The visual preferences to reference when rendering.
+     * @param moving True to render the parts that move with the cranks.
+     * @param visible The visible world bounds, or null to render everything.
+     */
+    private void render(Graphics2D g2, float scale, final VisualPreferences vPrefs, boolean moving, Rectangle2D visible) {
+
+        if (!_bicycleVisible.getBooleanValue()) {
+            return;
+        }
+
+        long start = RENDER_TIMER.start();
+
+        validateGeometry();
+
+        DetailLevel level = getDetailLevel(scale);
+
         float bikeLW = 2 / scale;  //lineweight for frame and componenets
         float riderLW = 6 / scale; //lineweight for rider
         BasicStroke bikeStroke = new BasicStroke(bikeLW, BasicStroke.CAP_ROUND, BasicStroke.JOIN_MITER);
@@ -647,7 +1217,9 @@ public class Bicycle extends BaseComponent implements ComponentOwner {
         BicycleDisplay display = (BicycleDisplay)_bicycleDisplay.getEnum();
 
         //draw rider left leg on very bottom
-        if (display == BicycleDisplay.BicycleAndRider) {
+        boolean riderInView = isInView(_rider.getBounds(), visible);
+
+        if (moving && display == BicycleDisplay.BicycleAndRider && riderInView) {
 
             g2.setPaint(riderColor);
             g2.setStroke(riderStroke);
@@ -670,13 +1242,21 @@ public class Bicycle extends BaseComponent implements ComponentOwner {
             g2.setStroke(bikeStroke);
 
             //render on bottom
-            _cranks.renderLeft(g2);
-            _pedals.renderLeft(g2);
+            if (moving && isInView(_cranks.getBounds(), visible)) {
+                _cranks.renderLeft(g2);
+            }
+            if (moving && isInView(_pedals.getBounds(), visible)) {
+                _pedals.renderLeft(g2);
+            }
             //render wheels   
-            _wheels.render(g2);
+            if (isInView(_wheels.getBounds(), visible)) {
+                _wheels.render(g2, level);
+            }
 
             //render stem
-            _stem.render(g2);
+            if (isInView(_stem.getBounds(), visible)) {
+                _stem.render(g2);
+            }
 
         }
 
@@ -684,7 +1264,9 @@ public class Bicycle extends BaseComponent implements ComponentOwner {
         g2.setPaint(frameColor);
         g2.setStroke(bikeStroke);
         //frame
-        _frame.render(g2);
+        if (isInView(_frame.getBounds(), visible)) {
+            _frame.render(g2, level);
+        }
                
 
         //draw components right hand side
@@ -694,12 +1276,20 @@ public class Bicycle extends BaseComponent implements ComponentOwner {
             g2.setStroke(bikeStroke);
 
             //right cranks over frame
-            _cranks.renderRight(g2);
+            if (moving && isInView(_cranks.getBounds(), visible)) {
+                _cranks.renderRight(g2);
+            }
 
-            _handlebars.render(g2);
+            if (isInView(_handlebars.getBounds(), visible)) {
+                _handlebars.render(g2);
+            }
 
-            _seatPost.render(g2);
-            _saddle.render(g2);
+            if (isInView(_seatPost.getBounds(), visible)) {
+                _seatPost.render(g2);
+            }
+            if (isInView(_saddle.getBounds(), visible)) {
+                _saddle.render(g2);
+            }
 
         }
 
@@ -713,7 +1303,7 @@ public class Bicycle extends BaseComponent implements ComponentOwner {
         
         
         //draw rider right side on top
-        if (display == BicycleDisplay.BicycleAndRider) {
+        if (moving && display == BicycleDisplay.BicycleAndRider && riderInView) {
 
             g2.setPaint(riderColor);
             g2.setStroke(riderStroke);
@@ -724,7 +1314,7 @@ public class Bicycle extends BaseComponent implements ComponentOwner {
         }
         
         //draw on top of rider
-        if (display != BicycleDisplay.FrameOnly) {
+        if (moving && display != BicycleDisplay.FrameOnly && isInView(_pedals.getBounds(), visible)) {
 
             g2.setPaint(compColor);
             g2.setStroke(bikeStroke);
@@ -732,7 +1322,7 @@ public class Bicycle extends BaseComponent implements ComponentOwner {
         }
         
         //check for control point display
-        if(vPrefs.showControlPoints() && display == BicycleDisplay.BicycleAndRider) {
+        if(moving && vPrefs.showControlPoints() && display == BicycleDisplay.BicycleAndRider && level == DetailLevel.Full) {
             
             Color cc = vPrefs.getControlPointColor();
             //sit point
@@ -747,8 +1337,27 @@ public class Bicycle extends BaseComponent implements ComponentOwner {
             
             
         }
-        
 
+        RENDER_TIMER.stop(start);
+
+    }
+
+    /**
+     * Check if bounds touch the visible bounds.  Unlike Rectangle2D.intersects()
+     * this accepts bounds with no width or height (straight components).
+     *
+     * @param bounds The bounds to check.
+     * @param visible The visible world bounds, or null if everything is in view.
+     * @return True if in view.
+     */
+    private static boolean isInView(Rectangle2D bounds, Rectangle2D visible) {
+
+        if (visible == null || bounds == null) {
+            return true;
+        }
+
+        return bounds.getMaxX() >= visible.getMinX() && bounds.getMinX() <= visible.getMaxX()
+                && bounds.getMaxY() >= visible.getMinY() && bounds.getMinY() <= visible.getMaxY();
     }
 
     /**
@@ -767,25 +1376,22 @@ public class Bicycle extends BaseComponent implements ComponentOwner {
 //        _report.reportDistance(ReportField.WheelBase, wheelBase);
         
         //rear wheel base point
-        Point2D rwBase = _wheels.getBasePoint();
+        Point2D rwBase = _wheels.getBasePoint(_cpRearWheel);
         //front wheel base point
-        Point2D fwBase = Utilities.translatePoint(rwBase, wheelBase, 0);
+        Point2D fwBase = Utilities.translatePoint(rwBase, wheelBase, 0, _cpFrontWheel);
         
-        _analysis.wheelBaseLine = new Line2D.Double(rwBase,fwBase);
+        _analysis.wheelBaseLine.setLine(rwBase, fwBase);
 
         //ground line start
-        Point2D glStart = Utilities.translatePoint(rwBase, -wheelRadius, -wheelRadius);
-        Point2D glEnd = Utilities.translatePoint(fwBase, wheelRadius, -wheelRadius);
-        //need this for calc below
-        Line2D groundLine = new Line2D.Double(glStart, glEnd);
+        Point2D glStart = Utilities.translatePoint(rwBase, -wheelRadius, -wheelRadius, _cpGroundStart);
+        Point2D glEnd = Utilities.translatePoint(fwBase, wheelRadius, -wheelRadius, _cpGroundEnd);
 
-        _analysis.groundLine = groundLine;
+        _analysis.groundLine.setLine(glStart, glEnd);
 
         //line from front wheel to ground
-        Point2D fwAtGround = Utilities.translatePoint(fwBase, 0, -wheelRadius);
+        Point2D fwAtGround = Utilities.translatePoint(fwBase, 0, -wheelRadius, _cpFrontGround);
 
-        // Line2D wtog = new Line2D.Double(fwBase, fwAtGround);
-        _analysis.frontWheelLine = new Line2D.Double(fwBase, fwAtGround);
+        _analysis.frontWheelLine.setLine(fwBase, fwAtGround);
 
         //head tube section
         double hta1 = Math.PI - Utilities.degreesToRadians(_frame.getHeadTubeAngle());
@@ -794,23 +1400,18 @@ public class Bicycle extends BaseComponent implements ComponentOwner {
         
         //fork rake line
         double rakeLen = _frame.getForkRake();
-        Point2D rakePnt = Utilities.polarPoint(fwBase, rakeLen, rakeTheta);
-        _analysis.forkRakeLine = new Line2D.Double(fwBase,rakePnt);
+        Point2D rakePnt = Utilities.polarPoint(fwBase, rakeLen, rakeTheta, _cpRake);
+        _analysis.forkRakeLine.setLine(fwBase, rakePnt);
         
         //build head tube line (projected)
-        Point2D stemPoint = _frame.getStemPoint();
-        Point2D projStemPoint = Utilities.polarPoint(stemPoint, 1000, hta2);
-        Line2D headLineProj = new Line2D.Double(stemPoint, projStemPoint);
+        Point2D stemPoint = _frame.getStemPoint(_cpStemPoint);
+        Point2D projStemPoint = Utilities.polarPoint(stemPoint, 1000, hta2, _cpHeadProj);
 
         //prep to 0 in case of failure...
         _report.reportDistance(ReportField.Trail, 0);
 
         //get projected intersection to ground
-        IntersectionPoint insPnt = Utilities.lineLineIntersect(headLineProj, groundLine);
-
-        if (insPnt.result() == IntersectionPointResult.ONE_POINT) {
-
-            projStemPoint = insPnt.getIntersection1();
+        if (Utilities.lineLineIntersect(stemPoint, projStemPoint, glStart, glEnd, projStemPoint)) {
 
             //trail distance
             double trail = fwAtGround.distance(projStemPoint);
@@ -819,52 +1420,35 @@ public class Bicycle extends BaseComponent implements ComponentOwner {
         }
 
         //head tube to ground
-        //Line2D headLine = new Line2D.Double(stemPoint, projStemPoint);
-        _analysis.headTubeLine = new Line2D.Double(stemPoint, projStemPoint);
+        _analysis.headTubeLine.setLine(stemPoint, projStemPoint);
 
         //bottom bracket point
-        Point2D bbPoint = _frame.getBottomBracketPoint();
+        Point2D bbPoint = _frame.getBottomBracketPoint(_cpBottomBracket);
         //reach / stack point
-        Point2D rsPoint = new Point2D.Double(bbPoint.getX(), stemPoint.getY());
+        Point2D rsPoint = _cpReachStack;
+        rsPoint.setLocation(bbPoint.getX(), stemPoint.getY());
 
         //front center line
-        _analysis.frontCenterLine = new Line2D.Double(bbPoint, fwBase);
-
-
-        Line2D stackLine = new Line2D.Double(bbPoint, rsPoint);
-        Line2D reachLine = new Line2D.Double(rsPoint, stemPoint);
-
-        _analysis.stackLine = stackLine;
-//        _analysis.reachLine = reachLine;
-
-        double stackDist = Utilities.lineLength(stackLine);
-        double reachDist = Utilities.lineLength(reachLine);
-
-        //bottom bracket to front wheel - front center measruement
-        double fcDist = bbPoint.distance(fwBase);
-
+        _analysis.frontCenterLine.setLine(bbPoint, fwBase);
 
-        //_report.reportDistance(ReportField.FrontCenter, fcDist);
+        _analysis.stackLine.setLine(bbPoint, rsPoint);
 
         //get the seat post point
-        Point2D seatPostPoint = _frame.getSeatPoint();
+        Point2D seatPostPoint = _frame.getSeatPoint(_cpSeatPoint);
 
         //calc the intersection
-        insPnt = Utilities.lineLineIntersect(bbPoint, seatPostPoint, stemPoint, rsPoint);
+        Point2D ip = _cpTopTube;
 
         double effectiveTT = 0;
-        if (insPnt.result() == IntersectionPointResult.ONE_POINT) {
+        if (Utilities.lineLineIntersect(bbPoint, seatPostPoint, stemPoint, rsPoint, ip)) {
 
-            Point2D ip = insPnt.getIntersection1();
             //effective Top Tube
             effectiveTT = stemPoint.distance(ip);
 
             //effective top tube
-            Line2D ETopTube = new Line2D.Double(ip, stemPoint);
-            _analysis.reachLine = ETopTube;
+            _analysis.reachLine.setLine(ip, stemPoint);
             
-            Line2D ESeatPost = new Line2D.Double(bbPoint, ip);
-            _analysis.seatPostLine = ESeatPost;
+            _analysis.seatPostLine.setLine(bbPoint, ip);
 
         } 
 
@@ -873,7 +1457,6 @@ public class Bicycle extends BaseComponent implements ComponentOwner {
         //update the rider portion of the report
         _rider.updateReport(_report);
 
-        //System.out.println("Reach = " + reach + ". Stack = " + stack);
     }
 
 
@@ -883,21 +1466,22 @@ public class Bicycle extends BaseComponent implements ComponentOwner {
      */
     private class BicycleAnalysisResult {
 
-        Line2D groundLine;
+        //set in place by updateAnalysis()
+        Line2D groundLine = new Line2D.Double();
         
         
-        Line2D wheelBaseLine;
-        Line2D frontCenterLine;
+        Line2D wheelBaseLine = new Line2D.Double();
+        Line2D frontCenterLine = new Line2D.Double();
         
-        Line2D stackLine;
-        Line2D reachLine;
+        Line2D stackLine = new Line2D.Double();
+        Line2D reachLine = new Line2D.Double();
 
-        Line2D seatPostLine;
+        Line2D seatPostLine = new Line2D.Double();
         
-        Line2D headTubeLine;
-        Line2D frontWheelLine;
+        Line2D headTubeLine = new Line2D.Double();
+        Line2D frontWheelLine = new Line2D.Double();
         
-        Line2D forkRakeLine;
+        Line2D forkRakeLine = new Line2D.Double();
 
     }
 
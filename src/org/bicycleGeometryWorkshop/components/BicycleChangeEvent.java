@@ -39,7 +39,7 @@ public class BicycleChangeEvent {
     
     /**
      * Class constructor.  Construct event with Bicycle and Component event.
-     * @param bicycle The bicycle for the event.
+     * @param bicycle The bicycle for the event, null if all bicycles changed (rider or pose).
      * @param compEvent The component for the event.
      */
     public BicycleChangeEvent(Bicycle bicycle, ComponentChangeEvent compEvent) {
@@ -83,11 +83,19 @@ public class BicycleChangeEvent {
     
     /**
      * Get the bicycle that triggered the event
-     * @return The Bicycle associated with the event.
+     * @return The Bicycle associated with the event, null if all bicycles changed.
      */
     public Bicycle getBicycle() {
         return _bicycle;
     }
+
+    /**
+     * Check if the event is for all the bicycles (rider or pose change).
+     * @return True if all bicycles changed.
+     */
+    public boolean isAllBicycles() {
+        return _bicycle == null;
+    }
     
     /**
      *  Get the ComponenetChangeEvent associated with this event.
@@ -42,6 +42,9 @@ public class Cranks extends BaseComponent {
     private  DoubleAttribute _attLength;
    
     
+    //crank line weight (model units)
+    static final float LINE_WIDTH = 20;
+
     private double _rotation;
 
     private  Line2D _geomCrankRight;
@@ -135,7 +138,7 @@ public class Cranks extends BaseComponent {
      */
     public void renderRight(Graphics2D g2) {
 
-       BasicStroke ns = new BasicStroke(20, BasicStroke.CAP_ROUND, BasicStroke.JOIN_MITER);
+       BasicStroke ns = new BasicStroke(LINE_WIDTH, BasicStroke.CAP_ROUND, BasicStroke.JOIN_MITER);
         Stroke s = g2.getStroke();
         
         g2.setStroke(ns);
@@ -154,7 +157,7 @@ public class Cranks extends BaseComponent {
      */    
     public void renderLeft(Graphics2D g2) {
 
-        BasicStroke ns = new BasicStroke(20, BasicStroke.CAP_ROUND, BasicStroke.JOIN_MITER);
+        BasicStroke ns = new BasicStroke(LINE_WIDTH, BasicStroke.CAP_ROUND, BasicStroke.JOIN_MITER);
         Stroke s = g2.getStroke();
          g2.setStroke(ns);
          
@@ -164,6 +167,24 @@ public class Cranks extends BaseComponent {
 
     }
 
+    /**
+     * Get a copy of the right crank line.
+     *
+     * @return The right crank line.
+     */
+    Line2D getCrankLineRight() {
+        return new Line2D.Double(_geomCrankRight.getP1(), _geomCrankRight.getP2());
+    }
+
+    /**
+     * Get a copy of the left crank line.
+     *
+     * @return The left crank line.
+     */
+    Line2D getCrankLineLeft() {
+        return new Line2D.Double(_geomCrankLeft.getP1(), _geomCrankLeft.getP2());
+    }
+
     /**
      * Get the Right Pedal Point for the Cranks.
      *
@@ -173,6 +194,16 @@ public class Cranks extends BaseComponent {
         return new Point2D.Double(_crankPointRight.getX(), _crankPointRight.getY());
     }
 
+    /**
+     * Get the Right Pedal Point into an existing point (no allocation).
+     * @param result The point to set.
+     * @return The result point.
+     */
+    public Point2D getCrankPointRight(Point2D result) {
+        result.setLocation(_crankPointRight);
+        return result;
+    }
+
     /**
      * Get the Left Pedal Point for the Cranks.
      *
@@ -181,6 +212,16 @@ public class Cranks extends BaseComponent {
     public Point2D getCrankPointLeft() {
         return new Point2D.Double(_crankPointLeft.getX(), _crankPointLeft.getY());
     }
+
+    /**
+     * Get the Left Pedal Point into an existing point (no allocation).
+     * @param result The point to set.
+     * @return The result point.
+     */
+    public Point2D getCrankPointLeft(Point2D result) {
+        result.setLocation(_crankPointLeft);
+        return result;
+    }
     
     
 
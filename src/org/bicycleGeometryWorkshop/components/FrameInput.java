@@ -0,0 +1,89 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2020 Tom.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.bicycleGeometryWorkshop.components;
+
+/**
+ *  Enum for the frame input parameterizations.  Each value is a pair of published
+ *  measurements (a, b) the FrameSolver can convert to stack and reach.
+ * @author Tom
+ */
+public enum FrameInput {
+    /**
+     * Stack (a) and reach (b) - no conversion.
+     */
+    StackReach("Stack", "Reach"),
+    /**
+     * Wheel base (a) and stack (b).
+     */
+    WheelBaseStack("Wheel Base", "Stack"),
+    /**
+     * Front center (a) and stack (b).
+     */
+    FrontCenterStack("Front Center", "Stack"),
+    /**
+     * Effective top tube (a) and stack (b).
+     */
+    ETopTubeStack("Effective Top Tube", "Stack"),
+    /**
+     * Effective top tube (a) and fork length (b) - axle to crown along the steering axis.
+     */
+    ETopTubeForkLength("Effective Top Tube", "Fork Length"),
+    /**
+     * Effective seat tube length (a) - bottom bracket to the effective top tube along the seat tube - and effective top tube (b).
+     */
+    SeatTubeETopTube("Effective Seat Tube", "Effective Top Tube");
+
+    private final String _labelA;
+    private final String _labelB;
+
+    FrameInput(final String labelA, final String labelB) {
+        _labelA = labelA;
+        _labelB = labelB;
+    }
+
+    /**
+     * Get the display label of the first value.
+     * @return The label.
+     */
+    public String getLabelA() {
+        return _labelA;
+    }
+
+    /**
+     * Get the display label of the second value.
+     * @return The label.
+     */
+    public String getLabelB() {
+        return _labelB;
+    }
+
+    /**
+     * Get the display name of the input pair.
+     * @return The labels of both values.
+     */
+    @Override
+    public String toString() {
+        return _labelA + " / " + _labelB;
+    }
+}
@@ -36,8 +36,6 @@ import java.awt.geom.Path2D;
 import java.awt.geom.Point2D;
 import java.util.ArrayList;
 import org.bicycleGeometryWorkshop.database.DataBaseKeys;
-import org.bicycleGeometryWorkshop.geometry.IntersectionPoint;
-import org.bicycleGeometryWorkshop.geometry.IntersectionPointResult;
 
 /**
  * The frame component of the bicycle.  This emulates a standard diamond frame bicycle frame.   This is the core component that most all other components attach to.  
@@ -91,6 +89,15 @@ public class FrameSet extends BaseComponent {
     private Point2D _seatPoint;
     private Point2D _bottomBracketPoint;
 
+    //working points reused by updateGeometry()
+    private Point2D _cpBase;
+    private Point2D _cpHeadTubeBottom;
+    private Point2D _cpTopTubeEP;
+    private Point2D _cpBottomTubeEP;
+    private Point2D _cpFrontWheel;
+    private Point2D _cpForkProjection;
+    private Point2D _cpSeatPostCenter;
+
     private Line2D _geomFork;
     private Line2D _geomHeadTube;
 
@@ -100,7 +107,12 @@ public class FrameSet extends BaseComponent {
     private Line2D _geomChainstay;
     private Line2D _geomSeatstay;
     
+    //display shapes for each level of detail - built when first rendered
     private ArrayList<Shape> _shapes;
+    private ArrayList<Shape> _simpleShapes;
+    private boolean _shapesValid;
+    private boolean _simpleShapesValid;
+    private boolean _shapesEnabled;
 
 
     /**
@@ -159,6 +171,14 @@ public class FrameSet extends BaseComponent {
         _seatPoint = new Point2D.Double(0, 0);
         _bottomBracketPoint = new Point2D.Double(0, 0);
 
+        _cpBase = new Point2D.Double();
+        _cpHeadTubeBottom = new Point2D.Double();
+        _cpTopTubeEP = new Point2D.Double();
+        _cpBottomTubeEP = new Point2D.Double();
+        _cpFrontWheel = new Point2D.Double();
+        _cpForkProjection = new Point2D.Double();
+        _cpSeatPostCenter = new Point2D.Double();
+
         //intialize geometry variables - broken out for convience
         _geomFork = addLine2D();
         _geomHeadTube = addLine2D();
@@ -171,8 +191,11 @@ public class FrameSet extends BaseComponent {
 
 //        _controlFrame = new ControlFrame();
         
-        //testing
         _shapes = new ArrayList();
+        _simpleShapes = new ArrayList();
+        _shapesValid = false;
+        _simpleShapesValid = false;
+        _shapesEnabled = true;
         
         
         //do initial run
@@ -227,6 +250,16 @@ public class FrameSet extends BaseComponent {
         return new Point2D.Double(_stemPoint.getX(), _stemPoint.getY());
     }
 
+    /**
+     * Get the Stem point into an existing point (no allocation).
+     * @param result The point to set.
+     * @return The result point.
+     */
+    public Point2D getStemPoint(Point2D result) {
+        result.setLocation(_stemPoint);
+        return result;
+    }
+
     
     /**
      * Get the Seat Point.  this is the connection point for the seat post.
@@ -236,6 +269,16 @@ public class FrameSet extends BaseComponent {
         return new Point2D.Double(_seatPoint.getX(), _seatPoint.getY());
     }
 
+    /**
+     * Get the Seat Point into an existing point (no allocation).
+     * @param result The point to set.
+     * @return The result point.
+     */
+    public Point2D getSeatPoint(Point2D result) {
+        result.setLocation(_seatPoint);
+        return result;
+    }
+
     /**
      * Get the bottom bracket point.  This is the connection piint for the cranks.
      * @return The connection point for the cranks.
@@ -244,6 +287,16 @@ public class FrameSet extends BaseComponent {
         return new Point2D.Double(_bottomBracketPoint.getX(), _bottomBracketPoint.getY());
     }
 
+    /**
+     * Get the bottom bracket point into an existing point (no allocation).
+     * @param result The point to set.
+     * @return The result point.
+     */
+    public Point2D getBottomBracketPoint(Point2D result) {
+        result.setLocation(_bottomBracketPoint);
+        return result;
+    }
+
   
     /**
      * Report Methods
@@ -271,6 +324,69 @@ public class FrameSet extends BaseComponent {
     }
     
     
+    /**
+     * Get the chainstay length.
+     * @return The chainstay length.
+     */
+    public double getChainstay() {
+        return _attChainstay.getDoubleValue();
+    }
+
+    /**
+     * Get the bottom bracket drop.
+     * @return The bottom bracket drop.
+     */
+    public double getBottomBracketDrop() {
+        return _attBottomBracketDrop.getDoubleValue();
+    }
+
+    /**
+     * Get the head tube length including the bottom headset.
+     * @return The head tube length.
+     */
+    public double getHeadTubeLength() {
+        return _attHeadTube.getDoubleValue() + _attHeadSetBottom.getDoubleValue();
+    }
+
+    /**
+     * Set the stack and reach from another pair of measurements (wheel base and
+     * stack, effective top tube and fork length, etc.).  The other frame values
+     * are kept.
+     * @param input The measurements the values represent.
+     * @param a The first value (see FrameInput).
+     * @param b The second value (see FrameInput).
+     * @return True if the values were set, false if they can't be solved or are out of range.
+     */
+    public boolean setStackReachFrom(FrameInput input, double a, double b) {
+
+        double htTheta = Math.toRadians(getHeadTubeAngle());
+        double stTheta = Math.toRadians(getSeatTubeAngle());
+
+        double sinHT = Math.sin(htTheta);
+        double cosHT = Math.cos(htTheta);
+        double sinST = Math.sin(stTheta);
+        double cosST = Math.cos(stTheta);
+
+        double drop = getBottomBracketDrop();
+        double rake = getForkRake();
+
+        double stack = FrameSolver.solveStack(input, a, b, getHeadTubeLength(), drop, rake, sinHT, cosHT, sinST);
+        double reach = FrameSolver.solveReach(input, a, b, stack, getChainstay(), drop, rake, sinHT, cosHT, sinST, cosST);
+
+        if (Double.isNaN(stack) || Double.isNaN(reach)) {
+            return false;
+        }
+
+        if (stack < _attStack.getMin() || stack > _attStack.getMax() || reach < _attReach.getMin() || reach > _attReach.getMax()) {
+            return false;
+        }
+
+        _attStack.setDouble(stack);
+        _attReach.setDouble(reach);
+
+        return true;
+    }
+
     /**
      * Get the fork rake.
      * @return The fork rake distance.
@@ -287,7 +403,7 @@ public class FrameSet extends BaseComponent {
         
 
         //set base point for all methods
-        Point2D basePoint = getBasePoint();
+        Point2D basePoint = getBasePoint(_cpBase);
 
 
         //calc bottom bracket location
@@ -318,12 +434,8 @@ public class FrameSet extends BaseComponent {
         // horizontal length of chainstay (delta x)
         double csHoriz = Math.sqrt(cs2 - bb2);
   
-        //bottom bracket control point
-        Point2D cpBottomBracket =  Utilities.translatePoint(basePoint, csHoriz, -bttmBrktDrop);
-        
         /*** set the Bottom Bracket Point ***/
-        _bottomBracketPoint.setLocation(cpBottomBracket);
-        
+        Point2D cpBottomBracket =  Utilities.translatePoint(basePoint, csHoriz, -bttmBrktDrop, _bottomBracketPoint);
 
         //set chainstay line
         _geomChainstay.setLine(cpBottomBracket, basePoint);
@@ -331,53 +443,32 @@ public class FrameSet extends BaseComponent {
         /**
          * HeadTube
          */
-        //headTube top center point
-        Point2D cpHeadTubeTop =  Utilities.translatePoint(cpBottomBracket, reach, stack);
+        /*** set the stem point - headTube top center point ***/
+        Point2D cpHeadTubeTop =  Utilities.translatePoint(cpBottomBracket, reach, stack, _stemPoint);
         //head tube angle pointing towards ground
         double htTheta = -Utilities.degreesToRadians(headAng);
         //total headset length
         double hsLength = headTube +  headSB;         
         //head tube bottom
-        Point2D cpHeadTubeBottom = Utilities.polarPoint(cpHeadTubeTop, hsLength, htTheta);
+        Point2D cpHeadTubeBottom = Utilities.polarPoint(cpHeadTubeTop, hsLength, htTheta, _cpHeadTubeBottom);
         //these are specified from the bottom up
         double topTubeOS = headTube - ttOffset;
         double bottomTubeOS = headTube - btOffset;
         //tube points at headset
-        Point2D cpTopTubeEP = Utilities.polarPoint(cpHeadTubeTop, topTubeOS, htTheta);
-        Point2D cpBttomTubeEP = Utilities.polarPoint(cpHeadTubeTop, bottomTubeOS, htTheta);
+        Point2D cpTopTubeEP = Utilities.polarPoint(cpHeadTubeTop, topTubeOS, htTheta, _cpTopTubeEP);
+        Point2D cpBttomTubeEP = Utilities.polarPoint(cpHeadTubeTop, bottomTubeOS, htTheta, _cpBottomTubeEP);
         
         //head tue line
         //this should be from ground up (start to end)     
         _geomHeadTube.setLine(cpHeadTubeBottom, cpHeadTubeTop);
         
-        /*** set the stem point ***/
-        _stemPoint.setLocation(cpHeadTubeTop);        
-        
         /**
          * Fork
          */
         
-        //rotate head angle positive 90 degrees
-        double rakeThetaPos = htTheta + Math.PI / 2;
-        //rake points - define an offset line rom headtube
-        Point2D rakePnt1 = Utilities.polarPoint(cpHeadTubeTop, forkRake, rakeThetaPos);
-        Point2D rakePnt2 = Utilities.polarPoint(cpHeadTubeBottom, forkRake, rakeThetaPos);
-        
-        //point horizontal from base point (for intersection below)
-        Point2D cpHorizProj = Utilities.translatePoint(basePoint, 100, 0);
-        //prepare front wheel point
-        Point2D cpFrontWheel = new Point2D.Double();
-        
-        //calc intersection
-        IntersectionPoint ip = Utilities.lineLineIntersect(basePoint, cpHorizProj, rakePnt1, rakePnt2);
-        
-        //get intersection of horizontal line with rake line - this is the front wheel point
-        if(ip.result() == IntersectionPointResult.ONE_POINT) {
-            cpFrontWheel = ip.getIntersection1();
-        } else {
-            //crap.... shouldn't happen... 
-            //make sure head tube is never parallel to ground
-         }
+        //front wheel center - closed form for where the rake line crosses the wheel center line
+        double frontX = FrameSolver.frontX(stack, reach, bttmBrktDrop, forkRake, Math.sin(-htTheta), Math.cos(-htTheta));
+        Point2D cpFrontWheel = Utilities.translatePoint(cpBottomBracket, frontX, bttmBrktDrop, _cpFrontWheel);
         
         /***  set the wheelbase ***/
         _wheelBase = basePoint.distance(cpFrontWheel);  
@@ -388,7 +479,7 @@ public class FrameSet extends BaseComponent {
         //rotate head angle positive 90 degrees
         double rakeThetaNeg = htTheta - Math.PI / 2;
         //project rake back from front wheel to get projected end of fork
-        Point2D cpForkProjection = Utilities.polarPoint(cpFrontWheel, forkRake, rakeThetaNeg);
+        Point2D cpForkProjection = Utilities.polarPoint(cpFrontWheel, forkRake, rakeThetaNeg, _cpForkProjection);
         
         //get the fork length
         _forkLength = cpHeadTubeBottom.distance(cpForkProjection);
@@ -408,17 +499,13 @@ public class FrameSet extends BaseComponent {
         //seat tube angle
         double seatTubeAngle = Math.PI - Utilities.degreesToRadians(stAng);
 
-        //seat post tube points
-        Point2D cpSeatPostTop =  Utilities.polarPoint(cpBottomBracket , stTop, seatTubeAngle);        
-        Point2D cpSeatPostCenter =  Utilities.polarPoint(cpBottomBracket , stCen, seatTubeAngle);
+        /*** set the seat point - seat post tube top ***/
+        Point2D cpSeatPostTop =  Utilities.polarPoint(cpBottomBracket , stTop, seatTubeAngle, _seatPoint);        
+        Point2D cpSeatPostCenter =  Utilities.polarPoint(cpBottomBracket , stCen, seatTubeAngle, _cpSeatPostCenter);
         
         //update the frame
-//        frame.SeatPost.setLine(cpBottomBracket, cpSeatPostTop);
         _geomSeatTube.setLine(cpBottomBracket, cpSeatPostTop);
         
-         /*** set the seat point ***/
-        _seatPoint.setLocation(cpSeatPostTop);
-        
         //seat stay line
         _geomSeatstay.setLine(basePoint, cpSeatPostCenter);
         
@@ -427,19 +514,43 @@ public class FrameSet extends BaseComponent {
         _geomBottomTube.setLine(cpBottomBracket,cpBttomTubeEP ); 
      
        
-        //build the shapes
-        buildShapes();
+        //the shapes (display only) are rebuilt when next rendered
+        _shapesValid = false;
+        _simpleShapesValid = false;
         
     }
     
     
+    /**
+     * Enable or disable the display shapes (tube outlines, lugs, etc.).
+     * The shapes are only used for rendering and are by far the most expensive
+     * part of the frame, so bicycles used only for analysis turn them off.
+     * Without shapes the frame renders as center lines.
+     * @param enabled True to use the shapes (default), false to skip them.
+     */
+    public void setShapesEnabled(boolean enabled) {
+
+        _shapesEnabled = enabled;
+
+        if (!enabled) {
+            _shapes.clear();
+            _simpleShapes.clear();
+            _shapesValid = false;
+            _simpleShapesValid = false;
+        }
+    }
+
     /**
      * Build the frame geometry (shapes).
+     * @param shapes The list to fill.
+     * @param full True for full detail (tubes trimmed at the bottom bracket
+     * and lugs, donut lugs), false for simplified outlines (plain tubes and
+     * solid lugs - no area operations).
      */
-    private void buildShapes() {
+    private void buildShapes(ArrayList<Shape> shapes, boolean full) {
         
         //clear shapes
-        _shapes.clear();
+        shapes.clear();
         
         double bbDia = BB_OUTER_DIA;
         double bbRad = bbDia / 2;
@@ -493,7 +604,7 @@ public class FrameSet extends BaseComponent {
         Path2D htPath = makeShapeFromLines(headTubeR, headTubeL);
         
         //add head tube shape
-        _shapes.add(htPath);
+        shapes.add(htPath);
         
         
          /*** Seat Post Tube ***/
@@ -504,8 +615,8 @@ public class FrameSet extends BaseComponent {
        
         //generate the path
         Path2D spPath = makeShapeFromLines(seatTubeR, seatTubeL);        
-        Shape spShape  = subtractCircleFromShape(spPath, _bottomBracketPoint, bbRad);
-        _shapes.add(spShape);        
+        Shape spShape  = full ? subtractCircleFromShape(spPath, _bottomBracketPoint, bbRad) : spPath;
+        shapes.add(spShape);        
        
         
          /***  Top Tube  ***/
@@ -524,7 +635,7 @@ public class FrameSet extends BaseComponent {
         //top tube path
         Path2D ttPath = makeShapeFromLines(topTubeR, topTubeL);
         //add top tube shape
-        _shapes.add(ttPath);        
+        shapes.add(ttPath);        
         
         
         /***  Bottom Tube ***/
@@ -540,9 +651,9 @@ public class FrameSet extends BaseComponent {
         bottomTubeR = Utilities.trimLineToCircle(bottomTubeR, _bottomBracketPoint, bbRad, false);
         
         Path2D btPath = makeShapeFromLines(bottomTubeR, bottomTubeL);
-        Shape btShape  = subtractCircleFromShape(btPath, _bottomBracketPoint, bbRad);
+        Shape btShape  = full ? subtractCircleFromShape(btPath, _bottomBracketPoint, bbRad) : btPath;
         
-        _shapes.add(btShape);
+        shapes.add(btShape);
         
         /*** Chainstay Tube ***/
         Line2D chainstayTubeL = Utilities.offsetLine(_geomChainstay,  ctRad, ctRad2,  true);
@@ -550,9 +661,12 @@ public class FrameSet extends BaseComponent {
                
         
         Path2D ctPath = makeShapeFromLines(chainstayTubeR, chainstayTubeL);
-        Shape ctShape  = subtractCircleFromShape(ctPath, _bottomBracketPoint, bbRad);
-        ctShape  = subtractCircleFromShape(ctShape, rwPoint, lugRad);
-        _shapes.add(ctShape);
+        Shape ctShape = ctPath;
+        if (full) {
+            ctShape  = subtractCircleFromShape(ctShape, _bottomBracketPoint, bbRad);
+            ctShape  = subtractCircleFromShape(ctShape, rwPoint, lugRad);
+        }
+        shapes.add(ctShape);
         
         
         /*** Seatstay line ***/
@@ -563,8 +677,8 @@ public class FrameSet extends BaseComponent {
         seatstayTubeR = Utilities.trimLineToLine(seatstayTubeR, seatTubeL, true);         
         
         Path2D seatStayPath = makeShapeFromLines(seatstayTubeR, seatstayTubeL);
-        Shape seatStayShape  = subtractCircleFromShape(seatStayPath, rwPoint, lugRad);
-        _shapes.add(seatStayShape);
+        Shape seatStayShape  = full ? subtractCircleFromShape(seatStayPath, rwPoint, lugRad) : seatStayPath;
+        shapes.add(seatStayShape);
         
         
         /*** Fork Shape ***/
@@ -583,17 +697,17 @@ public class FrameSet extends BaseComponent {
         Line2D forkLineR = new Line2D.Double(flR.getP1(), htR.getP1() );     
         
          Path2D forkPath = makeShapeFromLines(forkLineR, forkLineL);
-         Shape forkShape  = subtractCircleFromShape(forkPath, fwPoint, lugRad);
-         _shapes.add(forkShape);
+         Shape forkShape  = full ? subtractCircleFromShape(forkPath, fwPoint, lugRad) : forkPath;
+         shapes.add(forkShape);
         
         /*** Bottom Bracket and lugs donuts ***/
-        Shape bbShape = makeDonut(_bottomBracketPoint, bbRad, bbInRad);
-        Shape fLug = makeDonut(fwPoint, lugRad, boltRad);
-        Shape rLug = makeDonut(rwPoint, lugRad, boltRad);
+        Shape bbShape = full ? makeDonut(_bottomBracketPoint, bbRad, bbInRad) : makeCircle(_bottomBracketPoint, bbRad);
+        Shape fLug = full ? makeDonut(fwPoint, lugRad, boltRad) : makeCircle(fwPoint, lugRad);
+        Shape rLug = full ? makeDonut(rwPoint, lugRad, boltRad) : makeCircle(rwPoint, lugRad);
         
-        _shapes.add(bbShape);
-        _shapes.add(fLug);
-        _shapes.add(rLug);
+        shapes.add(bbShape);
+        shapes.add(fLug);
+        shapes.add(rLug);
         
     }
     
@@ -647,6 +761,20 @@ public class FrameSet extends BaseComponent {
 
     }
 
+    /**
+     * Creates a circle shape - used for the simplified bottom bracket and lugs.
+     * @param ca Center of the circle.
+     * @param ra Radius of the circle.
+     * @return The circle shape.
+     */
+    private Shape makeCircle(Point2D ca, double ra) {
+
+        Ellipse2D ea = new Ellipse2D.Double();
+        ea.setFrameFromCenter(ca.getX(), ca.getY(), ca.getX() - ra, ca.getY() - ra);
+
+        return ea;
+    }
+
     /**
      * Creates a donut shape - used for the bottom bracket and "Lugs".
      * @param ca  Center of donut.
@@ -702,18 +830,63 @@ public class FrameSet extends BaseComponent {
      * @param g2 Graphics object to render to.
      */
     public void render(Graphics2D g2) {
+        render(g2, DetailLevel.Full);
+    }
+
+    /**
+     * Render the Frame Geometry at a level of detail.  The shapes of each level
+     * are built on first use after a change and cached.
+     * @param g2 Graphics object to render to.
+     * @param level The level of detail.
+     */
+    public void render(Graphics2D g2, DetailLevel level) {
 
+        if (level == DetailLevel.Centerline || !_shapesEnabled) {
+            renderCenterlines(g2);
+            return;
+        }
 
-        double ad = AXLE_DIA;
-        double ar = AXLE_DIA / 2;
-        
-        //testing shapes
-        for(Shape s : _shapes) {
+        ArrayList<Shape> shapes;
+
+        if (level == DetailLevel.Simplified) {
+
+            if (!_simpleShapesValid) {
+                buildShapes(_simpleShapes, false);
+                _simpleShapesValid = true;
+            }
+            shapes = _simpleShapes;
+
+        } else {
+
+            if (!_shapesValid) {
+                buildShapes(_shapes, true);
+                _shapesValid = true;
+            }
+            shapes = _shapes;
+        }
+
+        for(Shape s : shapes) {
             g2.fill(s);
         }        
 
     }
 
+    /**
+     * Render the tube center lines - the lowest level of detail.
+     * @param g2 Graphics object to render to.
+     */
+    private void renderCenterlines(Graphics2D g2) {
+
+        g2.draw(_geomFork);
+        g2.draw(_geomHeadTube);
+        g2.draw(_geomTopTube);
+        g2.draw(_geomBottomTube);
+        g2.draw(_geomSeatTube);
+        g2.draw(_geomChainstay);
+        g2.draw(_geomSeatstay);
+
+    }
+
 
     
 
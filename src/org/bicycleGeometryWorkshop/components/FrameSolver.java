@@ -0,0 +1,191 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2020 Tom.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.bicycleGeometryWorkshop.components;
+
+/**
+ * Closed form frame geometry.  The frame is defined by stack and reach, these
+ * methods relate stack and reach to the other published measurements
+ * (wheel base, front center, effective top tube and fork length) so a frame can be
+ * driven from whichever pair a manufacturer lists.
+ * <p>
+ * All distances are horizontal/vertical from the bottom bracket with the wheel
+ * centers on the same line.  Angles are passed as sine and cosine so the trig is
+ * done once per frame.
+ *
+ * @author Tom
+ */
+public class FrameSolver {
+
+    /**
+     * Horizontal length of the chainstay (rear wheel center to bottom bracket).
+     *
+     * @param chainstay The chainstay length.
+     * @param bottomBracketDrop The bottom bracket drop.
+     * @return The horizontal length.
+     */
+    public static double chainstayHorizontal(double chainstay, double bottomBracketDrop) {
+        return Math.sqrt(chainstay * chainstay - bottomBracketDrop * bottomBracketDrop);
+    }
+
+    /**
+     * Horizontal distance from the bottom bracket to the front wheel center.
+     * This is where the fork rake line (offset from the head tube) crosses the
+     * wheel center line.
+     *
+     * @param stack The stack.
+     * @param reach The reach.
+     * @param bottomBracketDrop The bottom bracket drop.
+     * @param forkRake The fork rake.
+     * @param sinHT Sine of the head tube angle.
+     * @param cosHT Cosine of the head tube angle.
+     * @return The horizontal distance.
+     */
+    public static double frontX(double stack, double reach, double bottomBracketDrop, double forkRake, double sinHT, double cosHT) {
+        return reach + (stack - bottomBracketDrop) * cosHT / sinHT + forkRake / sinHT;
+    }
+
+    /**
+     * Reach from the horizontal distance to the front wheel center (inverse of frontX()).
+     *
+     * @param frontX The horizontal distance from the bottom bracket to the front wheel center.
+     * @param stack The stack.
+     * @param bottomBracketDrop The bottom bracket drop.
+     * @param forkRake The fork rake.
+     * @param sinHT Sine of the head tube angle.
+     * @param cosHT Cosine of the head tube angle.
+     * @return The reach.
+     */
+    public static double reachFromFrontX(double frontX, double stack, double bottomBracketDrop, double forkRake, double sinHT, double cosHT) {
+        return frontX - (stack - bottomBracketDrop) * cosHT / sinHT - forkRake / sinHT;
+    }
+
+    /**
+     * Horizontal distance to the front wheel center from the front center measurement.
+     *
+     * @param frontCenter The front center (bottom bracket to front wheel center).
+     * @param bottomBracketDrop The bottom bracket drop.
+     * @return The horizontal distance, NaN if the front center is shorter than the drop.
+     */
+    public static double frontXFromFrontCenter(double frontCenter, double bottomBracketDrop) {
+        return Math.sqrt(frontCenter * frontCenter - bottomBracketDrop * bottomBracketDrop);
+    }
+
+    /**
+     * Fork length (axle to crown along the steering axis) for a stack.
+     *
+     * @param stack The stack.
+     * @param headTubeLength The head tube length including the bottom headset.
+     * @param bottomBracketDrop The bottom bracket drop.
+     * @param forkRake The fork rake.
+     * @param sinHT Sine of the head tube angle.
+     * @param cosHT Cosine of the head tube angle.
+     * @return The fork length.
+     */
+    public static double forkLength(double stack, double headTubeLength, double bottomBracketDrop, double forkRake, double sinHT, double cosHT) {
+        return (stack - bottomBracketDrop + forkRake * cosHT) / sinHT - headTubeLength;
+    }
+
+    /**
+     * Stack from the fork length (inverse of forkLength()).
+     *
+     * @param forkLength The fork length.
+     * @param headTubeLength The head tube length including the bottom headset.
+     * @param bottomBracketDrop The bottom bracket drop.
+     * @param forkRake The fork rake.
+     * @param sinHT Sine of the head tube angle.
+     * @param cosHT Cosine of the head tube angle.
+     * @return The stack.
+     */
+    public static double stackFromForkLength(double forkLength, double headTubeLength, double bottomBracketDrop, double forkRake, double sinHT, double cosHT) {
+        return bottomBracketDrop + (forkLength + headTubeLength) * sinHT - forkRake * cosHT;
+    }
+
+    /**
+     * Stack from a pair of measurements.
+     *
+     * @param input The measurements the values represent.
+     * @param a The first value (see FrameInput).
+     * @param b The second value (see FrameInput).
+     * @param headTubeLength The head tube length including the bottom headset.
+     * @param bottomBracketDrop The bottom bracket drop.
+     * @param forkRake The fork rake.
+     * @param sinHT Sine of the head tube angle.
+     * @param cosHT Cosine of the head tube angle.
+     * @param sinST Sine of the seat tube angle.
+     * @return The stack or NaN if the values can't be solved.
+     */
+    public static double solveStack(FrameInput input, double a, double b, double headTubeLength, double bottomBracketDrop,
+            double forkRake, double sinHT, double cosHT, double sinST) {
+
+        switch (input) {
+            case WheelBaseStack:
+            case FrontCenterStack:
+            case ETopTubeStack:
+                return b;
+            case ETopTubeForkLength:
+                return stackFromForkLength(b, headTubeLength, bottomBracketDrop, forkRake, sinHT, cosHT);
+            case SeatTubeETopTube:
+                return a * sinST;
+            default:
+                return a;
+        }
+
+    }
+
+    /**
+     * Reach from a pair of measurements and the stack solved by solveStack().
+     *
+     * @param input The measurements the values represent.
+     * @param a The first value (see FrameInput).
+     * @param b The second value (see FrameInput).
+     * @param stack The stack.
+     * @param chainstay The chainstay length.
+     * @param bottomBracketDrop The bottom bracket drop.
+     * @param forkRake The fork rake.
+     * @param sinHT Sine of the head tube angle.
+     * @param cosHT Cosine of the head tube angle.
+     * @param sinST Sine of the seat tube angle.
+     * @param cosST Cosine of the seat tube angle.
+     * @return The reach or NaN if the values can't be solved.
+     */
+    public static double solveReach(FrameInput input, double a, double b, double stack, double chainstay, double bottomBracketDrop,
+            double forkRake, double sinHT, double cosHT, double sinST, double cosST) {
+
+        switch (input) {
+            case WheelBaseStack:
+                return reachFromFrontX(a - chainstayHorizontal(chainstay, bottomBracketDrop), stack, bottomBracketDrop, forkRake, sinHT, cosHT);
+            case FrontCenterStack:
+                return reachFromFrontX(frontXFromFrontCenter(a, bottomBracketDrop), stack, bottomBracketDrop, forkRake, sinHT, cosHT);
+            case ETopTubeStack:
+            case ETopTubeForkLength:
+                return a - stack * cosST / sinST;
+            case SeatTubeETopTube:
+                return b - stack * cosST / sinST;
+            default:
+                return b;
+        }
+
+    }
+
+}
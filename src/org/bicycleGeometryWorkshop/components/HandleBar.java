@@ -121,11 +121,12 @@ public class HandleBar extends BaseComponent implements ComponentOwner {
       //HandleBarType hbt = HandleBarType.valueOf(_attHandlebarType.getValue());
       HandleBarType hbt = (HandleBarType)_attHandlebarType.getEnum(); 
       
-      Rectangle2D bounds = new Rectangle2D.Double();
+      Rectangle2D bounds;
       
       switch(hbt) {
           
           case Drop:
+          default:
               bounds = _hbDrop.getBounds();
               break;
           
@@ -320,12 +321,13 @@ public class HandleBar extends BaseComponent implements ComponentOwner {
      */
     public Point2D getHandPoint(HandleBarPosition position) {   
         
-        Point2D handPoint = new Point2D.Double();
+        Point2D handPoint;
       HandleBarType hbt = (HandleBarType)_attHandlebarType.getEnum();
         
       switch(hbt) {
           
           case Drop:
+          default:
               handPoint = _hbDrop.getHandPoint(position);
               break;
           
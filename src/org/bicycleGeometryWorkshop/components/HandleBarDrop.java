@@ -27,15 +27,11 @@ import java.awt.Color;
 import org.bicycleGeometryWorkshop.geometry.Utilities;
 import org.bicycleGeometryWorkshop.attributes.DoubleAttribute;
 import java.awt.Graphics2D;
-import java.awt.Shape;
 import java.awt.geom.AffineTransform;
-import java.awt.geom.Line2D;
 import java.awt.geom.Path2D;
 import java.awt.geom.Point2D;
 import org.bicycleGeometryWorkshop.attributes.BooleanAttribute;
-import org.bicycleGeometryWorkshop.geometry.Curves;
-import org.bicycleGeometryWorkshop.geometry.IntersectionPoint;
-import org.bicycleGeometryWorkshop.geometry.IntersectionPointResult;
+import org.bicycleGeometryWorkshop.geometry.ArcLengthCurve;
 import org.bicycleGeometryWorkshop.ui.Graphics;
 
 /**
@@ -46,6 +42,9 @@ import org.bicycleGeometryWorkshop.ui.Graphics;
  */
 public class HandleBarDrop extends BaseComponent {
 
+    //maximum distance of the drawn curve from the true curve
+    private static final double CURVE_FLATNESS = 0.01;
+
     private DoubleAttribute _attReach;
     private DoubleAttribute _attDrop;
     private DoubleAttribute _attExtension;
@@ -65,13 +64,29 @@ public class HandleBarDrop extends BaseComponent {
 
     private DoubleAttribute _attCenterHeight;
 
-    private Shape _path;
+    private Path2D _path;
+    private AffineTransform _transform;
 
     private Point2D _handPointA;
     private Point2D _handPointB;
     private Point2D _handPointC;
     private Point2D _handPointD;
 
+    //working points reused by updateGeometry()
+    private Point2D _cpBase;
+    private Point2D _cpEnd;
+    private Point2D _cpReachTop;
+    private Point2D _cpReachBottom;
+    private Point2D _cpStart1;
+    private Point2D _cpControl1;
+    private Point2D _cpMid;
+    private Point2D _cpControl2;
+    private Point2D _cpEnd2;
+
+    //upper (hood) and lower (drop) curves with their arc-length tables
+    private ArcLengthCurve _curveUpper;
+    private ArcLengthCurve _curveLower;
+
     /**
      * Class constructor.  Construct the class with the component owner.
      * @param owner The component owner.
@@ -97,8 +112,8 @@ public class HandleBarDrop extends BaseComponent {
         _attDropAngle = addAngleAttribute("DropAngle", 35, 0, 60, "The angle drop grip section measured from horizontal.");
         _attDropLength = addLengthAttribute("DropLength", 80, 0, rng, "The length of the drop grip section.");
 
-        _attHoodT = addDoubleAttribute("HoodT", 0.5, 0.0, 1.0, "The hood position determined by the scale(T) along the handlebar length (0.0 to 1.0)");
-        _attDropT = addDoubleAttribute("DropT", 0.5, 0.0, 1.0, "The drop position determined by the scale(T) along the drops length (0.0 to 1.0)");
+        _attHoodT = addDoubleAttribute("HoodT", 0.5, 0.0, 1.0, "The hood position as a fraction of the length along the ramp and upper curve (0.0 to 1.0)");
+        _attDropT = addDoubleAttribute("DropT", 0.5, 0.0, 1.0, "The drop position as a fraction of the length along the drop (0.0 to 1.0)");
         _attExtT = addDoubleAttribute("ExtensionT", 0.25, 0.0, 1.0, "The extension position determined by the scale(T) along the extension length (0.0 to 1.0)");
         _attCenterHeight = addLengthAttribute("CenterHeight", 15, 0, rng, "The height of the center grip osition above teh bar centerline.");
 
@@ -108,7 +123,23 @@ public class HandleBarDrop extends BaseComponent {
         _handPointC = new Point2D.Double();
         _handPointD = new Point2D.Double();
 
+        _cpBase = new Point2D.Double();
+        _cpEnd = new Point2D.Double();
+        _cpReachTop = new Point2D.Double();
+        _cpReachBottom = new Point2D.Double();
+        _cpStart1 = new Point2D.Double();
+        _cpControl1 = new Point2D.Double();
+        _cpMid = new Point2D.Double();
+        _cpControl2 = new Point2D.Double();
+        _cpEnd2 = new Point2D.Double();
+
+        _curveUpper = new ArcLengthCurve(CURVE_FLATNESS);
+        _curveLower = new ArcLengthCurve(CURVE_FLATNESS);
+
+        //the path is rebuilt and rotated in place so the geometry reference stays valid
         _path = new Path2D.Double();
+        _transform = new AffineTransform();
+        addGeometry(_path);
 
         update();
     }
@@ -120,7 +151,7 @@ public class HandleBarDrop extends BaseComponent {
     public void updateGeometry() {
 
         //base point 
-        Point2D basePoint = getBasePoint();
+        Point2D basePoint = getBasePoint(_cpBase);
         double x = basePoint.getX();
         double y = basePoint.getY();
 
@@ -146,23 +177,25 @@ public class HandleBarDrop extends BaseComponent {
 
         //calc end and extension first
         //end point of curve or drop grip section - last point before extension 
-        Point2D endPoint = new Point2D.Double(x, y - drop);
+        Point2D endPoint = _cpEnd;
+        endPoint.setLocation(x, y - drop);
 
         //vertical line at reach for intersections
-        Line2D reachLine = new Line2D.Double(x + reach, y, x + reach, y - drop);
+        _cpReachTop.setLocation(x + reach, y);
+        _cpReachBottom.setLocation(x + reach, y - drop);
 
         //start point for first quadratic bezier point
-        Point2D startPnt1 = new Point2D.Double();
+        Point2D startPnt1 = _cpStart1;
         //control point for first quadratic
-        Point2D cntrlPnt1 = new Point2D.Double();
+        Point2D cntrlPnt1 = _cpControl1;
 
         //end point of first quad and start point of second quad
-        Point2D midPnt = new Point2D.Double();
+        Point2D midPnt = _cpMid;
 
         //contorl point for second quadratic
-        Point2D cntrlPnt2 = new Point2D.Double();
+        Point2D cntrlPnt2 = _cpControl2;
         //edn point of second quadratic
-        Point2D endPnt2 = new Point2D.Double();
+        Point2D endPnt2 = _cpEnd2;
 
         //is there a rampe defined?
         if (!hasRamp) {
@@ -175,17 +208,10 @@ public class HandleBarDrop extends BaseComponent {
 
 
             //end of ramp
-            Point2D rampEnd = Utilities.polarPoint(basePoint, rampLength, rampTheta);
-            startPnt1 = rampEnd;
+            Point2D rampEnd = Utilities.polarPoint(basePoint, rampLength, rampTheta, startPnt1);
 
             //ramp line for intersection
-            Line2D rampLine = new Line2D.Double(basePoint, rampEnd);
-
-            IntersectionPoint ip = Utilities.lineLineIntersect(rampLine, reachLine);
-            IntersectionPointResult ipr = ip.result();
-            if (ipr == IntersectionPointResult.ONE_POINT) {
-                cntrlPnt1 = ip.getIntersection1();
-            } else {
+            if (!Utilities.lineLineIntersect(basePoint, rampEnd, _cpReachTop, _cpReachBottom, cntrlPnt1)) {
                 //fail - default position horizontal from....
                 cntrlPnt1.setLocation(x + reach, rampEnd.getY());
             }
@@ -195,24 +221,16 @@ public class HandleBarDrop extends BaseComponent {
         if (!hasDrop) {
 
             //end point 2
-            endPnt2 = endPoint;
+            endPnt2.setLocation(endPoint);
             //control point at bottom horizontal from drop
             cntrlPnt2.setLocation(x + reach, y - drop);
 
         } else {
 
-            //top of drop grip
-            Point2D dropBegin = Utilities.polarPoint(endPoint, dropLength, dropTheta);
-            //use for curve
-            endPnt2 = dropBegin;
-            //make a line for intersection
-            Line2D dropLine = new Line2D.Double(endPoint, dropBegin);
-            //calc intersection
-            IntersectionPoint ip = Utilities.lineLineIntersect(dropLine, reachLine);
-            IntersectionPointResult ipr = ip.result();
-            if (ipr == IntersectionPointResult.ONE_POINT) {
-                cntrlPnt2 = ip.getIntersection1();
-            } else {
+            //top of drop grip - use for curve
+            Point2D dropBegin = Utilities.polarPoint(endPoint, dropLength, dropTheta, endPnt2);
+            //calc intersection with the drop line
+            if (!Utilities.lineLineIntersect(endPoint, dropBegin, _cpReachTop, _cpReachBottom, cntrlPnt2)) {
                 //fail - default position horizontal from....
                 cntrlPnt2.setLocation(x + reach, dropBegin.getY());
             }
@@ -226,13 +244,16 @@ public class HandleBarDrop extends BaseComponent {
         double curveMidY = endPnt2.getY() + curveH / 2;
 
         //curve midpoint
-        midPnt = new Point2D.Double(x + reach, curveMidY);
+        midPnt.setLocation(x + reach, curveMidY);
+
+        //arc-length tables - only rebuilt if the curves changed
+        _curveUpper.setCurve(startPnt1, cntrlPnt1, midPnt);
+        _curveLower.setCurve(midPnt, cntrlPnt2, endPnt2);
 
         /**
          * * Construct Path  **
          */
-        //cast to acces path methods
-        Path2D path = (Path2D) _path;
+        Path2D path = _path;
         path.reset();
         //move to base point
         path.moveTo(x, y);
@@ -241,8 +262,9 @@ public class HandleBarDrop extends BaseComponent {
             path.lineTo(startPnt1.getX(), startPnt1.getY());
         }
 
-        path.quadTo(cntrlPnt1.getX(), cntrlPnt1.getY(), midPnt.getX(), midPnt.getY());
-        path.quadTo(cntrlPnt2.getX(), cntrlPnt2.getY(), endPnt2.getX(), endPnt2.getY());
+        //curves as flattened segments from the tables
+        _curveUpper.appendTo(path);
+        _curveLower.appendTo(path);
 
 
         if (hasDrop) {
@@ -261,51 +283,50 @@ public class HandleBarDrop extends BaseComponent {
         _handPointA.setLocation(x, y + cenHgt);
 
         if (hasRamp) {
-            //use point on ramp
-            double hlfT = 0.5;
+            //split by length between the ramp and the upper curve
+            double totalLength = rampLength + _curveUpper.getLength();
+            double rampT = totalLength > 0 ? rampLength / totalLength : 0.0;
             double t = 0.0;
-            if (hoodT > hlfT) {
-                t = (hoodT - hlfT) / hlfT;
-                _handPointB = Curves.quadraticBezierPoint(startPnt1, cntrlPnt1, midPnt, t);
+            if (hoodT > rampT && rampT < 1.0) {
+                t = (hoodT - rampT) / (1.0 - rampT);
+                _curveUpper.getPoint(t, _handPointB);
             } else {
-                t = hoodT / hlfT;
-                _handPointB = Utilities.polarPoint(basePoint, rampLength * t, rampTheta);
+                t = rampT > 0 ? hoodT / rampT : 0.0;
+                Utilities.polarPoint(basePoint, rampLength * t, rampTheta, _handPointB);
             }
 
         } else {
-            //use point on bezier
-            _handPointB = Curves.quadraticBezierPoint(startPnt1, cntrlPnt1, midPnt, hoodT);
+            //use point on the curve by length
+            _curveUpper.getPoint(hoodT, _handPointB);
 
         }
 
         if (hasDrop) {
             //use point on drop
-            _handPointC = Utilities.polarPoint(endPnt2, -dropLength * dropT, dropTheta);
+            Utilities.polarPoint(endPnt2, -dropLength * dropT, dropTheta, _handPointC);
         } else {
 
-            _handPointC = Curves.quadraticBezierPoint(midPnt, cntrlPnt2, endPnt2, dropT);
+            //use point on the curve by length
+            _curveLower.getPoint(dropT, _handPointC);
         }
 
         if (extension > 0) {
-            _handPointD = new Point2D.Double(x - (extension * extT), y - drop);
+            _handPointD.setLocation(x - (extension * extT), y - drop);
         } else {
-            _handPointD = endPoint;
+            _handPointD.setLocation(endPoint);
         }
 
         //transform for rotation
-        AffineTransform trans = AffineTransform.getRotateInstance(theta, x, y);
+        AffineTransform trans = _transform;
+        trans.setToRotation(theta, x, y);
 
-        //regenerating this breaks the references...
-        _path = trans.createTransformedShape(path);
-
-        //repack geometry since references are broken.
-        clearGeometry();
-        addGeometry(_path);
+        //rotate in place - keeps the geometry reference
+        path.transform(trans);
 
         //update the hand points (except for A which isn't affected by the rotation)
-        _handPointB = trans.transform(_handPointB, null);
-        _handPointC = trans.transform(_handPointC, null);
-        _handPointD = trans.transform(_handPointD, null);
+        trans.transform(_handPointB, _handPointB);
+        trans.transform(_handPointC, _handPointC);
+        trans.transform(_handPointD, _handPointD);
 
     }
 
@@ -316,11 +337,12 @@ public class HandleBarDrop extends BaseComponent {
      */
     public Point2D getHandPoint(HandleBarPosition position) {
 
-        Point2D hp = new Point2D.Double();
+        Point2D hp;
 
         switch (position) {
 
             case PositionA:
+            default:
                 hp = _handPointA;
                 break;
 
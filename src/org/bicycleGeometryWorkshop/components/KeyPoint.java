@@ -0,0 +1,53 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2020 Tom.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.bicycleGeometryWorkshop.components;
+
+/**
+ * Enumerator for the key points of a bicycle used to compare bicycles
+ * (difference overlay and distance matrix).
+ * @author Tom
+ */
+public enum KeyPoint {
+
+    /* Bottom bracket center */
+    BottomBracket,
+
+    /* Top of the head tube where the stem mounts */
+    StemPoint,
+
+    /* Top of the seat tube where the seat post mounts */
+    SeatPoint,
+
+    /* Hand point of the current hand position */
+    HandPoint,
+
+    /* Sit point on the saddle */
+    SitPoint,
+
+    /* Rear wheel axle */
+    RearAxle,
+
+    /* Front wheel axle */
+    FrontAxle;
+}
@@ -0,0 +1,158 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2020 Tom.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.bicycleGeometryWorkshop.components;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Line2D;
+import java.awt.geom.Path2D;
+
+/**
+ * Snapshot of the parts of a bicycle that move with the crank rotation - the
+ * rider, cranks and pedals - for one frame of a pedal stroke animation.  The
+ * snapshot holds copies, so it can be made on a worker thread and drawn on the
+ * UI thread.  It is drawn in two layers around the rest of the bicycle (see
+ * Bicycle.renderStatic()): the left hand side under, the right hand side over.
+ *
+ * @author Tom
+ */
+public class PedalFrame {
+
+    private BicycleDisplay _display;
+    private Color _riderColor;
+    private Color _componentColor;
+
+    private Path2D _riderLeft;
+    private Path2D _riderRight;
+    private Line2D _crankLeft;
+    private Line2D _crankRight;
+    private Line2D _pedalLeft;
+    private Line2D _pedalRight;
+
+    /**
+     * Class constructor.  Copies the moving geometry of the bicycle.
+     *
+     * @param bicycle The bicycle (updated to the frame's crank rotation).
+     * @param rider The rider of the bicycle.
+     * @param cranks The cranks of the bicycle.
+     * @param pedals The pedals of the bicycle.
+     * @param dx X offset to move the geometry by.
+     * @param dy Y offset to move the geometry by.
+     */
+    PedalFrame(Bicycle bicycle, Rider rider, Cranks cranks, Pedals pedals, double dx, double dy) {
+
+        _display = bicycle.getDisplay();
+        _riderColor = bicycle.getRiderColor();
+        _componentColor = bicycle.getComponentColor();
+
+        AffineTransform trans = AffineTransform.getTranslateInstance(dx, dy);
+
+        _riderLeft = rider.getLeftPath();
+        _riderLeft.transform(trans);
+        _riderRight = rider.getRightPath();
+        _riderRight.transform(trans);
+
+        _crankLeft = moveLine(cranks.getCrankLineLeft(), dx, dy);
+        _crankRight = moveLine(cranks.getCrankLineRight(), dx, dy);
+        _pedalLeft = moveLine(pedals.getPedalLineLeft(), dx, dy);
+        _pedalRight = moveLine(pedals.getPedalLineRight(), dx, dy);
+
+    }
+
+    /**
+     * Render the parts under the bicycle (left hand side).
+     *
+     * @param g2 The graphics object to render to.
+     * @param scale The scale of the current view.
+     */
+    public void renderUnder(Graphics2D g2, float scale) {
+
+        if (_display == BicycleDisplay.BicycleAndRider) {
+
+            g2.setPaint(_riderColor);
+            g2.setStroke(new BasicStroke(Rider.LINE_WIDTH, BasicStroke.CAP_ROUND, BasicStroke.JOIN_MITER));
+            g2.draw(_riderLeft);
+        }
+
+        if (_display != BicycleDisplay.FrameOnly) {
+
+            g2.setPaint(_componentColor);
+            g2.setStroke(new BasicStroke(Cranks.LINE_WIDTH, BasicStroke.CAP_ROUND, BasicStroke.JOIN_MITER));
+            g2.draw(_crankLeft);
+
+            g2.setStroke(new BasicStroke(2 / scale, BasicStroke.CAP_ROUND, BasicStroke.JOIN_MITER));
+            g2.draw(_pedalLeft);
+        }
+
+    }
+
+    /**
+     * Render the parts over the bicycle (right hand side).
+     *
+     * @param g2 The graphics object to render to.
+     * @param scale The scale of the current view.
+     */
+    public void renderOver(Graphics2D g2, float scale) {
+
+        if (_display != BicycleDisplay.FrameOnly) {
+
+            g2.setPaint(_componentColor);
+            g2.setStroke(new BasicStroke(Cranks.LINE_WIDTH, BasicStroke.CAP_ROUND, BasicStroke.JOIN_MITER));
+            g2.draw(_crankRight);
+        }
+
+        if (_display == BicycleDisplay.BicycleAndRider) {
+
+            g2.setPaint(_riderColor);
+            g2.setStroke(new BasicStroke(Rider.LINE_WIDTH, BasicStroke.CAP_ROUND, BasicStroke.JOIN_MITER));
+            g2.draw(_riderRight);
+        }
+
+        if (_display != BicycleDisplay.FrameOnly) {
+
+            g2.setPaint(_componentColor);
+            g2.setStroke(new BasicStroke(2 / scale, BasicStroke.CAP_ROUND, BasicStroke.JOIN_MITER));
+            g2.draw(_pedalRight);
+        }
+
+    }
+
+    /**
+     * Move a line.
+     *
+     * @param line The line to move (changed).
+     * @param dx X offset.
+     * @param dy Y offset.
+     * @return The line.
+     */
+    private static Line2D moveLine(Line2D line, double dx, double dy) {
+
+        line.setLine(line.getX1() + dx, line.getY1() + dy, line.getX2() + dx, line.getY2() + dy);
+
+        return line;
+    }
+
+}
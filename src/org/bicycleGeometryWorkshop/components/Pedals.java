@@ -51,6 +51,11 @@ public class Pedals extends BaseComponent {
     private Point2D _rightPedalPoint;
     private Point2D _leftPedalPoint;
 
+    //working points reused by updateGeometry()
+    private Point2D _cpCenterRight;
+    private Point2D _cpCenterLeft;
+    private Point2D _cpStart;
+    private Point2D _cpEnd;
     
     private Line2D _geomPedalRight;
     private Line2D _geomPedalLeft;    
@@ -80,6 +85,11 @@ public class Pedals extends BaseComponent {
 
         _rightPedalPoint = new Point2D.Double(0, 0);
         _leftPedalPoint = new Point2D.Double(0, 0);
+
+        _cpCenterRight = new Point2D.Double();
+        _cpCenterLeft = new Point2D.Double();
+        _cpStart = new Point2D.Double();
+        _cpEnd = new Point2D.Double();
         
         _geomPedalRight =  addLine2D();
         _geomPedalLeft =  addLine2D();   
@@ -114,11 +124,6 @@ public class Pedals extends BaseComponent {
     @Override
     public void updateGeometry() {
 
-        Point2D basePoint = getBasePoint();
-        double x = basePoint.getX();
-        double y = basePoint.getY();
-
-    
         double platformHeight = _attHeight.getDoubleValue();
         double offset = _attOffset.getDoubleValue();
 
@@ -131,32 +136,25 @@ public class Pedals extends BaseComponent {
         
 
         //center points of pedals
-        Point2D cenPntRight = Utilities.polarPoint(_rightCrankPoint, platformHeight, thetaAnkle);
-        Point2D cenPntLeft = Utilities.polarPoint(_leftCrankPoint, platformHeight, thetaAnkle);
+        Point2D cenPntRight = Utilities.polarPoint(_rightCrankPoint, platformHeight, thetaAnkle, _cpCenterRight);
+        Point2D cenPntLeft = Utilities.polarPoint(_leftCrankPoint, platformHeight, thetaAnkle, _cpCenterLeft);
         
         
-        //pedal platform centers
-        Point2D connPntRight = Utilities.polarPoint(cenPntRight, offset, thetaAnkle - HPi);
-        Point2D connPntLeft = Utilities.polarPoint(cenPntLeft, offset, thetaAnkle - HPi);
-        
-        //pedal points
-        _rightPedalPoint.setLocation(connPntRight);
-        _leftPedalPoint.setLocation(connPntLeft);        
+        //pedal platform centers - these are the pedal points
+        Utilities.polarPoint(cenPntRight, offset, thetaAnkle - HPi, _rightPedalPoint);
+        Utilities.polarPoint(cenPntLeft, offset, thetaAnkle - HPi, _leftPedalPoint);
         
         //pedal geometry
         double phw = _pedalWidth / 2;
         
-        //pedal line points start/end
-        Point2D pedRS = Utilities.polarPoint(cenPntRight, phw, thetaAnkle + HPi);
-        Point2D pedRE = Utilities.polarPoint(cenPntRight, phw, thetaAnkle - HPi);
-        
-        Point2D pedLS = Utilities.polarPoint(cenPntLeft, phw, thetaAnkle + HPi);
-        Point2D pedLE = Utilities.polarPoint(cenPntLeft, phw, thetaAnkle - HPi);        
+        //pedal line points start/end - update geometry
+        Utilities.polarPoint(cenPntRight, phw, thetaAnkle + HPi, _cpStart);
+        Utilities.polarPoint(cenPntRight, phw, thetaAnkle - HPi, _cpEnd);
+        _geomPedalRight.setLine(_cpStart, _cpEnd);
         
-        //update geometry
- 
-        _geomPedalRight.setLine(pedRS, pedRE);
-        _geomPedalLeft.setLine(pedLS, pedLE);
+        Utilities.polarPoint(cenPntLeft, phw, thetaAnkle + HPi, _cpStart);
+        Utilities.polarPoint(cenPntLeft, phw, thetaAnkle - HPi, _cpEnd);
+        _geomPedalLeft.setLine(_cpStart, _cpEnd);
         
         
     }
@@ -171,6 +169,16 @@ public class Pedals extends BaseComponent {
         return new Point2D.Double(_rightPedalPoint.getX(), _rightPedalPoint.getY());
     }
 
+    /**
+     * Get the Right Pedal Point into an existing point (no allocation).
+     * @param result The point to set.
+     * @return The result point.
+     */
+    public Point2D getPedalPointRight(Point2D result) {
+        result.setLocation(_rightPedalPoint);
+        return result;
+    }
+
     /**
      * Get the Left Pedal Point for the Cranks.
      *
@@ -180,7 +188,35 @@ public class Pedals extends BaseComponent {
         return new Point2D.Double(_leftPedalPoint.getX(), _leftPedalPoint.getY());
     }
 
+    /**
+     * Get the Left Pedal Point into an existing point (no allocation).
+     * @param result The point to set.
+     * @return The result point.
+     */
+    public Point2D getPedalPointLeft(Point2D result) {
+        result.setLocation(_leftPedalPoint);
+        return result;
+    }
+
+
+    /**
+     * Get the right pedal platform line.  Used by analysis.
+     *
+     * @return A copy of the pedal line.
+     */
+    public Line2D getPedalLineRight() {
+        return new Line2D.Double(_geomPedalRight.getP1(), _geomPedalRight.getP2());
+    }
    
+    /**
+     * Get a copy of the left pedal platform line.
+     *
+     * @return The left pedal line.
+     */
+    Line2D getPedalLineLeft() {
+        return new Line2D.Double(_geomPedalLeft.getP1(), _geomPedalLeft.getP2());
+    }
+
     /**
      * Render the right pedal.
      * @param g2 The graphics object to render to.
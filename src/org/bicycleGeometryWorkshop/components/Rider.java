@@ -25,8 +25,6 @@ package org.bicycleGeometryWorkshop.components;
 
 import org.bicycleGeometryWorkshop.report.ReportField;
 import org.bicycleGeometryWorkshop.report.Report;
-import org.bicycleGeometryWorkshop.geometry.IntersectionPoint;
-import org.bicycleGeometryWorkshop.geometry.IntersectionPointResult;
 import org.bicycleGeometryWorkshop.geometry.Utilities;
 import static org.bicycleGeometryWorkshop.geometry.Utilities.circleCircleIntersection;
 
@@ -34,9 +32,12 @@ import java.awt.BasicStroke;
 import java.awt.Color;
 import java.awt.Graphics2D;
 import java.awt.geom.Line2D;
+import java.awt.geom.Path2D;
 import java.awt.geom.Point2D;
 import java.awt.geom.Ellipse2D;
 import org.bicycleGeometryWorkshop.database.DataBaseKeys;
+import org.bicycleGeometryWorkshop.diagnostics.Metric;
+import org.bicycleGeometryWorkshop.diagnostics.Metrics;
 
 /**
  * Rider contains all the geometry for a Bicycle specific rider.
@@ -47,6 +48,12 @@ import org.bicycleGeometryWorkshop.database.DataBaseKeys;
  */
 public class Rider extends BaseComponent {
 
+    //rider line weight (model units)
+    static final float LINE_WIDTH = 11;
+
+    //timer shown in the diagnostics dialog
+    private static final Metric UPDATE_TIMER = Metrics.timer("Rider.updateGeometry");
+
     private Point2D _handPoint;
     private Point2D _rightFootPoint;
     private Point2D _leftFootPoint;
@@ -70,6 +77,30 @@ public class Rider extends BaseComponent {
 
     private Ellipse2D _geomHead;
 
+    //solutions write straight into the geometry lines
+    private UpperSolution _upperSolution;
+    private LegSolution _rightLegSolution;
+    private LegSolution _leftLegSolution;
+
+    //working points reused by updateGeometry() and the solvers
+    private Point2D _cpBase;
+    private Point2D _cpHip;
+    private Point2D _cpHeadBase;
+    private Point2D _cpToe;
+    private Point2D _cpFootBase;
+    private Point2D _cpAnkleBase;
+    private Point2D _cpKnee;
+    private Point2D _cpShoulder;
+    private Point2D _cpElbow;
+    private Point2D _cpWrist;
+    private Point2D _cpPalm;
+    private Point2D _cpArmShoulder;
+    private Point2D _cpArmElbow;
+    private Point2D _cpArmWrist;
+    private Point2D _cpArmHand;
+    private Point2D _cpInt1;
+    private Point2D _cpInt2;
+
     RiderMeasurements _riderSize;
     RiderPose _riderPose;
 
@@ -113,7 +144,27 @@ public class Rider extends BaseComponent {
         //head ellipse
         _geomHead = addEllipse2D();
 
-       
+        _upperSolution = new UpperSolution(_geomTorso, _geomUpperArm, _geomLowerArm, _geomHand);
+        _rightLegSolution = new LegSolution(_geomUpperLegRight, _geomLowerLegRight, _geomAnkleRight, _geomFootRight, _geomToeRight);
+        _leftLegSolution = new LegSolution(_geomUpperLegLeft, _geomLowerLegLeft, _geomAnkleLeft, _geomFootLeft, _geomToeLeft);
+
+        _cpBase = new Point2D.Double();
+        _cpHip = new Point2D.Double();
+        _cpHeadBase = new Point2D.Double();
+        _cpToe = new Point2D.Double();
+        _cpFootBase = new Point2D.Double();
+        _cpAnkleBase = new Point2D.Double();
+        _cpKnee = new Point2D.Double();
+        _cpShoulder = new Point2D.Double();
+        _cpElbow = new Point2D.Double();
+        _cpWrist = new Point2D.Double();
+        _cpPalm = new Point2D.Double();
+        _cpArmShoulder = new Point2D.Double();
+        _cpArmElbow = new Point2D.Double();
+        _cpArmWrist = new Point2D.Double();
+        _cpArmHand = new Point2D.Double();
+        _cpInt1 = new Point2D.Double();
+        _cpInt2 = new Point2D.Double();
         
         update();
     }
@@ -139,18 +190,15 @@ public class Rider extends BaseComponent {
     @Override
     public void updateGeometry() {
 
-        //base point - sit point
-        Point2D basePoint = getBasePoint();
+        long start = UPDATE_TIMER.start();
 
-        UpperSolution upperSolution = solveUpper(basePoint, _handPoint);
+        //base point - sit point
+        Point2D basePoint = getBasePoint(_cpBase);
 
-        _geomTorso.setLine(upperSolution.torso);
-        _geomUpperArm.setLine(upperSolution.upperArm);
-        _geomLowerArm.setLine(upperSolution.lowerArm);
-        _geomHand.setLine(upperSolution.hand);
+        UpperSolution upperSolution = solveUpper(basePoint, _handPoint, _upperSolution);
 
         //rider needs a head...
-        Point2D shoulder = upperSolution.torso.getP2();
+        Point2D shoulder = _cpShoulder;
         double torsoAngle = upperSolution.torsoAngleRad;
 
         double hHeight = _riderSize.getHeadHeight();
@@ -160,7 +208,7 @@ public class Rider extends BaseComponent {
         double hh = hHeight / 2;
         double hw = hWidth / 2;
 
-        Point2D headBase = Utilities.polarPoint(shoulder, neckLength, torsoAngle);
+        Point2D headBase = Utilities.polarPoint(shoulder, neckLength, torsoAngle, _cpHeadBase);
 
         //_geomNeck.setLine(shoulder, headBase);
         _geomHead.setFrame(headBase.getX() - hw / 2, headBase.getY() - hh, hWidth, hHeight);
@@ -170,25 +218,15 @@ public class Rider extends BaseComponent {
         //==================
         double hipOffset = _riderSize.getHipOffset(); //_attrHipOffset.getDoubleValue();
 
-        Point2D hipPoint = Utilities.polarPoint(basePoint, hipOffset, torsoAngle);
+        Point2D hipPoint = Utilities.polarPoint(basePoint, hipOffset, torsoAngle, _cpHip);
 
         //solve right leg
-        LegSolution rLegSol = solveLeg(hipPoint, _rightFootPoint);
-
-        _geomUpperLegRight.setLine(rLegSol.upperLeg);
-        _geomLowerLegRight.setLine(rLegSol.lowerLeg);
-        _geomAnkleRight.setLine(rLegSol.ankle);
-        _geomFootRight.setLine(rLegSol.foot);
-        _geomToeRight.setLine(rLegSol.toe);
+        solveLeg(hipPoint, _rightFootPoint, _rightLegSolution);
 
         //solve left Leg
-        LegSolution lLegSol = solveLeg(hipPoint, _leftFootPoint);
+        solveLeg(hipPoint, _leftFootPoint, _leftLegSolution);
 
-        _geomUpperLegLeft.setLine(lLegSol.upperLeg);
-        _geomLowerLegLeft.setLine(lLegSol.lowerLeg);
-        _geomAnkleLeft.setLine(lLegSol.ankle);
-        _geomFootLeft.setLine(lLegSol.foot);
-        _geomToeLeft.setLine(lLegSol.toe);
+        UPDATE_TIMER.stop(start);
 
     }
 
@@ -197,10 +235,10 @@ public class Rider extends BaseComponent {
      *
      * @param hip The Hip Point
      * @param ballOfFoot The center of the ball of the foot.
-     * @return
+     * @param solution The solution to set (lines are updated in place).
+     * @return The solution.
      */
-    private LegSolution solveLeg(Point2D hip, Point2D ballOfFoot) {
-        LegSolution solution = new LegSolution();
+    private LegSolution solveLeg(Point2D hip, Point2D ballOfFoot, LegSolution solution) {
 
         double toe = _riderSize.getToe(); //_attrToe.getDoubleValue();
         double foot = _riderSize.getFoot(); //_attrFoot.getDoubleValue();
@@ -218,24 +256,25 @@ public class Rider extends BaseComponent {
         double hipX = hip.getX();
         double hipY = hip.getY();
 
-        Point2D toePoint = Utilities.polarPoint(ballOfFoot, toe, -pedalAngle);
+        Point2D toePoint = Utilities.polarPoint(ballOfFoot, toe, -pedalAngle, _cpToe);
 
         //toe line X for display
-        solution.toe = new Line2D.Double(ballOfFoot, toePoint);
+        solution.toe.setLine(ballOfFoot, toePoint);
 
         //foot and ankle lines
-        Point2D footBase = Utilities.polarPoint(ballOfFoot, foot, -pedalAngle + Math.PI - toeAngle);
-        Point2D ankleBase = Utilities.polarPoint(footBase, ankle, -pedalAngle + HPi - toeAngle);
+        Point2D footBase = Utilities.polarPoint(ballOfFoot, foot, -pedalAngle + Math.PI - toeAngle, _cpFootBase);
+        Point2D ankleBase = Utilities.polarPoint(footBase, ankle, -pedalAngle + HPi - toeAngle, _cpAnkleBase);
 
-        solution.foot = new Line2D.Double(ballOfFoot, footBase);
-        solution.ankle = new Line2D.Double(footBase, ankleBase);
+        solution.foot.setLine(ballOfFoot, footBase);
+        solution.ankle.setLine(footBase, ankleBase);
 
         //leg length hip to ankle
         double legLength = lLeg + uLeg;
         //current measure distance
         double ankleLength = hip.distance(ankleBase);
 
-        Point2D kneePoint = new Point2D.Double();
+        Point2D kneePoint = _cpKnee;
+        kneePoint.setLocation(0, 0);
 
         if (legLength < ankleLength) {
             //can't reach!  Layout at angle from hip...
@@ -260,21 +299,20 @@ public class Rider extends BaseComponent {
             double crToeX = crBallX + toe;
             double crToeY = crBallY;
 
-            solution.upperLeg = new Line2D.Double(hipX, hipY, kneeX, kneeY);
-            solution.lowerLeg = new Line2D.Double(kneeX, kneeY, crAnkleX, crAnkleY);
-            solution.ankle = new Line2D.Double(crAnkleX, crAnkleY, crFootX, crFootY);
-            solution.foot = new Line2D.Double(crFootX, crFootY, crBallX, crBallY);
-            solution.toe = new Line2D.Double(crFootX, crFootY, crToeX, crToeY);
+            solution.upperLeg.setLine(hipX, hipY, kneeX, kneeY);
+            solution.lowerLeg.setLine(kneeX, kneeY, crAnkleX, crAnkleY);
+            solution.ankle.setLine(crAnkleX, crAnkleY, crFootX, crFootY);
+            solution.foot.setLine(crFootX, crFootY, crBallX, crBallY);
+            solution.toe.setLine(crFootX, crFootY, crToeX, crToeY);
 
         } else {
 
             //foot within reach of pedal
-            IntersectionPoint intPnt = circleCircleIntersection(hip, uLeg, ankleBase, lLeg);
-
-            if (intPnt.result() == IntersectionPointResult.TWO_POINTS) {
+            Point2D intPnt1 = _cpInt1;
+            Point2D intPnt2 = _cpInt2;
+            int intCount = circleCircleIntersection(hip, uLeg, ankleBase, lLeg, intPnt1, intPnt2);
 
-                Point2D intPnt1 = intPnt.getIntersection1();
-                Point2D intPnt2 = intPnt.getIntersection2();
+            if (intCount == 2) {
 
                 double x1 = intPnt1.getX();
                 double x2 = intPnt2.getX();
@@ -287,10 +325,9 @@ public class Rider extends BaseComponent {
                     kneePoint.setLocation(intPnt2);
                 }
 
-            } else if (intPnt.result() == IntersectionPointResult.ONE_POINT) {
+            } else if (intCount == 1) {
 
                 //only one intersection (tangents?)
-                Point2D intPnt1 = intPnt.getIntersection1();
                 kneePoint.setLocation(intPnt1);
 
             }
@@ -298,8 +335,8 @@ public class Rider extends BaseComponent {
             double kx = kneePoint.getX();
             double ky = kneePoint.getY();
 
-            solution.upperLeg = new Line2D.Double(hipX, hipY, kx, ky);
-            solution.lowerLeg = new Line2D.Double(kx, ky, ankleBase.getX(), ankleBase.getY());
+            solution.upperLeg.setLine(hipX, hipY, kx, ky);
+            solution.lowerLeg.setLine(kx, ky, ankleBase.getX(), ankleBase.getY());
 
         } //end if else
 
@@ -317,12 +354,12 @@ public class Rider extends BaseComponent {
         public Line2D foot;
         public Line2D toe;
 
-        LegSolution() {
-            upperLeg = null; 
-            lowerLeg = null;
-            ankle = null; 
-            foot = null;
-            toe = null; 
+        LegSolution(Line2D upperLeg, Line2D lowerLeg, Line2D ankle, Line2D foot, Line2D toe) {
+            this.upperLeg = upperLeg; 
+            this.lowerLeg = lowerLeg;
+            this.ankle = ankle; 
+            this.foot = foot;
+            this.toe = toe; 
         }
 
     }
@@ -332,21 +369,21 @@ public class Rider extends BaseComponent {
      *
      * @param sitPoint The sit point on the saddle - this is the base point.
      * @param handPoint The hand point (center of palm)
-     * @return
+     * @param solution The solution to set (lines are updated in place).
+     * @return The solution.
      */
-    private UpperSolution solveUpper(Point2D sitPoint, Point2D handPoint) {
-
-        UpperSolution solution = new UpperSolution();
+    private UpperSolution solveUpper(Point2D sitPoint, Point2D handPoint, UpperSolution solution) {
 
         double hand = _riderSize.getWristToPalm(); //_attrWristToPalm.getDoubleValue();
         double lArm = _riderSize.getLowerArm(); //_attrLowerArm.getDoubleValue();
         double uArm = _riderSize.getUpperArm(); //_attrUpperArm.getDoubleValue();
         double torso = _riderSize.getTorso(); //_attrTorso.getDoubleValue();
 
-        Point2D shoulderPoint = new Point2D.Double();
-        Point2D elbowPoint = new Point2D.Double();
-        Point2D wristPoint = new Point2D.Double();
-        Point2D palmPoint = new Point2D.Double();
+        Point2D shoulderPoint = _cpShoulder;
+        Point2D elbowPoint = _cpElbow;
+        Point2D wristPoint = _cpWrist;
+        Point2D palmPoint = _cpPalm;
+        shoulderPoint.setLocation(0, 0);
 
         double torsoAngleRad = 0;
 
@@ -358,11 +395,13 @@ public class Rider extends BaseComponent {
         //double abHalf = armBendRad / 2.0;
 
         //layout along x axis for length
-        Point2D apS = new Point2D.Double(0, 0);//shoulder
-        Point2D apE = new Point2D.Double(uArm, 0);//elbow
-        Point2D apW = Utilities.polarPoint(apE, lArm, armBendRad);//wrist
+        Point2D apS = _cpArmShoulder;//shoulder
+        apS.setLocation(0, 0);
+        Point2D apE = _cpArmElbow;//elbow
+        apE.setLocation(uArm, 0);
+        Point2D apW = Utilities.polarPoint(apE, lArm, armBendRad, _cpArmWrist);//wrist
         //Point2D apH = Utilities.polarPoint(apW, hand, armBendRad);//hand
-        Point2D apH = Utilities.polarPoint(apW, hand, armBendRad + wristBendRad);//hand
+        Point2D apH = Utilities.polarPoint(apW, hand, armBendRad + wristBendRad, _cpArmHand);//hand
 
         double bentArmLength = apS.distance(apH);
 
@@ -384,11 +423,11 @@ public class Rider extends BaseComponent {
             //too far to reach...
             double theta = Utilities.anglePointPoint(sitPoint, handPoint);
 
-            shoulderPoint = Utilities.polarPoint(sitPoint, torso, theta);
-            elbowPoint = Utilities.polarPoint(shoulderPoint, uArm, theta - uArmTheta);
-            wristPoint = Utilities.polarPoint(elbowPoint, lArm, theta + armBendRad - uArmTheta);
+            Utilities.polarPoint(sitPoint, torso, theta, shoulderPoint);
+            Utilities.polarPoint(shoulderPoint, uArm, theta - uArmTheta, elbowPoint);
+            Utilities.polarPoint(elbowPoint, lArm, theta + armBendRad - uArmTheta, wristPoint);
 //            palmPoint = Utilities.polarPoint(wristPoint, hand, theta + armBendRad - uArmTheta);
-            palmPoint = Utilities.polarPoint(wristPoint, hand, theta + armBendRad - uArmTheta + wristBendRad);
+            Utilities.polarPoint(wristPoint, hand, theta + armBendRad - uArmTheta + wristBendRad, palmPoint);
 
             //store for solution
             torsoAngleRad = theta;
@@ -396,12 +435,12 @@ public class Rider extends BaseComponent {
         } else {
 
             //circle circle intersection
-            IntersectionPoint intPnt = circleCircleIntersection(sitPoint, torso, handPoint, bentArmLength);
+            Point2D ip1 = _cpInt1;
+            Point2D ip2 = _cpInt2;
+            int intCount = circleCircleIntersection(sitPoint, torso, handPoint, bentArmLength, ip1, ip2);
 
-            if (intPnt.result() == IntersectionPointResult.TWO_POINTS) {
+            if (intCount == 2) {
 
-                Point2D ip1 = intPnt.getIntersection1();
-                Point2D ip2 = intPnt.getIntersection2();
                 //highest intersection point of the two circles
                 if (ip1.getY() > ip2.getY()) {
                     shoulderPoint.setLocation(ip1);
@@ -409,9 +448,8 @@ public class Rider extends BaseComponent {
                     shoulderPoint.setLocation(ip2);
                 }
 
-            } else if (intPnt.result() == IntersectionPointResult.ONE_POINT) {
+            } else if (intCount == 1) {
 
-                Point2D ip1 = intPnt.getIntersection1();
                 shoulderPoint.setLocation(ip1);
             }
 
@@ -420,17 +458,17 @@ public class Rider extends BaseComponent {
             torsoAngleRad = Utilities.anglePointPoint(sitPoint, shoulderPoint);
 
             //project polar coords for joints
-            elbowPoint = Utilities.polarPoint(shoulderPoint, uArm, theta - uArmTheta);
-            wristPoint = Utilities.polarPoint(elbowPoint, lArm, theta + armBendRad - uArmTheta);
+            Utilities.polarPoint(shoulderPoint, uArm, theta - uArmTheta, elbowPoint);
+            Utilities.polarPoint(elbowPoint, lArm, theta + armBendRad - uArmTheta, wristPoint);
 //            palmPoint = Utilities.polarPoint(wristPoint, hand, theta + armBendRad - uArmTheta);
-            palmPoint = Utilities.polarPoint(wristPoint, hand, theta + armBendRad - uArmTheta + wristBendRad);
+            Utilities.polarPoint(wristPoint, hand, theta + armBendRad - uArmTheta + wristBendRad, palmPoint);
 
         }//end if/else too short
 
-        solution.torso = new Line2D.Double(sitPoint, shoulderPoint);
-        solution.upperArm = new Line2D.Double(shoulderPoint, elbowPoint);
-        solution.lowerArm = new Line2D.Double(elbowPoint, wristPoint);
-        solution.hand = new Line2D.Double(wristPoint, palmPoint);
+        solution.torso.setLine(sitPoint, shoulderPoint);
+        solution.upperArm.setLine(shoulderPoint, elbowPoint);
+        solution.lowerArm.setLine(elbowPoint, wristPoint);
+        solution.hand.setLine(wristPoint, palmPoint);
 
         //torso angle
         solution.torsoAngleRad = torsoAngleRad;
@@ -448,6 +486,93 @@ public class Rider extends BaseComponent {
 
         public double torsoAngleRad;
 
+        UpperSolution(Line2D torso, Line2D upperArm, Line2D lowerArm, Line2D hand) {
+            this.torso = torso;
+            this.upperArm = upperArm;
+            this.lowerArm = lowerArm;
+            this.hand = hand;
+            torsoAngleRad = 0;
+        }
+
+    }
+
+    /**
+     * Get the right foot line (ankle to ball of the foot).  Used by analysis.
+     *
+     * @return A copy of the foot line.
+     */
+    public Line2D getFootLineRight() {
+        return new Line2D.Double(_geomFootRight.getP1(), _geomFootRight.getP2());
+    }
+
+    /**
+     * Get the right foot line into an existing line (no allocation).
+     *
+     * @param result The line to set.
+     * @return The result line.
+     */
+    public Line2D getFootLineRight(Line2D result) {
+        result.setLine(_geomFootRight);
+        return result;
+    }
+
+    /**
+     * Get the right toe line (ball of the foot to the toe).  Used by analysis.
+     *
+     * @return A copy of the toe line.
+     */
+    public Line2D getToeLineRight() {
+        return new Line2D.Double(_geomToeRight.getP1(), _geomToeRight.getP2());
+    }
+
+    /**
+     * Get the right toe line into an existing line (no allocation).
+     *
+     * @param result The line to set.
+     * @return The result line.
+     */
+    public Line2D getToeLineRight(Line2D result) {
+        result.setLine(_geomToeRight);
+        return result;
+    }
+
+    /**
+     * Get a copy of the left hand side geometry (as drawn by renderLeft()).
+     *
+     * @return The left side lines as one path.
+     */
+    Path2D getLeftPath() {
+
+        Path2D path = new Path2D.Double();
+        path.append(_geomUpperLegLeft, false);
+        path.append(_geomLowerLegLeft, false);
+        path.append(_geomAnkleLeft, false);
+        path.append(_geomFootLeft, false);
+        path.append(_geomToeLeft, false);
+
+        return path;
+    }
+
+    /**
+     * Get a copy of the right hand side geometry (as drawn by renderRight()).
+     *
+     * @return The right side lines and head as one path.
+     */
+    Path2D getRightPath() {
+
+        Path2D path = new Path2D.Double();
+        path.append(_geomTorso, false);
+        path.append(_geomUpperArm, false);
+        path.append(_geomLowerArm, false);
+        path.append(_geomHand, false);
+        path.append(_geomUpperLegRight, false);
+        path.append(_geomLowerLegRight, false);
+        path.append(_geomAnkleRight, false);
+        path.append(_geomFootRight, false);
+        path.append(_geomToeRight, false);
+        path.append(_geomHead, false);
+
+        return path;
     }
 
     /**
@@ -457,46 +582,50 @@ public class Rider extends BaseComponent {
      */
     public void updateReport(Report report) {
 
+        //read the line end points directly - getP1()/getP2() copy them
+
         //torso
-        double torsoTheta = Utilities.anglePointPoint(_geomTorso.getP1(), _geomTorso.getP2());
+        double torsoTheta = Math.atan2(_geomTorso.getY2() - _geomTorso.getY1(), _geomTorso.getX2() - _geomTorso.getX1());
         report.reportAngle(ReportField.TorsoH, torsoTheta);
 
         //upper arm angle
-        double uArmTheta = Utilities.vectorAngle(_geomTorso.getP2(), _geomTorso.getP1(), _geomUpperArm.getP2());
+        double uArmTheta = Utilities.vectorAngle(_geomTorso.getX2(), _geomTorso.getY2(), _geomTorso.getX1(), _geomTorso.getY1(),
+                _geomUpperArm.getX2(), _geomUpperArm.getY2());
         report.reportAngle(ReportField.TorsoUA, uArmTheta);
 
         //lower arm angle / elbow
-        double lArmTheta = Utilities.vectorAngle(_geomUpperArm.getP2(), _geomUpperArm.getP1(), _geomLowerArm.getP2());
+        double lArmTheta = Utilities.vectorAngle(_geomUpperArm.getX2(), _geomUpperArm.getY2(), _geomUpperArm.getX1(), _geomUpperArm.getY1(),
+                _geomLowerArm.getX2(), _geomLowerArm.getY2());
         report.reportAngle(ReportField.Elbow, lArmTheta);
 
         //=========   Right Leg ============
         //right thigh in horizontal
-        double rightThighAngle = Utilities.vectorAngle(_geomUpperLegRight.getP1(), _geomUpperLegRight.getP2(), _geomTorso.getP2());
+        double rightThighAngle = Utilities.vectorAngle(_geomUpperLegRight.getX1(), _geomUpperLegRight.getY1(), _geomUpperLegRight.getX2(), _geomUpperLegRight.getY2(),
+                _geomTorso.getX2(), _geomTorso.getY2());
         report.reportAngle(ReportField.RThighTorso, rightThighAngle);
 
         //right knee angle
-        double rightLegKneeAngle = Utilities.vectorAngle(_geomUpperLegRight.getP2(), _geomUpperLegRight.getP1(), _geomLowerLegRight.getP2());
+        double rightLegKneeAngle = Utilities.vectorAngle(_geomUpperLegRight.getX2(), _geomUpperLegRight.getY2(), _geomUpperLegRight.getX1(), _geomUpperLegRight.getY1(),
+                _geomLowerLegRight.getX2(), _geomLowerLegRight.getY2());
         report.reportAngle(ReportField.RKnee, rightLegKneeAngle);
 
         //knee to pedal  (ball of foot / toe start)
-        Point2D rkPoint = _geomUpperLegRight.getP2();
-        Point2D rbtPoint = _geomToeRight.getP1();
-        double rdeltaX = rkPoint.getX() - rbtPoint.getX();
+        double rdeltaX = _geomUpperLegRight.getX2() - _geomToeRight.getX1();
         report.reportDistance(ReportField.RKneePedal, rdeltaX);
 
         //=========   Left Leg ============
         //right thigh in horizontal
-        double leftThighAngle = Utilities.vectorAngle(_geomUpperLegLeft.getP1(), _geomUpperLegLeft.getP2(), _geomTorso.getP2());
+        double leftThighAngle = Utilities.vectorAngle(_geomUpperLegLeft.getX1(), _geomUpperLegLeft.getY1(), _geomUpperLegLeft.getX2(), _geomUpperLegLeft.getY2(),
+                _geomTorso.getX2(), _geomTorso.getY2());
         report.reportAngle(ReportField.LThighTorso, leftThighAngle);
 
         //left knee angle
-        double leftLegKneeAngle = Utilities.vectorAngle(_geomUpperLegLeft.getP2(), _geomUpperLegLeft.getP1(), _geomLowerLegLeft.getP2());
+        double leftLegKneeAngle = Utilities.vectorAngle(_geomUpperLegLeft.getX2(), _geomUpperLegLeft.getY2(), _geomUpperLegLeft.getX1(), _geomUpperLegLeft.getY1(),
+                _geomLowerLegLeft.getX2(), _geomLowerLegLeft.getY2());
         report.reportAngle(ReportField.LKnee, leftLegKneeAngle);
 
         //knee to pedal (ball of foot / toe start)
-        Point2D lkPoint = _geomUpperLegLeft.getP2();
-        Point2D lbtPoint = _geomToeLeft.getP1();
-        double ldeltaX = lkPoint.getX() - lbtPoint.getX();
+        double ldeltaX = _geomUpperLegLeft.getX2() - _geomToeLeft.getX1();
         report.reportDistance(ReportField.LKneePedal, ldeltaX);
 
     }
@@ -509,7 +638,7 @@ public class Rider extends BaseComponent {
     public void renderLeft(Graphics2D g2, Color color) {
 
         g2.setPaint(color);
-        g2.setStroke(new BasicStroke(11, BasicStroke.CAP_ROUND, BasicStroke.JOIN_MITER));
+        g2.setStroke(new BasicStroke(LINE_WIDTH, BasicStroke.CAP_ROUND, BasicStroke.JOIN_MITER));
 
         g2.draw(_geomUpperLegLeft);
         g2.draw(_geomLowerLegLeft);
@@ -527,7 +656,7 @@ public class Rider extends BaseComponent {
     public void renderRight(Graphics2D g2, Color color) {
 
         g2.setPaint(color);
-        g2.setStroke(new BasicStroke(11, BasicStroke.CAP_ROUND, BasicStroke.JOIN_MITER));
+        g2.setStroke(new BasicStroke(LINE_WIDTH, BasicStroke.CAP_ROUND, BasicStroke.JOIN_MITER));
 
         g2.draw(_geomTorso);
         g2.draw(_geomUpperArm);
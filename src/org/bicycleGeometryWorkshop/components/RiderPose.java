@@ -149,6 +149,16 @@ public class RiderPose extends BaseComponent {
         
         return new Point2D.Double(x,y);
     }
+
+    /**
+     * Get the out of saddle position into an existing point (no allocation).
+     * @param result The point to set.
+     * @return The result point.
+     */
+    public Point2D getOutOfSaddlePoint(Point2D result) {
+        result.setLocation(_attOutOfSaddleX.getDoubleValue(), _attOutOfSaddleY.getDoubleValue());
+        return result;
+    }
     
     /**
      * There is no geometry in the rider pose.
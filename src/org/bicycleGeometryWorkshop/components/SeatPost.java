@@ -154,6 +154,16 @@ public class SeatPost extends BaseComponent {
         return new Point2D.Double(_mountPoint.getX(), _mountPoint.getY());
     }
 
+    /**
+     * Get the Mount Point into an existing point (no allocation).
+     * @param result The point to set.
+     * @return The result point.
+     */
+    public Point2D getMountPoint(Point2D result) {
+        result.setLocation(_mountPoint);
+        return result;
+    }
+
     /**
      * Render the SeatPost
      *
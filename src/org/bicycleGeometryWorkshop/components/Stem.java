@@ -55,6 +55,10 @@ public class Stem extends BaseComponent {
     
 
     private Point2D _mountPoint;
+
+    //working points reused by updateGeometry()
+    private Point2D _cpBase;
+    private Point2D _cpCenter;
     
     private Ellipse2D _geomEnd;
  
@@ -80,6 +84,8 @@ public class Stem extends BaseComponent {
          _attHeadSet = addLengthAttribute("HeadSetTop", 15, 0, 100, "Height of the top headset bearing.");
         
         _mountPoint = new Point2D.Double(0,0);
+        _cpBase = new Point2D.Double();
+        _cpCenter = new Point2D.Double();
         
 
         _geomEnd = addEllipse2D();        
@@ -114,7 +120,7 @@ public class Stem extends BaseComponent {
     @Override
     public void updateGeometry() {
         
-        Point2D basePoint = getBasePoint();
+        Point2D basePoint = getBasePoint(_cpBase);
         double x = basePoint.getX();
         double y = basePoint.getY();
         
@@ -129,7 +135,7 @@ public class Stem extends BaseComponent {
         double htTheta = Math.PI - Utilities.degreesToRadians(headTubeAngle);
         
         double cenHeight = rise + spacer + headSet;
-        Point2D cenPoint = Utilities.polarPoint(basePoint, cenHeight, htTheta);
+        Point2D cenPoint = Utilities.polarPoint(basePoint, cenHeight, htTheta, _cpCenter);
         
         
         //get the stem angle
@@ -137,15 +143,13 @@ public class Stem extends BaseComponent {
         //make offset from head tube anlge
         double extTheta = htTheta - (Math.PI / 2) + extAngle;
         
-        Point2D hbPoint = Utilities.polarPoint(cenPoint, length, extTheta);
+        //handlebar mounting point
+        Point2D hbPoint = Utilities.polarPoint(cenPoint, length, extTheta, _mountPoint);
         
 
         double barDia = 25;
         double hbd = barDia / 2;
         
-        //handlebar mounting point
-        _mountPoint.setLocation(hbPoint);
-        
 
         //set the ellipse end
         _geomEnd.setFrame(hbPoint.getX() - hbd, hbPoint.getY() - hbd, barDia, barDia);
@@ -168,6 +172,16 @@ public class Stem extends BaseComponent {
     public Point2D getMountPoint() {
         return new Point2D.Double(_mountPoint.getX(),_mountPoint.getY());
     }
+
+    /**
+     * Get the mounting point for the handlebars into an existing point (no allocation).
+     * @param result The point to set.
+     * @return The result point.
+     */
+    public Point2D getMountPoint(Point2D result) {
+        result.setLocation(_mountPoint);
+        return result;
+    }
     
     
     /**
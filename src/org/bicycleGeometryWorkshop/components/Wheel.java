@@ -145,14 +145,25 @@ public class Wheel extends BaseComponent {
      * @param g2 The graphics object to render to.
      */
     public void render(Graphics2D g2) {
+        render(g2, DetailLevel.Full);
+    }
+
+    /**
+     * Render the wheels at a level of detail - the hubs are left out of the
+     * center line level.
+     * @param g2 The graphics object to render to.
+     * @param level The level of detail.
+     */
+    public void render(Graphics2D g2, DetailLevel level) {
         
   
         g2.draw(_geomTireFront);
         g2.draw(_geomTireRear);
         
-        g2.draw(_geomHubFront);
-        g2.draw(_geomHubRear);     
-          
+        if (level != DetailLevel.Centerline) {
+            g2.draw(_geomHubFront);
+            g2.draw(_geomHubRear);     
+        }
   
     }
     
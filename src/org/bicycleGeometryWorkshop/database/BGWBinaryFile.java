@@ -0,0 +1,612 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2020 Tom.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.bicycleGeometryWorkshop.database;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import org.bicycleGeometryWorkshop.app.BGWProject;
+import org.bicycleGeometryWorkshop.app.VisualPreferences;
+import org.bicycleGeometryWorkshop.attributes.AttributeDataType;
+import org.bicycleGeometryWorkshop.attributes.AttributeSet;
+import org.bicycleGeometryWorkshop.attributes.BaseAttribute;
+import org.bicycleGeometryWorkshop.attributes.BooleanAttribute;
+import org.bicycleGeometryWorkshop.attributes.DoubleAttribute;
+import org.bicycleGeometryWorkshop.components.BaseComponent;
+import org.bicycleGeometryWorkshop.components.Bicycle;
+import org.bicycleGeometryWorkshop.components.RiderMeasurements;
+import org.bicycleGeometryWorkshop.components.RiderPose;
+import org.bicycleGeometryWorkshop.diagnostics.Log;
+import org.bicycleGeometryWorkshop.diagnostics.Logger;
+
+/**
+ * Compact binary project file.  This is an alternate to the SQLite (.bgw) file
+ * for automated tools that open many small projects, where the cost of opening
+ * a JDBC connection dominates.
+ * <p>
+ * The file holds the same records as the SQLite file: one record per AttributeSet
+ * with the owner id (the bicycle order, or NO_OWNER_ID for project level sets).
+ * The layout is:
+ * <ul>
+ * <li>Header: magic number and format version.</li>
+ * <li>String table: every attribute name, table name and TEXT value (UTF-8).</li>
+ * <li>Schema table: one entry per table (AttributeSet name) listing the column names and data types.</li>
+ * <li>Project records: the record count, then the records.  A record is the
+ * schema index, owner id, then the values as fixed width primitives
+ * (REAL = 8 bytes, INT = 4 bytes, TEXT = 4 byte string table index).</li>
+ * <li>Bicycles: the bicycle count, then the record count and records of each.</li>
+ * </ul>
+ * Since each record carries its schema, files written with an older attribute
+ * list still load: unknown columns and tables are skipped, missing ones keep their defaults.
+ * Values are written from the same SQL forms used by the .bgw file so the two
+ * formats round-trip without loss.
+ *
+ * @author Tom
+ */
+public class BGWBinaryFile {
+
+    private static final Logger LOG = Log.getLogger(BGWBinaryFile.class);
+
+    public static final String FILE_EXT = "bgwb";
+
+    //"BGWB"
+    private static final int MAGIC = 0x42475742;
+    private static final int FORMAT_VERSION = 2;
+
+    private static final byte TYPE_TEXT = 0;
+    private static final byte TYPE_REAL = 1;
+    private static final byte TYPE_INT = 2;
+
+    //tables of the file being read
+    private int[] _stringOffsets;
+    private String[] _strings;
+    private int[] _schemaNames;
+    private int[][] _columnNames;
+    private byte[][] _columnTypes;
+
+    /**
+     * Class constructor.
+     */
+    public BGWBinaryFile() {
+
+    }
+
+    /**
+     * Write the project to a binary file.
+     *
+     * @param project The project to write.
+     * @param path The path of the file to write.
+     * @return True if the file was written, false on error.
+     */
+    public boolean writeFile(BGWProject project, String path) {
+
+        boolean writeSuccess = false;
+
+        ArrayList<Bicycle> bicycles = project.getBicycles();
+
+        //project level sets
+        ArrayList<AttributeSet> projectSets = getProjectSets(project);
+
+        //bicycle sets
+        ArrayList<ArrayList<AttributeSet>> bicycleSets = new ArrayList();
+        for (Bicycle b : bicycles) {
+            bicycleSets.add(b.getAttributeSets());
+        }
+
+        //build the string and schema tables
+        LinkedHashMap<String, Integer> strings = new LinkedHashMap();
+        LinkedHashMap<String, Integer> schemas = new LinkedHashMap();
+        ArrayList<AttributeSet> schemaSets = new ArrayList();
+
+        ArrayList<AttributeSet> allSets = new ArrayList(projectSets);
+        for (ArrayList<AttributeSet> bSets : bicycleSets) {
+            allSets.addAll(bSets);
+        }
+
+        for (AttributeSet attSet : allSets) {
+
+            String tblName = attSet.getName();
+            if (!schemas.containsKey(tblName)) {
+                schemas.put(tblName, schemas.size());
+                schemaSets.add(attSet);
+                addString(strings, tblName);
+                for (BaseAttribute att : attSet.getAttributes()) {
+                    addString(strings, att.getName());
+                }
+            }
+
+            for (BaseAttribute att : attSet.getAttributes()) {
+                if (att.getSQLType() == AttributeDataType.TEXT) {
+                    addString(strings, att.getSQLInsert());
+                }
+            }
+        }
+
+        //encode the strings once - sizes are needed up front
+        ArrayList<byte[]> encoded = new ArrayList();
+        int size = 12; //magic, version, string count
+        for (String s : strings.keySet()) {
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            encoded.add(bytes);
+            size += 4 + bytes.length;
+        }
+
+        size += 4; //schema count
+        for (AttributeSet attSet : schemaSets) {
+            size += 8 + attSet.getAttributes().size() * 5;
+        }
+
+        size += 8; //project record and bicycle counts
+        for (AttributeSet attSet : projectSets) {
+            size += getRecordSize(attSet);
+        }
+        for (ArrayList<AttributeSet> bSets : bicycleSets) {
+            size += 4; //record count
+            for (AttributeSet attSet : bSets) {
+                size += getRecordSize(attSet);
+            }
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+
+        //header
+        buffer.putInt(MAGIC);
+        buffer.putInt(FORMAT_VERSION);
+
+        //string table
+        buffer.putInt(encoded.size());
+        for (byte[] bytes : encoded) {
+            buffer.putInt(bytes.length);
+            buffer.put(bytes);
+        }
+
+        //schema table
+        buffer.putInt(schemaSets.size());
+        for (AttributeSet attSet : schemaSets) {
+            ArrayList<BaseAttribute> attributes = attSet.getAttributes();
+            buffer.putInt(strings.get(attSet.getName()));
+            buffer.putInt(attributes.size());
+            for (BaseAttribute att : attributes) {
+                buffer.putInt(strings.get(att.getName()));
+                buffer.put(getTypeCode(att.getSQLType()));
+            }
+        }
+
+        //project records
+        buffer.putInt(projectSets.size());
+        for (AttributeSet attSet : projectSets) {
+            putRecord(buffer, attSet, BGWDataBase.NO_OWNER_ID, schemas, strings);
+        }
+
+        //bicycle records
+        int bl = bicycleSets.size();
+        buffer.putInt(bl);
+        for (int i = 0; i < bl; i++) {
+            ArrayList<AttributeSet> bSets = bicycleSets.get(i);
+            buffer.putInt(bSets.size());
+            for (AttributeSet attSet : bSets) {
+                putRecord(buffer, attSet, i, schemas, strings);
+            }
+        }
+
+        buffer.flip();
+
+        try (FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+
+            writeSuccess = true;
+
+        } catch (IOException ex) {
+            LOG.error(ex.getMessage(), ex);
+        }
+
+        return writeSuccess;
+
+    }
+
+    /**
+     * Open a project from a binary file.  The file is memory mapped and the
+     * values are set on the attributes straight from the buffer.  The bicycles
+     * are read into new bicycles that replace the project's only once the whole
+     * file has been read, and the project level records are skipped on the
+     * first pass and read again into the rider, pose and preferences at the
+     * end, so a failed read leaves the project unchanged.
+     *
+     * @param project The project to load.
+     * @param path The path of the file to open.
+     * @return True if the file was loaded, false on error.
+     */
+    public boolean openFile(BGWProject project, String path) {
+
+        boolean fileLoaded = false;
+
+        RiderMeasurements rSize = project.getRiderSize();
+        RiderPose rPose = project.getRiderPose();
+        VisualPreferences prefs = project.getVisualPreferences();
+        ArrayList<Bicycle> loaded = new ArrayList();
+
+        try (FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ)) {
+
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+            int magic = buffer.getInt();
+            int version = buffer.getInt();
+
+            if (magic != MAGIC) {
+                LOG.warn("Not a binary project file", "path", path);
+                return false;
+            }
+
+            if (version > FORMAT_VERSION) {
+                LOG.warn("Unsupported binary file version", "version", version, "path", path);
+                return false;
+            }
+
+            readTables(buffer);
+
+            //project records - version 1 files always have the three project sets
+            int pl = version >= 2 ? buffer.getInt() : 3;
+            int projectStart = buffer.position();
+
+            //skipped until the rest of the file has been read
+            for (int i = 0; i < pl; i++) {
+                readRecord(buffer, null, null);
+            }
+
+            //bicycles
+            int bl = buffer.getInt();
+            for (int i = 0; i < bl; i++) {
+
+                Bicycle b = new Bicycle("default", rSize, rPose, prefs);
+                loaded.add(b);
+
+                int rl = buffer.getInt();
+                for (int j = 0; j < rl; j++) {
+                    readRecord(buffer, null, b);
+                }
+            }
+
+            //the whole file was read - now set the project values
+            buffer.position(projectStart);
+            for (int i = 0; i < pl; i++) {
+                readRecord(buffer, project, null);
+            }
+
+            fileLoaded = true;
+
+        } catch (IOException | RuntimeException ex) {
+            LOG.error(ex.getMessage(), ex);
+        }
+
+        if (!fileLoaded) {
+            return false;
+        }
+
+        ArrayList<Bicycle> bicycles = project.getBicycles();
+        bicycles.clear();
+        bicycles.addAll(loaded);
+
+        return true;
+
+    }
+
+    /**
+     * Read the string and schema tables.  Only the string offsets are read,
+     * the strings are decoded the first time they are used (see getString()).
+     *
+     * @param buffer The buffer positioned at the string table.
+     */
+    private void readTables(ByteBuffer buffer) {
+
+        //string table
+        int sl = buffer.getInt();
+        _stringOffsets = new int[sl];
+        _strings = new String[sl];
+        for (int i = 0; i < sl; i++) {
+            _stringOffsets[i] = buffer.position();
+            int len = buffer.getInt();
+            buffer.position(buffer.position() + len);
+        }
+
+        //schema table
+        int schemaCount = buffer.getInt();
+        _schemaNames = new int[schemaCount];
+        _columnNames = new int[schemaCount][];
+        _columnTypes = new byte[schemaCount][];
+        for (int i = 0; i < schemaCount; i++) {
+            _schemaNames[i] = buffer.getInt();
+            int cl = buffer.getInt();
+            _columnNames[i] = new int[cl];
+            _columnTypes[i] = new byte[cl];
+            for (int j = 0; j < cl; j++) {
+                _columnNames[i][j] = buffer.getInt();
+                _columnTypes[i][j] = buffer.get();
+            }
+        }
+
+    }
+
+    /**
+     * Get a string from the string table, decoding it on first use.
+     *
+     * @param buffer The file buffer.
+     * @param index The string index.
+     * @return The string.
+     */
+    private String getString(ByteBuffer buffer, int index) {
+
+        String value = _strings[index];
+
+        if (value == null) {
+
+            int pos = buffer.position();
+
+            buffer.position(_stringOffsets[index]);
+            byte[] bytes = new byte[buffer.getInt()];
+            buffer.get(bytes);
+            buffer.position(pos);
+
+            value = new String(bytes, StandardCharsets.UTF_8);
+            _strings[index] = value;
+        }
+
+        return value;
+    }
+
+    /**
+     * Read a single record into the AttributeSet with the record's table name.
+     * The values are set on the attributes directly from the buffer.  Records
+     * for tables that are not found are skipped.
+     *
+     * @param buffer The buffer to read from.
+     * @param project The project to load project level sets into, or null.
+     * @param bicycle The bicycle to load bicycle sets into, or null.
+     */
+    private void readRecord(ByteBuffer buffer, BGWProject project, Bicycle bicycle) {
+
+        int schema = buffer.getInt();
+        //owner id - order is implied by record position
+        buffer.getInt();
+
+        int[] names = _columnNames[schema];
+        byte[] types = _columnTypes[schema];
+        int cl = names.length;
+
+        AttributeSet attSet = null;
+        if (project != null) {
+            attSet = findProjectSet(project, getString(buffer, _schemaNames[schema]));
+        } else if (bicycle != null) {
+            attSet = findBicycleSet(bicycle, getString(buffer, _schemaNames[schema]));
+        }
+
+        //skip the record
+        if (attSet == null) {
+            for (int i = 0; i < cl; i++) {
+                buffer.position(buffer.position() + (types[i] == TYPE_REAL ? 8 : 4));
+            }
+            return;
+        }
+
+        for (int i = 0; i < cl; i++) {
+
+            BaseAttribute att = attSet.getAttribute(getString(buffer, names[i]));
+
+            switch (types[i]) {
+                case TYPE_REAL:
+                    double dval = buffer.getDouble();
+                    if (att instanceof DoubleAttribute) {
+                        ((DoubleAttribute) att).setDouble(dval);
+                    }
+                    break;
+                case TYPE_INT:
+                    int ival = buffer.getInt();
+                    if (att instanceof BooleanAttribute) {
+                        ((BooleanAttribute) att).setBoolean(ival == 1);
+                    }
+                    break;
+                default:
+                    int sval = buffer.getInt();
+                    if (att != null) {
+                        att.setFromObject(getString(buffer, sval));
+                    }
+                    break;
+            }
+
+        }//end for
+
+    }
+
+    /**
+     * Write a single record for an AttributeSet.
+     *
+     * @param buffer The buffer to write to.
+     * @param attSet The AttributeSet to write.
+     * @param ownerId The owner id of the record.
+     * @param schemas The schema index by table name.
+     * @param strings The string table index by value.
+     */
+    private void putRecord(ByteBuffer buffer, AttributeSet attSet, int ownerId,
+            HashMap<String, Integer> schemas, HashMap<String, Integer> strings) {
+
+        buffer.putInt(schemas.get(attSet.getName()));
+        buffer.putInt(ownerId);
+
+        for (BaseAttribute att : attSet.getAttributes()) {
+
+            switch (att.getSQLType()) {
+                case REAL:
+                    if (att instanceof DoubleAttribute) {
+                        buffer.putDouble(((DoubleAttribute) att).getDoubleValue());
+                    } else {
+                        buffer.putDouble(Double.parseDouble(att.getSQLInsert()));
+                    }
+                    break;
+                case INT:
+                    if (att instanceof BooleanAttribute) {
+                        buffer.putInt(((BooleanAttribute) att).getBooleanValue() ? 1 : 0);
+                    } else {
+                        buffer.putInt(Integer.parseInt(att.getSQLInsert()));
+                    }
+                    break;
+                default:
+                    buffer.putInt(strings.get(att.getSQLInsert()));
+                    break;
+            }
+
+        }//end for
+
+    }
+
+    /**
+     * Get the size of a record in bytes.
+     *
+     * @param attSet The AttributeSet of the record.
+     * @return The size of the record in bytes.
+     */
+    private int getRecordSize(AttributeSet attSet) {
+
+        //schema index and owner id
+        int size = 8;
+
+        for (BaseAttribute att : attSet.getAttributes()) {
+            if (att.getSQLType() == AttributeDataType.REAL) {
+                size += 8;
+            } else {
+                size += 4;
+            }
+        }
+
+        return size;
+    }
+
+    /**
+     * Get the type code stored in the schema for a data type.
+     *
+     * @param type The attribute data type.
+     * @return The type code.
+     */
+    private byte getTypeCode(AttributeDataType type) {
+
+        switch (type) {
+            case REAL:
+                return TYPE_REAL;
+            case INT:
+                return TYPE_INT;
+            default:
+                return TYPE_TEXT;
+        }
+
+    }
+
+    /**
+     * Add a string to the string table if it is not already present.
+     *
+     * @param strings The string table.
+     * @param value The string to add.
+     */
+    private void addString(HashMap<String, Integer> strings, String value) {
+
+        if (!strings.containsKey(value)) {
+            strings.put(value, strings.size());
+        }
+
+    }
+
+    /**
+     * Get the project level AttributeSets (rider size, pose and preferences).
+     *
+     * @param project The project.
+     * @return The list of project level AttributeSets.
+     */
+    private ArrayList<AttributeSet> getProjectSets(BGWProject project) {
+
+        ArrayList<AttributeSet> sets = new ArrayList();
+        sets.add(project.getRiderSize().getAttributeSet());
+        sets.add(project.getRiderPose().getAttributeSet());
+        sets.add(project.getVisualPreferences().getAttributeSet());
+
+        return sets;
+    }
+
+    /**
+     * Find a project level AttributeSet by table name.
+     *
+     * @param project The project.
+     * @param name The table name.
+     * @return The AttributeSet or null if the project has no such set.
+     */
+    private AttributeSet findProjectSet(BGWProject project, String name) {
+
+        if (name.equals(project.getRiderSize().getAttributeSet().getName())) {
+            return project.getRiderSize().getAttributeSet();
+        } else if (name.equals(project.getRiderPose().getAttributeSet().getName())) {
+            return project.getRiderPose().getAttributeSet();
+        } else if (name.equals(project.getVisualPreferences().getAttributeSet().getName())) {
+            return project.getVisualPreferences().getAttributeSet();
+        }
+
+        return null;
+    }
+
+    /**
+     * Find an AttributeSet of a bicycle by table name.
+     *
+     * @param bicycle The bicycle.
+     * @param name The table name.
+     * @return The AttributeSet or null if the bicycle has no such set.
+     */
+    private AttributeSet findBicycleSet(Bicycle bicycle, String name) {
+
+        if (name.equals(bicycle.getAttributeSet().getName())) {
+            return bicycle.getAttributeSet();
+        }
+
+        for (BaseComponent comp : bicycle.getComponentList()) {
+
+            if (name.equals(comp.getAttributeSet().getName())) {
+                return comp.getAttributeSet();
+            }
+
+            for (BaseComponent subComp : comp.getSubComponents()) {
+                if (name.equals(subComp.getAttributeSet().getName())) {
+                    return subComp.getAttributeSet();
+                }
+            }
+        }
+
+        return null;
+    }
+
+}
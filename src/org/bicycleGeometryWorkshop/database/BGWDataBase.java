@@ -33,9 +33,12 @@ import java.io.File;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import javax.swing.JFileChooser;
 import javax.swing.JFrame;
 import javax.swing.JOptionPane;
@@ -44,8 +47,12 @@ import javax.swing.filechooser.FileNameExtensionFilter;
 import org.bicycleGeometryWorkshop.app.BGWProject;
 import org.bicycleGeometryWorkshop.app.VisualPreferences;
 import org.bicycleGeometryWorkshop.components.BaseComponent;
+import org.bicycleGeometryWorkshop.diagnostics.Metric;
+import org.bicycleGeometryWorkshop.diagnostics.Metrics;
 import org.bicycleGeometryWorkshop.ui.BicycleGeometryWorkshopUI;
 import org.sqlite.SQLiteConfig;
+import org.bicycleGeometryWorkshop.diagnostics.Log;
+import org.bicycleGeometryWorkshop.diagnostics.Logger;
 
 /**
  * This is the data base class for the project.  It uses an SQLite database. 
@@ -53,7 +60,9 @@ import org.sqlite.SQLiteConfig;
  * 
  * @author Tom
  */
-public class BGWDataBase {
+public class BGWDataBase implements ProjectStore {
+
+    private static final Logger LOG = Log.getLogger(BGWDataBase.class);
 
     private boolean _connOpen;
     private Connection _conn;
@@ -66,12 +75,29 @@ public class BGWDataBase {
     public static final String ORDER_COL_NAME = "order";
     public static final int NO_OWNER_ID = -1;
 
+    //shared component references (deduplicated component sets)
+    public static final String COMPONENT_REF_TABLE_NAME = "component_refs";
+    public static final String TABLE_COL_NAME = "table_name";
+    public static final String RECORD_ID_COL_NAME = "record_id";
+
     public static final String FILE_EXT = "bgw";
     private static final String FILE_DESC = "Bicycle Geometry Workshop (." + FILE_EXT + ")";
 
+    //timers shown in the diagnostics dialog
+    private static final Metric OPEN_TIMER = Metrics.timer("BGWDataBase.openFile");
+    private static final Metric OPEN_LAZY_TIMER = Metrics.timer("BGWDataBase.openFileLazy");
+    private static final Metric WRITE_TIMER = Metrics.timer("BGWDataBase.writeFile");
+
     private String _dbPath;
     private boolean _requestFile;
     private boolean _dbInitialized;
+    //the open file can't be written (newer schema or failed migration)
+    private boolean _readOnly;
+
+    //record id of shared component sets by owner:table
+    private HashMap<String, Integer> _componentRefs;
+    //values of records already read by table:id - shared while loading
+    private HashMap<String, HashMap<String, Object>> _recordCache;
 
     /**
      * Class constructor.
@@ -86,6 +112,10 @@ public class BGWDataBase {
         _dbPath = "";
         _dbInitialized = false;
         _requestFile = true;
+        _readOnly = false;
+
+        _componentRefs = new HashMap();
+        _recordCache = new HashMap();
 
         //testConn();
     }
@@ -99,6 +129,17 @@ public class BGWDataBase {
         return _dbPath;
     }
 
+    /**
+     * Check if the last opened file was opened read-only.  This is the case for
+     * files from a newer version or files that could not be migrated to the
+     * current schema.  The next save asks for a new file.
+     *
+     * @return True if the file was opened read-only.
+     */
+    public boolean isReadOnly() {
+        return _readOnly;
+    }
+
     /**
      * Get the connection string
      *
@@ -137,7 +178,7 @@ public class BGWDataBase {
 
         } catch (Exception e) {
 
-            System.err.println(e.getClass().getName() + ": " + e.getMessage());
+            LOG.error("Could not open connection", "path", path, "error", e.toString());
             _connOpen = false;
             _dbPath = "";
         }
@@ -149,7 +190,7 @@ public class BGWDataBase {
     /**
      * Close the connection. Closes the Connection and the Statement.
      */
-    public void closeConn() {
+    public synchronized void closeConn() {
 
         try {
 
@@ -168,6 +209,10 @@ public class BGWDataBase {
 
         _connOpen = false;
 
+        //release shared values and references
+        _componentRefs.clear();
+        _recordCache.clear();
+
     }
 
     /**
@@ -308,82 +353,275 @@ public class BGWDataBase {
      */
     public boolean openFile(BGWProject project, String path) {
 
+        long start = OPEN_TIMER.start();
+
+        //flagfor success
+        boolean fileloaded = false;
+        //kept if the file fails to load
+        String prevPath = _dbPath;
+
+        if (openConnection(path)) {
+
+            LOG.info("Opening file", "path", _dbPath);
+
+            try {
+
+                loadProject(project, null);
+
+                fileloaded = true;
+
+            } catch (SQLException ex) {
+
+                LOG.error(ex.getMessage(), ex);
+            }
+
+            //close the connection
+            closeConn();
+
+        } else {
+
+            LOG.error("Connection not open, could not open file", "path", path);
+        }
+
+        if (!fileloaded) {
+            _dbPath = prevPath;
+        }
+
+        OPEN_TIMER.stop(start);
+        
+        return fileloaded;
+
+    }
+
+    /**
+     * Lazily open a file.  This will prompt for the database path.
+     *
+     * @param project The project to load from the database.
+     * @param onLoaded Called on the UI thread as pending bicycles are loaded.
+     * @return The loader for the pending bicycles, or null for cancel or failure.
+     */
+    public LazyBicycleLoader openFileLazy(BGWProject project, Runnable onLoaded) {
+
+        GetFileInfo getFileInfo = getDBFilePath(false);
+
+        //bail if no file selected
+        if (!getFileInfo.fileSelected) {
+            return null;
+        }
+
+        return openFileLazy(project, getFileInfo.filePath, onLoaded);
+
+    }
+
+    /**
+     * Lazily open a file from an SQLite DB.  Only the rider, pose, preferences,
+     * bicycle list and the bicycle attribute sets (name, visibility, etc.) are
+     * loaded.  The bicycle components keep their defaults until they are loaded
+     * by the returned loader, which holds its own connection to the file.
+     *
+     * @param project The project to open from the database.
+     * @param path Path of the database to open.
+     * @param onLoaded Called on the UI thread as pending bicycles are loaded.
+     * @return The loader for the pending bicycles, or null if the file failed to load.
+     */
+    public LazyBicycleLoader openFileLazy(BGWProject project, String path, Runnable onLoaded) {
+
+        long start = OPEN_LAZY_TIMER.start();
+
+        //loader has a seperate connection for the component reads
+        LazyBicycleLoader loader = null;
+        //kept if the file fails to load
+        String prevPath = _dbPath;
+
+        if (openConnection(path)) {
+
+            LOG.info("Opening file (lazy)", "path", _dbPath);
+
+            try {
+
+                BGWDataBase loaderDb = new BGWDataBase();
+                if (!loaderDb.openConnection(path)) {
+                    throw new SQLException("Could not open loader connection: " + path);
+                }
+                loaderDb.loadComponentRefs();
+                loader = new LazyBicycleLoader(loaderDb, onLoaded);
+
+                loadProject(project, loader);
+
+            } catch (SQLException ex) {
+
+                LOG.error(ex.getMessage(), ex);
+
+                if (loader != null) {
+                    loader.cancel();
+                    loader = null;
+                }
+            }
+
+            closeConn();
+
+        } else {
+
+            LOG.error("Connection not open, could not open file", "path", path);
+        }
+
+        if (loader == null) {
+            _dbPath = prevPath;
+        }
+
+        OPEN_LAZY_TIMER.stop(start);
+
+        return loader;
+
+    }
+
+    /**
+     * Load a project from the open connection.  Older files are migrated to the
+     * current schema, then the rider, pose, preferences and bicycle list are
+     * read.  With a loader only the bicycle attribute sets are read and the
+     * component sets are left pending in the loader, otherwise the bicycles are
+     * read in full.
+     * <p>
+     * Everything is read before the project is changed, so a failed read leaves
+     * the project as it was.
+     *
+     * @param project The project to load.
+     * @param loader The loader for the pending components, or null to read the bicycles in full.
+     * @throws SQLException Exception thrown on database error.
+     */
+    private void loadProject(BGWProject project, LazyBicycleLoader loader) throws SQLException {
+
         RiderMeasurements rSize = project.getRiderSize();
         RiderPose rPose = project.getRiderPose();
-        ArrayList<Bicycle> bicycles = project.getBicycles();
-        
-        
+        VisualPreferences prefs = project.getVisualPreferences();
+
         AttributeSet sizeSet = rSize.getAttributeSet();
         AttributeSet poseSet = rPose.getAttributeSet();
-        
-        VisualPreferences prefs = project.getVisualPreferences();
         AttributeSet prefSet = prefs.getAttributeSet();
 
-//        //String dbPath = getDBOpenFilePath();
-//        GetFileInfo getFileInfo = getDBFilePath(false);
-//
-//        //bail if no file selected
-//        if (!getFileInfo.fileSelected) {
-//            return false;
-//        }
+        _sqlCmd.execute("BEGIN");
 
-        //flagfor success
-        boolean fileloaded = false;
-        //set these up....
-        _dbPath = path; ///getFileInfo.filePath;
-        _dbInitialized = true;
-        _requestFile = false;
+        //bring older files up to the current schema - otherwise read only
+        SchemaMigrator migrator = new SchemaMigrator(_sqlCmd);
+        boolean readOnly = !migrator.migrate(getDefaultTemplateSets(project));
 
-        if (openConnection(_dbPath)) {
+        //shared component sets
+        if (loader == null) {
+            loadComponentRefs();
+        }
 
-            System.out.println("Opening File: " + _dbPath);
+        //rider size, pose and preferences - applied once everything is read
+        HashMap<String, Object> sizeValues = readOwnerValues(sizeSet, NO_OWNER_ID);
+        HashMap<String, Object> poseValues = readOwnerValues(poseSet, NO_OWNER_ID);
+        HashMap<String, Object> prefValues = readOwnerValues(prefSet, NO_OWNER_ID);
 
-            try {
+        ArrayList<Bicycle> loaded = new ArrayList();
+        ArrayList<Integer> idList = getBicycles();
 
-                _sqlCmd.execute("BEGIN");
+        for (int i : idList) {
+            LOG.debug("Loading bicycle", "id", i);
 
-                //clear bicycles
-                bicycles.clear();
+            Bicycle b = new Bicycle("default", rSize, rPose, prefs);
+            loaded.add(b);
 
-                //load rider size
-                loadAttributeSetFromOwner(sizeSet, NO_OWNER_ID);
-                //load pose
-                loadAttributeSetFromOwner(poseSet, NO_OWNER_ID);
-                //load preferences
-                loadAttributeSetFromOwner(prefSet, NO_OWNER_ID);
+            if (loader == null) {
+                loadBicycleNew(b, i);
+            } else {
+                //headers only - name, visibility, display, colors
+                loadAttributeSetFromOwner(b.getAttributeSet(), i);
+                loader.addPending(b, i);
+            }
 
-                ArrayList<Integer> idList = getBicycles();
+        }
 
-                for (int i : idList) {
-                    System.out.println("Bicycle id: " + i);
+        _sqlCmd.execute("END");
 
-                    Bicycle b = new Bicycle("default", rSize, rPose, prefs);
-                    bicycles.add(b);
+        //read ok - replace the project
+        ArrayList<Bicycle> bicycles = project.getBicycles();
+        bicycles.clear();
 
-//                    loadBicycle(b, i);
-                    loadBicycleNew(b, i);
+        applyOwnerValues(sizeSet, sizeValues);
+        applyOwnerValues(poseSet, poseValues);
+        applyOwnerValues(prefSet, prefValues);
 
-                }
+        bicycles.addAll(loaded);
 
-                _sqlCmd.execute("END");
+        _dbInitialized = true;
+        _readOnly = readOnly;
+        //never write back over a read only file - save asks for a new file
+        _requestFile = readOnly;
 
-                //close the connection
-                closeConn();
-                
-                fileloaded = true;
+    }
 
-            } catch (SQLException ex) {
+    /**
+     * Read the record of an AttributeSet by owner.
+     *
+     * @param attSet The AttributeSet naming the table.
+     * @param ownerId The owner id.
+     * @return The values by column name, or null if there is no record.
+     * @throws SQLException Exception thrown on database error.
+     */
+    private HashMap<String, Object> readOwnerValues(AttributeSet attSet, int ownerId) throws SQLException {
+
+        String selCmd = "SELECT * FROM " + attSet.getName();
+        selCmd += " WHERE " + OWNER_ID_COL_NAME + " = " + ownerId + ";";
+
+        return readRecordValues(selCmd);
 
-                System.out.println(ex.getMessage());
-                ex.printStackTrace(System.out);
+    }
+
+    /**
+     * Set an AttributeSet from the values of its record.
+     *
+     * @param attSet The AttributeSet to set.
+     * @param values The values by column name, or null to keep the defaults.
+     */
+    private void applyOwnerValues(AttributeSet attSet, HashMap<String, Object> values) {
+
+        //no record leaves the defaults
+        if (values != null) {
+            applyValues(attSet, values);
+        }
+
+    }
+
+    /**
+     * Read the values of all the component sets of a bicycle.  This does not
+     * change the bicycle, it only uses it for the table names.  Safe to call
+     * from a worker thread.
+     *
+     * @param bicycle The bicycle to read the component values for.
+     * @param owner The owner id (bicycle list id).
+     * @return The values by table name and column name.
+     * @throws SQLException Exception thrown on database error.
+     */
+    synchronized HashMap<String, HashMap<String, Object>> readBicycleComponentValues(Bicycle bicycle, int owner) throws SQLException {
+
+        HashMap<String, HashMap<String, Object>> values = new HashMap();
+
+        if (!_connOpen) {
+            throw new SQLException("Conn not open to read bicycle components");
+        }
+
+        ArrayList<AttributeSet> sets = bicycle.getAttributeSets();
+
+        for (AttributeSet attSet : sets) {
+
+            //the bicycle set is loaded with the headers
+            if (attSet == bicycle.getAttributeSet()) {
+                continue;
             }
 
-        } else {
+            String tblName = attSet.getName();
+            HashMap<String, Object> setValues = readComponentValues(tblName, owner);
+
+            if (setValues != null) {
+                values.put(tblName, setValues);
+            }
 
-            System.out.println("Conn not open, could not open file");
         }
-        
-        return fileloaded;
+
+        return values;
 
     }
 
@@ -396,6 +634,7 @@ public class BGWDataBase {
         _dbPath = "";
         _dbInitialized = true;
         _requestFile = true;        
+        _readOnly = false;
         
     }
     
@@ -424,13 +663,38 @@ public class BGWDataBase {
 
         } else {
 
-            System.out.println("Conn not open to select bicycles in master");
+            LOG.error("Connection not open to select bicycles in master", "path", _dbPath);
         }
 
         return idList;
     }
 
 
+    /**
+     * Get a set of AttributeSets with default values for all project tables.
+     * These are used as the template for schema migrations so added columns
+     * get the component defaults.
+     *
+     * @param project The project (owner of the template components).
+     * @return The list of template AttributeSets.
+     */
+    private ArrayList<AttributeSet> getDefaultTemplateSets(BGWProject project) {
+
+        RiderMeasurements rSize = new RiderMeasurements(project);
+        RiderPose rPose = new RiderPose(project);
+        VisualPreferences prefs = new VisualPreferences(project);
+
+        ArrayList<AttributeSet> sets = new ArrayList();
+        sets.add(rSize.getAttributeSet());
+        sets.add(rPose.getAttributeSet());
+        sets.add(prefs.getAttributeSet());
+
+        Bicycle bicycle = new Bicycle("default", rSize, rPose, prefs);
+        sets.addAll(bicycle.getAttributeSets());
+
+        return sets;
+    }
+
     /**
      * Load a bicycle from the database.
      *
@@ -451,7 +715,7 @@ public class BGWDataBase {
         for (BaseComponent comp : comps) {
 
             AttributeSet attSet = comp.getAttributeSet();
-            loadAttributeSetFromOwner(attSet, owner);
+            loadComponentSet(attSet, owner);
             
            //do for any sub components as well
             if(comp.hasSubComponents()) {
@@ -459,7 +723,7 @@ public class BGWDataBase {
                 for(BaseComponent subComp : subComps) {
                     
                     AttributeSet scAttSet = subComp.getAttributeSet();
-                    loadAttributeSetFromOwner(scAttSet, owner);                    
+                    loadComponentSet(scAttSet, owner);                    
 
                 }
  
@@ -524,8 +788,7 @@ public class BGWDataBase {
 
                 
             } catch (SQLException ex) {
-                System.out.println(ex.getMessage());
-                ex.printStackTrace(System.out);
+                LOG.error(ex.getMessage(), ex);
             }
 
         } else {
@@ -554,8 +817,7 @@ public class BGWDataBase {
                 _sqlCmd.execute("END");
                 
             } catch (SQLException ex) {
-                System.out.println(ex.getMessage());
-                ex.printStackTrace(System.out);
+                LOG.error(ex.getMessage(), ex);
             }
 
         } else {
@@ -578,13 +840,18 @@ public class BGWDataBase {
 
                 _sqlCmd.execute("BEGIN");
 
-                insertBicycleNew(0, bicycle);
+                //library may be from an older schema
+                SchemaMigrator migrator = new SchemaMigrator(_sqlCmd);
+                for (AttributeSet attSet : bicycle.getAttributeSets()) {
+                    migrator.addMissingColumns(attSet);
+                }
+
+                insertBicycleNew(0, bicycle, null);
 
                 _sqlCmd.execute("END");
 
             } catch (SQLException ex) {
-                System.out.println(ex.getMessage());
-                ex.printStackTrace(System.out);
+                LOG.error(ex.getMessage(), ex);
             }
 
         } else {
@@ -615,8 +882,7 @@ public class BGWDataBase {
                 _sqlCmd.execute("END");
 
             } catch (SQLException ex) {
-                System.out.println(ex.getMessage());
-                ex.printStackTrace(System.out);
+                LOG.error(ex.getMessage(), ex);
             }
 
         } else {
@@ -654,26 +920,156 @@ public class BGWDataBase {
 
         if (_connOpen) {
 
-            ResultSet rs = _sqlCmd.executeQuery(cmd);
-            //move first
-            rs.next();
+            HashMap<String, Object> values = readRecordValues(cmd);
 
-            //tlResult.
-            ArrayList<BaseAttribute> attList = attSet.getAttributes();
+            //no record leaves the defaults
+            if (values != null) {
+                applyValues(attSet, values);
+            }
 
-            for (BaseAttribute att : attList) {
+        } else {
 
-                String colName = att.getName();
-                AttributeDataType sqlType = att.getSQLType();
+            LOG.error("Connection not open to select bicycles in master", "path", _dbPath);
+        }
 
-                Object valueObj = rs.getObject(colName);
-                att.setFromObject(valueObj);
+    }
 
-            }//end for
+    /**
+     * Load a component AttributeSet of a bicycle.  Shared (deduplicated)
+     * records are found through the component reference table.
+     *
+     * @param attSet The component AttributeSet to load.
+     * @param ownerId The bicycle id.
+     * @throws SQLException Exception thrown on database error.
+     */
+    private void loadComponentSet(AttributeSet attSet, int ownerId) throws SQLException {
+
+        HashMap<String, Object> values = readComponentValues(attSet.getName(), ownerId);
+
+        //no record leaves the defaults
+        if (values != null) {
+            applyValues(attSet, values);
+        }
+
+    }
+
+    /**
+     * Read the values of a component record.  Records referenced by more than
+     * one bicycle are read once and the same (read only) values are returned
+     * for each reference.
+     *
+     * @param tblName The component table name.
+     * @param ownerId The bicycle id.
+     * @return The values by column name, or null if there is no record.
+     * @throws SQLException Exception thrown on database error.
+     */
+    private HashMap<String, Object> readComponentValues(String tblName, int ownerId) throws SQLException {
+
+        String selCmd = "SELECT * FROM " + tblName;
+
+        Integer refId = _componentRefs.get(ownerId + ":" + tblName);
+        if (refId != null) {
+
+            HashMap<String, Object> cached = _recordCache.get(tblName + ":" + refId);
+            if (cached != null) {
+                return cached;
+            }
+
+            selCmd += " WHERE " + ID_COL_NAME + " = " + refId + ";";
 
         } else {
+            selCmd += " WHERE " + OWNER_ID_COL_NAME + " = " + ownerId + ";";
+        }
+
+        HashMap<String, Object> values = readRecordValues(selCmd);
+
+        //keep for any bicycles that reference this record
+        if (values != null && !_componentRefs.isEmpty()) {
+            _recordCache.put(tblName + ":" + values.get(ID_COL_NAME), values);
+        }
+
+        return values;
+
+    }
+
+    /**
+     * Read the first record of a query into a map of column name to value.
+     *
+     * @param cmd The SQL select statement.
+     * @return The values by column name, or null if there is no record.
+     * @throws SQLException Exception thrown on database error.
+     */
+    private HashMap<String, Object> readRecordValues(String cmd) throws SQLException {
+
+        HashMap<String, Object> values = null;
+
+        ResultSet rs = _sqlCmd.executeQuery(cmd);
+
+        if (rs.next()) {
+
+            values = new HashMap();
+            ResultSetMetaData rsMeta = rs.getMetaData();
+            int cl = rsMeta.getColumnCount();
+            for (int i = 1; i <= cl; i++) {
+                values.put(rsMeta.getColumnName(i), rs.getObject(i));
+            }
+        }
+
+        rs.close();
+
+        return values;
+
+    }
+
+    /**
+     * Set the attributes of an AttributeSet from the values of a record.
+     * Attributes without a column (older files) keep their defaults.
+     *
+     * @param attSet The AttributeSet to set.
+     * @param values The values by column name.
+     */
+    private void applyValues(AttributeSet attSet, HashMap<String, Object> values) {
+
+        ArrayList<BaseAttribute> attList = attSet.getAttributes();
+
+        for (BaseAttribute att : attList) {
+
+            String colName = att.getName();
+
+            //keep the default for missing columns
+            if (!values.containsKey(colName)) {
+                continue;
+            }
+
+            att.setFromObject(values.get(colName));
+
+        }//end for
+
+    }
+
+    /**
+     * Load the component reference table.  Files without the table (or written
+     * before deduplication) have no references.
+     *
+     * @throws SQLException Exception thrown on database error.
+     */
+    void loadComponentRefs() throws SQLException {
+
+        _componentRefs.clear();
+        _recordCache.clear();
+
+        ResultSet rs = _sqlCmd.executeQuery("SELECT name FROM sqlite_master WHERE type = 'table' AND name = '" + COMPONENT_REF_TABLE_NAME + "';");
+        boolean hasRefs = rs.next();
+        rs.close();
 
-            System.out.println("Conn not open to select bicycles in master");
+        if (hasRefs) {
+
+            rs = _sqlCmd.executeQuery("SELECT * FROM " + COMPONENT_REF_TABLE_NAME + ";");
+            while (rs.next()) {
+                String key = rs.getInt(OWNER_ID_COL_NAME) + ":" + rs.getString(TABLE_COL_NAME);
+                _componentRefs.put(key, rs.getInt(RECORD_ID_COL_NAME));
+            }
+            rs.close();
         }
 
     }
@@ -744,6 +1140,8 @@ public class BGWDataBase {
      */
     public boolean writeFile(BGWProject project) {
 
+        long start = WRITE_TIMER.start();
+
         boolean writeSuccess = false;
 
         //open the connection
@@ -765,6 +1163,12 @@ public class BGWDataBase {
                 //preferences
                 AttributeSet prefSet = prefs.getAttributeSet();
 
+                //never overwrite a file from a newer version
+                SchemaMigrator migrator = new SchemaMigrator(_sqlCmd);
+                if (migrator.getSchemaVersion() > SchemaMigrator.SCHEMA_VERSION) {
+                    throw new SQLException("File is from a newer version, not overwriting: " + _dbPath);
+                }
+
                 _sqlCmd.execute("BEGIN");
 
                 //create table def for rider size
@@ -779,12 +1183,26 @@ public class BGWDataBase {
                 //bicycle association list table
                 prepareBicycleListTable();
 
+                //shared component references
+                prepareComponentRefTable();
+
                 //get single bicycle as template
                 Bicycle bTmplt = bicycles.get(0);
                 //write tables
 //                prepareBicycleTables(bTmplt.getAttributeDB());
                 prepareBicycleTablesNew(bTmplt);
 
+                //existing tables may be from an older schema
+                ArrayList<AttributeSet> templates = new ArrayList();
+                templates.add(sizeSet);
+                templates.add(poseSet);
+                templates.add(prefSet);
+                templates.addAll(bTmplt.getAttributeSets());
+
+                if (!migrator.migrate(templates)) {
+                    throw new SQLException("Could not update the file schema: " + _dbPath);
+                }
+
                 //flag initialized
                 _dbInitialized = true;
 
@@ -797,10 +1215,13 @@ public class BGWDataBase {
                 //insert prefs - no owner
                  insertAttributeSet(prefSet,NO_OWNER_ID, NO_OWNER_ID);
 
+                //component sets already written - identical sets are stored once
+                HashMap<String, Integer> savedSets = new HashMap();
+
                 int bl = bicycles.size();
                 for (int i = 0; i < bl; i++) {
                     Bicycle b = bicycles.get(i);
-                    insertBicycleNew(i, b);
+                    insertBicycleNew(i, b, savedSets);
 
                 }
 
@@ -810,20 +1231,22 @@ public class BGWDataBase {
                 closeConn();
 
                 writeSuccess = true;
+                _readOnly = false;
                 
             } catch (SQLException ex) {
 
-                System.out.println(ex.getMessage());
-                ex.printStackTrace(System.out);
+                LOG.error(ex.getMessage(), ex);
 
             }
 
         } else {
 
             //failed to open....
-            System.out.println("Failed to open db " + _dbPath);
+            LOG.error("Failed to open database", "path", _dbPath);
         }
 
+        WRITE_TIMER.stop(start);
+
         return writeSuccess;
 
     }
@@ -848,8 +1271,7 @@ public class BGWDataBase {
 
             } catch (SQLException ex) {
 
-                System.out.println(ex.getMessage());
-                ex.printStackTrace(System.out);
+                LOG.error(ex.getMessage(), ex);
 
             }
 
@@ -873,8 +1295,7 @@ public class BGWDataBase {
 
             } catch (SQLException ex) {
 
-                System.out.println(ex.getMessage());
-                ex.printStackTrace(System.out);
+                LOG.error(ex.getMessage(), ex);
 
             }
 
@@ -901,8 +1322,7 @@ public class BGWDataBase {
 
             } catch (SQLException ex) {
 
-                System.out.println(ex.getMessage());
-                ex.printStackTrace(System.out);
+                LOG.error(ex.getMessage(), ex);
 
             }
 
@@ -972,7 +1392,7 @@ public class BGWDataBase {
 
         } else {
 
-            System.out.println("Conn not open to init or clear table definition");
+            LOG.error("Connection not open to init or clear table definition", "path", _dbPath);
         }
 
     }
@@ -984,9 +1404,11 @@ public class BGWDataBase {
      * @param order The order of the bicycle (display order - order in bicycle
      * list and navigator).
      * @param bicycle The bicycle to save.
+     * @param savedSets The record ids of component sets already written by content,
+     * or null to write every set (library).
      * @throws SQLException Exception thrown on database error.
      */
-    private void insertBicycleNew(int order, Bicycle bicycle) throws SQLException {
+    private void insertBicycleNew(int order, Bicycle bicycle, HashMap<String, Integer> savedSets) throws SQLException {
 
         int ownerId = -1;
 
@@ -1001,7 +1423,7 @@ public class BGWDataBase {
         for (BaseComponent comp : comps) {
 
             AttributeSet attSet = comp.getAttributeSet();
-            int ca_id = insertAttributeSet(attSet, ownerId, NO_OWNER_ID);
+            int ca_id = insertComponentSet(attSet, ownerId, NO_OWNER_ID, savedSets);
             
             //do for any sub components as well
             if(comp.hasSubComponents()) {
@@ -1009,7 +1431,7 @@ public class BGWDataBase {
                 for(BaseComponent subComp : subComps) {
                     
                     AttributeSet scAttSet = subComp.getAttributeSet();
-                    insertAttributeSet(scAttSet, ownerId, ca_id);                    
+                    insertComponentSet(scAttSet, ownerId, ca_id, savedSets);                    
 
                 }
  
@@ -1019,6 +1441,83 @@ public class BGWDataBase {
 
     }
 
+    /**
+     * Insert a component AttributeSet of a bicycle.  If an identical set has
+     * already been written, only a reference to that record is added.
+     *
+     * @param attSet The component AttributeSet to insert.
+     * @param ownerId The bicycle id.
+     * @param subCompOwnerId The owner id of the parent record for sub-components (or -1).
+     * @param savedSets The record ids of sets already written by content, or null to always insert.
+     * @return The id of the record holding the values.
+     * @throws SQLException Exception thrown on database error.
+     */
+    private int insertComponentSet(AttributeSet attSet, int ownerId, int subCompOwnerId, HashMap<String, Integer> savedSets) throws SQLException {
+
+        if (savedSets == null) {
+            return insertAttributeSet(attSet, ownerId, subCompOwnerId);
+        }
+
+        String key = getContentKey(attSet);
+        Integer recordId = savedSets.get(key);
+
+        if (recordId == null) {
+            //first of its kind - write the values
+            recordId = insertAttributeSet(attSet, ownerId, subCompOwnerId);
+            savedSets.put(key, recordId);
+        } else {
+            //identical to a written set - reference it
+            String insCmd = "INSERT INTO " + COMPONENT_REF_TABLE_NAME;
+            insCmd += " (" + OWNER_ID_COL_NAME + ", " + TABLE_COL_NAME + ", " + RECORD_ID_COL_NAME + ")";
+            insCmd += " VALUES (" + ownerId + ", '" + attSet.getName() + "', " + recordId + ");";
+            _sqlCmd.execute(insCmd);
+        }
+
+        return recordId;
+
+    }
+
+    /**
+     * Get the content key of an AttributeSet.  This is the table name and all the
+     * attribute values, so sets with the same key hold identical values.
+     *
+     * @param attSet The AttributeSet.
+     * @return The content key.
+     */
+    private String getContentKey(AttributeSet attSet) {
+
+        StringBuilder sb = new StringBuilder(attSet.getName());
+
+        for (BaseAttribute att : attSet.getAttributes()) {
+            sb.append('\u0000');
+            sb.append(att.getSQLInsert());
+        }
+
+        return sb.toString();
+
+    }
+
+    /**
+     * Create the component reference table or clear it if it exists.
+     *
+     * @throws SQLException Exception thrown on database error.
+     */
+    private void prepareComponentRefTable() throws SQLException {
+
+        if (_connOpen) {
+
+            String createRefs = "CREATE TABLE IF NOT EXISTS " + COMPONENT_REF_TABLE_NAME + " (";
+            createRefs += OWNER_ID_COL_NAME + " INTEGER NOT NULL, ";
+            createRefs += TABLE_COL_NAME + " TEXT NOT NULL, ";
+            createRefs += RECORD_ID_COL_NAME + " INTEGER NOT NULL);";
+            _sqlCmd.execute(createRefs);
+
+            _sqlCmd.execute("DELETE FROM " + COMPONENT_REF_TABLE_NAME + ";");
+
+        }
+
+    }
+
     /**
      * Inserts an Entry into the Bicycle list table (the master list of
      * bicycles).
@@ -1046,7 +1545,7 @@ public class BGWDataBase {
 
         } else {
 
-            System.out.println("Conn not open to insert AttributeSet");
+            LOG.error("Connection not open to insert attribute set", "path", _dbPath);
         }
 
         return result;
@@ -1079,7 +1578,7 @@ public class BGWDataBase {
 
         } else {
 
-            System.out.println("Conn not open to insert AttributeSet");
+            LOG.error("Connection not open to insert attribute set", "path", _dbPath);
         }
         
         return result;
@@ -1214,6 +1713,11 @@ public class BGWDataBase {
                 
                 
                 AttributeSet attSet = component.getAttributeSet();
+
+                //library may be from an older schema
+                SchemaMigrator migrator = new SchemaMigrator(_sqlCmd);
+                migrator.addMissingColumns(attSet);
+
                 int compId = insertAttributeSet(attSet, NO_OWNER_ID, NO_OWNER_ID);
 
                 _sqlCmd.execute("END");
@@ -1252,8 +1756,7 @@ public class BGWDataBase {
 
             } catch (SQLException ex) {
 
-                System.out.println(ex.getMessage());
-                ex.printStackTrace(System.out);
+                LOG.error(ex.getMessage(), ex);
 
             }
 
@@ -1261,7 +1764,7 @@ public class BGWDataBase {
 
             String mssg = "Error: No connection to the Library File.  Check the Library file and restart.";
             JOptionPane.showMessageDialog(null, mssg);              
-            //System.out.println("Conn not open to insert AttributeSet");
+            //LOG.error("Connection not open to insert attribute set", "path", _dbPath);
         }
 
     }
@@ -1312,8 +1815,7 @@ public class BGWDataBase {
 
             } catch (SQLException ex) {
 
-                System.out.println(ex.getMessage());
-                ex.printStackTrace(System.out);
+                LOG.error(ex.getMessage(), ex);
 
             }
 
@@ -1321,7 +1823,7 @@ public class BGWDataBase {
 
             String mssg = "Error: No connection to the Library File.  Check the Library file and restart.";
             JOptionPane.showMessageDialog(null, mssg);             
-//            System.out.println("Conn not open to select bicycles in master");
+//            LOG.error("Connection not open to select bicycles in master", "path", _dbPath);
         }
 
         return compList;
@@ -32,6 +32,8 @@ import org.bicycleGeometryWorkshop.attributes.AttributeSet;
 import org.bicycleGeometryWorkshop.components.BaseComponent;
 import org.bicycleGeometryWorkshop.components.Bicycle;
 import org.bicycleGeometryWorkshop.ui.BicycleGeometryWorkshopUI;
+import org.bicycleGeometryWorkshop.diagnostics.Log;
+import org.bicycleGeometryWorkshop.diagnostics.Logger;
 
 /**
  *  This class handles all the Library database calls.  The library is used for 
@@ -40,6 +42,8 @@ import org.bicycleGeometryWorkshop.ui.BicycleGeometryWorkshopUI;
  * @author Tom
  */
 public class BGWLibrary {
+
+    private static final Logger LOG = Log.getLogger(BGWLibrary.class);
     
     private static final String LIBRARY_FILE = "library";
     
@@ -55,7 +59,7 @@ public class BGWLibrary {
     public BGWLibrary() {
         
         _workingDir = System.getProperty("user.dir");
-        System.out.println("Working Directory = " + _workingDir);
+        LOG.info("Working directory", "path", _workingDir);
         
         _compLib = new HashMap();
         
@@ -86,7 +90,7 @@ public class BGWLibrary {
  
         String libName = getLibraryPath();
         
-        System.out.println("LibraryFile: " + libName);
+        LOG.info("Library file", "path", libName);
         File libFile = new File(libName);
         
         if(libFile.exists()) {
@@ -0,0 +1,913 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2020 Tom.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.bicycleGeometryWorkshop.database;
+
+import java.awt.Component;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.zip.CRC32;
+import javax.swing.JFileChooser;
+import javax.swing.JOptionPane;
+import javax.swing.filechooser.FileNameExtensionFilter;
+import org.bicycleGeometryWorkshop.app.BGWProject;
+import org.bicycleGeometryWorkshop.app.VisualPreferences;
+import org.bicycleGeometryWorkshop.attributes.AttributeSet;
+import org.bicycleGeometryWorkshop.attributes.BaseAttribute;
+import org.bicycleGeometryWorkshop.attributes.BooleanAttribute;
+import org.bicycleGeometryWorkshop.attributes.DoubleAttribute;
+import org.bicycleGeometryWorkshop.components.Bicycle;
+import org.bicycleGeometryWorkshop.components.RiderMeasurements;
+import org.bicycleGeometryWorkshop.components.RiderPose;
+import org.bicycleGeometryWorkshop.diagnostics.Log;
+import org.bicycleGeometryWorkshop.diagnostics.Logger;
+
+/**
+ * Experimental project store kept as an append-only log of attribute changes.
+ * <p>
+ * Each save appends only the attributes that changed since the last save, keyed
+ * by (bicycle id, component table, attribute name), plus the bicycle order when
+ * bicycles were added, removed or moved.  Appends are written through a memory
+ * mapped region at the end of the file.  Once the log grows larger than the last
+ * snapshot it is compacted: the current state is written as a new snapshot to a
+ * temporary file which then replaces the log.
+ * <p>
+ * Every record carries a CRC32 of its contents and every save (snapshot or
+ * append) ends with a commit record holding the number of records in the batch.
+ * Opening replays the whole file from a read-only mapping.  A batch is applied
+ * only once its commit record is read, and replay stops at the first record
+ * with a bad CRC.  Anything after the last committed batch (crash during save)
+ * is ignored and cut off by the next save, so later appends follow the last
+ * committed batch.
+ * <p>
+ * Version 1 logs (no CRC or commit records) are still read; the first save
+ * after opening one writes a new snapshot in the current format.
+ *
+ * @author Tom
+ */
+public class ChangeLogStore implements ProjectStore {
+
+    private static final Logger LOG = Log.getLogger(ChangeLogStore.class);
+
+    public static final String FILE_EXT = "bgwlog";
+    private static final String FILE_DESC = "Bicycle Geometry Workshop Log (." + FILE_EXT + ")";
+
+    //"BGWL"
+    private static final int MAGIC = 0x4247574C;
+    private static final int FORMAT_VERSION = 2;
+    private static final int HEADER_SIZE = 8;
+
+    //record kinds
+    private static final byte KIND_VALUE = 1;
+    private static final byte KIND_ORDER = 2;
+    private static final byte KIND_COMMIT = 3;
+
+    //length, CRC and kind
+    private static final int RECORD_HEADER = 9;
+
+    //value types
+    private static final byte TYPE_TEXT = 0;
+    private static final byte TYPE_REAL = 1;
+    private static final byte TYPE_INT = 2;
+
+    //compact once the log has this many records and is larger than the snapshot
+    private static final int COMPACT_MIN_RECORDS = 500;
+
+    private String _path;
+    private boolean _requestFile;
+
+    //owner of the file dialogs
+    private Component _parent;
+
+    //stable ids of the bicycles in the log
+    private IdentityHashMap<Bicycle, Integer> _bicycleIds;
+    private int _nextId;
+
+    //the state on disk: owner:table:attribute -> value
+    private HashMap<String, Object> _saved;
+    private int[] _savedOrder;
+
+    private int _snapshotRecords;
+    private int _logRecords;
+    //end of the last committed batch in the file
+    private long _validEnd;
+    //the open file is an older format and must be rewritten before appending
+    private boolean _legacyFormat;
+
+    private CRC32 _crc;
+
+    /**
+     * Class constructor.
+     */
+    public ChangeLogStore() {
+
+        _path = "";
+        _requestFile = true;
+
+        _bicycleIds = new IdentityHashMap();
+        _nextId = 0;
+
+        _saved = new HashMap();
+        _savedOrder = new int[0];
+
+        _snapshotRecords = 0;
+        _logRecords = 0;
+        _validEnd = 0;
+        _legacyFormat = false;
+
+        _crc = new CRC32();
+
+        _parent = null;
+
+    }
+
+    /**
+     * Set the owner of the file dialogs.
+     *
+     * @param parent The owner component or null.
+     */
+    public void setParent(Component parent) {
+        _parent = parent;
+    }
+
+    /**
+     * Get the log file path.
+     *
+     * @return The path or an empty string if it has not been saved.
+     */
+    @Override
+    public String getFilePath() {
+        return _path;
+    }
+
+    /**
+     * Resets the open flags so the store assumes it is a blank file.
+     */
+    @Override
+    public void resetOpenFlags() {
+
+        _path = "";
+        _requestFile = true;
+        _saved.clear();
+        _savedOrder = new int[0];
+
+        _bicycleIds.clear();
+        _nextId = 0;
+
+        _snapshotRecords = 0;
+        _logRecords = 0;
+        _validEnd = 0;
+        _legacyFormat = false;
+
+    }
+
+    /**
+     * Open a log file.  This will prompt for the path.
+     *
+     * @param project The project to load.
+     * @return True if the project was opened.
+     */
+    @Override
+    public boolean openFile(BGWProject project) {
+
+        String path = getLogFilePath(false);
+
+        if (path.isEmpty()) {
+            return false;
+        }
+
+        return openFile(project, path);
+
+    }
+
+    /**
+     * Open a log file by replaying it into the project.
+     *
+     * @param project The project to load.
+     * @param path The path of the log.
+     * @return True if the project was opened.
+     */
+    @Override
+    public boolean openFile(BGWProject project, String path) {
+
+        boolean fileLoaded = false;
+
+        HashMap<String, Object> state = new HashMap();
+        int[] order = new int[0];
+        int records = 0;
+        //the snapshot is the first committed batch, appends follow it
+        int snapshotRecords = -1;
+        long validEnd = 0;
+        int version = 0;
+
+        //records of the batch being read, applied at its commit record
+        HashMap<String, Object> pending = new HashMap();
+        int[] pendingOrder = null;
+        int batch = 0;
+
+        try (FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ)) {
+
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+            if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC) {
+                LOG.warn("Not a project log file", "path", path);
+                return false;
+            }
+
+            version = buffer.getInt();
+            if (version > FORMAT_VERSION) {
+                LOG.warn("Unsupported log version", "version", version, "path", path);
+                return false;
+            }
+
+            //version 1 has no CRC or commit records
+            boolean checked = version >= 2;
+            int lenSize = checked ? 8 : 4;
+
+            validEnd = buffer.position();
+
+            //replay
+            while (buffer.remaining() >= lenSize) {
+
+                int recordPos = buffer.position();
+                int len = buffer.getInt();
+                int crc = checked ? buffer.getInt() : 0;
+
+                //partly written record - stop here
+                if (len <= 0 || len > buffer.remaining()) {
+                    LOG.warn("Ignoring incomplete log record", "position", recordPos);
+                    break;
+                }
+
+                int start = buffer.position();
+
+                if (checked && getCrc(buffer, start, len) != crc) {
+                    LOG.warn("Ignoring log record with a bad CRC", "position", recordPos);
+                    break;
+                }
+
+                byte kind = buffer.get();
+                if (kind == KIND_VALUE) {
+                    int owner = buffer.getInt();
+                    String table = getString(buffer);
+                    String att = getString(buffer);
+                    pending.put(getKey(owner, table, att), getValue(buffer));
+                } else if (kind == KIND_ORDER) {
+                    pendingOrder = new int[buffer.getInt()];
+                    for (int i = 0; i < pendingOrder.length; i++) {
+                        pendingOrder[i] = buffer.getInt();
+                    }
+                } else if (kind == KIND_COMMIT && buffer.getInt() != batch) {
+                    LOG.warn("Ignoring log batch with a wrong record count", "position", recordPos);
+                    break;
+                }
+
+                //skip to the next record (unknown kinds are ignored)
+                buffer.position(start + len);
+
+                if (kind != KIND_COMMIT) {
+                    batch++;
+                }
+
+                //version 1 records commit one at a time
+                if (kind == KIND_COMMIT || !checked) {
+
+                    state.putAll(pending);
+                    pending.clear();
+                    if (pendingOrder != null) {
+                        order = pendingOrder;
+                        pendingOrder = null;
+                    }
+
+                    records += batch;
+                    batch = 0;
+                    validEnd = buffer.position();
+
+                    //version 1 snapshots end with the first order record
+                    if (snapshotRecords < 0 && (checked || kind == KIND_ORDER)) {
+                        snapshotRecords = records;
+                    }
+                }
+            }
+
+            if (batch > 0) {
+                LOG.warn("Ignoring uncommitted log records", "records", batch, "path", path);
+            }
+
+            if (snapshotRecords < 0) {
+                snapshotRecords = records;
+            }
+
+            fileLoaded = true;
+
+        } catch (IOException | RuntimeException ex) {
+            LOG.error(ex.getMessage(), ex);
+        }
+
+        if (!fileLoaded) {
+            return false;
+        }
+
+        LOG.info("Replayed log records", "records", records, "path", path);
+
+        //apply the state
+        RiderMeasurements rSize = project.getRiderSize();
+        RiderPose rPose = project.getRiderPose();
+        VisualPreferences prefs = project.getVisualPreferences();
+        ArrayList<Bicycle> bicycles = project.getBicycles();
+
+        applyState(state, BGWDataBase.NO_OWNER_ID, rSize.getAttributeSet());
+        applyState(state, BGWDataBase.NO_OWNER_ID, rPose.getAttributeSet());
+        applyState(state, BGWDataBase.NO_OWNER_ID, prefs.getAttributeSet());
+
+        bicycles.clear();
+        _bicycleIds.clear();
+        _nextId = 0;
+
+        for (int id : order) {
+
+            Bicycle b = new Bicycle("default", rSize, rPose, prefs);
+            bicycles.add(b);
+
+            for (AttributeSet attSet : b.getAttributeSets()) {
+                applyState(state, id, attSet);
+            }
+
+            _bicycleIds.put(b, id);
+            _nextId = Math.max(_nextId, id + 1);
+        }
+
+        _path = path;
+        _requestFile = false;
+        _saved = state;
+        _savedOrder = order;
+        _snapshotRecords = snapshotRecords;
+        _logRecords = records - snapshotRecords;
+        _validEnd = validEnd;
+        _legacyFormat = version < FORMAT_VERSION;
+
+        return true;
+
+    }
+
+    /**
+     * Save the project.  Only the changes since the last save are appended.
+     *
+     * @param project The project to save.
+     * @return True if the project was saved.
+     */
+    @Override
+    public boolean saveFile(BGWProject project) {
+
+        if (_requestFile) {
+
+            String path = getLogFilePath(true);
+            if (path.isEmpty()) {
+                return false;
+            }
+
+            _path = path;
+            _requestFile = false;
+
+            //new file - start with a snapshot
+            return writeSnapshot(project);
+        }
+
+        return appendChanges(project);
+
+    }
+
+    /**
+     * Save the project to a new log file.  This prompts for the path and
+     * writes a snapshot.
+     *
+     * @param project The project to save.
+     */
+    @Override
+    public void saveFileAs(BGWProject project) {
+
+        String path = getLogFilePath(true);
+        if (path.isEmpty()) {
+            return;
+        }
+
+        _path = path;
+        _requestFile = false;
+
+        writeSnapshot(project);
+
+    }
+
+    /**
+     * Append the changed attributes and bicycle order to the log as one
+     * committed batch.  Compacts the log when it has grown larger than the
+     * snapshot.
+     *
+     * @param project The project to save.
+     * @return True if the changes were written.
+     */
+    private boolean appendChanges(BGWProject project) {
+
+        HashMap<String, Object> current = new HashMap();
+        int[] order = collectState(project, current);
+
+        ByteBuffer changes = ByteBuffer.allocate(1024);
+        int count = 0;
+
+        for (Map.Entry<String, Object> entry : current.entrySet()) {
+
+            if (!Objects.equals(entry.getValue(), _saved.get(entry.getKey()))) {
+                changes = ensureCapacity(changes, getRecordCapacity(entry.getKey(), entry.getValue()));
+                putValueRecord(changes, entry.getKey(), entry.getValue());
+                count++;
+            }
+        }
+
+        if (!Arrays.equals(order, _savedOrder)) {
+            changes = ensureCapacity(changes, RECORD_HEADER + 4 + order.length * 4);
+            putOrderRecord(changes, order);
+            count++;
+        }
+
+        //nothing changed
+        if (count == 0) {
+            return true;
+        }
+
+        //log is bigger than the snapshot or an older format - rewrite instead
+        int logRecords = _logRecords + count;
+        if (_legacyFormat || (logRecords >= COMPACT_MIN_RECORDS && logRecords > _snapshotRecords)) {
+            return writeSnapshot(project);
+        }
+
+        changes = ensureCapacity(changes, RECORD_HEADER + 4);
+        putCommitRecord(changes, count);
+
+        changes.flip();
+
+        try (FileChannel channel = FileChannel.open(Paths.get(_path), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+
+            //drop an uncommitted batch left by an earlier crash
+            if (channel.size() > _validEnd) {
+                channel.truncate(_validEnd);
+            }
+
+            //map the region past the end - this grows the file
+            int size = changes.remaining();
+            MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_WRITE, _validEnd, size);
+            region.put(changes);
+            region.force();
+
+            _validEnd += size;
+
+        } catch (IOException ex) {
+            LOG.error(ex.getMessage(), ex);
+            return false;
+        }
+
+        _saved.putAll(current);
+        _savedOrder = order;
+        _logRecords = logRecords;
+
+        return true;
+
+    }
+
+    /**
+     * Write the full project state as a snapshot.  The snapshot is written to a
+     * temporary file and moved over the log so a failed write leaves the
+     * previous log in place.
+     *
+     * @param project The project to write.
+     * @return True if the snapshot was written.
+     */
+    private boolean writeSnapshot(BGWProject project) {
+
+        HashMap<String, Object> current = new HashMap();
+        int[] order = collectState(project, current);
+
+        ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+        buffer.putInt(MAGIC);
+        buffer.putInt(FORMAT_VERSION);
+
+        for (Map.Entry<String, Object> entry : current.entrySet()) {
+            buffer = ensureCapacity(buffer, getRecordCapacity(entry.getKey(), entry.getValue()));
+            putValueRecord(buffer, entry.getKey(), entry.getValue());
+        }
+
+        buffer = ensureCapacity(buffer, RECORD_HEADER + 4 + order.length * 4);
+        putOrderRecord(buffer, order);
+
+        buffer = ensureCapacity(buffer, RECORD_HEADER + 4);
+        putCommitRecord(buffer, current.size() + 1);
+
+        buffer.flip();
+        int size = buffer.remaining();
+
+        Path target = Paths.get(_path);
+        Path temp = Paths.get(_path + ".tmp");
+
+        try {
+
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(true);
+            }
+
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        } catch (IOException ex) {
+            LOG.error(ex.getMessage(), ex);
+            return false;
+        }
+
+        _saved = current;
+        _savedOrder = order;
+        _snapshotRecords = current.size() + 1;
+        _logRecords = 0;
+        _validEnd = size;
+        _legacyFormat = false;
+
+        return true;
+
+    }
+
+    /**
+     * Collect the current values of the project.
+     *
+     * @param project The project.
+     * @param state The map to fill with owner:table:attribute -> value.
+     * @return The bicycle ids in project order.
+     */
+    private int[] collectState(BGWProject project, HashMap<String, Object> state) {
+
+        putState(state, BGWDataBase.NO_OWNER_ID, project.getRiderSize().getAttributeSet());
+        putState(state, BGWDataBase.NO_OWNER_ID, project.getRiderPose().getAttributeSet());
+        putState(state, BGWDataBase.NO_OWNER_ID, project.getVisualPreferences().getAttributeSet());
+
+        ArrayList<Bicycle> bicycles = project.getBicycles();
+        int[] order = new int[bicycles.size()];
+
+        for (int i = 0; i < order.length; i++) {
+
+            Bicycle b = bicycles.get(i);
+
+            Integer id = _bicycleIds.get(b);
+            if (id == null) {
+                id = _nextId++;
+                _bicycleIds.put(b, id);
+            }
+            order[i] = id;
+
+            for (AttributeSet attSet : b.getAttributeSets()) {
+                putState(state, id, attSet);
+            }
+        }
+
+        return order;
+    }
+
+    /**
+     * Put the values of an AttributeSet into a state map.
+     *
+     * @param state The state map.
+     * @param owner The owner id.
+     * @param attSet The AttributeSet.
+     */
+    private void putState(HashMap<String, Object> state, int owner, AttributeSet attSet) {
+
+        String table = attSet.getName();
+
+        for (BaseAttribute att : attSet.getAttributes()) {
+            state.put(getKey(owner, table, att.getName()), getAttributeValue(att));
+        }
+
+    }
+
+    /**
+     * Set the attributes of an AttributeSet from a state map.  Attributes not
+     * in the state keep their defaults.
+     *
+     * @param state The state map.
+     * @param owner The owner id.
+     * @param attSet The AttributeSet.
+     */
+    private void applyState(HashMap<String, Object> state, int owner, AttributeSet attSet) {
+
+        String table = attSet.getName();
+
+        for (BaseAttribute att : attSet.getAttributes()) {
+
+            Object value = state.get(getKey(owner, table, att.getName()));
+            if (value != null) {
+                att.setFromObject(value);
+            }
+        }
+
+    }
+
+    /**
+     * Get the value of an attribute in the form stored in the log.  Doubles are
+     * Double, booleans are Integer (0/1), everything else is the SQL string form.
+     *
+     * @param att The attribute.
+     * @return The value.
+     */
+    private Object getAttributeValue(BaseAttribute att) {
+
+        if (att instanceof DoubleAttribute) {
+            return ((DoubleAttribute) att).getDoubleValue();
+        } else if (att instanceof BooleanAttribute) {
+            return ((BooleanAttribute) att).getBooleanValue() ? 1 : 0;
+        }
+
+        return att.getSQLInsert();
+    }
+
+    /**
+     * Get the key of an attribute value.
+     *
+     * @param owner The owner id.
+     * @param table The table (AttributeSet) name.
+     * @param att The attribute name.
+     * @return The key.
+     */
+    private String getKey(int owner, String table, String att) {
+        return owner + "\u0000" + table + "\u0000" + att;
+    }
+
+    /**
+     * Write a value record.
+     *
+     * @param buffer The buffer to write to.
+     * @param key The owner:table:attribute key.
+     * @param value The value.
+     */
+    private void putValueRecord(ByteBuffer buffer, String key, Object value) {
+
+        String[] parts = key.split("\u0000", 3);
+
+        int lenPos = buffer.position();
+        buffer.putInt(0);
+        buffer.putInt(0);
+        buffer.put(KIND_VALUE);
+        buffer.putInt(Integer.parseInt(parts[0]));
+        putString(buffer, parts[1]);
+        putString(buffer, parts[2]);
+
+        if (value instanceof Double) {
+            buffer.put(TYPE_REAL);
+            buffer.putDouble((Double) value);
+        } else if (value instanceof Integer) {
+            buffer.put(TYPE_INT);
+            buffer.putInt((Integer) value);
+        } else {
+            buffer.put(TYPE_TEXT);
+            putString(buffer, String.valueOf(value));
+        }
+
+        finishRecord(buffer, lenPos);
+
+    }
+
+    /**
+     * Write a bicycle order record.
+     *
+     * @param buffer The buffer to write to.
+     * @param order The bicycle ids in order.
+     */
+    private void putOrderRecord(ByteBuffer buffer, int[] order) {
+
+        int lenPos = buffer.position();
+        buffer.putInt(0);
+        buffer.putInt(0);
+        buffer.put(KIND_ORDER);
+        buffer.putInt(order.length);
+        for (int id : order) {
+            buffer.putInt(id);
+        }
+
+        finishRecord(buffer, lenPos);
+
+    }
+
+    /**
+     * Write the commit record that ends a save batch.
+     *
+     * @param buffer The buffer to write to.
+     * @param count The number of records in the batch.
+     */
+    private void putCommitRecord(ByteBuffer buffer, int count) {
+
+        int lenPos = buffer.position();
+        buffer.putInt(0);
+        buffer.putInt(0);
+        buffer.put(KIND_COMMIT);
+        buffer.putInt(count);
+
+        finishRecord(buffer, lenPos);
+
+    }
+
+    /**
+     * Fill in the length and CRC of a record once its contents are written.
+     *
+     * @param buffer The buffer positioned at the end of the record.
+     * @param lenPos The position of the record length.
+     */
+    private void finishRecord(ByteBuffer buffer, int lenPos) {
+
+        int start = lenPos + 8;
+        int len = buffer.position() - start;
+
+        buffer.putInt(lenPos, len);
+        buffer.putInt(lenPos + 4, getCrc(buffer, start, len));
+
+    }
+
+    /**
+     * Get the CRC32 of a record.  The buffer position is left unchanged.
+     *
+     * @param buffer The buffer.
+     * @param start The start of the record contents.
+     * @param len The length of the record contents.
+     * @return The CRC (low 32 bits).
+     */
+    private int getCrc(ByteBuffer buffer, int start, int len) {
+
+        int position = buffer.position();
+        int limit = buffer.limit();
+
+        buffer.limit(start + len);
+        buffer.position(start);
+
+        _crc.reset();
+        _crc.update(buffer);
+
+        buffer.limit(limit);
+        buffer.position(position);
+
+        return (int) _crc.getValue();
+    }
+
+    /**
+     * Read a value.
+     *
+     * @param buffer The buffer to read from.
+     * @return The value.
+     */
+    private Object getValue(ByteBuffer buffer) {
+
+        byte type = buffer.get();
+
+        switch (type) {
+            case TYPE_REAL:
+                return buffer.getDouble();
+            case TYPE_INT:
+                return buffer.getInt();
+            default:
+                return getString(buffer);
+        }
+
+    }
+
+    /**
+     * Write a string (length and UTF-8 bytes).
+     *
+     * @param buffer The buffer to write to.
+     * @param value The string.
+     */
+    private void putString(ByteBuffer buffer, String value) {
+
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        buffer.putInt(bytes.length);
+        buffer.put(bytes);
+
+    }
+
+    /**
+     * Read a string (length and UTF-8 bytes).
+     *
+     * @param buffer The buffer to read from.
+     * @return The string.
+     */
+    private String getString(ByteBuffer buffer) {
+
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+
+    }
+
+    /**
+     * Get the most space a value record can need (UTF-8 is at most 3 bytes per char).
+     *
+     * @param key The owner:table:attribute key.
+     * @param value The value.
+     * @return The maximum record size in bytes.
+     */
+    private int getRecordCapacity(String key, Object value) {
+        return RECORD_HEADER + 32 + (key.length() + String.valueOf(value).length()) * 3;
+    }
+
+    /**
+     * Grow a buffer if it has less than the requested space remaining.
+     *
+     * @param buffer The buffer.
+     * @param needed The space needed.
+     * @return The buffer or a larger copy of it.
+     */
+    private ByteBuffer ensureCapacity(ByteBuffer buffer, int needed) {
+
+        if (buffer.remaining() >= needed) {
+            return buffer;
+        }
+
+        ByteBuffer larger = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + needed));
+        buffer.flip();
+        larger.put(buffer);
+
+        return larger;
+    }
+
+    /**
+     * Prompt for the log file path.
+     *
+     * @param save True for a save dialog, false for open.
+     * @return The selected path or an empty string if canceled.
+     */
+    private String getLogFilePath(boolean save) {
+
+        JFileChooser fileChooser = new JFileChooser();
+        fileChooser.setFileFilter(new FileNameExtensionFilter(FILE_DESC, FILE_EXT));
+
+        Component frame = _parent;
+        int returnVal = save ? fileChooser.showSaveDialog(frame) : fileChooser.showOpenDialog(frame);
+
+        if (returnVal != JFileChooser.APPROVE_OPTION) {
+            return "";
+        }
+
+        String fname = fileChooser.getSelectedFile().getPath();
+        if (!fname.endsWith("." + FILE_EXT)) {
+            fname += "." + FILE_EXT;
+        }
+
+        File file = new File(fname);
+
+        if (save && file.exists()) {
+            String mssg = "Overwrite file: " + fname + " ?";
+            int result = JOptionPane.showConfirmDialog(frame, mssg, "File Exists", JOptionPane.OK_CANCEL_OPTION, JOptionPane.WARNING_MESSAGE);
+            if (result != JOptionPane.OK_OPTION) {
+                return "";
+            }
+        } else if (!save && !file.exists()) {
+            String mssg = "The file: \"" + fname + "\" was not found.";
+            JOptionPane.showMessageDialog(frame, mssg, "File not found", JOptionPane.ERROR_MESSAGE);
+            return "";
+        }
+
+        return fname;
+
+    }
+
+}
@@ -0,0 +1,375 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2020 Tom.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.bicycleGeometryWorkshop.database;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.swing.SwingWorker;
+import org.bicycleGeometryWorkshop.attributes.AttributeSet;
+import org.bicycleGeometryWorkshop.attributes.BaseAttribute;
+import org.bicycleGeometryWorkshop.components.Bicycle;
+import org.bicycleGeometryWorkshop.diagnostics.Log;
+import org.bicycleGeometryWorkshop.diagnostics.Logger;
+import org.bicycleGeometryWorkshop.diagnostics.Metric;
+import org.bicycleGeometryWorkshop.diagnostics.Metrics;
+
+/**
+ * Loads the component attributes of lazily opened bicycles.  A lazy open only
+ * reads the bicycle list and the bicycle attribute sets (name, visibility, etc.)
+ * so the UI can show the project right away.  The component sets of the pending
+ * bicycles are read here, either in the background or on demand when a bicycle
+ * is selected.
+ * <p>
+ * Database reads run on a worker thread while the values are applied to the
+ * attributes on the event dispatch thread, so the components are only ever
+ * modified from the UI thread.  All methods other than the worker's reads must
+ * be called on the event dispatch thread.
+ *
+ * @author Tom
+ */
+public class LazyBicycleLoader {
+
+    private static final Logger LOG = Log.getLogger(LazyBicycleLoader.class);
+
+    //background load from start() until the last bicycle is applied
+    private static final Metric LOAD_TIMER = Metrics.timer("LazyBicycleLoader.load");
+
+    private BGWDataBase _db;
+    private LinkedHashMap<Bicycle, Integer> _pending;
+    private Runnable _onLoaded;
+    private LoadWorker _worker;
+    private long _loadStart;
+
+    /**
+     * Class constructor.
+     *
+     * @param db The database with an open connection to the project file.  The
+     * loader owns the connection and closes it when all bicycles are loaded.
+     * @param onLoaded Called on the event dispatch thread after bicycles are loaded.
+     */
+    LazyBicycleLoader(BGWDataBase db, Runnable onLoaded) {
+
+        _db = db;
+        _onLoaded = onLoaded;
+        _pending = new LinkedHashMap();
+        _worker = null;
+        _loadStart = 0;
+
+    }
+
+    /**
+     * Add a bicycle whose components have not been loaded.
+     *
+     * @param bicycle The bicycle.
+     * @param id The bicycle list id of the bicycle (owner id of its components).
+     */
+    void addPending(Bicycle bicycle, int id) {
+        _pending.put(bicycle, id);
+    }
+
+    /**
+     * Check if a bicycle is still waiting for its components to load.
+     *
+     * @param bicycle The bicycle to check.
+     * @return True if the bicycle components have not been loaded yet.
+     */
+    public boolean isPending(Bicycle bicycle) {
+        return _pending.containsKey(bicycle);
+    }
+
+    /**
+     * Get the number of bicycles waiting to load.
+     *
+     * @return The number of pending bicycles.
+     */
+    public int getPendingCount() {
+        return _pending.size();
+    }
+
+    /**
+     * Start loading the pending bicycles in the background.
+     */
+    public void start() {
+
+        if (_worker == null && !_pending.isEmpty()) {
+
+            _loadStart = LOAD_TIMER.start();
+
+            _worker = new LoadWorker(new LinkedHashMap(_pending));
+            _worker.execute();
+        }
+
+    }
+
+    /**
+     * Load a bicycle now if it is pending.  Used when a bicycle is selected
+     * before the background load reaches it.
+     *
+     * @param bicycle The bicycle to load.
+     */
+    public void ensureLoaded(Bicycle bicycle) {
+
+        Integer id = _pending.get(bicycle);
+
+        if (id != null) {
+
+            try {
+                HashMap<String, HashMap<String, Object>> values = _db.readBicycleComponentValues(bicycle, id);
+                applyValues(bicycle, values);
+            } catch (SQLException ex) {
+                LOG.error(ex.getMessage(), ex);
+                //give up on this bicycle - keep the defaults
+                _pending.remove(bicycle);
+            }
+
+            checkFinished();
+            _onLoaded.run();
+        }
+
+    }
+
+    /**
+     * Load all the pending bicycles now.  This is called before the project is
+     * saved so no defaults are written in place of the file values.
+     */
+    public void loadAll() {
+
+        cancelWorker();
+
+        ArrayList<Bicycle> bicycles = new ArrayList(_pending.keySet());
+        for (Bicycle b : bicycles) {
+
+            Integer id = _pending.get(b);
+
+            try {
+                HashMap<String, HashMap<String, Object>> values = _db.readBicycleComponentValues(b, id);
+                applyValues(b, values);
+            } catch (SQLException ex) {
+                LOG.error(ex.getMessage(), ex);
+                _pending.remove(b);
+            }
+        }
+
+        checkFinished();
+
+        if (!bicycles.isEmpty()) {
+            _onLoaded.run();
+        }
+
+    }
+
+    /**
+     * Stop loading and close the connection.  Pending bicycles keep their
+     * default values.  Used when the project is replaced by another file.
+     */
+    public void cancel() {
+
+        cancelWorker();
+        _pending.clear();
+        _db.closeConn();
+
+        //not a complete load - don't record it
+        _loadStart = 0;
+
+    }
+
+    /**
+     * Cancel the background worker if it is running.
+     */
+    private void cancelWorker() {
+
+        if (_worker != null) {
+            _worker.cancel(false);
+            _worker = null;
+        }
+
+    }
+
+    /**
+     * Close the connection once all bicycles are loaded.
+     */
+    private void checkFinished() {
+
+        if (_pending.isEmpty()) {
+            cancelWorker();
+            _db.closeConn();
+
+            LOAD_TIMER.stop(_loadStart);
+            _loadStart = 0;
+        }
+
+    }
+
+    /**
+     * Apply the values read from the database to a pending bicycle's components
+     * and rebuild it.  Notifications are suppressed so loading doesn't create
+     * undo entries or mark the project as changed.
+     *
+     * @param bicycle The bicycle to apply the values to.
+     * @param values The values by table name and column name.
+     */
+    private void applyValues(Bicycle bicycle, HashMap<String, HashMap<String, Object>> values) {
+
+        //skip if loaded already (on demand while the worker was reading it)
+        if (_pending.remove(bicycle) == null) {
+            return;
+        }
+
+        for (AttributeSet attSet : bicycle.getAttributeSets()) {
+
+            //the bicycle set is loaded with the headers
+            if (attSet == bicycle.getAttributeSet()) {
+                continue;
+            }
+
+            HashMap<String, Object> setValues = values.get(attSet.getName());
+            if (setValues == null) {
+                continue;
+            }
+
+            for (BaseAttribute att : attSet.getAttributes()) {
+
+                //missing columns keep the default
+                if (!setValues.containsKey(att.getName())) {
+                    continue;
+                }
+
+                boolean notify = att.getNotifactionEnabled();
+                att.enableNotification(false);
+                att.setFromObject(setValues.get(att.getName()));
+                att.enableNotification(notify);
+
+            }
+        }
+
+        bicycle.updateAllComponents();
+
+    }
+
+    /**
+     * Worker that reads the pending bicycles in the background and publishes
+     * them to the event dispatch thread.
+     */
+    private class LoadWorker extends SwingWorker<Void, LoadedBicycle> {
+
+        private LinkedHashMap<Bicycle, Integer> _toLoad;
+
+        /**
+         * Constructor.
+         *
+         * @param toLoad The bicycles to load with their ids.
+         */
+        LoadWorker(LinkedHashMap<Bicycle, Integer> toLoad) {
+            _toLoad = toLoad;
+        }
+
+        /**
+         * Read the bicycles.
+         *
+         * @return Nothing.
+         * @throws Exception Exception thrown on database error.
+         */
+        @Override
+        protected Void doInBackground() throws Exception {
+
+            for (Map.Entry<Bicycle, Integer> entry : _toLoad.entrySet()) {
+
+                if (isCancelled()) {
+                    break;
+                }
+
+                Bicycle b = entry.getKey();
+                HashMap<String, HashMap<String, Object>> values = _db.readBicycleComponentValues(b, entry.getValue());
+                publish(new LoadedBicycle(b, values));
+            }
+
+            return null;
+        }
+
+        /**
+         * Apply the loaded bicycles on the event dispatch thread.
+         *
+         * @param chunks The bicycles read since the last call.
+         */
+        @Override
+        protected void process(List<LoadedBicycle> chunks) {
+
+            //the worker was replaced or cancelled
+            if (_worker != this) {
+                return;
+            }
+
+            for (LoadedBicycle lb : chunks) {
+                applyValues(lb.bicycle, lb.values);
+            }
+
+            checkFinished();
+            _onLoaded.run();
+
+        }
+
+        /**
+         * Report any database error.
+         */
+        @Override
+        protected void done() {
+
+            if (!isCancelled()) {
+                try {
+                    get();
+                } catch (Exception ex) {
+                    LOG.error(ex.getMessage(), ex);
+                }
+            }
+
+        }
+
+    }
+
+    /**
+     * Simple class to pass a bicycle and its values from the worker.
+     */
+    private class LoadedBicycle {
+
+        Bicycle bicycle;
+        HashMap<String, HashMap<String, Object>> values;
+
+        /**
+         * Constructor.
+         *
+         * @param b The bicycle.
+         * @param v The values by table name and column name.
+         */
+        LoadedBicycle(Bicycle b, HashMap<String, HashMap<String, Object>> v) {
+            bicycle = b;
+            values = v;
+        }
+
+    }
+
+}
@@ -0,0 +1,80 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2020 Tom.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.bicycleGeometryWorkshop.database;
+
+import org.bicycleGeometryWorkshop.app.BGWProject;
+
+/**
+ * Storage used by the project for the file operations (open, save, etc.).
+ * The default store is the SQLite database (BGWDataBase).
+ *
+ * @author Tom
+ */
+public interface ProjectStore {
+
+    /**
+     * Open a file.  This will prompt for the file path.
+     *
+     * @param project The project to load.
+     * @return True if the project was opened, false for cancel or failure.
+     */
+    public boolean openFile(BGWProject project);
+
+    /**
+     * Open a file from a path.
+     *
+     * @param project The project to load.
+     * @param path The path of the file to open.
+     * @return True if the project was opened.
+     */
+    public boolean openFile(BGWProject project, String path);
+
+    /**
+     * Save the project.  This will prompt for a path if the project has not been saved.
+     *
+     * @param project The project to save.
+     * @return True if the project was saved, false if canceled or on error.
+     */
+    public boolean saveFile(BGWProject project);
+
+    /**
+     * Save the project to a new file.  This will prompt for the path.
+     *
+     * @param project The project to save.
+     */
+    public void saveFileAs(BGWProject project);
+
+    /**
+     * Get the file path.
+     *
+     * @return The file path or an empty string if it has not been saved.
+     */
+    public String getFilePath();
+
+    /**
+     * Resets the open flags so the store assumes it is a blank file.
+     */
+    public void resetOpenFlags();
+
+}
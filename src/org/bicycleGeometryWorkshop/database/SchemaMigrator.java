@@ -0,0 +1,304 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2020 Tom.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.bicycleGeometryWorkshop.database;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashSet;
+import org.bicycleGeometryWorkshop.attributes.AttributeDataType;
+import org.bicycleGeometryWorkshop.attributes.AttributeSet;
+import org.bicycleGeometryWorkshop.attributes.BaseAttribute;
+import org.bicycleGeometryWorkshop.diagnostics.Log;
+import org.bicycleGeometryWorkshop.diagnostics.Logger;
+
+/**
+ * Forward schema migrations for the project database.  The schema version is
+ * stored in its own table and every migration above the stored version is
+ * applied in order when a file is opened or saved.  A file from a newer
+ * version, or one the migration can't be written to, is opened read-only.
+ * <p>
+ * Column changes are not versioned: the tables are derived from the AttributeSets,
+ * so any attribute missing from an existing table is added with the attribute's
+ * default value.  This keeps older files loadable when attributes are added to a component.
+ *
+ * @author Tom
+ */
+class SchemaMigrator {
+
+    private static final Logger LOG = Log.getLogger(SchemaMigrator.class);
+
+    public static final String SCHEMA_TABLE_NAME = "schema_version";
+    public static final String VERSION_COL_NAME = "version";
+
+    /**
+     * The current schema version.  Bump this and add a case to applyMigration()
+     * for each new migration.
+     */
+    public static final int SCHEMA_VERSION = 2;
+
+    private static final String MIGRATE_SAVEPOINT = "schema_migration";
+
+    private Statement _sqlCmd;
+
+    /**
+     * Class constructor.
+     *
+     * @param sqlCmd The statement of the open connection.
+     */
+    SchemaMigrator(Statement sqlCmd) {
+        _sqlCmd = sqlCmd;
+    }
+
+    /**
+     * Bring the database up to the current schema.  Missing columns are added
+     * to existing tables, then any pending migrations are applied.
+     * <p>
+     * Files from a newer version are left untouched.  If the migration can't be
+     * written (read-only file or folder) it is rolled back and the file can
+     * still be read - attributes without a column keep their defaults.  In both
+     * cases the file must not be written back.
+     *
+     * @param templates The AttributeSets holding the table definitions and default values.
+     * @return True if the file is at the current schema, false if it must be opened read-only.
+     * @throws SQLException Exception thrown on database error.
+     */
+    public boolean migrate(ArrayList<AttributeSet> templates) throws SQLException {
+
+        int version = getSchemaVersion();
+
+        if (version > SCHEMA_VERSION) {
+            LOG.warn("File schema is newer than this version, opening read-only", "version", version, "supported", SCHEMA_VERSION);
+            return false;
+        }
+
+        //undo a partial migration on failure
+        _sqlCmd.execute("SAVEPOINT " + MIGRATE_SAVEPOINT);
+
+        try {
+
+            for (AttributeSet attSet : templates) {
+                addMissingColumns(attSet);
+            }
+
+            for (int v = version + 1; v <= SCHEMA_VERSION; v++) {
+                LOG.info("Migrating schema", "version", v);
+                applyMigration(v, templates);
+            }
+
+            if (version < SCHEMA_VERSION) {
+                setSchemaVersion(SCHEMA_VERSION);
+            }
+
+            _sqlCmd.execute("RELEASE " + MIGRATE_SAVEPOINT);
+
+        } catch (SQLException ex) {
+
+            LOG.error(ex.getMessage(), ex);
+            LOG.warn("Could not migrate the file schema, opening read-only", "version", version);
+
+            _sqlCmd.execute("ROLLBACK TO " + MIGRATE_SAVEPOINT);
+            _sqlCmd.execute("RELEASE " + MIGRATE_SAVEPOINT);
+
+            return false;
+        }
+
+        return true;
+
+    }
+
+    /**
+     * Apply a single migration.
+     *
+     * @param version The version to migrate to.
+     * @param templates The AttributeSets holding the table definitions.
+     * @throws SQLException Exception thrown on database error.
+     */
+    private void applyMigration(int version, ArrayList<AttributeSet> templates) throws SQLException {
+
+        switch (version) {
+            case 1:
+                //index the owner id lookups used on load
+                for (AttributeSet attSet : templates) {
+                    createIndex(attSet.getName(), BGWDataBase.OWNER_ID_COL_NAME);
+                }
+                break;
+            case 2:
+                //shared (deduplicated) component references
+                String createRefs = "CREATE TABLE IF NOT EXISTS " + BGWDataBase.COMPONENT_REF_TABLE_NAME + " (";
+                createRefs += BGWDataBase.OWNER_ID_COL_NAME + " INTEGER NOT NULL, ";
+                createRefs += BGWDataBase.TABLE_COL_NAME + " TEXT NOT NULL, ";
+                createRefs += BGWDataBase.RECORD_ID_COL_NAME + " INTEGER NOT NULL);";
+                _sqlCmd.execute(createRefs);
+                createIndex(BGWDataBase.COMPONENT_REF_TABLE_NAME, BGWDataBase.OWNER_ID_COL_NAME);
+                break;
+        }
+
+    }
+
+    /**
+     * Get the schema version of the database.
+     *
+     * @return The schema version, or 0 for files written before versioning.
+     * @throws SQLException Exception thrown on database error.
+     */
+    public int getSchemaVersion() throws SQLException {
+
+        int version = 0;
+
+        if (tableExists(SCHEMA_TABLE_NAME)) {
+
+            ResultSet rs = _sqlCmd.executeQuery("SELECT MAX(" + VERSION_COL_NAME + ") FROM " + SCHEMA_TABLE_NAME + ";");
+            if (rs.next()) {
+                version = rs.getInt(1);
+            }
+            rs.close();
+        }
+
+        return version;
+    }
+
+    /**
+     * Store the schema version.
+     *
+     * @param version The schema version.
+     * @throws SQLException Exception thrown on database error.
+     */
+    private void setSchemaVersion(int version) throws SQLException {
+
+        _sqlCmd.execute("CREATE TABLE IF NOT EXISTS " + SCHEMA_TABLE_NAME + " (" + VERSION_COL_NAME + " INTEGER NOT NULL);");
+        _sqlCmd.execute("DELETE FROM " + SCHEMA_TABLE_NAME + ";");
+        _sqlCmd.execute("INSERT INTO " + SCHEMA_TABLE_NAME + " (" + VERSION_COL_NAME + ") VALUES (" + version + ");");
+
+    }
+
+    /**
+     * Add any attribute of the AttributeSet that is missing from its table.  The
+     * column uses the attribute's current value as the default.  Tables that do
+     * not exist are left alone.
+     *
+     * @param attSet The AttributeSet defining the table.
+     * @throws SQLException Exception thrown on database error.
+     */
+    public void addMissingColumns(AttributeSet attSet) throws SQLException {
+
+        String tblName = attSet.getName();
+
+        if (!tableExists(tblName)) {
+            return;
+        }
+
+        HashSet<String> columns = getColumnNames(tblName);
+
+        for (BaseAttribute att : attSet.getAttributes()) {
+
+            String attName = att.getName();
+
+            if (!columns.contains(attName)) {
+
+                AttributeDataType sqlType = att.getSQLType();
+                String cmd = "ALTER TABLE " + tblName + " ADD COLUMN '" + attName + "' " + sqlType.name();
+                cmd += " NOT NULL DEFAULT " + getSQLDefault(att) + ";";
+
+                LOG.info("Adding column", "table", tblName, "column", attName);
+                _sqlCmd.execute(cmd);
+            }
+
+        }//end for
+
+    }
+
+    /**
+     * Create an index on a column if it doesn't exist.
+     *
+     * @param tableName The table name.
+     * @param colName The column to index.
+     * @throws SQLException Exception thrown on database error.
+     */
+    private void createIndex(String tableName, String colName) throws SQLException {
+
+        if (tableExists(tableName)) {
+            String cmd = "CREATE INDEX IF NOT EXISTS idx_" + tableName + "_" + colName;
+            cmd += " ON " + tableName + " (" + colName + ");";
+            _sqlCmd.execute(cmd);
+        }
+
+    }
+
+    /**
+     * Check if a table exists.
+     *
+     * @param tableName The table name.
+     * @return True if the table exists.
+     * @throws SQLException Exception thrown on database error.
+     */
+    private boolean tableExists(String tableName) throws SQLException {
+
+        ResultSet rs = _sqlCmd.executeQuery("SELECT name FROM sqlite_master WHERE type = 'table' AND name = '" + tableName + "';");
+        boolean exists = rs.next();
+        rs.close();
+
+        return exists;
+    }
+
+    /**
+     * Get the column names of a table.
+     *
+     * @param tableName The table name.
+     * @return The set of column names.
+     * @throws SQLException Exception thrown on database error.
+     */
+    private HashSet<String> getColumnNames(String tableName) throws SQLException {
+
+        HashSet<String> columns = new HashSet();
+
+        ResultSet rs = _sqlCmd.executeQuery("PRAGMA table_info(" + tableName + ");");
+        while (rs.next()) {
+            columns.add(rs.getString("name"));
+        }
+        rs.close();
+
+        return columns;
+    }
+
+    /**
+     * Get the SQL literal for an attribute's default value.
+     *
+     * @param att The attribute.
+     * @return The default value literal.
+     */
+    private String getSQLDefault(BaseAttribute att) {
+
+        String value = att.getSQLInsert();
+
+        //quote raw text
+        if (att.getSQLType() == AttributeDataType.TEXT) {
+            value = "'" + value.replace("'", "''") + "'";
+        }
+
+        return value;
+    }
+
+}
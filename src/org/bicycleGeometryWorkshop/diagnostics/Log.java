@@ -0,0 +1,267 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2020 Tom.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.bicycleGeometryWorkshop.diagnostics;
+
+import java.io.PrintStream;
+import java.text.SimpleDateFormat;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Application log.  Records from the loggers (see Logger) go into a bounded
+ * lock free ring buffer and a daemon writer thread formats and prints them,
+ * so logging never blocks the UI thread or the workers on console output.
+ * If the ring is full the record is dropped and counted ("Log.dropped" in the
+ * diagnostics dialog) rather than making the caller wait.
+ * <p>
+ * The level is read from the system property <code>bgw.log.level</code>
+ * (Debug, Info, Warn, Error or Off - Info by default) and can be changed
+ * with setLevel().  Pending records are written when the application exits.
+ *
+ * @author Tom
+ */
+public final class Log {
+
+    //ring capacity - a power of two
+    private static final int CAPACITY = 16384;
+    private static final int MASK = CAPACITY - 1;
+
+    //writer wait when the ring is empty
+    private static final long IDLE_NANOS = 20000000L;
+
+    private static final ConcurrentHashMap<String, Logger> LOGGERS = new ConcurrentHashMap();
+
+    private static final AtomicReferenceArray<LogRecord> RING = new AtomicReferenceArray(CAPACITY);
+    //next slot to fill (producers) and next slot to write (writer)
+    private static final AtomicLong HEAD = new AtomicLong();
+    private static final AtomicLong TAIL = new AtomicLong();
+
+    private static final Metric DROPPED = Metrics.counter("Log.dropped");
+
+    //held while writing so the exit hook and the writer do not both consume
+    private static final Object WRITE_LOCK = new Object();
+
+    //record time format - only used under the write lock
+    private static final SimpleDateFormat DATE_FORMAT = new SimpleDateFormat("HH:mm:ss.SSS");
+
+    private static volatile int _level = readLevel().ordinal();
+    private static volatile PrintStream _out = System.out;
+
+    private static volatile Thread _writer = null;
+
+    /**
+     * Not instantiated.
+     */
+    private Log() {
+    }
+
+    /**
+     * Read the level from the bgw.log.level system property.
+     *
+     * @return The level, Info if the property is not set or not a level.
+     */
+    private static LogLevel readLevel() {
+
+        String name = System.getProperty("bgw.log.level", LogLevel.Info.name());
+
+        for (LogLevel level : LogLevel.values()) {
+            if (level.name().equalsIgnoreCase(name.trim())) {
+                return level;
+            }
+        }
+
+        return LogLevel.Info;
+    }
+
+    /**
+     * Get the logger of a class.
+     *
+     * @param type The class.
+     * @return The logger named after the class.
+     */
+    public static Logger getLogger(Class<?> type) {
+        return getLogger(type.getSimpleName());
+    }
+
+    /**
+     * Get a logger by name.
+     *
+     * @param name The name of the source.
+     * @return The logger.
+     */
+    public static Logger getLogger(String name) {
+        return LOGGERS.computeIfAbsent(name, (String key) -> new Logger(key));
+    }
+
+    /**
+     * Set the level - records below it are not written.
+     *
+     * @param level The level.
+     */
+    public static void setLevel(LogLevel level) {
+        _level = level.ordinal();
+    }
+
+    /**
+     * Get the level.
+     *
+     * @return The level.
+     */
+    public static LogLevel getLevel() {
+        return LogLevel.values()[_level];
+    }
+
+    /**
+     * Check if records of a level are written.
+     *
+     * @param level The level.
+     * @return True if written.
+     */
+    public static boolean isEnabled(LogLevel level) {
+        return level.ordinal() >= _level && level != LogLevel.Off;
+    }
+
+    /**
+     * Set the stream the records are written to (the console by default).
+     *
+     * @param out The stream.
+     */
+    public static void setOutput(PrintStream out) {
+        _out = out;
+    }
+
+    /**
+     * Write the queued records now.  Used before exit and by batch runs that
+     * print their own output after logging.
+     */
+    public static void flush() {
+        drain();
+    }
+
+    /**
+     * Queue a record for the writer.
+     *
+     * @param record The record.
+     */
+    static void enqueue(LogRecord record) {
+
+        //claim a slot - fail instead of waiting when the writer is behind
+        long slot;
+        do {
+            slot = HEAD.get();
+
+            if (slot - TAIL.get() >= CAPACITY) {
+                DROPPED.increment();
+                return;
+            }
+
+        } while (!HEAD.compareAndSet(slot, slot + 1));
+
+        RING.lazySet((int) (slot & MASK), record);
+
+        Thread writer = _writer;
+
+        if (writer == null) {
+            startWriter();
+        } else if (slot - TAIL.get() >= CAPACITY / 2) {
+            //filling up - wake the writer instead of waiting out its idle time
+            LockSupport.unpark(writer);
+        }
+
+    }
+
+    /**
+     * Write the queued records.  Stops at a claimed slot that is not filled
+     * yet - the writer picks it up on its next pass.
+     *
+     * @return True if anything was written.
+     */
+    private static boolean drain() {
+
+        synchronized (WRITE_LOCK) {
+
+            PrintStream out = _out;
+            boolean wrote = false;
+
+            long tail = TAIL.get();
+
+            while (tail < HEAD.get()) {
+
+                int index = (int) (tail & MASK);
+                LogRecord record = RING.get(index);
+
+                if (record == null) {
+                    break;
+                }
+
+                RING.set(index, null);
+                TAIL.set(++tail);
+
+                out.println(record.format(DATE_FORMAT));
+                wrote = true;
+            }
+
+            if (wrote) {
+                out.flush();
+            }
+
+            return wrote;
+        }
+
+    }
+
+    /**
+     * Start the writer thread and the exit hook the first time a record is
+     * queued.
+     */
+    private static synchronized void startWriter() {
+
+        if (_writer != null) {
+            return;
+        }
+
+        Thread writer = new Thread(() -> {
+
+            while (true) {
+                if (!drain()) {
+                    LockSupport.parkNanos(IDLE_NANOS);
+                }
+            }
+
+        }, "Log Writer");
+
+        writer.setDaemon(true);
+        writer.start();
+
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            drain();
+        }, "Log Flush"));
+
+        _writer = writer;
+
+    }
+
+}
@@ -0,0 +1,134 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2020 Tom.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.bicycleGeometryWorkshop.diagnostics;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+/**
+ * A queued log record.  The time and thread are taken when the record is
+ * made; the text is built on the writer thread.
+ *
+ * @author Tom
+ */
+class LogRecord {
+
+    final long time;
+    final LogLevel level;
+    final String thread;
+    final String source;
+    final String message;
+    final Throwable thrown;
+    final Object[] fields;
+
+    /**
+     * Class constructor.
+     *
+     * @param level The level.
+     * @param source The name of the logger.
+     * @param message The message.
+     * @param thrown The exception or null.
+     * @param fields The field names and values or null.
+     */
+    LogRecord(LogLevel level, String source, String message, Throwable thrown, Object[] fields) {
+
+        this.time = System.currentTimeMillis();
+        this.level = level;
+        this.thread = Thread.currentThread().getName();
+        this.source = source;
+        this.message = message;
+        this.thrown = thrown;
+        this.fields = fields;
+
+    }
+
+    /**
+     * Format the record:
+     * <code>time LEVEL [thread] source: message key=value ...</code>
+     * followed by the stack trace if there is an exception.
+     *
+     * @param dateFormat The time format - not thread safe, used under the write lock.
+     * @return The text.
+     */
+    String format(SimpleDateFormat dateFormat) {
+
+        StringBuilder sb = new StringBuilder(128);
+
+        sb.append(dateFormat.format(new Date(time)));
+        sb.append(' ');
+        sb.append(level.name().toUpperCase());
+        sb.append(" [");
+        sb.append(thread);
+        sb.append("] ");
+        sb.append(source);
+        sb.append(": ");
+
+        if (message != null) {
+            sb.append(message);
+        } else if (thrown != null) {
+            sb.append(thrown.toString());
+        }
+
+        if (fields != null) {
+            for (int i = 0; i + 1 < fields.length; i += 2) {
+                sb.append(' ');
+                sb.append(fields[i]);
+                sb.append('=');
+                appendValue(sb, fields[i + 1]);
+            }
+        }
+
+        if (thrown != null) {
+            StringWriter trace = new StringWriter();
+            thrown.printStackTrace(new PrintWriter(trace));
+            sb.append(System.lineSeparator());
+            sb.append(trace.toString().trim());
+        }
+
+        return sb.toString();
+    }
+
+    /**
+     * Append a field value, quoted if it has spaces.
+     *
+     * @param sb The text.
+     * @param value The value.
+     */
+    private static void appendValue(StringBuilder sb, Object value) {
+
+        String text = String.valueOf(value);
+
+        if (text.isEmpty() || text.indexOf(' ') >= 0 || text.indexOf('=') >= 0) {
+            sb.append('"');
+            sb.append(text.replace("\"", "\\\""));
+            sb.append('"');
+        } else {
+            sb.append(text);
+        }
+
+    }
+
+}
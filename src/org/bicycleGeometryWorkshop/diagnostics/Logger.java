@@ -0,0 +1,220 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2020 Tom.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.bicycleGeometryWorkshop.diagnostics;
+
+/**
+ * A named log source.  Get one per class with Log.getLogger() and keep it in
+ * a static field.  The records are queued for the log writer thread (see Log)
+ * so a log call never waits on console or file output.
+ * <p>
+ * Fields are key and value pairs written after the message
+ * (<code>key=value</code>).  The values are formatted on the writer thread,
+ * so pass strings, numbers or other values that do not change.  A call below
+ * the current level returns after one volatile read; guard calls with fields
+ * of primitive values with isDebugEnabled() on hot paths so nothing is boxed.
+ *
+ * @author Tom
+ */
+public class Logger {
+
+    private final String _name;
+
+    /**
+     * Class constructor.
+     *
+     * @param name The name of the source.
+     */
+    Logger(String name) {
+        _name = name;
+    }
+
+    /**
+     * Get the name of the source.
+     *
+     * @return The name.
+     */
+    public String getName() {
+        return _name;
+    }
+
+    /**
+     * Check if debug records are written.
+     *
+     * @return True if debug is enabled.
+     */
+    public boolean isDebugEnabled() {
+        return Log.isEnabled(LogLevel.Debug);
+    }
+
+    /**
+     * Log a debug message.
+     *
+     * @param message The message.
+     */
+    public void debug(String message) {
+        log(LogLevel.Debug, message, null, null);
+    }
+
+    /**
+     * Log a debug message with a field.
+     *
+     * @param message The message.
+     * @param key The field name.
+     * @param value The field value.
+     */
+    public void debug(String message, String key, Object value) {
+
+        if (Log.isEnabled(LogLevel.Debug)) {
+            log(LogLevel.Debug, message, null, new Object[]{key, value});
+        }
+
+    }
+
+    /**
+     * Log a debug message with fields.
+     *
+     * @param message The message.
+     * @param fields The field names and values: key, value, key, value...
+     */
+    public void debug(String message, Object... fields) {
+        log(LogLevel.Debug, message, null, fields);
+    }
+
+    /**
+     * Log an info message.
+     *
+     * @param message The message.
+     */
+    public void info(String message) {
+        log(LogLevel.Info, message, null, null);
+    }
+
+    /**
+     * Log an info message with a field.
+     *
+     * @param message The message.
+     * @param key The field name.
+     * @param value The field value.
+     */
+    public void info(String message, String key, Object value) {
+
+        if (Log.isEnabled(LogLevel.Info)) {
+            log(LogLevel.Info, message, null, new Object[]{key, value});
+        }
+
+    }
+
+    /**
+     * Log an info message with fields.
+     *
+     * @param message The message.
+     * @param fields The field names and values: key, value, key, value...
+     */
+    public void info(String message, Object... fields) {
+        log(LogLevel.Info, message, null, fields);
+    }
+
+    /**
+     * Log a warning.
+     *
+     * @param message The message.
+     */
+    public void warn(String message) {
+        log(LogLevel.Warn, message, null, null);
+    }
+
+    /**
+     * Log a warning with a field.
+     *
+     * @param message The message.
+     * @param key The field name.
+     * @param value The field value.
+     */
+    public void warn(String message, String key, Object value) {
+
+        if (Log.isEnabled(LogLevel.Warn)) {
+            log(LogLevel.Warn, message, null, new Object[]{key, value});
+        }
+
+    }
+
+    /**
+     * Log a warning with fields.
+     *
+     * @param message The message.
+     * @param fields The field names and values: key, value, key, value...
+     */
+    public void warn(String message, Object... fields) {
+        log(LogLevel.Warn, message, null, fields);
+    }
+
+    /**
+     * Log an error.
+     *
+     * @param message The message.
+     */
+    public void error(String message) {
+        log(LogLevel.Error, message, null, null);
+    }
+
+    /**
+     * Log an error with the exception that caused it.  The stack trace is
+     * written after the message.
+     *
+     * @param message The message (may be null).
+     * @param ex The exception.
+     */
+    public void error(String message, Throwable ex) {
+        log(LogLevel.Error, message, ex, null);
+    }
+
+    /**
+     * Log an error with fields.
+     *
+     * @param message The message.
+     * @param fields The field names and values: key, value, key, value...
+     */
+    public void error(String message, Object... fields) {
+        log(LogLevel.Error, message, null, fields);
+    }
+
+    /**
+     * Queue a record if the level is enabled.
+     *
+     * @param level The level.
+     * @param message The message.
+     * @param ex The exception or null.
+     * @param fields The fields or null.
+     */
+    private void log(LogLevel level, String message, Throwable ex, Object[] fields) {
+
+        if (!Log.isEnabled(level)) {
+            return;
+        }
+
+        Log.enqueue(new LogRecord(level, _name, message, ex, fields));
+
+    }
+
+}
@@ -0,0 +1,261 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2020 Tom.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.bicycleGeometryWorkshop.diagnostics;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A named timer or counter.  Recording is lock free so a metric can be
+ * shared by the UI thread and the analysis and geometry workers.  A timer
+ * keeps the total, the largest and a window of the most recent samples, which
+ * the percentiles are taken from.
+ * <p>
+ * Timing a section:
+ * <pre>
+ *     long start = TIMER.start();
+ *     ...
+ *     TIMER.stop(start);
+ * </pre>
+ * start() returns 0 while metrics are disabled (see Metrics.setEnabled) and
+ * stop() ignores it, so a disabled timer costs one volatile read.
+ *
+ * @author Tom
+ */
+public class Metric {
+
+    //recent samples for the percentiles - a power of two
+    private static final int WINDOW = 1024;
+
+    private final String _name;
+    private final boolean _timer;
+
+    private final LongAdder _count;
+    private final LongAdder _total;
+    private final LongAccumulator _max;
+
+    private final AtomicLongArray _samples;
+    private final AtomicLong _next;
+
+    /**
+     * Class constructor.  Use Metrics.timer() or Metrics.counter() to get a
+     * registered metric.
+     *
+     * @param name The name of the metric.
+     * @param timer True for a timer, false for a counter.
+     */
+    Metric(String name, boolean timer) {
+
+        _name = name;
+        _timer = timer;
+
+        _count = new LongAdder();
+        _total = new LongAdder();
+        _max = new LongAccumulator(Math::max, 0);
+
+        _samples = timer ? new AtomicLongArray(WINDOW) : null;
+        _next = new AtomicLong();
+
+    }
+
+    /**
+     * Get the name of the metric.
+     *
+     * @return The name.
+     */
+    public String getName() {
+        return _name;
+    }
+
+    /**
+     * Check if this is a timer.
+     *
+     * @return True for a timer, false for a counter.
+     */
+    public boolean isTimer() {
+        return _timer;
+    }
+
+    /**
+     * Start timing.
+     *
+     * @return The start time to pass to stop(), or 0 if metrics are disabled.
+     */
+    public long start() {
+
+        if (!Metrics.isEnabled()) {
+            return 0;
+        }
+
+        return System.nanoTime();
+    }
+
+    /**
+     * Stop timing and record the elapsed time.
+     *
+     * @param start The start time from start().
+     */
+    public void stop(long start) {
+
+        if (start == 0) {
+            return;
+        }
+
+        record(System.nanoTime() - start);
+
+    }
+
+    /**
+     * Record a time.
+     *
+     * @param nanos The time in nanoseconds.
+     */
+    public void record(long nanos) {
+
+        _count.increment();
+        _total.add(nanos);
+        _max.accumulate(nanos);
+
+        if (_samples != null) {
+            int slot = (int) (_next.getAndIncrement() & (WINDOW - 1));
+            _samples.set(slot, nanos);
+        }
+
+    }
+
+    /**
+     * Add to a counter.
+     *
+     * @param amount The amount to add.
+     */
+    public void add(long amount) {
+
+        if (!Metrics.isEnabled()) {
+            return;
+        }
+
+        _count.add(amount);
+
+    }
+
+    /**
+     * Add one to a counter.
+     */
+    public void increment() {
+        add(1);
+    }
+
+    /**
+     * Get the number of samples of a timer or the value of a counter.
+     *
+     * @return The count.
+     */
+    public long getCount() {
+        return _count.sum();
+    }
+
+    /**
+     * Get the total time.
+     *
+     * @return The total in milliseconds.
+     */
+    public double getTotalMillis() {
+        return _total.sum() / 1.0e6;
+    }
+
+    /**
+     * Get the mean time.
+     *
+     * @return The mean in milliseconds, or 0 if there are no samples.
+     */
+    public double getMeanMillis() {
+
+        long count = _count.sum();
+
+        if (count == 0) {
+            return 0;
+        }
+
+        return _total.sum() / 1.0e6 / count;
+    }
+
+    /**
+     * Get the largest time.
+     *
+     * @return The largest time in milliseconds.
+     */
+    public double getMaxMillis() {
+        return _max.get() / 1.0e6;
+    }
+
+    /**
+     * Get percentiles of the recent times (the last 1024 samples).
+     *
+     * @param percents The percentiles to get (0 to 100).
+     * @return The times in milliseconds, 0 if there are no samples.
+     */
+    public double[] getPercentileMillis(double... percents) {
+
+        double[] result = new double[percents.length];
+
+        if (_samples == null) {
+            return result;
+        }
+
+        int size = (int) Math.min(_next.get(), WINDOW);
+        if (size == 0) {
+            return result;
+        }
+
+        long[] sorted = new long[size];
+        for (int i = 0; i < size; i++) {
+            sorted[i] = _samples.get(i);
+        }
+        Arrays.sort(sorted);
+
+        for (int p = 0; p < percents.length; p++) {
+            int index = (int) Math.ceil(percents[p] / 100.0 * size) - 1;
+            index = Math.max(0, Math.min(size - 1, index));
+            result[p] = sorted[index] / 1.0e6;
+        }
+
+        return result;
+    }
+
+    /**
+     * Clear the metric.
+     */
+    public void reset() {
+
+        _count.reset();
+        _total.reset();
+        _max.reset();
+        _next.set(0);
+
+    }
+
+}
@@ -0,0 +1,113 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2020 Tom.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.bicycleGeometryWorkshop.diagnostics;
+
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registry of the application timers and counters (see Metric).  The metrics
+ * are created once, usually into static fields at the code they measure, and
+ * listed in the diagnostics dialog.
+ * <p>
+ * Recording is off until the diagnostics dialog is opened, or from the start
+ * with -Dbgw.metrics=true.
+ *
+ * @author Tom
+ */
+public final class Metrics {
+
+    private static final ConcurrentHashMap<String, Metric> METRICS = new ConcurrentHashMap();
+
+    private static volatile boolean _enabled = Boolean.getBoolean("bgw.metrics");
+
+    /**
+     * Not instantiated.
+     */
+    private Metrics() {
+    }
+
+    /**
+     * Get a timer, registering it the first time.
+     *
+     * @param name The name of the timer.
+     * @return The timer.
+     */
+    public static Metric timer(String name) {
+        return METRICS.computeIfAbsent(name, (String key) -> new Metric(key, true));
+    }
+
+    /**
+     * Get a counter, registering it the first time.
+     *
+     * @param name The name of the counter.
+     * @return The counter.
+     */
+    public static Metric counter(String name) {
+        return METRICS.computeIfAbsent(name, (String key) -> new Metric(key, false));
+    }
+
+    /**
+     * Get all the metrics.
+     *
+     * @return The metrics sorted by name.
+     */
+    public static ArrayList<Metric> getMetrics() {
+
+        ArrayList<Metric> metrics = new ArrayList(METRICS.values());
+        metrics.sort((Metric a, Metric b) -> a.getName().compareTo(b.getName()));
+
+        return metrics;
+    }
+
+    /**
+     * Clear all the metrics.
+     */
+    public static void reset() {
+
+        for (Metric m : METRICS.values()) {
+            m.reset();
+        }
+
+    }
+
+    /**
+     * Turn recording on or off.
+     *
+     * @param enabled True to record.
+     */
+    public static void setEnabled(boolean enabled) {
+        _enabled = enabled;
+    }
+
+    /**
+     * Check if recording is on.
+     *
+     * @return True if recording.
+     */
+    public static boolean isEnabled() {
+        return _enabled;
+    }
+
+}
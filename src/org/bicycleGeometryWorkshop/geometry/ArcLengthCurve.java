@@ -0,0 +1,255 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2020 Tom.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.bicycleGeometryWorkshop.geometry;
+
+import java.awt.geom.Path2D;
+import java.awt.geom.Point2D;
+import java.util.Arrays;
+
+/**
+ * Quadratic Bezier curve with an arc-length lookup table, so points can be
+ * placed by a fraction of the curve length instead of the raw 't' value
+ * (which bunches up where the curve bends).
+ * <p>
+ * The table is built by adaptive subdivision - a span is split until its
+ * midpoint is within the flatness of the chord - and is only rebuilt when the
+ * control points change.  A lookup is a binary search of the table followed
+ * by an exact evaluation of the curve.  The table samples double as the
+ * flattened curve for paths, so Java2D doesn't have to flatten it on every draw.
+ * The arrays are reused, so an update of the same curve allocates nothing.
+ *
+ * @author Tom
+ */
+public class ArcLengthCurve {
+
+    private static final int MAX_DEPTH = 10;
+
+    private double _flatness;
+
+    //control points of the table
+    private double _x1, _y1, _x2, _y2, _x3, _y3;
+    private boolean _isValid;
+
+    //table: t value, point and cumulative length of each sample
+    private double[] _t;
+    private double[] _x;
+    private double[] _y;
+    private double[] _s;
+    private int _count;
+
+    /**
+     * Class constructor.
+     *
+     * @param flatness The maximum distance of the curve from the table chords.
+     */
+    public ArcLengthCurve(double flatness) {
+
+        _flatness = flatness;
+        _isValid = false;
+
+        _t = new double[64];
+        _x = new double[64];
+        _y = new double[64];
+        _s = new double[64];
+        _count = 0;
+
+    }
+
+    /**
+     * Set the curve.  The table is rebuilt if the control points changed.
+     *
+     * @param sp The start point of the curve.
+     * @param cp The control point of the curve.
+     * @param ep The end point of the curve.
+     */
+    public void setCurve(Point2D sp, Point2D cp, Point2D ep) {
+
+        double x1 = sp.getX();
+        double y1 = sp.getY();
+        double x2 = cp.getX();
+        double y2 = cp.getY();
+        double x3 = ep.getX();
+        double y3 = ep.getY();
+
+        if (_isValid && x1 == _x1 && y1 == _y1 && x2 == _x2 && y2 == _y2 && x3 == _x3 && y3 == _y3) {
+            return;
+        }
+
+        _x1 = x1;
+        _y1 = y1;
+        _x2 = x2;
+        _y2 = y2;
+        _x3 = x3;
+        _y3 = y3;
+
+        _count = 0;
+        addSample(0, x1, y1, 0);
+        subdivide(0, x1, y1, 1, x3, y3, 0);
+
+        _isValid = true;
+
+    }
+
+    /**
+     * Get the length of the curve.
+     *
+     * @return The arc length.
+     */
+    public double getLength() {
+        return _count > 0 ? _s[_count - 1] : 0;
+    }
+
+    /**
+     * Get the 't' value at a fraction of the curve length.
+     *
+     * @param fraction The fraction of the length (0.0 to 1.0).
+     * @return The 't' value.
+     */
+    public double getT(double fraction) {
+
+        if (_count < 2) {
+            return 0;
+        }
+
+        double target = Math.max(0, Math.min(1, fraction)) * getLength();
+
+        //first sample at or past the target length
+        int i = Arrays.binarySearch(_s, 0, _count, target);
+        if (i < 0) {
+            i = -i - 1;
+        }
+
+        if (i == 0) {
+            return 0;
+        }
+
+        if (i >= _count) {
+            return 1;
+        }
+
+        //interpolate t in the span
+        double span = _s[i] - _s[i - 1];
+        double f = span > 0 ? (target - _s[i - 1]) / span : 0;
+
+        return _t[i - 1] + f * (_t[i] - _t[i - 1]);
+    }
+
+    /**
+     * Get the point at a fraction of the curve length.
+     *
+     * @param fraction The fraction of the length (0.0 to 1.0).
+     * @param result The point to set.
+     * @return The result point.
+     */
+    public Point2D getPoint(double fraction, Point2D result) {
+
+        double t = getT(fraction);
+        double u = 1.0 - t;
+
+        double a = u * u;
+        double b = 2.0 * t * u;
+        double c = t * t;
+
+        result.setLocation(a * _x1 + b * _x2 + c * _x3, a * _y1 + b * _y2 + c * _y3);
+
+        return result;
+    }
+
+    /**
+     * Add the curve to a path as line segments.  The path's current point
+     * should be the start of the curve.
+     *
+     * @param path The path to add to.
+     */
+    public void appendTo(Path2D path) {
+
+        for (int i = 1; i < _count; i++) {
+            path.lineTo(_x[i], _y[i]);
+        }
+
+    }
+
+    /**
+     * Split a span until it is flat, adding the samples in order.
+     *
+     * @param t0 Span start t.
+     * @param x0 Span start x.
+     * @param y0 Span start y.
+     * @param t1 Span end t.
+     * @param x1 Span end x.
+     * @param y1 Span end y.
+     * @param depth The subdivision depth.
+     */
+    private void subdivide(double t0, double x0, double y0, double t1, double x1, double y1, int depth) {
+
+        double tm = (t0 + t1) / 2;
+        double u = 1.0 - tm;
+        double a = u * u;
+        double b = 2.0 * tm * u;
+        double c = tm * tm;
+
+        double xm = a * _x1 + b * _x2 + c * _x3;
+        double ym = a * _y1 + b * _y2 + c * _y3;
+
+        //midpoint distance from the chord midpoint
+        double dev = Math.hypot(xm - (x0 + x1) / 2, ym - (y0 + y1) / 2);
+
+        //always split once so a symmetric curve isn't taken as a line
+        if (depth < MAX_DEPTH && (depth < 1 || dev > _flatness)) {
+            subdivide(t0, x0, y0, tm, xm, ym, depth + 1);
+            subdivide(tm, xm, ym, t1, x1, y1, depth + 1);
+        } else {
+            double s = _s[_count - 1] + Math.hypot(x1 - x0, y1 - y0);
+            addSample(t1, x1, y1, s);
+        }
+
+    }
+
+    /**
+     * Add a sample to the table, growing the arrays if needed.
+     *
+     * @param t The t value.
+     * @param x The x value.
+     * @param y The y value.
+     * @param s The length from the start of the curve.
+     */
+    private void addSample(double t, double x, double y, double s) {
+
+        if (_count == _t.length) {
+            int size = _count * 2;
+            _t = Arrays.copyOf(_t, size);
+            _x = Arrays.copyOf(_x, size);
+            _y = Arrays.copyOf(_y, size);
+            _s = Arrays.copyOf(_s, size);
+        }
+
+        _t[_count] = t;
+        _x[_count] = x;
+        _y[_count] = y;
+        _s[_count] = s;
+        _count++;
+
+    }
+
+}
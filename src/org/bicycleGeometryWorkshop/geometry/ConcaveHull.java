@@ -0,0 +1,342 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2020 Tom.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.bicycleGeometryWorkshop.geometry;
+
+import java.awt.geom.Path2D;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+
+/**
+ * Concave hull of a point cloud.  The convex hull is built first (monotone
+ * chain) and then its edges are "dug" inwards: an edge is replaced by two
+ * edges through the nearest inside point while the edge is long compared to
+ * the distance to that point.  The concavity sets that ratio - larger values
+ * keep the hull closer to convex.
+ * <p>
+ * The points are parallel arrays of coordinates.  Hulls are
+ * returned as point indices in counter-clockwise order.
+ *
+ * @author Tom
+ */
+public final class ConcaveHull {
+
+    /**
+     * No instances - static methods only.
+     */
+    private ConcaveHull() {
+
+    }
+
+    /**
+     * Convex hull of the points (Andrew's monotone chain).  NaN points are skipped.
+     *
+     * @param xs Point X values.
+     * @param ys Point Y values.
+     * @param count The number of points.
+     * @return The hull point indices, counter-clockwise.  Collinear and
+     * duplicate points are left out.
+     */
+    public static int[] convexHull(double[] xs, double[] ys, int count) {
+
+        //sort the valid indices by x then y
+        Integer[] order = new Integer[count];
+        int valid = 0;
+        for (int i = 0; i < count; i++) {
+            if (!Double.isNaN(xs[i]) && !Double.isNaN(ys[i])) {
+                order[valid++] = i;
+            }
+        }
+
+        Arrays.sort(order, 0, valid, (Integer a, Integer b) -> {
+            int c = Double.compare(xs[a], xs[b]);
+            return c != 0 ? c : Double.compare(ys[a], ys[b]);
+        });
+
+        if (valid < 3) {
+            int[] hull = new int[valid];
+            for (int i = 0; i < valid; i++) {
+                hull[i] = order[i];
+            }
+            return hull;
+        }
+
+        int[] hull = new int[2 * valid];
+        int k = 0;
+
+        //lower hull
+        for (int i = 0; i < valid; i++) {
+            int p = order[i];
+            while (k >= 2 && cross(xs, ys, hull[k - 2], hull[k - 1], p) <= 0) {
+                k--;
+            }
+            hull[k++] = p;
+        }
+
+        //upper hull
+        int lower = k + 1;
+        for (int i = valid - 2; i >= 0; i--) {
+            int p = order[i];
+            while (k >= lower && cross(xs, ys, hull[k - 2], hull[k - 1], p) <= 0) {
+                k--;
+            }
+            hull[k++] = p;
+        }
+
+        //last point repeats the first
+        return Arrays.copyOf(hull, k - 1);
+    }
+
+    /**
+     * Concave hull of the points.
+     *
+     * @param xs Point X values.
+     * @param ys Point Y values.
+     * @param count The number of points.
+     * @param concavity Edge length to point distance ratio above which an
+     * edge is dug in (1 or more, 2 is a good start).
+     * @return The hull point indices, counter-clockwise.
+     */
+    public static int[] concaveHull(double[] xs, double[] ys, int count, double concavity) {
+
+        int[] convex = convexHull(xs, ys, count);
+
+        if (convex.length < 3) {
+            return convex;
+        }
+
+        //hull as a linked ring so edges can be split in place
+        int[] next = new int[count];
+        int[] prev = new int[count];
+        boolean[] onHull = new boolean[count];
+
+        ArrayDeque<int[]> edges = new ArrayDeque();
+
+        for (int i = 0; i < convex.length; i++) {
+            int a = convex[i];
+            int b = convex[(i + 1) % convex.length];
+            next[a] = b;
+            prev[b] = a;
+            onHull[a] = true;
+            edges.add(new int[]{a, b});
+        }
+
+        int hullSize = convex.length;
+
+        while (!edges.isEmpty()) {
+
+            int[] edge = edges.poll();
+            int a = edge[0];
+            int b = edge[1];
+
+            //edge was split already
+            if (next[a] != b) {
+                continue;
+            }
+
+            double edgeLength = Math.hypot(xs[b] - xs[a], ys[b] - ys[a]);
+            int pa = prev[a];
+            int nb = next[b];
+
+            //nearest inside point that is not closer to the neighbouring edges
+            int best = -1;
+            double bestDist = Double.POSITIVE_INFINITY;
+
+            for (int p = 0; p < count; p++) {
+
+                if (onHull[p] || Double.isNaN(xs[p]) || Double.isNaN(ys[p])) {
+                    continue;
+                }
+
+                double d = segmentDistance(xs, ys, a, b, p);
+
+                if (d < bestDist && d < segmentDistance(xs, ys, pa, a, p) && d < segmentDistance(xs, ys, b, nb, p)) {
+                    best = p;
+                    bestDist = d;
+                }
+            }
+
+            if (best < 0) {
+                continue;
+            }
+
+            double endDist = Math.min(Math.hypot(xs[best] - xs[a], ys[best] - ys[a]), Math.hypot(xs[best] - xs[b], ys[best] - ys[b]));
+
+            //duplicate of an end point - nothing to dig
+            if (endDist <= 0) {
+                continue;
+            }
+
+            if (edgeLength / endDist <= concavity) {
+                continue;
+            }
+
+            if (crossesHull(xs, ys, next, a, b, best)) {
+                continue;
+            }
+
+            //split the edge
+            next[a] = best;
+            prev[best] = a;
+            next[best] = b;
+            prev[b] = best;
+            onHull[best] = true;
+            hullSize++;
+
+            edges.add(new int[]{a, best});
+            edges.add(new int[]{best, b});
+
+        }
+
+        int[] hull = new int[hullSize];
+        int p = convex[0];
+        for (int i = 0; i < hullSize; i++) {
+            hull[i] = p;
+            p = next[p];
+        }
+
+        return hull;
+    }
+
+    /**
+     * Build a closed path from hull indices.
+     *
+     * @param xs Point X values.
+     * @param ys Point Y values.
+     * @param hull The hull indices.
+     * @return The closed path (empty for no points).
+     */
+    public static Path2D toPath(double[] xs, double[] ys, int[] hull) {
+
+        Path2D path = new Path2D.Double();
+
+        for (int i = 0; i < hull.length; i++) {
+            if (i == 0) {
+                path.moveTo(xs[hull[i]], ys[hull[i]]);
+            } else {
+                path.lineTo(xs[hull[i]], ys[hull[i]]);
+            }
+        }
+
+        if (hull.length > 0) {
+            path.closePath();
+        }
+
+        return path;
+    }
+
+    /**
+     * Check if splitting edge a-b through p crosses any other hull edge.
+     *
+     * @param xs Point X values.
+     * @param ys Point Y values.
+     * @param next The hull ring.
+     * @param a Edge start.
+     * @param b Edge end.
+     * @param p The split point.
+     * @return True if either new edge crosses the hull.
+     */
+    private static boolean crossesHull(double[] xs, double[] ys, int[] next, int a, int b, int p) {
+
+        //walk the ring from b back round to a
+        int s = b;
+        while (s != a) {
+
+            int e = next[s];
+
+            if (segmentsCross(xs, ys, a, p, s, e) || segmentsCross(xs, ys, p, b, s, e)) {
+                return true;
+            }
+
+            s = e;
+        }
+
+        return false;
+    }
+
+    /**
+     * Proper crossing test of two segments.  Segments sharing an end point do
+     * not cross.
+     *
+     * @param xs Point X values.
+     * @param ys Point Y values.
+     * @param a1 Segment 1 start.
+     * @param a2 Segment 1 end.
+     * @param b1 Segment 2 start.
+     * @param b2 Segment 2 end.
+     * @return True if the segments cross.
+     */
+    private static boolean segmentsCross(double[] xs, double[] ys, int a1, int a2, int b1, int b2) {
+
+        if (a1 == b1 || a1 == b2 || a2 == b1 || a2 == b2) {
+            return false;
+        }
+
+        double d1 = cross(xs, ys, a1, a2, b1);
+        double d2 = cross(xs, ys, a1, a2, b2);
+        double d3 = cross(xs, ys, b1, b2, a1);
+        double d4 = cross(xs, ys, b1, b2, a2);
+
+        return ((d1 > 0 && d2 < 0) || (d1 < 0 && d2 > 0)) && ((d3 > 0 && d4 < 0) || (d3 < 0 && d4 > 0));
+    }
+
+    /**
+     * Cross product of o-a and o-b (positive for a counter-clockwise turn).
+     *
+     * @param xs Point X values.
+     * @param ys Point Y values.
+     * @param o The origin point.
+     * @param a Point a.
+     * @param b Point b.
+     * @return The cross product.
+     */
+    private static double cross(double[] xs, double[] ys, int o, int a, int b) {
+        return (xs[a] - xs[o]) * (ys[b] - ys[o]) - (ys[a] - ys[o]) * (xs[b] - xs[o]);
+    }
+
+    /**
+     * Distance from a point to a segment.
+     *
+     * @param xs Point X values.
+     * @param ys Point Y values.
+     * @param a Segment start.
+     * @param b Segment end.
+     * @param p The point.
+     * @return The distance.
+     */
+    private static double segmentDistance(double[] xs, double[] ys, int a, int b, int p) {
+
+        double dx = xs[b] - xs[a];
+        double dy = ys[b] - ys[a];
+        double len2 = dx * dx + dy * dy;
+
+        double t = 0;
+        if (len2 > 0) {
+            t = ((xs[p] - xs[a]) * dx + (ys[p] - ys[a]) * dy) / len2;
+            t = Math.max(0, Math.min(1, t));
+        }
+
+        return Math.hypot(xs[a] + t * dx - xs[p], ys[a] + t * dy - ys[p]);
+    }
+
+}
@@ -44,6 +44,21 @@ public class Curves {
      */
     public static Point2D quadraticBezierPoint(Point2D sp, Point2D cp,  Point2D ep, double t) {
         
+        return quadraticBezierPoint(sp, cp, ep, t, new Point2D.Double());
+        
+    }
+    
+    /**
+     * Point on Quadratic Bezier Curve into an existing point (no allocation).
+     * @param sp The start point of the curve.
+     * @param cp The control point of the curve.
+     * @param ep  The end pont of the curve.
+     * @param t  The 't' value of the curve (scale along length).
+     * @param result The point to set.
+     * @return The result point.
+     */
+    public static Point2D quadraticBezierPoint(Point2D sp, Point2D cp,  Point2D ep, double t, Point2D result) {
+        
         
         double x1 = sp.getX();
         double y1 = sp.getY();
@@ -60,7 +75,9 @@ public class Curves {
         double x = a * x1 + b * x2 + c * x3;
         double y = a * y1 + b * y2 + c * y3;        
         
-        return new Point2D.Double(x,y);
+        result.setLocation(x, y);
+        
+        return result;
         
         
     }
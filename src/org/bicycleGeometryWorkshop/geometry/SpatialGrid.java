@@ -0,0 +1,430 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2020 Tom.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.bicycleGeometryWorkshop.geometry;
+
+import java.awt.geom.Line2D;
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Set;
+
+/**
+ * A uniform grid index of points and line segments for nearest-item queries
+ * (snapping and picking).  Each item belongs to an owner object and all the
+ * items of an owner can be removed at once, so an owner can be re-indexed on
+ * its own when it changes.
+ * <p>
+ * A segment is stored in every cell its bounding box covers.  A query only
+ * visits the cells within the search radius, so the cost depends on the
+ * number of items near the query point, not on the total.
+ *
+ * @author Tom
+ */
+public class SpatialGrid {
+
+    private final double _cellSize;
+
+    private HashMap<Long, ArrayList<Item>> _cells;
+    private HashMap<Object, ArrayList<Item>> _owners;
+
+    private int _itemCount;
+
+    /**
+     * Class constructor.
+     *
+     * @param cellSize The cell size in world units - about the size of a typical query radius.
+     */
+    public SpatialGrid(double cellSize) {
+
+        _cellSize = cellSize;
+        _cells = new HashMap();
+        _owners = new HashMap();
+        _itemCount = 0;
+
+    }
+
+    /**
+     * Add a point.
+     *
+     * @param owner The owner of the point.
+     * @param x The x coordinate.
+     * @param y The y coordinate.
+     */
+    public void addPoint(Object owner, double x, double y) {
+
+        Item item = new Item(owner, true, x, y, x, y);
+        addItem(item);
+
+    }
+
+    /**
+     * Add a line segment.
+     *
+     * @param owner The owner of the segment.
+     * @param x1 The start x coordinate.
+     * @param y1 The start y coordinate.
+     * @param x2 The end x coordinate.
+     * @param y2 The end y coordinate.
+     */
+    public void addSegment(Object owner, double x1, double y1, double x2, double y2) {
+
+        Item item = new Item(owner, false, x1, y1, x2, y2);
+        addItem(item);
+
+    }
+
+    /**
+     * Add an item to its owner and cells.
+     *
+     * @param item The item.
+     */
+    private void addItem(Item item) {
+
+        ArrayList<Item> ownerItems = _owners.get(item._owner);
+        if (ownerItems == null) {
+            ownerItems = new ArrayList();
+            _owners.put(item._owner, ownerItems);
+        }
+        ownerItems.add(item);
+
+        int cx1 = cellIndex(Math.min(item._x1, item._x2));
+        int cx2 = cellIndex(Math.max(item._x1, item._x2));
+        int cy1 = cellIndex(Math.min(item._y1, item._y2));
+        int cy2 = cellIndex(Math.max(item._y1, item._y2));
+
+        for (int cx = cx1; cx <= cx2; cx++) {
+            for (int cy = cy1; cy <= cy2; cy++) {
+
+                Long key = cellKey(cx, cy);
+                ArrayList<Item> cell = _cells.get(key);
+                if (cell == null) {
+                    cell = new ArrayList();
+                    _cells.put(key, cell);
+                }
+                cell.add(item);
+            }
+        }
+
+        _itemCount++;
+
+    }
+
+    /**
+     * Remove all the items of an owner.
+     *
+     * @param owner The owner.
+     */
+    public void remove(Object owner) {
+
+        ArrayList<Item> ownerItems = _owners.remove(owner);
+        if (ownerItems == null) {
+            return;
+        }
+
+        for (Item item : ownerItems) {
+
+            int cx1 = cellIndex(Math.min(item._x1, item._x2));
+            int cx2 = cellIndex(Math.max(item._x1, item._x2));
+            int cy1 = cellIndex(Math.min(item._y1, item._y2));
+            int cy2 = cellIndex(Math.max(item._y1, item._y2));
+
+            for (int cx = cx1; cx <= cx2; cx++) {
+                for (int cy = cy1; cy <= cy2; cy++) {
+
+                    Long key = cellKey(cx, cy);
+                    ArrayList<Item> cell = _cells.get(key);
+                    if (cell != null) {
+                        cell.remove(item);
+                        if (cell.isEmpty()) {
+                            _cells.remove(key);
+                        }
+                    }
+                }
+            }
+        }
+
+        _itemCount -= ownerItems.size();
+
+    }
+
+    /**
+     * Remove all the items.
+     */
+    public void clear() {
+
+        _cells.clear();
+        _owners.clear();
+        _itemCount = 0;
+
+    }
+
+    /**
+     * Check if an owner has items in the grid.
+     *
+     * @param owner The owner.
+     * @return True if the owner has items.
+     */
+    public boolean contains(Object owner) {
+        return _owners.containsKey(owner);
+    }
+
+    /**
+     * Get the owners with items in the grid.
+     *
+     * @return The owners (a live view - copy before removing).
+     */
+    public Set<Object> getOwners() {
+        return _owners.keySet();
+    }
+
+    /**
+     * Get the number of items.
+     *
+     * @return The number of points and segments.
+     */
+    public int size() {
+        return _itemCount;
+    }
+
+    /**
+     * Find the nearest point within a radius.
+     *
+     * @param x The query x coordinate.
+     * @param y The query y coordinate.
+     * @param radius The search radius.
+     * @return The nearest point item or null if none is in range.
+     */
+    public Item nearestPoint(double x, double y, double radius) {
+        return nearest(x, y, radius, true, false);
+    }
+
+    /**
+     * Find the nearest segment within a radius.
+     *
+     * @param x The query x coordinate.
+     * @param y The query y coordinate.
+     * @param radius The search radius.
+     * @param closest Set to the closest point on the segment (may be null).
+     * @return The nearest segment item or null if none is in range.
+     */
+    public Item nearestSegment(double x, double y, double radius, Point2D closest) {
+
+        Item item = nearest(x, y, radius, false, true);
+
+        if (item != null && closest != null) {
+            item.closestPoint(x, y, closest);
+        }
+
+        return item;
+    }
+
+    /**
+     * Find the nearest point or segment within a radius.
+     *
+     * @param x The query x coordinate.
+     * @param y The query y coordinate.
+     * @param radius The search radius.
+     * @return The nearest item or null if none is in range.
+     */
+    public Item nearest(double x, double y, double radius) {
+        return nearest(x, y, radius, true, true);
+    }
+
+    /**
+     * Find the nearest item within a radius that is of an accepted kind.
+     *
+     * @param x The query x coordinate.
+     * @param y The query y coordinate.
+     * @param radius The search radius.
+     * @param points True to accept points.
+     * @param segments True to accept segments.
+     * @return The nearest item or null if none is in range.
+     */
+    private Item nearest(double x, double y, double radius, boolean points, boolean segments) {
+
+        int cx1 = cellIndex(x - radius);
+        int cx2 = cellIndex(x + radius);
+        int cy1 = cellIndex(y - radius);
+        int cy2 = cellIndex(y + radius);
+
+        Item best = null;
+        double bestDist = radius * radius;
+
+        for (int cx = cx1; cx <= cx2; cx++) {
+            for (int cy = cy1; cy <= cy2; cy++) {
+
+                ArrayList<Item> cell = _cells.get(cellKey(cx, cy));
+                if (cell == null) {
+                    continue;
+                }
+
+                for (int i = 0; i < cell.size(); i++) {
+
+                    Item item = cell.get(i);
+
+                    if ((item._isPoint && !points) || (!item._isPoint && !segments)) {
+                        continue;
+                    }
+
+                    double d = item.distanceSq(x, y);
+                    if (d <= bestDist) {
+                        bestDist = d;
+                        best = item;
+                    }
+                }
+            }
+        }
+
+        return best;
+    }
+
+    /**
+     * Get the cell index of a coordinate.
+     *
+     * @param value The coordinate.
+     * @return The cell index.
+     */
+    private int cellIndex(double value) {
+        return (int) Math.floor(value / _cellSize);
+    }
+
+    /**
+     * Get the key of a cell.
+     *
+     * @param cx The cell x index.
+     * @param cy The cell y index.
+     * @return The cell key.
+     */
+    private static Long cellKey(int cx, int cy) {
+        return ((long) cx << 32) | (cy & 0xffffffffL);
+    }
+
+    /**
+     * An indexed point or segment.  The coordinates are copied when added.
+     */
+    public static class Item {
+
+        private final Object _owner;
+        private final boolean _isPoint;
+        private final double _x1;
+        private final double _y1;
+        private final double _x2;
+        private final double _y2;
+
+        /**
+         * Class constructor.
+         *
+         * @param owner The owner of the item.
+         * @param isPoint True for a point, false for a segment.
+         * @param x1 The start x coordinate.
+         * @param y1 The start y coordinate.
+         * @param x2 The end x coordinate (same as start for a point).
+         * @param y2 The end y coordinate (same as start for a point).
+         */
+        private Item(Object owner, boolean isPoint, double x1, double y1, double x2, double y2) {
+            _owner = owner;
+            _isPoint = isPoint;
+            _x1 = x1;
+            _y1 = y1;
+            _x2 = x2;
+            _y2 = y2;
+        }
+
+        /**
+         * Get the owner of the item.
+         *
+         * @return The owner.
+         */
+        public Object getOwner() {
+            return _owner;
+        }
+
+        /**
+         * Check if the item is a point.
+         *
+         * @return True for a point, false for a segment.
+         */
+        public boolean isPoint() {
+            return _isPoint;
+        }
+
+        /**
+         * Get the point (or the start of the segment).
+         *
+         * @return A new point.
+         */
+        public Point2D getPoint() {
+            return new Point2D.Double(_x1, _y1);
+        }
+
+        /**
+         * Get the squared distance from a point to the item.
+         *
+         * @param x The x coordinate.
+         * @param y The y coordinate.
+         * @return The squared distance.
+         */
+        public double distanceSq(double x, double y) {
+
+            if (_isPoint) {
+                double dx = x - _x1;
+                double dy = y - _y1;
+                return dx * dx + dy * dy;
+            }
+
+            return Line2D.ptSegDistSq(_x1, _y1, _x2, _y2, x, y);
+        }
+
+        /**
+         * Get the closest point of the item to a point.
+         *
+         * @param x The x coordinate.
+         * @param y The y coordinate.
+         * @param result Set to the closest point.
+         * @return The result.
+         */
+        public Point2D closestPoint(double x, double y, Point2D result) {
+
+            if (_isPoint) {
+                result.setLocation(_x1, _y1);
+                return result;
+            }
+
+            double dx = _x2 - _x1;
+            double dy = _y2 - _y1;
+            double lenSq = dx * dx + dy * dy;
+
+            double t = 0;
+            if (lenSq > 0) {
+                t = ((x - _x1) * dx + (y - _y1) * dy) / lenSq;
+                t = Math.max(0, Math.min(1, t));
+            }
+
+            result.setLocation(_x1 + t * dx, _y1 + t * dy);
+            return result;
+        }
+
+    }
+
+}
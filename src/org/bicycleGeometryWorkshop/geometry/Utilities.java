@@ -44,12 +44,29 @@ public class Utilities {
      */
     public static Rectangle2D getUnionBoolean(Rectangle2D r1, Rectangle2D r2) {
 
+        return getUnionBoolean(r1, r2, new Rectangle2D.Double());
+
+    }
+
+    /**
+     * Union of two rectangles into an existing rectangle (no allocation).  The
+     * result may be one of the rectangles.
+     *
+     * @param r1 Rectangle to include
+     * @param r2 Rectangle to include
+     * @param result The rectangle to set.
+     * @return The result rectangle.
+     */
+    public static Rectangle2D getUnionBoolean(Rectangle2D r1, Rectangle2D r2, Rectangle2D result) {
+
         double x1 = Math.min(r1.getMinX(), r2.getMinX());
         double y1 = Math.min(r1.getMinY(), r2.getMinY());
         double x2 = Math.max(r1.getMaxX(), r2.getMaxX());
         double y2 = Math.max(r1.getMaxY(), r2.getMaxY());
 
-        return new Rectangle2D.Double(x1, y1, x2 - x1, y2 - y1);
+        result.setRect(x1, y1, x2 - x1, y2 - y1);
+
+        return result;
 
     }
 
@@ -63,10 +80,28 @@ public class Utilities {
      */
     public static Point2D polarPoint(Point2D base, double dist, double theta) {
 
+        return polarPoint(base, dist, theta, new Point2D.Double());
+
+    }
+
+    /**
+     * Polar Point into an existing point (no allocation).  The result may be
+     * the base point.
+     *
+     * @param base The base Point
+     * @param dist Polar distance
+     * @param theta Polar angle
+     * @param result The point to set.
+     * @return The result point.
+     */
+    public static Point2D polarPoint(Point2D base, double dist, double theta, Point2D result) {
+
         double x = base.getX() + dist * Math.cos(theta);
         double y = base.getY() + dist * Math.sin(theta);
 
-        return new Point2D.Double(x, y);
+        result.setLocation(x, y);
+
+        return result;
 
     }
 
@@ -83,20 +118,40 @@ public class Utilities {
      * @return The lengthened (or shortened) line.
      */
     public static Line2D lengthenLine(Point2D sp, Point2D ep, double dist, boolean start) {
-        Line2D newLine = new Line2D.Double();
-        //double theta = 0;
+
+        return lengthenLine(sp, ep, dist, start, new Line2D.Double());
+
+    }
+
+    /**
+     * Lengthen a line into an existing line (no allocation).  See
+     * lengthenLine() above.
+     *
+     * @param sp Start point of the Line.
+     * @param ep End point of the Line
+     * @param dist The distance to project the line (relative lengthen/shorten).
+     * @param start True if project off of start point, false projects off of
+     * end point.
+     * @param result The line to set.
+     * @return The result line.
+     */
+    public static Line2D lengthenLine(Point2D sp, Point2D ep, double dist, boolean start, Line2D result) {
+
+        double x1 = sp.getX();
+        double y1 = sp.getY();
+        double x2 = ep.getX();
+        double y2 = ep.getY();
+
         if (start) {
-            double theta = anglePointPoint(ep, sp);
             //project off of start point
-            Point2D newStart = polarPoint(sp, dist, theta);
-            newLine.setLine(newStart, ep);
+            double theta = Math.atan2(y1 - y2, x1 - x2);
+            result.setLine(x1 + dist * Math.cos(theta), y1 + dist * Math.sin(theta), x2, y2);
         } else {
-            double theta = anglePointPoint(sp, ep);
-            Point2D newEnd = polarPoint(ep, dist, theta);
-            newLine.setLine(sp, newEnd);
+            double theta = Math.atan2(y2 - y1, x2 - x1);
+            result.setLine(x1, y1, x2 + dist * Math.cos(theta), y2 + dist * Math.sin(theta));
         }
 
-        return newLine;
+        return result;
 
     }
 
@@ -114,10 +169,30 @@ public class Utilities {
      */
     public static Line2D offsetLine(Line2D line, double startDist, double endDist, boolean left) {
 
-        Point2D sp = line.getP1();
-        Point2D ep = line.getP2();
+        return offsetLine(line, startDist, endDist, left, new Line2D.Double());
+
+    }
 
-        double theta = anglePointPoint(sp, ep);
+    /**
+     * Offset a line into an existing line (no allocation).  See offsetLine()
+     * above.  The result may be the line being offset.
+     *
+     * @param line The line to offset.
+     * @param startDist  The start distance to offset.
+     * @param endDist  The end distance to offset.
+     * @param left True to offset to left side (defined by start point to end),
+     * false to offset to right side.
+     * @param result The line to set.
+     * @return The result line.
+     */
+    public static Line2D offsetLine(Line2D line, double startDist, double endDist, boolean left, Line2D result) {
+
+        double x1 = line.getX1();
+        double y1 = line.getY1();
+        double x2 = line.getX2();
+        double y2 = line.getY2();
+
+        double theta = Math.atan2(y2 - y1, x2 - x1);
         double pTheta = 0;
         double HPI = Math.PI / 2;
 
@@ -129,16 +204,13 @@ public class Utilities {
             pTheta = theta - HPI;
         }
 
-        //create polar offset point
-        Point2D projPntS = polarPoint(new Point2D.Double(), startDist, pTheta);
-        Point2D projPntE = polarPoint(new Point2D.Double(), endDist, pTheta);
+        double cos = Math.cos(pTheta);
+        double sin = Math.sin(pTheta);
 
-        //add the polar point to the line points
-        Point2D osp = addPoints(sp, projPntS);
-        Point2D oep = addPoints(ep, projPntE);
+        //add the polar offsets to the line points
+        result.setLine(x1 + startDist * cos, y1 + startDist * sin, x2 + endDist * cos, y2 + endDist * sin);
 
-        //return the offset line
-        return new Line2D.Double(osp, oep);
+        return result;
 
     }
 
@@ -151,7 +223,24 @@ public class Utilities {
      */
     public static Point2D addPoints(Point2D a, Point2D b) {
 
-        return new Point2D.Double(a.getX() + b.getX(), a.getY() + b.getY());
+        return addPoints(a, b, new Point2D.Double());
+
+    }
+
+    /**
+     * Add two points into an existing point (no allocation).  The result may
+     * be either of the points.
+     *
+     * @param a Point a.
+     * @param b Point b.
+     * @param result The point to set.
+     * @return The result point.
+     */
+    public static Point2D addPoints(Point2D a, Point2D b, Point2D result) {
+
+        result.setLocation(a.getX() + b.getX(), a.getY() + b.getY());
+
+        return result;
 
     }
 
@@ -201,68 +290,86 @@ public class Utilities {
      */
     public static Line2D trimLineToCircle(Line2D line, Point2D center, double radius, boolean start) {
 
-        IntersectionPoint ipObj = lineCircleIntersect(line.getP1(), line.getP2(), center, radius);
-        IntersectionPointResult result = ipObj.result();
-       
-        Line2D trimLine = new Line2D.Double();
-        
-        switch(result) {
-            
-            case ONE_POINT :
-                
-                if(start) {
-                    //preserve start
-                   trimLine.setLine(line.getP1(), ipObj.getIntersection1());
-                    
-                } else {
-                    //preserve end point and direction
-                   trimLine.setLine( ipObj.getIntersection1(), line.getP2());
-                    
-                }
-                break;
-  
-            case TWO_POINTS:
-                
-                Point2D pa = new Point2D.Double();
-                Point2D pb = new Point2D.Double();
-                
-                //which line point to use?
-                if(start) {
-                    pa = line.getP1();
-                } else {
-                    pa = line.getP2();
-                }
-                //dist squared to int points
-                double d1 = pa.distanceSq(ipObj.getIntersection1());
-                double d2 = pa.distanceSq(ipObj.getIntersection2());
-                
-                //use closest point
-                if(d1 < d2) {
-                    pb = ipObj.getIntersection1();
-                } else {
-                    pb = ipObj.getIntersection2();
-                }
-                
-                if(start) {
-                    //point a is start point
-                   trimLine.setLine(pa, pb);
-                } else {
-                    //point a is end point
-                   trimLine.setLine(pb, pa);
-                }                
- 
-                break;
-                
-            case FAILURE:
-                //return same line - but use copy for consistancy
-                trimLine.setLine(line.getP1(), line.getP2());
-                
-                break;
-            
+        return trimLineToCircle(line, center, radius, start, new Line2D.Double());
+
+    }
+
+    /**
+     * Trim a line to a circle into an existing line (no allocation).  See
+     * trimLineToCircle() above.  The result may be the line being trimmed.
+     *
+     * @param line  The line to trim.
+     * @param center  Center of circle.
+     * @param radius  Radius of circle.
+     * @param start True to keep line start point, false to keep line end point.
+     * @param result The line to set.
+     * @return The result line - the same line if the trim fails.
+     */
+    public static Line2D trimLineToCircle(Line2D line, Point2D center, double radius, boolean start, Line2D result) {
+
+        double x1 = line.getX1();
+        double y1 = line.getY1();
+        double x2 = line.getX2();
+        double y2 = line.getY2();
+        double x3 = center.getX();
+        double y3 = center.getY();
+
+        //same quadratic as lineCircleIntersect()
+        double a = square(x2 - x1) + square(y2 - y1);
+        double b = 2 * ((x2 - x1) * (x1 - x3) + (y2 - y1) * (y1 - y3));
+        double c = square(x3) + square(y3) + square(x1) + square(y1) - 2 * (x3 * x1 + y3 * y1) - square(radius);
+        double i = b * b - 4 * a * c;
+
+        //line parameter of the trim point
+        double mu;
+
+        if (i == 0.0) {
+            //one intersection
+            mu = -b / (2 * a);
+        } else if (i > 0.0) {
+
+            double mua = (-b + Math.sqrt(square(b) - 4 * a * c)) / (2 * a);
+            double mub = (-b - Math.sqrt(square(b) - 4 * a * c)) / (2 * a);
+            boolean sega = mua >= 0.0 && mua <= 1.0;
+            boolean segb = mub >= 0.0 && mub <= 1.0;
+
+            if (sega && segb) {
+
+                //use the intersection closest to the kept point
+                double px = start ? x1 : x2;
+                double py = start ? y1 : y2;
+                double d1 = square(x1 + mua * (x2 - x1) - px) + square(y1 + mua * (y2 - y1) - py);
+                double d2 = square(x1 + mub * (x2 - x1) - px) + square(y1 + mub * (y2 - y1) - py);
+                mu = d1 < d2 ? mua : mub;
+
+            } else if (sega) {
+                mu = mua;
+            } else if (segb) {
+                mu = mub;
+            } else {
+                //no trim - same line
+                result.setLine(x1, y1, x2, y2);
+                return result;
+            }
+
+        } else {
+            //no intersection - same line
+            result.setLine(x1, y1, x2, y2);
+            return result;
         }
-        
-        return trimLine;
-        
+
+        double ix = x1 + mu * (x2 - x1);
+        double iy = y1 + mu * (y2 - y1);
+
+        if (start) {
+            //preserve start
+            result.setLine(x1, y1, ix, iy);
+        } else {
+            //preserve end point and direction
+            result.setLine(ix, iy, x2, y2);
+        }
+
+        return result;
     }
 
  
@@ -275,14 +382,39 @@ public class Utilities {
      */
     public static double vectorAngle(Point2D basePoint, Point2D pointA, Point2D pointB) {
 
-        Vector2D va = Vector2D.fromLine(basePoint, pointA);
-        va.normalize();
-        Vector2D vb = Vector2D.fromLine(basePoint, pointB);
-        vb.normalize();
+        return vectorAngle(basePoint.getX(), basePoint.getY(), pointA.getX(), pointA.getY(), pointB.getX(), pointB.getY());
 
-        double angle = Vector2D.angle(va, vb);
+    }
 
-        return angle;
+    /**
+     * Vector angle from coordinates (no allocation).  See vectorAngle() above.
+     * @param bx Base point x.
+     * @param by Base point y.
+     * @param ax The first point x.
+     * @param ay The first point y.
+     * @param cx The second point x.
+     * @param cy The second point y.
+     * @return The angle between the vectors
+     */
+    public static double vectorAngle(double bx, double by, double ax, double ay, double cx, double cy) {
+
+        double vax = ax - bx;
+        double vay = ay - by;
+        double ma = Math.sqrt(vax * vax + vay * vay);
+        if (ma != 0) {
+            vax = vax / ma;
+            vay = vay / ma;
+        }
+
+        double vbx = cx - bx;
+        double vby = cy - by;
+        double mb = Math.sqrt(vbx * vbx + vby * vby);
+        if (mb != 0) {
+            vbx = vbx / mb;
+            vby = vby / mb;
+        }
+
+        return Math.acos(vax * vbx + vay * vby);
 
     }
 
@@ -308,10 +440,7 @@ public class Utilities {
      */
     public static double lineLength(Line2D l) {
 
-        Point2D p1 = l.getP1();
-        Point2D p2 = l.getP2();
-
-        return p1.distance(p2);
+        return Point2D.distance(l.getX1(), l.getY1(), l.getX2(), l.getY2());
 
     }
 
@@ -363,7 +492,25 @@ public class Utilities {
      */
     public static Point2D translatePoint(Point2D basePoint, double x, double y) {
 
-        return new Point2D.Double(basePoint.getX() + x, basePoint.getY() + y);
+        return translatePoint(basePoint, x, y, new Point2D.Double());
+
+    }
+
+    /**
+     * Translate a Point into an existing point (no allocation).  The result
+     * may be the base point.
+     *
+     * @param basePoint Point to translate from.
+     * @param x X value for translation
+     * @param y Y value for translation
+     * @param result The point to set.
+     * @return The result point.
+     */
+    public static Point2D translatePoint(Point2D basePoint, double x, double y, Point2D result) {
+
+        result.setLocation(basePoint.getX() + x, basePoint.getY() + y);
+
+        return result;
 
     }
 
@@ -385,6 +532,36 @@ public class Utilities {
      */
     public static IntersectionPoint circleCircleIntersection(Point2D c0, double r0, Point2D c1, double r1) {
 
+        Point2D ip1 = new Point2D.Double();
+        Point2D ip2 = new Point2D.Double();
+
+        int count = circleCircleIntersection(c0, r0, c1, r1, ip1, ip2);
+
+        switch (count) {
+            case 1:
+                return new IntersectionPoint(ip1.getX(), ip1.getY());
+            case 2:
+                return new IntersectionPoint(ip1.getX(), ip1.getY(), ip2.getX(), ip2.getY());
+            default:
+                return new IntersectionPoint();
+        }
+
+    }//end circleCircleIntersection
+
+    /**
+     * Get the Circle Circle intersection into existing points (no allocation).
+     * See circleCircleIntersection() above.
+     *
+     * @param c0  Circle 0 center point.
+     * @param r0 Circle 0 radius.
+     * @param c1 Circle 1 center point.
+     * @param r1 Circle 1 radius.
+     * @param result1 Set to the first intersection.
+     * @param result2 Set to the second intersection (if there are two).
+     * @return The number of intersections (0, 1 or 2).
+     */
+    public static int circleCircleIntersection(Point2D c0, double r0, Point2D c1, double r1, Point2D result1, Point2D result2) {
+
         double px0 = c0.getX();
         double py0 = c0.getY();
         double px1 = c1.getX();
@@ -397,13 +574,13 @@ public class Utilities {
         /*Circles share centers. This results in division by zero,
       infinite solutions or one circle being contained within the other. */
         if (d == 0.0) {
-            return new IntersectionPoint();
+            return 0;
         } //Circles do not touch each other
         else if (d > (r0 + r1)) {
-            return new IntersectionPoint();
+            return 0;
         } //One circle is contained within the other
         else if (d < (r0 - r1)) {
-            return new IntersectionPoint();
+            return 0;
         }
 
         double a = ((r0 * r0) - (r1 * r1) + (d * d)) / (2.0f * d);
@@ -416,7 +593,8 @@ public class Utilities {
 
         //Tangent circles have only one intersection
         if (d == (r0 + r1)) {
-            return new IntersectionPoint(px2, py2);
+            result1.setLocation(px2, py2);
+            return 1;
         }
 
         //Get the perpendicular slope by multiplying by the negative reciprocal
@@ -425,14 +603,12 @@ public class Utilities {
         double my = (dx * h / d);
 
         //Add the offsets to point p2 to obtain the intersection points
-        double ix1 = px2 + mx;
-        double iy1 = py2 + my;
-        double ix2 = px2 - mx;
-        double iy2 = py2 - my;
+        result1.setLocation(px2 + mx, py2 + my);
+        result2.setLocation(px2 - mx, py2 - my);
 
-        return new IntersectionPoint(ix1, iy1, ix2, iy2);
+        return 2;
 
-    }//end circleCircleIntersection
+    }
 
     /**
      * Line Line intersection wrapper for two lines.  This uses the pint version for the calculation.
@@ -442,7 +618,13 @@ public class Utilities {
      */
     public static IntersectionPoint lineLineIntersect(Line2D l1, Line2D l2) {
 
-        return lineLineIntersect(l1.getP1(), l1.getP2(), l2.getP1(), l2.getP2());
+        Point2D ip = new Point2D.Double();
+
+        if (lineLineIntersect(l1.getX1(), l1.getY1(), l1.getX2(), l1.getY2(), l2.getX1(), l2.getY1(), l2.getX2(), l2.getY2(), ip)) {
+            return new IntersectionPoint(ip.getX(), ip.getY());
+        }
+
+        return new IntersectionPoint();
 
     }
 
@@ -465,29 +647,59 @@ public class Utilities {
      */
     public static IntersectionPoint lineLineIntersect(Point2D s1, Point2D e1, Point2D s2, Point2D e2) {
 
-        double x1 = s1.getX();
-        double y1 = s1.getY();
-        double x2 = e1.getX();
-        double y2 = e1.getY();
-        double x3 = s2.getX();
-        double y3 = s2.getY();
-        double x4 = e2.getX();
-        double y4 = e2.getY();
+        Point2D ip = new Point2D.Double();
+
+        if (lineLineIntersect(s1, e1, s2, e2, ip)) {
+            return new IntersectionPoint(ip.getX(), ip.getY());
+        }
+
+        return new IntersectionPoint();
+
+    }//LineIntersect
+
+    /**
+     * Line Line Intersection into an existing point (no allocation).  See
+     * lineLineIntersect() above.
+     *
+     * @param s1 Line 1 start point.
+     * @param e1 Line 1 end point.
+     * @param s2 Line 2 start point.
+     * @param e2 Line 2 end point.
+     * @param result Set to the intersection point if there is one.
+     * @return True if the lines intersect, false if parallel or coincident.
+     */
+    public static boolean lineLineIntersect(Point2D s1, Point2D e1, Point2D s2, Point2D e2, Point2D result) {
+
+        return lineLineIntersect(s1.getX(), s1.getY(), e1.getX(), e1.getY(), s2.getX(), s2.getY(), e2.getX(), e2.getY(), result);
+
+    }
+
+    /**
+     * Line Line Intersection from coordinates into an existing point (no
+     * allocation).  See lineLineIntersect() above.
+     *
+     * @param x1 Line 1 start x.
+     * @param y1 Line 1 start y.
+     * @param x2 Line 1 end x.
+     * @param y2 Line 1 end y.
+     * @param x3 Line 2 start x.
+     * @param y3 Line 2 start y.
+     * @param x4 Line 2 end x.
+     * @param y4 Line 2 end y.
+     * @param result Set to the intersection point if there is one.
+     * @return True if the lines intersect, false if parallel or coincident.
+     */
+    public static boolean lineLineIntersect(double x1, double y1, double x2, double y2,
+            double x3, double y3, double x4, double y4, Point2D result) {
 
-        
         double den = (y4 - y3) * (x2 - x1) - (x4 - x3) * (y2 - y1);
         double numA = (x4 - x3) * (y1 - y3) - (y4 - y3) * (x1 - x3);
         double numB = (x2 - x1) * (y1 - y3) - (y2 - y1) * (x1 - x3);
 
         //check for same or parallel
         if(den == 0) {
-            if(numA == 0 && numB == 0) {
-                //coincident - just fail...
-                return new IntersectionPoint();
-            } else {
-                //parallel: denom == 0
-                return new IntersectionPoint(); 
-            } 
+            //coincident or parallel - just fail...
+            return false;
         }
         
         
@@ -504,9 +716,11 @@ public class Utilities {
         double lix = x1 + mua * (x2 - x1);
         double liy = y1 + mua * (y2 - y1);
 
-        return new IntersectionPoint(lix, liy);
+        result.setLocation(lix, liy);
 
-    }//LineIntersect
+        return true;
+
+    }
 
     /**
      * Line Circle Intersection
@@ -528,6 +742,36 @@ public class Utilities {
      */
     public static IntersectionPoint lineCircleIntersect(Point2D sp, Point2D ep, Point2D cp, double radius) {
 
+        Point2D ip1 = new Point2D.Double();
+        Point2D ip2 = new Point2D.Double();
+
+        int count = lineCircleIntersect(sp, ep, cp, radius, ip1, ip2);
+
+        switch (count) {
+            case 1:
+                return new IntersectionPoint(ip1.getX(), ip1.getY());
+            case 2:
+                return new IntersectionPoint(ip1.getX(), ip1.getY(), ip2.getX(), ip2.getY());
+            default:
+                return new IntersectionPoint();
+        }
+
+    }//end lineCircleIntersect
+
+    /**
+     * Line Circle Intersection into existing points (no allocation).  See
+     * lineCircleIntersect() above.
+     *
+     * @param sp Line start point.
+     * @param ep Line end point.
+     * @param cp Circle center point.
+     * @param radius Circle radius.
+     * @param result1 Set to the first intersection.
+     * @param result2 Set to the second intersection (if there are two).
+     * @return The number of intersections (0, 1 or 2).
+     */
+    public static int lineCircleIntersect(Point2D sp, Point2D ep, Point2D cp, double radius, Point2D result1, Point2D result2) {
+
         double x1 = sp.getX();
         double y1 = sp.getY();
         double x2 = ep.getX();
@@ -555,7 +799,7 @@ public class Utilities {
 
         if (i < 0.0) {
             // no intersection
-            return new IntersectionPoint();
+            return 0;
         }
 
         if (i == 0.0) {
@@ -566,7 +810,8 @@ public class Utilities {
             double ix = x1 + mu * (x2 - x1);
             double iy = y1 + mu * (y2 - y1);
             //p[3] = z1 + mu*(z2-z1);
-            return new IntersectionPoint(ix, iy);
+            result1.setLocation(ix, iy);
+            return 1;
         }
 
         if (i > 0.0) {
@@ -586,21 +831,25 @@ public class Utilities {
             double iy2 = y1 + mub * (y2 - y1);
             //on segment?
             if (sega & segb) {
-                return new IntersectionPoint(ix1, iy1, ix2, iy2);
+                result1.setLocation(ix1, iy1);
+                result2.setLocation(ix2, iy2);
+                return 2;
             } else if (sega) {
-                return new IntersectionPoint(ix1, iy1);
+                result1.setLocation(ix1, iy1);
+                return 1;
             } else if (segb) {
-                return new IntersectionPoint(ix2, iy2);
+                result1.setLocation(ix2, iy2);
+                return 1;
             } else {
-                return new IntersectionPoint();
+                return 0;
             }
 
         }
 
         //compilier hapiness
-        return new IntersectionPoint();
+        return 0;
 
-    }//end lineCircleIntersect
+    }
 
     /**
      * Helper function - find the square of a number.
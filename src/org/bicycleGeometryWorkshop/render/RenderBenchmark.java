@@ -0,0 +1,604 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2020 Tom.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.bicycleGeometryWorkshop.render;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import org.bicycleGeometryWorkshop.app.BGWProject;
+import org.bicycleGeometryWorkshop.app.VisualPreferences;
+import org.bicycleGeometryWorkshop.attributes.BaseAttribute;
+import org.bicycleGeometryWorkshop.attributes.BooleanAttribute;
+import org.bicycleGeometryWorkshop.attributes.DoubleAttribute;
+import org.bicycleGeometryWorkshop.components.BaseComponent;
+import org.bicycleGeometryWorkshop.components.Bicycle;
+import org.bicycleGeometryWorkshop.components.BicycleDisplay;
+import org.bicycleGeometryWorkshop.diagnostics.Log;
+import org.bicycleGeometryWorkshop.diagnostics.LogLevel;
+import org.bicycleGeometryWorkshop.ui.ProjectViewer;
+
+/**
+ * Headless rendering benchmark.  Builds projects of generated bicycles and
+ * renders them into images over a range of project sizes, image sizes,
+ * display modes and visual preferences, and reports for each case the frames
+ * per second and frame time percentiles, the bytes allocated by the render
+ * thread and the garbage collections during the case.
+ * <p>
+ * Two targets are measured: the whole viewer paint (ProjectViewer, with its
+ * cached transform and culling) and the bicycle renders alone
+ * (Bicycle.render for each bicycle in a fitted transform).
+ * <p>
+ * Each case renders warm up frames first and then frames until both the
+ * minimum frame count and the minimum time are reached.  The cases change one
+ * setting at a time from the defaults (bicycle and rider, rider points and
+ * ground on, analysis off); -all runs every combination of display mode and
+ * preferences instead.
+ * <p>
+ * Command line (java.awt.headless is set by main):
+ * <pre>
+ * RenderBenchmark [-counts 1,10,100,1000] [-sizes 640x480,1280x800,1920x1200] [-target viewer|bicycle|both]
+ *                 [-frames n] [-warmup n] [-seconds s] [-all]
+ * </pre>
+ *
+ * @author Tom
+ */
+public class RenderBenchmark {
+
+    private static final String SHOW_ANALYSIS = "ShowAnalysis";
+    private static final String SHOW_GROUND = "ShowGround";
+    private static final String SHOW_RIDER_POINTS = "ShowRiderPoints";
+
+    private int[] _counts;
+    private int[][] _sizes;
+    private boolean _viewer;
+    private boolean _bicycle;
+    private int _frames;
+    private int _warmup;
+    private double _seconds;
+    private boolean _all;
+
+    private ThreadMXBean _threadBean;
+
+    /**
+     * Class constructor with the default cases.
+     */
+    public RenderBenchmark() {
+
+        _counts = new int[]{1, 10, 100, 1000};
+        _sizes = new int[][]{{640, 480}, {1280, 800}, {1920, 1200}};
+        _viewer = true;
+        _bicycle = true;
+        _frames = 5;
+        _warmup = 2;
+        _seconds = 1;
+        _all = false;
+
+        _threadBean = ManagementFactory.getThreadMXBean();
+
+    }
+
+    /**
+     * Set the project sizes.
+     *
+     * @param counts The numbers of bicycles.
+     */
+    public void setCounts(int[] counts) {
+        _counts = counts;
+    }
+
+    /**
+     * Set the image sizes.
+     *
+     * @param sizes The width and height of each size.
+     */
+    public void setSizes(int[][] sizes) {
+        _sizes = sizes;
+    }
+
+    /**
+     * Set the render targets.
+     *
+     * @param viewer True to measure the viewer paint.
+     * @param bicycle True to measure the bicycle renders.
+     */
+    public void setTargets(boolean viewer, boolean bicycle) {
+        _viewer = viewer;
+        _bicycle = bicycle;
+    }
+
+    /**
+     * Set the frames of each case.
+     *
+     * @param frames The minimum number of measured frames.
+     * @param warmup The number of frames rendered before measuring.
+     * @param seconds The minimum measured time in seconds.
+     */
+    public void setFrames(int frames, int warmup, double seconds) {
+        _frames = Math.max(1, frames);
+        _warmup = Math.max(0, warmup);
+        _seconds = Math.max(0, seconds);
+    }
+
+    /**
+     * Run every combination of display mode and preferences instead of one
+     * change at a time.
+     *
+     * @param all True for all combinations.
+     */
+    public void setAllCombinations(boolean all) {
+        _all = all;
+    }
+
+    /**
+     * Run the cases and print a line for each.
+     */
+    public void run() {
+
+        System.out.println(String.format("%-8s %6s %10s %-16s %-30s %7s %9s %8s %8s %8s %10s %9s %5s %8s",
+                "target", "bikes", "size", "display", "preferences", "frames", "fps", "mean ms", "p50 ms", "p95 ms",
+                "alloc MB/s", "KB/frame", "gcs", "gc ms"));
+
+        for (int count : _counts) {
+
+            BGWProject project = makeProject(count);
+            ProjectViewer viewer = new ProjectViewer(project);
+
+            for (Case c : getCases()) {
+
+                c.apply(project);
+
+                for (int[] size : _sizes) {
+
+                    BufferedImage image = new BufferedImage(size[0], size[1], BufferedImage.TYPE_INT_ARGB);
+
+                    if (_viewer) {
+                        report("viewer", count, size, c, measure(() -> paintViewer(viewer, image)));
+                    }
+
+                    if (_bicycle) {
+                        report("bicycle", count, size, c, measure(() -> renderBicycles(project, image)));
+                    }
+                }
+            }
+        }
+
+    }
+
+    /**
+     * Build a project of generated bicycles.  The bicycles are the default
+     * bicycle with its lengths and angles scaled a little differently so they
+     * do not all draw the same paths.
+     *
+     * @param count The number of bicycles.
+     * @return The project.
+     */
+    private BGWProject makeProject(int count) {
+
+        BGWProject project = new BGWProject(new RenderService.HeadlessListener());
+
+        while (project.getBicycles().size() < count) {
+            project.addBicycle("Bicycle " + (project.getBicycles().size() + 1));
+        }
+
+        int k = 0;
+        for (Bicycle b : project.getBicycles()) {
+
+            double factor = 1 + 0.004 * (k++ % 11 - 5);
+
+            for (BaseComponent c : b.getComponentList()) {
+                for (BaseAttribute att : c.getAttributeSet().getAttributes()) {
+                    if (att instanceof DoubleAttribute) {
+                        DoubleAttribute d = (DoubleAttribute) att;
+                        d.setDouble(d.getDoubleValue() * factor);
+                    }
+                }
+            }
+        }
+
+        return project;
+    }
+
+    /**
+     * Get the display and preference cases.
+     *
+     * @return The cases.
+     */
+    private ArrayList<Case> getCases() {
+
+        ArrayList<Case> cases = new ArrayList();
+
+        if (_all) {
+
+            for (BicycleDisplay display : BicycleDisplay.values()) {
+                for (int bits = 0; bits < 8; bits++) {
+                    cases.add(new Case(display, (bits & 1) != 0, (bits & 2) != 0, (bits & 4) != 0));
+                }
+            }
+
+        } else {
+
+            //defaults, then one change at a time
+            cases.add(new Case(BicycleDisplay.BicycleAndRider, false, true, true));
+            cases.add(new Case(BicycleDisplay.Bicycle, false, true, true));
+            cases.add(new Case(BicycleDisplay.FrameOnly, false, true, true));
+            cases.add(new Case(BicycleDisplay.BicycleAndRider, true, true, true));
+            cases.add(new Case(BicycleDisplay.BicycleAndRider, false, false, true));
+            cases.add(new Case(BicycleDisplay.BicycleAndRider, false, true, false));
+        }
+
+        return cases;
+    }
+
+    /**
+     * Paint the viewer into an image.
+     *
+     * @param viewer The viewer.
+     * @param image The image.
+     */
+    private void paintViewer(ProjectViewer viewer, BufferedImage image) {
+
+        if (viewer.getWidth() != image.getWidth() || viewer.getHeight() != image.getHeight()) {
+            viewer.setSize(image.getWidth(), image.getHeight());
+        }
+
+        Graphics2D g2 = image.createGraphics();
+        viewer.paintComponent(g2);
+        g2.dispose();
+
+    }
+
+    /**
+     * Render each bicycle of the project into an image, fitted like the
+     * viewer.
+     *
+     * @param project The project.
+     * @param image The image.
+     */
+    private void renderBicycles(BGWProject project, BufferedImage image) {
+
+        VisualPreferences vPrefs = project.getVisualPreferences();
+        AffineTransform view = RenderService.getViewTransform(project.getBounds(), image.getWidth(), image.getHeight());
+        float scale = (float) Math.max(view.getScaleX(), 0.001);
+
+        Graphics2D g2 = image.createGraphics();
+
+        g2.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g2.setBackground(vPrefs.getBackgroundColor());
+        g2.clearRect(0, 0, image.getWidth(), image.getHeight());
+        g2.transform(view);
+
+        //same order as the project - last bicycle at the back
+        ArrayList<Bicycle> bicycles = project.getBicycles();
+        for (int i = bicycles.size() - 1; i >= 0; i--) {
+            bicycles.get(i).render(g2, scale, vPrefs);
+        }
+
+        g2.dispose();
+
+    }
+
+    /**
+     * Measure a frame.
+     *
+     * @param frame Renders one frame.
+     * @return The measurement.
+     */
+    private Result measure(Runnable frame) {
+
+        for (int i = 0; i < _warmup; i++) {
+            frame.run();
+        }
+
+        ArrayList<Long> times = new ArrayList();
+
+        long gcCount = getGcCount();
+        long gcMillis = getGcMillis();
+        long allocated = getAllocatedBytes();
+        long start = System.nanoTime();
+        long minNanos = (long) (_seconds * 1.0e9);
+
+        while (times.size() < _frames || System.nanoTime() - start < minNanos) {
+            long t0 = System.nanoTime();
+            frame.run();
+            times.add(System.nanoTime() - t0);
+        }
+
+        long wall = System.nanoTime() - start;
+
+        long[] latency = new long[times.size()];
+        for (int i = 0; i < latency.length; i++) {
+            latency[i] = times.get(i);
+        }
+
+        Result r = new Result();
+        r.stats = new RenderStats(latency, 0, wall);
+        r.allocated = allocated < 0 ? -1 : getAllocatedBytes() - allocated;
+        r.gcCount = getGcCount() - gcCount;
+        r.gcMillis = getGcMillis() - gcMillis;
+
+        return r;
+    }
+
+    /**
+     * Print the line of a case.
+     *
+     * @param target The target name.
+     * @param count The number of bicycles.
+     * @param size The image size.
+     * @param c The case.
+     * @param r The measurement.
+     */
+    private void report(String target, int count, int[] size, Case c, Result r) {
+
+        RenderStats s = r.stats;
+        int frames = s.getImageCount();
+
+        String alloc = "n/a";
+        String perFrame = "n/a";
+        if (r.allocated >= 0) {
+            alloc = String.format("%.1f", r.allocated / 1.0e6 / s.getWallSeconds());
+            perFrame = String.format("%.0f", r.allocated / 1024.0 / frames);
+        }
+
+        System.out.println(String.format("%-8s %6d %10s %-16s %-30s %7d %9.2f %8.2f %8.2f %8.2f %10s %9s %5d %8d",
+                target, count, size[0] + "x" + size[1], c.display.name(), c.getPreferences(), frames,
+                s.getThroughput(), s.getMeanLatency(), s.getLatencyPercentile(50), s.getLatencyPercentile(95),
+                alloc, perFrame, r.gcCount, r.gcMillis));
+
+    }
+
+    /**
+     * Get the bytes allocated by this thread.
+     *
+     * @return The bytes, or -1 if the JVM does not count them.
+     */
+    private long getAllocatedBytes() {
+
+        if (_threadBean instanceof com.sun.management.ThreadMXBean) {
+
+            com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) _threadBean;
+
+            if (bean.isThreadAllocatedMemorySupported() && bean.isThreadAllocatedMemoryEnabled()) {
+                return bean.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Get the number of collections of all the collectors.
+     *
+     * @return The number of collections.
+     */
+    private static long getGcCount() {
+
+        long count = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, gc.getCollectionCount());
+        }
+
+        return count;
+    }
+
+    /**
+     * Get the collection time of all the collectors.
+     *
+     * @return The time in milliseconds.
+     */
+    private static long getGcMillis() {
+
+        long time = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            time += Math.max(0, gc.getCollectionTime());
+        }
+
+        return time;
+    }
+
+    /**
+     * Parse a comma separated list of integers.
+     *
+     * @param text The list.
+     * @return The integers.
+     */
+    private static int[] parseCounts(String text) {
+
+        String[] parts = text.split(",");
+        int[] counts = new int[parts.length];
+
+        for (int i = 0; i < parts.length; i++) {
+            counts[i] = Math.max(1, Integer.parseInt(parts[i].trim()));
+        }
+
+        return counts;
+    }
+
+    /**
+     * Parse a comma separated list of sizes (800x600,...).
+     *
+     * @param text The list.
+     * @return The width and height of each size.
+     */
+    private static int[][] parseSizes(String text) {
+
+        String[] parts = text.split(",");
+        int[][] sizes = new int[parts.length][];
+
+        for (int i = 0; i < parts.length; i++) {
+            String[] size = parts[i].trim().toLowerCase().split("x");
+            sizes[i] = new int[]{Math.max(1, Integer.parseInt(size[0])), Math.max(1, Integer.parseInt(size[1]))};
+        }
+
+        return sizes;
+    }
+
+    /**
+     * Command line entry.
+     *
+     * @param args The command line arguments (see the class description).
+     */
+    public static void main(String[] args) {
+
+        System.setProperty("java.awt.headless", "true");
+
+        //log output would be timed with the frames
+        Log.setLevel(LogLevel.Warn);
+
+        RenderBenchmark benchmark = new RenderBenchmark();
+
+        int frames = 5;
+        int warmup = 2;
+        double seconds = 1;
+
+        for (int i = 0; i < args.length; i++) {
+
+            String arg = args[i];
+            boolean hasValue = i + 1 < args.length;
+
+            if (arg.equals("-counts") && hasValue) {
+                benchmark.setCounts(parseCounts(args[++i]));
+            } else if (arg.equals("-sizes") && hasValue) {
+                benchmark.setSizes(parseSizes(args[++i]));
+            } else if (arg.equals("-target") && hasValue) {
+                String target = args[++i].toLowerCase();
+                benchmark.setTargets(!target.equals("bicycle"), !target.equals("viewer"));
+            } else if (arg.equals("-frames") && hasValue) {
+                frames = Integer.parseInt(args[++i]);
+            } else if (arg.equals("-warmup") && hasValue) {
+                warmup = Integer.parseInt(args[++i]);
+            } else if (arg.equals("-seconds") && hasValue) {
+                seconds = Double.parseDouble(args[++i]);
+            } else if (arg.equals("-all")) {
+                benchmark.setAllCombinations(true);
+            }
+        }
+
+        benchmark.setFrames(frames, warmup, seconds);
+        benchmark.run();
+
+        System.exit(0);
+
+    }
+
+    /**
+     * The measurement of a case.
+     */
+    private static class Result {
+
+        RenderStats stats;
+        long allocated;
+        long gcCount;
+        long gcMillis;
+
+    }
+
+    /**
+     * A display mode and preference setting.
+     */
+    private static class Case {
+
+        final BicycleDisplay display;
+        final boolean showAnalysis;
+        final boolean showGround;
+        final boolean showRiderPoints;
+
+        /**
+         * Class constructor.
+         *
+         * @param display The display mode of all the bicycles.
+         * @param showAnalysis The ShowAnalysis preference.
+         * @param showGround The ShowGround preference.
+         * @param showRiderPoints The ShowRiderPoints preference.
+         */
+        Case(BicycleDisplay display, boolean showAnalysis, boolean showGround, boolean showRiderPoints) {
+
+            this.display = display;
+            this.showAnalysis = showAnalysis;
+            this.showGround = showGround;
+            this.showRiderPoints = showRiderPoints;
+
+        }
+
+        /**
+         * Set the case on a project.
+         *
+         * @param project The project.
+         */
+        void apply(BGWProject project) {
+
+            for (Bicycle b : project.getBicycles()) {
+                if (b.getDisplay() != display) {
+                    b.setBicycleDisplay(display);
+                }
+            }
+
+            VisualPreferences vPrefs = project.getVisualPreferences();
+            setPreference(vPrefs, SHOW_ANALYSIS, showAnalysis);
+            setPreference(vPrefs, SHOW_GROUND, showGround);
+            setPreference(vPrefs, SHOW_RIDER_POINTS, showRiderPoints);
+
+        }
+
+        /**
+         * Set a boolean preference if it changed.
+         *
+         * @param vPrefs The visual preferences.
+         * @param name The attribute name.
+         * @param value The value.
+         */
+        private static void setPreference(VisualPreferences vPrefs, String name, boolean value) {
+
+            BooleanAttribute att = (BooleanAttribute) vPrefs.getAttributeSet().getAttribute(name);
+
+            if (att.getBooleanValue() != value) {
+                att.setBoolean(value);
+            }
+
+        }
+
+        /**
+         * Get the preferences of the case as text.
+         *
+         * @return The preferences.
+         */
+        String getPreferences() {
+
+            StringBuilder sb = new StringBuilder();
+            sb.append(showAnalysis ? "+" : "-").append("Analysis ");
+            sb.append(showGround ? "+" : "-").append("Ground ");
+            sb.append(showRiderPoints ? "+" : "-").append("RiderPoints");
+
+            return sb.toString();
+        }
+
+    }
+
+}
@@ -0,0 +1,126 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2020 Tom.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.bicycleGeometryWorkshop.render;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.geom.Rectangle2D;
+import org.bicycleGeometryWorkshop.app.BGWProject;
+import org.bicycleGeometryWorkshop.app.VisualPreferences;
+import org.bicycleGeometryWorkshop.components.Bicycle;
+
+/**
+ * One drawing of a render run - either a whole project (all its bicycles
+ * overlaid) or a single bicycle, i.e. a library entry.  The job owns its
+ * objects, so it can be rendered from any one thread.
+ *
+ * @author Tom
+ */
+public class RenderJob {
+
+    private String _name;
+    private BGWProject _project;
+    private Bicycle _bicycle;
+    private VisualPreferences _visualPrefs;
+
+    /**
+     * Class constructor for a project drawing.
+     *
+     * @param name The name of the drawing.
+     * @param project The loaded project.
+     */
+    RenderJob(String name, BGWProject project) {
+
+        _name = name;
+        _project = project;
+        _bicycle = null;
+        _visualPrefs = project.getVisualPreferences();
+
+    }
+
+    /**
+     * Class constructor for a single bicycle drawing.
+     *
+     * @param name The name of the drawing.
+     * @param bicycle The bicycle.
+     * @param visualPrefs The visual preferences of the bicycle.
+     */
+    RenderJob(String name, Bicycle bicycle, VisualPreferences visualPrefs) {
+
+        _name = name;
+        _project = null;
+        _bicycle = bicycle;
+        _visualPrefs = visualPrefs;
+
+    }
+
+    /**
+     * Get the name of the drawing.
+     *
+     * @return The name.
+     */
+    public String getName() {
+        return _name;
+    }
+
+    /**
+     * Get the world bounds of the drawing.
+     *
+     * @return The bounds.
+     */
+    public Rectangle2D getBounds() {
+
+        if (_project != null) {
+            return _project.getBounds();
+        }
+
+        return _bicycle.getBounds();
+    }
+
+    /**
+     * Get the background color of the drawing.
+     *
+     * @return The background color.
+     */
+    public Color getBackground() {
+        return _visualPrefs.getBackgroundColor();
+    }
+
+    /**
+     * Render the drawing.
+     *
+     * @param g2 The graphics object to render to, in world transform.
+     * @param scale The scale of the view - used for scaling line weights, etc.
+     */
+    public void render(Graphics2D g2, float scale) {
+
+        if (_project != null) {
+            _project.render(g2, scale);
+        } else {
+            _bicycle.render(g2, scale, _visualPrefs);
+        }
+
+    }
+
+}
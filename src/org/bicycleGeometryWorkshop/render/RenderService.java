@@ -0,0 +1,569 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2020 Tom.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.bicycleGeometryWorkshop.render;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.imageio.ImageIO;
+import org.bicycleGeometryWorkshop.app.BGWProject;
+import org.bicycleGeometryWorkshop.app.ProjectListener;
+import org.bicycleGeometryWorkshop.app.VisualPreferences;
+import org.bicycleGeometryWorkshop.components.Bicycle;
+import org.bicycleGeometryWorkshop.components.ComponentChangeEvent;
+import org.bicycleGeometryWorkshop.components.ComponentOwner;
+import org.bicycleGeometryWorkshop.components.RiderMeasurements;
+import org.bicycleGeometryWorkshop.components.RiderPose;
+import org.bicycleGeometryWorkshop.database.BGWBinaryFile;
+import org.bicycleGeometryWorkshop.database.BGWDataBase;
+import org.bicycleGeometryWorkshop.database.ComponentRecord;
+import org.bicycleGeometryWorkshop.diagnostics.Log;
+import org.bicycleGeometryWorkshop.diagnostics.LogLevel;
+import org.bicycleGeometryWorkshop.diagnostics.Logger;
+
+/**
+ * Headless batch rendering of projects and library bicycles to PNG and SVG.
+ * The drawings are loaded on the calling thread (the database is not shared
+ * between threads) and then rendered on a thread pool.  Each pool thread
+ * renders into its own reusable image tile and encodes it to PNG, and the SVG
+ * is recorded from the same render calls (see SvgGraphics2D).
+ * <p>
+ * The drawings are framed like the project viewer: the bounds are centered
+ * and scaled to fit with a margin.
+ * <p>
+ * Projects can be SQLite (.bgw) or compact binary (.bgwb) files.  With
+ * -binary each .bgw project is also written as a .bgwb file to the output
+ * directory, so later runs can skip the database.  The options apply to the
+ * files that follow them.
+ * <p>
+ * Command line (java.awt.headless is set by main):
+ * <pre>
+ * RenderService [-out dir] [-size 800x600] [-threads n] [-format png|svg|both] [-library file.bgw] [-binary] [-log debug|info|warn|error|off] [project.bgw|project.bgwb ...]
+ * </pre>
+ *
+ * @author Tom
+ */
+public class RenderService {
+
+    private static final Logger LOG = Log.getLogger(RenderService.class);
+
+    //same margin as the project viewer
+    private static final double VIEW_PADDING = 0.85;
+
+    private ArrayList<RenderJob> _jobs;
+
+    private File _outputDir;
+    private int _width;
+    private int _height;
+    private int _threads;
+    private boolean _writePng;
+    private boolean _writeSvg;
+    private boolean _writeBinary;
+
+    private AtomicInteger _completed;
+
+    /**
+     * Class constructor.  The defaults are 800 x 600 PNG and SVG images in the
+     * working directory, one thread per processor.
+     */
+    public RenderService() {
+
+        _jobs = new ArrayList();
+
+        _outputDir = new File(System.getProperty("user.dir"));
+        _width = 800;
+        _height = 600;
+        _threads = Runtime.getRuntime().availableProcessors();
+        _writePng = true;
+        _writeSvg = true;
+        _writeBinary = false;
+
+        _completed = new AtomicInteger();
+
+    }
+
+    /**
+     * Set the output directory.  It is created on run if needed.
+     *
+     * @param outputDir The output directory.
+     */
+    public void setOutputDirectory(File outputDir) {
+        _outputDir = outputDir;
+    }
+
+    /**
+     * Set the image size.
+     *
+     * @param width The width in pixels.
+     * @param height The height in pixels.
+     */
+    public void setImageSize(int width, int height) {
+        _width = Math.max(1, width);
+        _height = Math.max(1, height);
+    }
+
+    /**
+     * Set the number of threads.
+     *
+     * @param threads The number of threads.
+     */
+    public void setThreads(int threads) {
+        _threads = Math.max(1, threads);
+    }
+
+    /**
+     * Set the output formats.
+     *
+     * @param png True to write PNG images.
+     * @param svg True to write SVG drawings.
+     */
+    public void setFormats(boolean png, boolean svg) {
+        _writePng = png;
+        _writeSvg = svg;
+    }
+
+    /**
+     * Get the drawings to render.
+     *
+     * @return The render jobs.
+     */
+    public ArrayList<RenderJob> getJobs() {
+        return _jobs;
+    }
+
+    /**
+     * Get the progress of a run.
+     *
+     * @return The fraction of drawings completed (0-1).
+     */
+    public double getProgress() {
+
+        if (_jobs.isEmpty()) {
+            return 1;
+        }
+
+        return Math.min(1.0, (double) _completed.get() / _jobs.size());
+    }
+
+    /**
+     * Write each .bgw project added from here on as a compact binary file
+     * (.bgwb) in the output directory.
+     *
+     * @param writeBinary True to write the binary files.
+     */
+    public void setWriteBinary(boolean writeBinary) {
+        _writeBinary = writeBinary;
+    }
+
+    /**
+     * Add a project drawing - all the bicycles of the project overlaid.
+     *
+     * @param path The path of the project (.bgw or .bgwb) file.
+     * @return True if the project was loaded.
+     */
+    public boolean addProject(String path) {
+
+        BGWProject project = new BGWProject(new HeadlessListener());
+
+        boolean binary = path.toLowerCase().endsWith("." + BGWBinaryFile.FILE_EXT);
+        boolean opened = binary ? project.openBinaryFile(path) : project.openFile(path);
+
+        if (!opened) {
+            LOG.error("Could not open project", "path", path);
+            return false;
+        }
+
+        String name = new File(path).getName();
+        int dot = name.lastIndexOf('.');
+        if (dot > 0) {
+            name = name.substring(0, dot);
+        }
+
+        if (_writeBinary && !binary) {
+
+            if (!_outputDir.isDirectory() && !_outputDir.mkdirs()) {
+                LOG.error("Could not create output directory", "path", _outputDir);
+            }
+
+            File binFile = new File(_outputDir, name + "." + BGWBinaryFile.FILE_EXT);
+            if (!project.exportBinaryFile(binFile.getPath())) {
+                LOG.error("Could not write binary project", "path", binFile);
+            }
+        }
+
+        _jobs.add(new RenderJob(name, project));
+
+        return true;
+    }
+
+    /**
+     * Add a drawing of each bicycle in a library file.  The bicycles are drawn
+     * with the default rider, pose and visual preferences.
+     *
+     * @param path The path of the library (.bgw) file.
+     * @return The number of bicycles added.
+     */
+    public int addLibrary(String path) {
+
+        if (!new File(path).exists()) {
+            LOG.error("Library not found", "path", path);
+            return 0;
+        }
+
+        BGWDataBase db = new BGWDataBase();
+
+        if (!db.openAsLibrary(path)) {
+            LOG.error("Could not open library", "path", path);
+            return 0;
+        }
+
+        ComponentOwner owner = new HeadlessOwner();
+
+        //the bicycle table name
+        RiderMeasurements tmpRider = new RiderMeasurements(owner);
+        RiderPose tmpPose = new RiderPose(owner);
+        Bicycle template = new Bicycle("template", tmpRider, tmpPose, new VisualPreferences(owner));
+        String tableName = template.getAttributeSet().getName();
+
+        int count = 0;
+
+        for (ComponentRecord cr : db.getComponentLibraryList(tableName, 0)) {
+
+            //each drawing owns its rider, pose and preferences
+            RiderMeasurements rider = new RiderMeasurements(owner);
+            RiderPose pose = new RiderPose(owner);
+            VisualPreferences prefs = new VisualPreferences(owner);
+
+            Bicycle b = new Bicycle(cr.getName(), rider, pose, prefs);
+            db.libraryImportBicycle(b, cr.getOwnerId());
+            b.setBicycleVisibility(true);
+            b.updateAllComponents();
+
+            _jobs.add(new RenderJob(cr.getName(), b, prefs));
+            count++;
+        }
+
+        db.closeConn();
+
+        return count;
+    }
+
+    /**
+     * Render all the drawings.  The files are named by the drawing order and
+     * name, i.e. "0001-Road.png".
+     *
+     * @return The timing of the run.
+     * @throws InterruptedException Thrown if the thread is interrupted while running.
+     */
+    public RenderStats run() throws InterruptedException {
+
+        _completed.set(0);
+
+        if (!_outputDir.isDirectory() && !_outputDir.mkdirs()) {
+            LOG.error("Could not create output directory", "path", _outputDir);
+        }
+
+        int width = _width;
+        int height = _height;
+
+        //one image tile per pool thread
+        ThreadLocal<BufferedImage> tiles = ThreadLocal.withInitial(() -> new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB));
+
+        long start = System.nanoTime();
+
+        ExecutorService pool = Executors.newFixedThreadPool(_threads);
+        ArrayList<Future<Long>> futures = new ArrayList();
+
+        try {
+
+            for (int i = 0; i < _jobs.size(); i++) {
+
+                RenderJob job = _jobs.get(i);
+                String baseName = String.format("%04d-%s", i + 1, getFileName(job.getName()));
+
+                futures.add(pool.submit(() -> {
+                    return renderJob(job, tiles.get(), baseName);
+                }));
+            }
+
+            long[] latency = new long[futures.size()];
+            int written = 0;
+            int failures = 0;
+
+            for (Future<Long> f : futures) {
+
+                try {
+                    latency[written] = f.get();
+                    written++;
+                } catch (ExecutionException ex) {
+                    failures++;
+                    LOG.error("Render failed", ex.getCause());
+                }
+            }
+
+            long[] done = new long[written];
+            System.arraycopy(latency, 0, done, 0, written);
+
+            return new RenderStats(done, failures, System.nanoTime() - start);
+
+        } finally {
+            pool.shutdownNow();
+        }
+
+    }
+
+    /**
+     * Render one drawing and write its files.
+     *
+     * @param job The drawing.
+     * @param tile The image tile of this thread.
+     * @param baseName The file name without extension.
+     * @return The latency in nanoseconds.
+     * @throws IOException Thrown if a file can not be written.
+     */
+    private long renderJob(RenderJob job, BufferedImage tile, String baseName) throws IOException {
+
+        long t0 = System.nanoTime();
+
+        AffineTransform view = getViewTransform(job.getBounds(), _width, _height);
+        float scale = (float) Math.max(view.getScaleX(), 0.001);
+
+        if (_writePng) {
+
+            Graphics2D g2 = tile.createGraphics();
+            renderDrawing(g2, job, view, scale);
+            g2.dispose();
+
+            ImageIO.write(tile, "png", new File(_outputDir, baseName + ".png"));
+        }
+
+        if (_writeSvg) {
+
+            SvgGraphics2D svg = new SvgGraphics2D(_width, _height);
+            renderDrawing(svg, job, view, scale);
+            svg.dispose();
+
+            Files.write(new File(_outputDir, baseName + ".svg").toPath(), svg.getSvg().getBytes(StandardCharsets.UTF_8));
+        }
+
+        _completed.incrementAndGet();
+
+        return System.nanoTime() - t0;
+    }
+
+    /**
+     * Render a drawing with the same settings as the project viewer.
+     *
+     * @param g2 The graphics object to render to.
+     * @param job The drawing.
+     * @param view The world to image transform.
+     * @param scale The scale of the view.
+     */
+    private void renderDrawing(Graphics2D g2, RenderJob job, AffineTransform view, float scale) {
+
+        g2.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g2.setRenderingHint(RenderingHints.KEY_COLOR_RENDERING, RenderingHints.VALUE_COLOR_RENDER_QUALITY);
+
+        g2.setBackground(job.getBackground());
+        g2.clearRect(0, 0, _width, _height);
+
+        g2.transform(view);
+
+        job.render(g2, scale);
+
+    }
+
+    /**
+     * Get the transform that fits world bounds in an image - the bounds are
+     * centered and the y axis points up.
+     *
+     * @param bounds The world bounds.
+     * @param width The image width.
+     * @param height The image height.
+     * @return The world to image transform.
+     */
+    public static AffineTransform getViewTransform(Rectangle2D bounds, int width, int height) {
+
+        double sw = width / bounds.getWidth();
+        double sh = height / bounds.getHeight();
+
+        double scale = (sw < sh ? sw : sh) * VIEW_PADDING;
+
+        double tx = width / 2.0 - scale * bounds.getCenterX();
+        double ty = height / 2.0 + scale * bounds.getCenterY();
+
+        AffineTransform at = new AffineTransform();
+        at.translate(tx, ty);
+        at.scale(scale, -scale);
+
+        return at;
+    }
+
+    /**
+     * Get a file name safe version of a drawing name.
+     *
+     * @param name The drawing name.
+     * @return The file name.
+     */
+    private static String getFileName(String name) {
+
+        String fileName = name.replaceAll("[^A-Za-z0-9._-]+", "_");
+
+        if (fileName.isEmpty()) {
+            fileName = "drawing";
+        }
+
+        return fileName;
+    }
+
+    /**
+     * Command line entry.
+     *
+     * @param args The command line arguments (see the class description).
+     */
+    public static void main(String[] args) {
+
+        System.setProperty("java.awt.headless", "true");
+
+        RenderService service = new RenderService();
+
+        for (int i = 0; i < args.length; i++) {
+
+            String arg = args[i];
+            boolean hasValue = i + 1 < args.length;
+
+            if (arg.equals("-out") && hasValue) {
+                service.setOutputDirectory(new File(args[++i]));
+            } else if (arg.equals("-size") && hasValue) {
+                String[] size = args[++i].toLowerCase().split("x");
+                service.setImageSize(Integer.parseInt(size[0]), Integer.parseInt(size[1]));
+            } else if (arg.equals("-threads") && hasValue) {
+                service.setThreads(Integer.parseInt(args[++i]));
+            } else if (arg.equals("-format") && hasValue) {
+                String format = args[++i].toLowerCase();
+                service.setFormats(!format.equals("svg"), !format.equals("png"));
+            } else if (arg.equals("-library") && hasValue) {
+                service.addLibrary(args[++i]);
+            } else if (arg.equals("-binary")) {
+                service.setWriteBinary(true);
+            } else if (arg.equals("-log") && hasValue) {
+                String level = args[++i];
+                for (LogLevel l : LogLevel.values()) {
+                    if (l.name().equalsIgnoreCase(level)) {
+                        Log.setLevel(l);
+                    }
+                }
+            } else {
+                service.addProject(arg);
+            }
+        }
+
+        try {
+
+            RenderStats stats = service.run();
+
+            //the stats are the command output - write the queued log first
+            Log.flush();
+            System.out.println(stats);
+
+        } catch (InterruptedException ex) {
+            LOG.error(ex.getMessage(), ex);
+        }
+
+    }
+
+    /**
+     * Component owner for library bicycles - there is no project.
+     */
+    private static class HeadlessOwner implements ComponentOwner {
+
+        /**
+         * Nothing to update - the bicycle is rebuilt after loading.
+         *
+         * @param compEvent The component event.
+         */
+        @Override
+        public void componentChanged(ComponentChangeEvent compEvent) {
+
+        }
+
+    }
+
+    /**
+     * Project listener for headless projects - there is no UI.
+     */
+    static class HeadlessListener implements ProjectListener {
+
+        @Override
+        public void redrawViewer() {
+        }
+
+        @Override
+        public void bicycleChanged() {
+        }
+
+        @Override
+        public void updateReport() {
+        }
+
+        @Override
+        public void projectedLoadedFromDB() {
+        }
+
+        @Override
+        public void bicycleAdded(Bicycle bicycle) {
+        }
+
+        @Override
+        public void bicycleRestored(Bicycle bicycle, int index) {
+        }
+
+        @Override
+        public void bicycleMovedUp(Bicycle bicycle) {
+        }
+
+        @Override
+        public void bicycleMovedDown(Bicycle bicycle) {
+        }
+
+        @Override
+        public void bicycleDeleted(Bicycle bicycle) {
+        }
+
+    }
+
+}
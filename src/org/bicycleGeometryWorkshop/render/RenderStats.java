@@ -0,0 +1,148 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2020 Tom.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.bicycleGeometryWorkshop.render;
+
+import java.util.Arrays;
+
+/**
+ * The timing of a render run: throughput over the whole run and the latency
+ * of each image (render and encode of all the formats).
+ *
+ * @author Tom
+ */
+public class RenderStats {
+
+    private long[] _latency;
+    private int _failures;
+    private long _wallNanos;
+
+    /**
+     * Class constructor.
+     *
+     * @param latency The latency of each image that was written, in nanoseconds.
+     * @param failures The number of images that failed.
+     * @param wallNanos The time of the whole run in nanoseconds.
+     */
+    RenderStats(long[] latency, int failures, long wallNanos) {
+
+        _latency = latency.clone();
+        Arrays.sort(_latency);
+
+        _failures = failures;
+        _wallNanos = wallNanos;
+
+    }
+
+    /**
+     * Get the number of images written.
+     *
+     * @return The number of images.
+     */
+    public int getImageCount() {
+        return _latency.length;
+    }
+
+    /**
+     * Get the number of images that failed.
+     *
+     * @return The number of failures.
+     */
+    public int getFailureCount() {
+        return _failures;
+    }
+
+    /**
+     * Get the time of the whole run.
+     *
+     * @return The time in seconds.
+     */
+    public double getWallSeconds() {
+        return _wallNanos / 1.0e9;
+    }
+
+    /**
+     * Get the throughput of the run.
+     *
+     * @return The images per second.
+     */
+    public double getThroughput() {
+
+        if (_wallNanos == 0) {
+            return 0;
+        }
+
+        return _latency.length / getWallSeconds();
+    }
+
+    /**
+     * Get the mean image latency.
+     *
+     * @return The mean latency in milliseconds.
+     */
+    public double getMeanLatency() {
+
+        if (_latency.length == 0) {
+            return 0;
+        }
+
+        double sum = 0;
+        for (long l : _latency) {
+            sum += l;
+        }
+
+        return sum / _latency.length / 1.0e6;
+    }
+
+    /**
+     * Get an image latency percentile (nearest rank).
+     *
+     * @param percent The percentile (0-100).
+     * @return The latency in milliseconds.
+     */
+    public double getLatencyPercentile(double percent) {
+
+        if (_latency.length == 0) {
+            return 0;
+        }
+
+        int rank = (int) Math.ceil(percent / 100 * _latency.length);
+        int index = Math.max(0, Math.min(_latency.length - 1, rank - 1));
+
+        return _latency[index] / 1.0e6;
+    }
+
+    /**
+     * Get a one line summary.
+     *
+     * @return The summary.
+     */
+    @Override
+    public String toString() {
+
+        return String.format("%d images (%d failed) in %.2f s: %.1f images/s, latency ms mean %.1f p50 %.1f p95 %.1f max %.1f",
+                getImageCount(), _failures, getWallSeconds(), getThroughput(),
+                getMeanLatency(), getLatencyPercentile(50), getLatencyPercentile(95), getLatencyPercentile(100));
+    }
+
+}
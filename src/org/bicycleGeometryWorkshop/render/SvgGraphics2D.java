@@ -0,0 +1,874 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2020 Tom.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.bicycleGeometryWorkshop.render;
+
+import java.awt.AlphaComposite;
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Composite;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.Image;
+import java.awt.Paint;
+import java.awt.Polygon;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.Shape;
+import java.awt.Stroke;
+import java.awt.font.FontRenderContext;
+import java.awt.font.GlyphVector;
+import java.awt.font.TextLayout;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Arc2D;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Line2D;
+import java.awt.geom.Path2D;
+import java.awt.geom.PathIterator;
+import java.awt.geom.RoundRectangle2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.BufferedImageOp;
+import java.awt.image.ImageObserver;
+import java.awt.image.RenderedImage;
+import java.awt.image.renderable.RenderableImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.text.AttributedCharacterIterator;
+import java.util.Base64;
+import java.util.Map;
+import javax.imageio.ImageIO;
+import org.bicycleGeometryWorkshop.diagnostics.Log;
+import org.bicycleGeometryWorkshop.diagnostics.Logger;
+
+/**
+ * A Graphics2D that records SVG.  The components render to it with the same
+ * calls used for the screen, so the vector drawing has the same shapes as the
+ * raster image.  Shapes are written in device coordinates (the current
+ * transform is applied) with the stroke width scaled to match, text is
+ * written as outlines and images are embedded as PNG.
+ * <p>
+ * The graphics state (transform, paint, stroke, font, clip and hints) is kept
+ * by a scratch image graphics.  Clipping and XOR mode are not written.
+ *
+ * @author Tom
+ */
+public class SvgGraphics2D extends Graphics2D {
+
+    private static final Logger LOG = Log.getLogger(SvgGraphics2D.class);
+
+    private final int _width;
+    private final int _height;
+
+    //shared with the graphics created from this one
+    private final StringBuilder _body;
+
+    //state holder
+    private final Graphics2D _state;
+
+    /**
+     * Class constructor.
+     *
+     * @param width The drawing width in pixels.
+     * @param height The drawing height in pixels.
+     */
+    public SvgGraphics2D(int width, int height) {
+
+        this(width, height, new StringBuilder(), new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB).createGraphics());
+
+    }
+
+    /**
+     * Class constructor for create().
+     *
+     * @param width The drawing width in pixels.
+     * @param height The drawing height in pixels.
+     * @param body The element buffer.
+     * @param state The graphics state holder.
+     */
+    private SvgGraphics2D(int width, int height, StringBuilder body, Graphics2D state) {
+
+        _width = width;
+        _height = height;
+        _body = body;
+        _state = state;
+
+    }
+
+    /**
+     * Get the SVG document.
+     *
+     * @return The SVG document.
+     */
+    public String getSvg() {
+
+        StringBuilder sb = new StringBuilder(_body.length() + 256);
+        sb.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        sb.append("<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"").append(_width)
+                .append("\" height=\"").append(_height)
+                .append("\" viewBox=\"0 0 ").append(_width).append(' ').append(_height).append("\">\n");
+        sb.append(_body);
+        sb.append("</svg>\n");
+
+        return sb.toString();
+    }
+
+    /**
+     * Write a shape outline.  BasicStrokes are written as SVG strokes, other
+     * strokes as the filled stroke outline.
+     *
+     * @param s The shape to draw.
+     */
+    @Override
+    public void draw(Shape s) {
+
+        Stroke stroke = _state.getStroke();
+
+        if (!(stroke instanceof BasicStroke)) {
+            fill(stroke.createStrokedShape(s));
+            return;
+        }
+
+        BasicStroke bs = (BasicStroke) stroke;
+        AffineTransform at = _state.getTransform();
+        //uniform scale of the transform
+        double scale = Math.sqrt(Math.abs(at.getDeterminant()));
+
+        _body.append("<path d=\"");
+        appendPath(s.getPathIterator(at));
+        _body.append("\" fill=\"none\"");
+        appendColor("stroke");
+
+        _body.append(" stroke-width=\"");
+        appendNumber(bs.getLineWidth() * scale);
+        _body.append('"');
+
+        switch (bs.getEndCap()) {
+            case BasicStroke.CAP_ROUND:
+                _body.append(" stroke-linecap=\"round\"");
+                break;
+            case BasicStroke.CAP_SQUARE:
+                _body.append(" stroke-linecap=\"square\"");
+                break;
+            default:
+                break;
+        }
+
+        switch (bs.getLineJoin()) {
+            case BasicStroke.JOIN_ROUND:
+                _body.append(" stroke-linejoin=\"round\"");
+                break;
+            case BasicStroke.JOIN_BEVEL:
+                _body.append(" stroke-linejoin=\"bevel\"");
+                break;
+            default:
+                _body.append(" stroke-miterlimit=\"");
+                appendNumber(bs.getMiterLimit());
+                _body.append('"');
+                break;
+        }
+
+        float[] dash = bs.getDashArray();
+        if (dash != null) {
+            _body.append(" stroke-dasharray=\"");
+            for (int i = 0; i < dash.length; i++) {
+                if (i > 0) {
+                    _body.append(',');
+                }
+                appendNumber(dash[i] * scale);
+            }
+            _body.append("\" stroke-dashoffset=\"");
+            appendNumber(bs.getDashPhase() * scale);
+            _body.append('"');
+        }
+
+        _body.append("/>\n");
+
+    }
+
+    /**
+     * Write a filled shape.
+     *
+     * @param s The shape to fill.
+     */
+    @Override
+    public void fill(Shape s) {
+
+        PathIterator pi = s.getPathIterator(_state.getTransform());
+
+        _body.append("<path d=\"");
+        boolean evenOdd = pi.getWindingRule() == PathIterator.WIND_EVEN_ODD;
+        appendPath(pi);
+        _body.append('"');
+        if (evenOdd) {
+            _body.append(" fill-rule=\"evenodd\"");
+        }
+        appendColor("fill");
+        _body.append("/>\n");
+
+    }
+
+    /**
+     * Append the path data of a path iterator.
+     *
+     * @param pi The path iterator (in device coordinates).
+     */
+    private void appendPath(PathIterator pi) {
+
+        double[] c = new double[6];
+
+        while (!pi.isDone()) {
+
+            switch (pi.currentSegment(c)) {
+                case PathIterator.SEG_MOVETO:
+                    _body.append('M');
+                    appendPoints(c, 1);
+                    break;
+                case PathIterator.SEG_LINETO:
+                    _body.append('L');
+                    appendPoints(c, 1);
+                    break;
+                case PathIterator.SEG_QUADTO:
+                    _body.append('Q');
+                    appendPoints(c, 2);
+                    break;
+                case PathIterator.SEG_CUBICTO:
+                    _body.append('C');
+                    appendPoints(c, 3);
+                    break;
+                case PathIterator.SEG_CLOSE:
+                    _body.append('Z');
+                    break;
+                default:
+                    break;
+            }
+
+            pi.next();
+        }
+
+    }
+
+    /**
+     * Append segment points.
+     *
+     * @param c The segment coordinates.
+     * @param count The number of points.
+     */
+    private void appendPoints(double[] c, int count) {
+
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                _body.append(' ');
+            }
+            appendNumber(c[i * 2]);
+            _body.append(',');
+            appendNumber(c[i * 2 + 1]);
+        }
+
+    }
+
+    /**
+     * Append a number rounded to two decimals.
+     *
+     * @param value The number.
+     */
+    private void appendNumber(double value) {
+
+        long hundredths = Math.round(value * 100);
+
+        if (hundredths < 0) {
+            _body.append('-');
+            hundredths = -hundredths;
+        }
+
+        _body.append(hundredths / 100);
+
+        long frac = hundredths % 100;
+        if (frac != 0) {
+            _body.append('.');
+            if (frac < 10) {
+                _body.append('0');
+                _body.append(frac);
+            } else if (frac % 10 == 0) {
+                _body.append(frac / 10);
+            } else {
+                _body.append(frac);
+            }
+        }
+
+    }
+
+    /**
+     * Append the current paint as a color attribute.  Paints other than
+     * colors use the current color.
+     *
+     * @param attName The attribute name ("fill" or "stroke").
+     */
+    private void appendColor(String attName) {
+
+        Paint paint = _state.getPaint();
+        Color color = paint instanceof Color ? (Color) paint : _state.getColor();
+
+        _body.append(' ').append(attName).append("=\"#");
+        appendHex(color.getRed());
+        appendHex(color.getGreen());
+        appendHex(color.getBlue());
+        _body.append('"');
+
+        double alpha = color.getAlpha() / 255.0;
+
+        Composite comp = _state.getComposite();
+        if (comp instanceof AlphaComposite) {
+            alpha *= ((AlphaComposite) comp).getAlpha();
+        }
+
+        if (alpha < 1) {
+            _body.append(' ').append(attName).append("-opacity=\"");
+            appendNumber(alpha);
+            _body.append('"');
+        }
+
+    }
+
+    /**
+     * Append a color channel as two hex digits.
+     *
+     * @param value The channel value (0-255).
+     */
+    private void appendHex(int value) {
+
+        String hex = "0123456789abcdef";
+        _body.append(hex.charAt(value >> 4));
+        _body.append(hex.charAt(value & 15));
+
+    }
+
+    /**
+     * Write an image in the current transform, embedded as PNG.
+     *
+     * @param img The image.
+     * @param xform The image to user space transform.
+     * @param obs The image observer.
+     * @return True.
+     */
+    @Override
+    public boolean drawImage(Image img, AffineTransform xform, ImageObserver obs) {
+
+        BufferedImage bi = toBufferedImage(img, obs);
+        if (bi == null) {
+            return true;
+        }
+
+        AffineTransform at = _state.getTransform();
+        if (xform != null) {
+            at.concatenate(xform);
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try {
+            ImageIO.write(bi, "png", bytes);
+        } catch (IOException ex) {
+            LOG.error(ex.getMessage(), ex);
+            return true;
+        }
+
+        double[] m = new double[6];
+        at.getMatrix(m);
+
+        _body.append("<image width=\"").append(bi.getWidth()).append("\" height=\"").append(bi.getHeight());
+        _body.append("\" transform=\"matrix(");
+        for (int i = 0; i < 6; i++) {
+            if (i > 0) {
+                _body.append(' ');
+            }
+            _body.append(m[i]);
+        }
+        _body.append(")\" href=\"data:image/png;base64,");
+        _body.append(Base64.getEncoder().encodeToString(bytes.toByteArray()));
+        _body.append("\"/>\n");
+
+        return true;
+    }
+
+    /**
+     * Get an image as a BufferedImage.
+     *
+     * @param img The image.
+     * @param obs The image observer.
+     * @return The buffered image, or null if the image is not ready.
+     */
+    private static BufferedImage toBufferedImage(Image img, ImageObserver obs) {
+
+        if (img instanceof BufferedImage) {
+            return (BufferedImage) img;
+        }
+
+        int w = img.getWidth(obs);
+        int h = img.getHeight(obs);
+        if (w <= 0 || h <= 0) {
+            return null;
+        }
+
+        BufferedImage bi = new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = bi.createGraphics();
+        g.drawImage(img, 0, 0, obs);
+        g.dispose();
+
+        return bi;
+    }
+
+    @Override
+    public boolean drawImage(Image img, int x, int y, ImageObserver observer) {
+        return drawImage(img, AffineTransform.getTranslateInstance(x, y), observer);
+    }
+
+    @Override
+    public boolean drawImage(Image img, int x, int y, int width, int height, ImageObserver observer) {
+
+        int w = img.getWidth(observer);
+        int h = img.getHeight(observer);
+        if (w <= 0 || h <= 0) {
+            return true;
+        }
+
+        AffineTransform xform = AffineTransform.getTranslateInstance(x, y);
+        xform.scale(width / (double) w, height / (double) h);
+
+        return drawImage(img, xform, observer);
+    }
+
+    @Override
+    public boolean drawImage(Image img, int x, int y, Color bgcolor, ImageObserver observer) {
+        return drawImage(img, x, y, img.getWidth(observer), img.getHeight(observer), bgcolor, observer);
+    }
+
+    @Override
+    public boolean drawImage(Image img, int x, int y, int width, int height, Color bgcolor, ImageObserver observer) {
+
+        Paint paint = getPaint();
+        setColor(bgcolor);
+        fillRect(x, y, width, height);
+        setPaint(paint);
+
+        return drawImage(img, x, y, width, height, observer);
+    }
+
+    @Override
+    public boolean drawImage(Image img, int dx1, int dy1, int dx2, int dy2, int sx1, int sy1, int sx2, int sy2, ImageObserver observer) {
+
+        BufferedImage bi = toBufferedImage(img, observer);
+        if (bi == null) {
+            return true;
+        }
+
+        int sx = Math.min(sx1, sx2);
+        int sy = Math.min(sy1, sy2);
+        int sw = Math.abs(sx2 - sx1);
+        int sh = Math.abs(sy2 - sy1);
+        if (sw == 0 || sh == 0) {
+            return true;
+        }
+
+        BufferedImage sub = bi.getSubimage(sx, sy, sw, sh);
+
+        AffineTransform xform = AffineTransform.getTranslateInstance(dx1, dy1);
+        xform.scale((dx2 - dx1) / (double) (sx2 - sx1), (dy2 - dy1) / (double) (sy2 - sy1));
+        //flipped source
+        if (sx2 < sx1 || sy2 < sy1) {
+            xform.translate(sx2 < sx1 ? -sw : 0, sy2 < sy1 ? -sh : 0);
+        }
+
+        return drawImage(sub, xform, observer);
+    }
+
+    @Override
+    public boolean drawImage(Image img, int dx1, int dy1, int dx2, int dy2, int sx1, int sy1, int sx2, int sy2, Color bgcolor, ImageObserver observer) {
+
+        Paint paint = getPaint();
+        setColor(bgcolor);
+        fill(new Rectangle(Math.min(dx1, dx2), Math.min(dy1, dy2), Math.abs(dx2 - dx1), Math.abs(dy2 - dy1)));
+        setPaint(paint);
+
+        return drawImage(img, dx1, dy1, dx2, dy2, sx1, sy1, sx2, sy2, observer);
+    }
+
+    @Override
+    public void drawImage(BufferedImage img, BufferedImageOp op, int x, int y) {
+
+        BufferedImage filtered = op == null ? img : op.filter(img, null);
+        drawImage(filtered, x, y, null);
+
+    }
+
+    @Override
+    public void drawRenderedImage(RenderedImage img, AffineTransform xform) {
+
+        BufferedImage bi;
+
+        if (img instanceof BufferedImage) {
+            bi = (BufferedImage) img;
+        } else {
+            bi = new BufferedImage(img.getWidth(), img.getHeight(), BufferedImage.TYPE_INT_ARGB);
+            Graphics2D g = bi.createGraphics();
+            g.drawRenderedImage(img, new AffineTransform());
+            g.dispose();
+        }
+
+        drawImage(bi, xform, null);
+
+    }
+
+    @Override
+    public void drawRenderableImage(RenderableImage img, AffineTransform xform) {
+        drawRenderedImage(img.createDefaultRendering(), xform);
+    }
+
+    /**
+     * Text is written as the glyph outlines.
+     */
+    @Override
+    public void drawString(String str, int x, int y) {
+        drawString(str, (float) x, (float) y);
+    }
+
+    @Override
+    public void drawString(String str, float x, float y) {
+
+        if (str == null || str.isEmpty()) {
+            return;
+        }
+
+        GlyphVector gv = getFont().createGlyphVector(getFontRenderContext(), str);
+        fill(gv.getOutline(x, y));
+
+    }
+
+    @Override
+    public void drawString(AttributedCharacterIterator iterator, int x, int y) {
+        drawString(iterator, (float) x, (float) y);
+    }
+
+    @Override
+    public void drawString(AttributedCharacterIterator iterator, float x, float y) {
+
+        TextLayout layout = new TextLayout(iterator, getFontRenderContext());
+        fill(layout.getOutline(AffineTransform.getTranslateInstance(x, y)));
+
+    }
+
+    @Override
+    public void drawGlyphVector(GlyphVector g, float x, float y) {
+        fill(g.getOutline(x, y));
+    }
+
+    @Override
+    public void drawLine(int x1, int y1, int x2, int y2) {
+        draw(new Line2D.Float(x1, y1, x2, y2));
+    }
+
+    @Override
+    public void fillRect(int x, int y, int width, int height) {
+        fill(new Rectangle(x, y, width, height));
+    }
+
+    @Override
+    public void clearRect(int x, int y, int width, int height) {
+
+        Paint paint = getPaint();
+        setColor(getBackground());
+        fillRect(x, y, width, height);
+        setPaint(paint);
+
+    }
+
+    @Override
+    public void drawRoundRect(int x, int y, int width, int height, int arcWidth, int arcHeight) {
+        draw(new RoundRectangle2D.Float(x, y, width, height, arcWidth, arcHeight));
+    }
+
+    @Override
+    public void fillRoundRect(int x, int y, int width, int height, int arcWidth, int arcHeight) {
+        fill(new RoundRectangle2D.Float(x, y, width, height, arcWidth, arcHeight));
+    }
+
+    @Override
+    public void drawOval(int x, int y, int width, int height) {
+        draw(new Ellipse2D.Float(x, y, width, height));
+    }
+
+    @Override
+    public void fillOval(int x, int y, int width, int height) {
+        fill(new Ellipse2D.Float(x, y, width, height));
+    }
+
+    @Override
+    public void drawArc(int x, int y, int width, int height, int startAngle, int arcAngle) {
+        draw(new Arc2D.Float(x, y, width, height, startAngle, arcAngle, Arc2D.OPEN));
+    }
+
+    @Override
+    public void fillArc(int x, int y, int width, int height, int startAngle, int arcAngle) {
+        fill(new Arc2D.Float(x, y, width, height, startAngle, arcAngle, Arc2D.PIE));
+    }
+
+    @Override
+    public void drawPolyline(int[] xPoints, int[] yPoints, int nPoints) {
+
+        if (nPoints < 1) {
+            return;
+        }
+
+        Path2D.Float path = new Path2D.Float();
+        path.moveTo(xPoints[0], yPoints[0]);
+        for (int i = 1; i < nPoints; i++) {
+            path.lineTo(xPoints[i], yPoints[i]);
+        }
+
+        draw(path);
+
+    }
+
+    @Override
+    public void drawPolygon(int[] xPoints, int[] yPoints, int nPoints) {
+        draw(new Polygon(xPoints, yPoints, nPoints));
+    }
+
+    @Override
+    public void fillPolygon(int[] xPoints, int[] yPoints, int nPoints) {
+        fill(new Polygon(xPoints, yPoints, nPoints));
+    }
+
+    /**
+     * Not supported - nothing is copied.
+     */
+    @Override
+    public void copyArea(int x, int y, int width, int height, int dx, int dy) {
+
+    }
+
+    @Override
+    public Graphics create() {
+        return new SvgGraphics2D(_width, _height, _body, (Graphics2D) _state.create());
+    }
+
+    @Override
+    public void dispose() {
+        _state.dispose();
+    }
+
+    /*
+     * Graphics state - kept by the state holder.
+     */
+    @Override
+    public boolean hit(Rectangle rect, Shape s, boolean onStroke) {
+        return _state.hit(rect, s, onStroke);
+    }
+
+    @Override
+    public GraphicsConfiguration getDeviceConfiguration() {
+        return _state.getDeviceConfiguration();
+    }
+
+    @Override
+    public void setComposite(Composite comp) {
+        _state.setComposite(comp);
+    }
+
+    @Override
+    public Composite getComposite() {
+        return _state.getComposite();
+    }
+
+    @Override
+    public void setPaint(Paint paint) {
+        _state.setPaint(paint);
+    }
+
+    @Override
+    public Paint getPaint() {
+        return _state.getPaint();
+    }
+
+    @Override
+    public void setStroke(Stroke s) {
+        _state.setStroke(s);
+    }
+
+    @Override
+    public Stroke getStroke() {
+        return _state.getStroke();
+    }
+
+    @Override
+    public void setRenderingHint(RenderingHints.Key hintKey, Object hintValue) {
+        _state.setRenderingHint(hintKey, hintValue);
+    }
+
+    @Override
+    public Object getRenderingHint(RenderingHints.Key hintKey) {
+        return _state.getRenderingHint(hintKey);
+    }
+
+    @Override
+    public void setRenderingHints(Map<?, ?> hints) {
+        _state.setRenderingHints(hints);
+    }
+
+    @Override
+    public void addRenderingHints(Map<?, ?> hints) {
+        _state.addRenderingHints(hints);
+    }
+
+    @Override
+    public RenderingHints getRenderingHints() {
+        return _state.getRenderingHints();
+    }
+
+    @Override
+    public void translate(int x, int y) {
+        _state.translate(x, y);
+    }
+
+    @Override
+    public void translate(double tx, double ty) {
+        _state.translate(tx, ty);
+    }
+
+    @Override
+    public void rotate(double theta) {
+        _state.rotate(theta);
+    }
+
+    @Override
+    public void rotate(double theta, double x, double y) {
+        _state.rotate(theta, x, y);
+    }
+
+    @Override
+    public void scale(double sx, double sy) {
+        _state.scale(sx, sy);
+    }
+
+    @Override
+    public void shear(double shx, double shy) {
+        _state.shear(shx, shy);
+    }
+
+    @Override
+    public void transform(AffineTransform tx) {
+        _state.transform(tx);
+    }
+
+    @Override
+    public void setTransform(AffineTransform tx) {
+        _state.setTransform(tx);
+    }
+
+    @Override
+    public AffineTransform getTransform() {
+        return _state.getTransform();
+    }
+
+    @Override
+    public void setBackground(Color color) {
+        _state.setBackground(color);
+    }
+
+    @Override
+    public Color getBackground() {
+        return _state.getBackground();
+    }
+
+    @Override
+    public void clip(Shape s) {
+        _state.clip(s);
+    }
+
+    @Override
+    public FontRenderContext getFontRenderContext() {
+        return _state.getFontRenderContext();
+    }
+
+    @Override
+    public Color getColor() {
+        return _state.getColor();
+    }
+
+    @Override
+    public void setColor(Color c) {
+        _state.setColor(c);
+    }
+
+    @Override
+    public void setPaintMode() {
+        _state.setPaintMode();
+    }
+
+    @Override
+    public void setXORMode(Color c1) {
+        _state.setXORMode(c1);
+    }
+
+    @Override
+    public Font getFont() {
+        return _state.getFont();
+    }
+
+    @Override
+    public void setFont(Font font) {
+        _state.setFont(font);
+    }
+
+    @Override
+    public FontMetrics getFontMetrics(Font f) {
+        return _state.getFontMetrics(f);
+    }
+
+    @Override
+    public Rectangle getClipBounds() {
+        return _state.getClipBounds();
+    }
+
+    @Override
+    public void clipRect(int x, int y, int width, int height) {
+        _state.clipRect(x, y, width, height);
+    }
+
+    @Override
+    public void setClip(int x, int y, int width, int height) {
+        _state.setClip(x, y, width, height);
+    }
+
+    @Override
+    public Shape getClip() {
+        return _state.getClip();
+    }
+
+    @Override
+    public void setClip(Shape clip) {
+        _state.setClip(clip);
+    }
+
+}
@@ -0,0 +1,225 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2020 Tom.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.bicycleGeometryWorkshop.render;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import org.bicycleGeometryWorkshop.analysis.BicycleEvaluator;
+import org.bicycleGeometryWorkshop.app.BGWProject;
+import org.bicycleGeometryWorkshop.components.Bicycle;
+import org.bicycleGeometryWorkshop.components.BicycleDisplay;
+import org.bicycleGeometryWorkshop.diagnostics.Log;
+import org.bicycleGeometryWorkshop.diagnostics.LogLevel;
+
+/**
+ * Allocation check of the geometry update.  Rebuilds a bicycle many times
+ * and reports the bytes allocated by this thread per rebuild (from the
+ * ThreadMXBean allocated bytes).  The rebuild is expected not to allocate
+ * once it is warmed up, so a case over the limit fails the check.
+ * <p>
+ * The cases are a project bicycle (with display shapes) in each display mode,
+ * rebuilt with updateAllComponents(), and an evaluator copy (no display
+ * shapes) rebuilt with evaluate() as the analyses do.
+ * <p>
+ * Command line (java.awt.headless is set by main):
+ * <pre>
+ * UpdateAllocationCheck [-updates n] [-warmup n] [-limit bytes]
+ * </pre>
+ * The exit code is 1 if a case is over the limit, 2 if the JVM does not count
+ * allocated bytes.
+ *
+ * @author Tom
+ */
+public class UpdateAllocationCheck {
+
+    private int _updates;
+    private int _warmup;
+    private long _limit;
+
+    private com.sun.management.ThreadMXBean _threadBean;
+
+    /**
+     * Class constructor with the default counts.
+     */
+    public UpdateAllocationCheck() {
+
+        _updates = 100000;
+        _warmup = 20000;
+        _limit = 1;
+
+        _threadBean = null;
+
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+
+            com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+
+            if (sunBean.isThreadAllocatedMemorySupported()) {
+                sunBean.setThreadAllocatedMemoryEnabled(true);
+                _threadBean = sunBean;
+            }
+        }
+
+    }
+
+    /**
+     * Set the number of rebuilds.
+     *
+     * @param updates The measured rebuilds of each case.
+     * @param warmup The rebuilds before measuring.
+     */
+    public void setUpdates(int updates, int warmup) {
+        _updates = Math.max(1, updates);
+        _warmup = Math.max(0, warmup);
+    }
+
+    /**
+     * Set the limit of a case.
+     *
+     * @param limit The allowed bytes per rebuild.
+     */
+    public void setLimit(long limit) {
+        _limit = Math.max(0, limit);
+    }
+
+    /**
+     * Check if the JVM counts the bytes allocated by a thread.
+     *
+     * @return True if the check can run.
+     */
+    public boolean isSupported() {
+        return _threadBean != null;
+    }
+
+    /**
+     * Run the cases and print a line for each.
+     *
+     * @return True if every case is within the limit.
+     */
+    public boolean run() {
+
+        System.out.println(String.format("%-24s %10s %14s %10s %6s", "case", "updates", "bytes", "bytes/upd", "ok"));
+
+        BGWProject project = new BGWProject(new RenderService.HeadlessListener());
+        Bicycle bicycle = project.getBicycles().get(0);
+
+        boolean ok = true;
+
+        for (BicycleDisplay display : BicycleDisplay.values()) {
+
+            bicycle.setBicycleDisplay(display);
+
+            ok &= report(display.name(), measure(() -> bicycle.updateAllComponents()));
+        }
+
+        BicycleEvaluator eval = new BicycleEvaluator(bicycle, project.getRiderSize(), project.getRiderPose());
+
+        ok &= report("Evaluator", measure(() -> eval.evaluate()));
+
+        return ok;
+    }
+
+    /**
+     * Measure the bytes allocated by the rebuilds of a case.
+     *
+     * @param update Rebuilds the bicycle once.
+     * @return The bytes allocated by the measured rebuilds.
+     */
+    private long measure(Runnable update) {
+
+        for (int i = 0; i < _warmup; i++) {
+            update.run();
+        }
+
+        long id = Thread.currentThread().getId();
+        long start = _threadBean.getThreadAllocatedBytes(id);
+
+        for (int i = 0; i < _updates; i++) {
+            update.run();
+        }
+
+        return _threadBean.getThreadAllocatedBytes(id) - start;
+    }
+
+    /**
+     * Print the line of a case.
+     *
+     * @param name The case name.
+     * @param bytes The bytes allocated by the measured rebuilds.
+     * @return True if the case is within the limit.
+     */
+    private boolean report(String name, long bytes) {
+
+        double perUpdate = bytes / (double) _updates;
+        boolean ok = perUpdate <= _limit;
+
+        System.out.println(String.format("%-24s %10d %14d %10.1f %6s", name, _updates, bytes, perUpdate, ok ? "yes" : "NO"));
+
+        return ok;
+    }
+
+    /**
+     * Command line entry.
+     *
+     * @param args The command line arguments (see the class description).
+     */
+    public static void main(String[] args) {
+
+        System.setProperty("java.awt.headless", "true");
+
+        //log output would be counted with the rebuilds
+        Log.setLevel(LogLevel.Warn);
+
+        UpdateAllocationCheck check = new UpdateAllocationCheck();
+
+        int updates = 100000;
+        int warmup = 20000;
+
+        for (int i = 0; i < args.length; i++) {
+
+            String arg = args[i];
+            boolean hasValue = i + 1 < args.length;
+
+            if (arg.equals("-updates") && hasValue) {
+                updates = Integer.parseInt(args[++i]);
+            } else if (arg.equals("-warmup") && hasValue) {
+                warmup = Integer.parseInt(args[++i]);
+            } else if (arg.equals("-limit") && hasValue) {
+                check.setLimit(Long.parseLong(args[++i]));
+            }
+        }
+
+        if (!check.isSupported()) {
+            System.out.println("Allocated bytes are not counted by this JVM.");
+            System.exit(2);
+        }
+
+        check.setUpdates(updates, warmup);
+
+        System.exit(check.run() ? 0 : 1);
+
+    }
+
+}
@@ -25,6 +25,7 @@ package org.bicycleGeometryWorkshop.report;
 
 import org.bicycleGeometryWorkshop.geometry.Utilities;
 
+import java.util.Arrays;
 import java.util.HashMap;
 
 /**
@@ -34,8 +35,18 @@ import java.util.HashMap;
  */
 public class Report {
 
+    //how a numeric field is displayed
+    private static final byte SHOW_TEXT = 0;
+    private static final byte SHOW_ANGLE = 1;
+    private static final byte SHOW_LENGTH = 2;
+
     private HashMap<ReportField, ReportValue> _report;
 
+    //numeric values by field ordinal - the display values are only built when
+    //a data row is read, so reporting during an update doesn't allocate
+    private double[] _values;
+    private byte[] _show;
+
     private String _name;
 
     /**
@@ -46,6 +57,11 @@ public class Report {
         _name = "<report>";
         _report = new HashMap();
 
+        int fieldCount = ReportField.values().length;
+        _values = new double[fieldCount];
+        Arrays.fill(_values, Double.NaN);
+        _show = new byte[fieldCount];
+
         init();
 
     }
@@ -56,7 +72,11 @@ public class Report {
      */
     public void setName(String name) {
         _name = name;
-        _report.put(ReportField.Name, new ReportValue(name));
+
+        //called on every getReport() - only replace the value on a rename
+        if (!name.equals(_report.get(ReportField.Name).toString())) {
+            _report.put(ReportField.Name, new ReportValue(name));
+        }
     }
 
     /**
@@ -95,7 +115,12 @@ public class Report {
             try {
                 //convert to field
                 ReportField f = ReportField.valueOf(curField);
-                if (_report.containsKey(f)) {
+                int o = f.ordinal();
+                if (_show[o] == SHOW_ANGLE) {
+                    data[i] = new ReportAngle(_values[o]);
+                } else if (_show[o] == SHOW_LENGTH) {
+                    data[i] = new ReportLength(_values[o]);
+                } else if (_report.containsKey(f)) {
                     ReportValue report = _report.get(f);
                     data[i] = report;
                 }
@@ -122,8 +147,9 @@ public class Report {
      */
     public void reportAngle(ReportField field, double theta) {
 
-        double angle = Utilities.radiansToDegrees(theta);
-        _report.put(field, new ReportAngle(angle));
+        int o = field.ordinal();
+        _values[o] = Utilities.radiansToDegrees(theta);
+        _show[o] = SHOW_ANGLE;
 
     }
 
@@ -135,8 +161,22 @@ public class Report {
      */
     public void reportDistance(ReportField field, double dist) {
 
-        _report.put(field, new ReportLength(dist));
+        int o = field.ordinal();
+        _values[o] = dist;
+        _show[o] = SHOW_LENGTH;
+
+    }
+
+    /**
+     * Get the numeric value of a field.  Angles are in degrees and distances
+     * in model units (mm).
+     *
+     * @param field The field to get.
+     * @return The value, or NaN if the field has not been reported.
+     */
+    public double getValue(ReportField field) {
 
+        return _values[field.ordinal()];
     }
 
     /**
@@ -23,6 +23,15 @@
  */
 package org.bicycleGeometryWorkshop.ui;
 
+import org.bicycleGeometryWorkshop.analysis.ClusterDialog;
+import org.bicycleGeometryWorkshop.analysis.ClusterResult;
+import org.bicycleGeometryWorkshop.analysis.CollisionDialog;
+import org.bicycleGeometryWorkshop.analysis.DifferenceDialog;
+import org.bicycleGeometryWorkshop.analysis.FitDialog;
+import org.bicycleGeometryWorkshop.analysis.ReachEnvelopeCache;
+import org.bicycleGeometryWorkshop.analysis.ReachEnvelopeDialog;
+import org.bicycleGeometryWorkshop.analysis.SensitivityDialog;
+import org.bicycleGeometryWorkshop.analysis.ToleranceDialog;
 import org.bicycleGeometryWorkshop.app.ProjectListener;
 import org.bicycleGeometryWorkshop.ui.tree.NavigatorTree;
 import org.bicycleGeometryWorkshop.ui.tree.NavigatorListener;
@@ -33,6 +42,7 @@ import java.awt.Cursor;
 import java.awt.Desktop;
 import java.awt.Dimension;
 import java.awt.Event;
+import java.awt.GridLayout;
 import java.awt.Toolkit;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
@@ -42,10 +52,15 @@ import java.awt.event.WindowEvent;
 import java.io.File;
 import java.net.URI;
 import java.util.ArrayList;
+import java.util.HashMap;
 import javax.swing.AbstractAction;
 import javax.swing.Action;
 import static javax.swing.Action.SHORT_DESCRIPTION;
+import javax.swing.JCheckBoxMenuItem;
+import javax.swing.JComboBox;
+import javax.swing.JComponent;
 import javax.swing.JFrame;
+import javax.swing.JLabel;
 import javax.swing.JMenu;
 import javax.swing.JMenuBar;
 import javax.swing.JMenuItem;
@@ -54,6 +69,7 @@ import javax.swing.JPanel;
 import javax.swing.JScrollPane;
 import javax.swing.JSplitPane;
 import javax.swing.JTable;
+import javax.swing.JTextField;
 import javax.swing.KeyStroke;
 import javax.swing.table.DefaultTableModel;
 import org.bicycleGeometryWorkshop.database.BGWLibrary;
@@ -66,7 +82,13 @@ import org.bicycleGeometryWorkshop.components.BaseComponent;
 import org.bicycleGeometryWorkshop.components.BicycleDisplay;
 import org.bicycleGeometryWorkshop.components.ComponentChangeEvent;
 import org.bicycleGeometryWorkshop.components.ComponentOwner;
+import org.bicycleGeometryWorkshop.components.FrameInput;
+import org.bicycleGeometryWorkshop.components.FrameSet;
 import org.bicycleGeometryWorkshop.report.ReportValue;
+import org.bicycleGeometryWorkshop.diagnostics.Metric;
+import org.bicycleGeometryWorkshop.diagnostics.Metrics;
+import org.bicycleGeometryWorkshop.diagnostics.Log;
+import org.bicycleGeometryWorkshop.diagnostics.Logger;
 
 /**
  * This is the main UI class. This class manages the Project, Navigator, editor
@@ -78,18 +100,24 @@ import org.bicycleGeometryWorkshop.report.ReportValue;
  * 
  * @author Tom
  */
-public class BicycleGeometryWorkshopUI extends JFrame implements NavigatorListener, ProjectListener, UnitsListener, ComponentOwner {
+public class BicycleGeometryWorkshopUI extends JFrame implements NavigatorListener, ProjectListener, UnitsListener, ComponentOwner, ViewerListener {
+
+    private static final Logger LOG = Log.getLogger(BicycleGeometryWorkshopUI.class);
 
     //frame reference for dialog boxes/option panes
     private static JFrame UI_JFRAME = null;
 
     private static final String PROJECT_NAME = "Bicycle Geometry Workshop";
     private static final String PROJECT_PHASE = "Beta";
+
+    //timer shown in the diagnostics dialog
+    private static final Metric REPORT_TIMER = Metrics.timer("BicycleGeometryWorkshopUI.updateReport");
     private static final float PROJECT_VER = 1.0f;
 
     private JPanel _panelRight;
     //bicycle viewer
     private ProjectViewer _viewer;
+    private JCheckBoxMenuItem _animateMenuItem;
 
     private JTable _reportTable;
     private DefaultTableModel _reportModel;
@@ -107,6 +135,12 @@ public class BicycleGeometryWorkshopUI extends JFrame implements NavigatorListen
     private UnitsMMAction _actionMMUnits;
     private UnitsINAction _actionINUnits;
     private AttributeSetScrollPane _lastScrollPane;
+    private Bicycle _selectedBicycle;
+
+    //reach envelopes by frame
+    private ReachEnvelopeCache _envelopeCache;
+
+    private DiagnosticsDialog _diagnosticsDialog;
 
     /**
      *
@@ -120,8 +154,13 @@ public class BicycleGeometryWorkshopUI extends JFrame implements NavigatorListen
         _library.openLibrary();
 
         _project = new BGWProject(this);
+        _project.setBackgroundGeometry(true);
 
         _viewer = new ProjectViewer(_project);
+        _viewer.setViewerListener(this);
+
+        _envelopeCache = new ReachEnvelopeCache();
+        _diagnosticsDialog = null;
 
         //setup the report table     
         _reportModel = new DefaultTableModel();
@@ -321,7 +360,7 @@ public class BicycleGeometryWorkshopUI extends JFrame implements NavigatorListen
 
         if (closeOk) {
 
-            System.out.println("Closing window...");
+            LOG.info("Closing window");
             //close the library
             if (_library != null) {
                 _library.closeLibrary();
@@ -333,7 +372,7 @@ public class BicycleGeometryWorkshopUI extends JFrame implements NavigatorListen
             //clear reference to frame
             UI_JFRAME = null;
 
-            System.out.println("Exiting...");
+            LOG.info("Exiting");
             //exit system
             System.exit(0);
 
@@ -536,6 +575,113 @@ public class BicycleGeometryWorkshopUI extends JFrame implements NavigatorListen
         //add to main menu bar
         menuBar.add(measureMenu);
 
+        /**
+         * View Menu Items
+         */
+        JMenu viewMenu = new JMenu("View");
+
+        //pedal stroke animation
+        _animateMenuItem = new JCheckBoxMenuItem("Animate Pedal Stroke");
+        ActionListener alAnimate = (ActionEvent ev) -> {
+            _viewer.setAnimating(_animateMenuItem.isSelected());
+        };
+
+        _animateMenuItem.addActionListener(alAnimate);
+
+        viewMenu.add(_animateMenuItem);
+
+        viewMenu.addSeparator();
+
+        //fit the project to the viewer
+        JMenuItem zoomExtentsMenuItem = new JMenuItem("Zoom Extents");
+        ActionListener alZoomExtents = (ActionEvent ev) -> {
+            _viewer.zoomExtents();
+        };
+
+        zoomExtentsMenuItem.addActionListener(alZoomExtents);
+
+        viewMenu.add(zoomExtentsMenuItem);
+
+        //add to main menu bar
+        menuBar.add(viewMenu);
+
+        /**
+         * Analysis Menu Items
+         */
+        JMenu analysisMenu = new JMenu("Analysis");
+
+        //inverse fit
+        JMenuItem fitMenuItem = new JMenuItem("Fit Rider Angles...");
+        ActionListener alFit = (ActionEvent ev) -> {
+            showFitDialog();
+        };
+
+        fitMenuItem.addActionListener(alFit);
+
+        analysisMenu.add(fitMenuItem);
+
+        //sensitivity heat map
+        JMenuItem sensitivityMenuItem = new JMenuItem("Sensitivity...");
+        ActionListener alSensitivity = (ActionEvent ev) -> {
+            showSensitivityDialog();
+        };
+
+        sensitivityMenuItem.addActionListener(alSensitivity);
+
+        analysisMenu.add(sensitivityMenuItem);
+
+        //monte carlo tolerances
+        JMenuItem toleranceMenuItem = new JMenuItem("Tolerance Analysis...");
+        ActionListener alTolerance = (ActionEvent ev) -> {
+            showToleranceDialog();
+        };
+
+        toleranceMenuItem.addActionListener(alTolerance);
+
+        analysisMenu.add(toleranceMenuItem);
+
+        //toe overlap and pedal clearance
+        JMenuItem collisionMenuItem = new JMenuItem("Collision Check...");
+        ActionListener alCollision = (ActionEvent ev) -> {
+            showCollisionDialog();
+        };
+
+        collisionMenuItem.addActionListener(alCollision);
+
+        analysisMenu.add(collisionMenuItem);
+
+        //hand position envelope
+        JMenuItem envelopeMenuItem = new JMenuItem("Reach Envelope...");
+        ActionListener alEnvelope = (ActionEvent ev) -> {
+            showEnvelopeDialog();
+        };
+
+        envelopeMenuItem.addActionListener(alEnvelope);
+
+        analysisMenu.add(envelopeMenuItem);
+
+        //key point differences to the selected bicycle
+        JMenuItem differenceMenuItem = new JMenuItem("Difference...");
+        ActionListener alDifference = (ActionEvent ev) -> {
+            showDifferenceDialog();
+        };
+
+        differenceMenuItem.addActionListener(alDifference);
+
+        analysisMenu.add(differenceMenuItem);
+
+        //clusters of effectively identical fits
+        JMenuItem clusterMenuItem = new JMenuItem("Group Identical Fits...");
+        ActionListener alCluster = (ActionEvent ev) -> {
+            showClusterDialog();
+        };
+
+        clusterMenuItem.addActionListener(alCluster);
+
+        analysisMenu.add(clusterMenuItem);
+
+        menuBar.add(analysisMenu);
+
         /**
          * Help and About
          */
@@ -561,6 +707,20 @@ public class BicycleGeometryWorkshopUI extends JFrame implements NavigatorListen
         //set menu bar to window
         this.setJMenuBar(menuBar);
 
+        //diagnostics - a key only, not in the menus
+        Action diagnosticsAction = new AbstractAction() {
+
+            @Override
+            public void actionPerformed(ActionEvent ev) {
+                showDiagnosticsDialog();
+            }
+
+        };
+
+        KeyStroke ctrlShiftF12 = KeyStroke.getKeyStroke(KeyEvent.VK_F12, Event.CTRL_MASK + Event.SHIFT_MASK);
+        this.getRootPane().getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW).put(ctrlShiftF12, "diagnostics");
+        this.getRootPane().getActionMap().put("diagnostics", diagnosticsAction);
+
     }
 
     /**
@@ -581,6 +741,18 @@ public class BicycleGeometryWorkshopUI extends JFrame implements NavigatorListen
 
     }
 
+    /**
+     * This is the viewer event handler.  Select the picked bicycle in the navigator.
+     *
+     * @param bicycle The bicycle picked in the viewer.
+     */
+    @Override
+    public void bicyclePicked(Bicycle bicycle) {
+
+        _navigator.selectBicycle(bicycle);
+
+    }
+
 //<editor-fold defaultstate="collapsed" desc="Action Classes for Display Units menu ">
     /**
      * Action for the display units sub-menu items. Using an action allows for
@@ -684,6 +856,233 @@ public class BicycleGeometryWorkshopUI extends JFrame implements NavigatorListen
         _viewer.cancelMeasure();
     }
 
+//</editor-fold>
+//<editor-fold defaultstate="collapsed" desc="Analysis Menu methods section">
+    /**
+     * Get the bicycle to analyze - the last selected bicycle, or the first
+     * bicycle if none is selected.
+     *
+     * @return The bicycle or null if the project has no bicycles.
+     */
+    private Bicycle getAnalysisBicycle() {
+
+        ArrayList<Bicycle> bicycles = _project.getBicycles();
+
+        if (_selectedBicycle != null && bicycles.contains(_selectedBicycle)) {
+            return _selectedBicycle;
+        }
+
+        if (bicycles.isEmpty()) {
+            return null;
+        }
+
+        return bicycles.get(0);
+    }
+
+    /**
+     * Show the fit dialog for the selected bicycle.
+     */
+    private void showFitDialog() {
+
+        Bicycle bicycle = getAnalysisBicycle();
+
+        if (bicycle == null) {
+            JOptionPane.showMessageDialog(this, "There are no bicycles to fit.");
+            return;
+        }
+
+        _project.ensureBicycleLoaded(bicycle);
+
+        FitDialog fitDialog = new FitDialog(this, _project, bicycle);
+        fitDialog.setVisible(true);
+        fitDialog.dispose();
+
+    }
+
+    /**
+     * Show the sensitivity heat map for the selected bicycle.
+     */
+    private void showSensitivityDialog() {
+
+        Bicycle bicycle = getAnalysisBicycle();
+
+        if (bicycle == null) {
+            JOptionPane.showMessageDialog(this, "There are no bicycles to analyze.");
+            return;
+        }
+
+        _project.ensureBicycleLoaded(bicycle);
+
+        SensitivityDialog sensitivityDialog = new SensitivityDialog(this, bicycle, _project.getRiderSize(), _project.getRiderPose());
+        sensitivityDialog.setVisible(true);
+        sensitivityDialog.dispose();
+
+    }
+
+    /**
+     * Show the tolerance (Monte Carlo) analysis for the selected bicycle.
+     */
+    private void showToleranceDialog() {
+
+        Bicycle bicycle = getAnalysisBicycle();
+
+        if (bicycle == null) {
+            JOptionPane.showMessageDialog(this, "There are no bicycles to analyze.");
+            return;
+        }
+
+        _project.ensureBicycleLoaded(bicycle);
+
+        ToleranceDialog toleranceDialog = new ToleranceDialog(this, bicycle, _project.getRiderSize(), _project.getRiderPose());
+        toleranceDialog.setVisible(true);
+        toleranceDialog.dispose();
+
+    }
+
+    /**
+     * Show the collision check for all bicycles.
+     */
+    private void showCollisionDialog() {
+
+        ArrayList<Bicycle> bicycles = _project.getBicycles();
+
+        if (bicycles.isEmpty()) {
+            JOptionPane.showMessageDialog(this, "There are no bicycles to check.");
+            return;
+        }
+
+        for (Bicycle b : bicycles) {
+            _project.ensureBicycleLoaded(b);
+        }
+
+        CollisionDialog collisionDialog = new CollisionDialog(this, bicycles, _project.getRiderSize(), _project.getRiderPose());
+        collisionDialog.setVisible(true);
+        collisionDialog.dispose();
+
+    }
+
+    /**
+     * Show the reach envelope for the selected bicycle and overlay it in the viewer.
+     */
+    private void showEnvelopeDialog() {
+
+        Bicycle bicycle = getAnalysisBicycle();
+
+        if (bicycle == null) {
+            JOptionPane.showMessageDialog(this, "There are no bicycles to analyze.");
+            return;
+        }
+
+        _project.ensureBicycleLoaded(bicycle);
+
+        ReachEnvelopeDialog envelopeDialog = new ReachEnvelopeDialog(this, bicycle, _project.getRiderSize(), _project.getRiderPose(), _envelopeCache);
+        envelopeDialog.setVisible(true);
+
+        if (envelopeDialog.isOverlayEnabled() && envelopeDialog.getResult() != null) {
+            _viewer.setEnvelope(bicycle, envelopeDialog.getResult());
+        } else {
+            _viewer.clearEnvelope();
+        }
+
+        envelopeDialog.dispose();
+
+    }
+
+    /**
+     * Show the diagnostics dialog (timers and counters).  The dialog is not
+     * modal and is kept for the session.
+     */
+    private void showDiagnosticsDialog() {
+
+        if (_diagnosticsDialog == null) {
+            _diagnosticsDialog = new DiagnosticsDialog(this);
+        }
+
+        _diagnosticsDialog.setVisible(true);
+
+    }
+
+    /**
+     * Show the differences of all bicycles to the selected bicycle and overlay
+     * them in the viewer.
+     */
+    private void showDifferenceDialog() {
+
+        Bicycle bicycle = getAnalysisBicycle();
+
+        if (bicycle == null) {
+            JOptionPane.showMessageDialog(this, "There are no bicycles to compare.");
+            return;
+        }
+
+        //compare the displayed geometry
+        ArrayList<Bicycle> bicycles = new ArrayList();
+        for (Bicycle b : _project.getBicycles()) {
+            _project.ensureBicycleLoaded(b);
+            bicycles.add(_project.getDisplayBicycle(b));
+        }
+
+        int reference = _project.getBicycles().indexOf(bicycle);
+
+        DifferenceDialog differenceDialog = new DifferenceDialog(this, bicycles, reference);
+        differenceDialog.setVisible(true);
+
+        if (differenceDialog.isOverlayEnabled()) {
+            _viewer.setDifference(bicycle);
+        } else {
+            _viewer.clearDifference();
+        }
+
+        differenceDialog.dispose();
+
+    }
+
+    /**
+     * Group the bicycles with effectively identical fits and tag the groups
+     * in the navigator.
+     */
+    private void showClusterDialog() {
+
+        ArrayList<Bicycle> projectBicycles = _project.getBicycles();
+
+        if (projectBicycles.isEmpty()) {
+            JOptionPane.showMessageDialog(this, "There are no bicycles to group.");
+            return;
+        }
+
+        //group the displayed geometry
+        ArrayList<Bicycle> bicycles = new ArrayList();
+        for (Bicycle b : projectBicycles) {
+            _project.ensureBicycleLoaded(b);
+            bicycles.add(_project.getDisplayBicycle(b));
+        }
+
+        ClusterDialog clusterDialog = new ClusterDialog(this, bicycles);
+        clusterDialog.setVisible(true);
+
+        ClusterResult result = clusterDialog.getResult();
+
+        if (clusterDialog.isNavigatorEnabled() && result != null) {
+
+            //same numbering as the dialog - largest group first
+            HashMap<Bicycle, Integer> groups = new HashMap();
+            ArrayList<Integer> clusters = result.getGroups();
+
+            for (int g = 0; g < clusters.size(); g++) {
+                for (int i : result.getMembers(clusters.get(g))) {
+                    groups.put(projectBicycles.get(i), g + 1);
+                }
+            }
+
+            _navigator.setFitGroups(groups);
+        } else {
+            _navigator.clearFitGroups();
+        }
+
+        clusterDialog.dispose();
+
+    }
+
 //</editor-fold>
 //<editor-fold defaultstate="collapsed" desc="File Menu methods section">
     /**
@@ -709,6 +1108,7 @@ public class BicycleGeometryWorkshopUI extends JFrame implements NavigatorListen
 
         //start a new project
         _project = new BGWProject(this);
+        _project.setBackgroundGeometry(true);
 
         //open default if it exists
         _project.openDefaultFile();
@@ -721,6 +1121,7 @@ public class BicycleGeometryWorkshopUI extends JFrame implements NavigatorListen
         //since this is a new reference, reset the project
         //in the viewer
         _viewer.setProject(_project);
+        _animateMenuItem.setSelected(false);
         //redraw the viewer
         redrawViewer();
         //System.out.println("New Project not implemented yet...");
@@ -733,7 +1134,7 @@ public class BicycleGeometryWorkshopUI extends JFrame implements NavigatorListen
 
         this.setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
 
-        System.out.println("Opening Project...");
+        LOG.info("Opening project");
         _project.openFile();
 
         setFrameTitle();
@@ -745,7 +1146,7 @@ public class BicycleGeometryWorkshopUI extends JFrame implements NavigatorListen
     private void projectSave() {
 
         this.setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
-        System.out.println("Saving Project...");
+        LOG.info("Saving project");
         _project.saveFile();
 
         setFrameTitle();
@@ -757,7 +1158,7 @@ public class BicycleGeometryWorkshopUI extends JFrame implements NavigatorListen
     private void projectSaveAs() {
 
         this.setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
-        System.out.println("Saving Project As...");
+        LOG.info("Saving project as");
         _project.saveFileAs();
 
         setFrameTitle();
@@ -772,7 +1173,7 @@ public class BicycleGeometryWorkshopUI extends JFrame implements NavigatorListen
      * Undo the last action in the project.
      */
     private void performUndo() {
-        System.out.println("Project undo...");
+        LOG.debug("Project undo");
         _project.undo();
     }
 
@@ -780,7 +1181,7 @@ public class BicycleGeometryWorkshopUI extends JFrame implements NavigatorListen
      * Redo the last undone action in the project.
      */
     private void performRedo() {
-        System.out.println("Project redo...");
+        LOG.debug("Project redo");
         _project.redo();
 
     }
@@ -821,6 +1222,20 @@ public class BicycleGeometryWorkshopUI extends JFrame implements NavigatorListen
 
     }
 
+    /**
+     * Call when a bicycle is selected in the navigator.  Loads the bicycle if it
+     * is still pending from a lazy open.
+     *
+     * @param bicycle The selected bicycle.
+     */
+    @Override
+    public void bicycleSelected(Bicycle bicycle) {
+
+        _selectedBicycle = bicycle;
+        _project.ensureBicycleLoaded(bicycle);
+
+    }
+
 //    public void editorSelectedOLD(AttributeSetPanel editor) {
 //
 //        // _attrScrollPane = new JScrollPane(editor);
@@ -928,6 +1343,66 @@ public class BicycleGeometryWorkshopUI extends JFrame implements NavigatorListen
 
     }
 
+    /**
+     * NavigatorListener set the frame stack and reach from other measurements.
+     * Prompts for the measurements and sets the stack and reach as a single undo.
+     *
+     * @param frame The frame to set.
+     */
+    @Override
+    public void frameStackReachFrom(FrameSet frame) {
+
+        JComboBox<FrameInput> inputCombo = new JComboBox(FrameInput.values());
+        JLabel labelA = new JLabel();
+        JLabel labelB = new JLabel();
+        JTextField fieldA = new JTextField(8);
+        JTextField fieldB = new JTextField(8);
+
+        //update the labels for the selected input pair
+        ActionListener alInput = (ActionEvent ev) -> {
+            FrameInput input = (FrameInput) inputCombo.getSelectedItem();
+            String suffix = " (" + UnitsDisplay.getUnitsSuffix() + ")";
+            labelA.setText(input.getLabelA() + suffix);
+            labelB.setText(input.getLabelB() + suffix);
+        };
+        inputCombo.addActionListener(alInput);
+        inputCombo.setSelectedItem(FrameInput.WheelBaseStack);
+
+        JPanel panel = new JPanel(new GridLayout(3, 2, 4, 4));
+        panel.add(new JLabel("Measurements"));
+        panel.add(inputCombo);
+        panel.add(labelA);
+        panel.add(fieldA);
+        panel.add(labelB);
+        panel.add(fieldB);
+
+        int result = JOptionPane.showConfirmDialog(this, panel, "Set Stack/Reach From", JOptionPane.OK_CANCEL_OPTION);
+
+        if (result != JOptionPane.OK_OPTION) {
+            return;
+        }
+
+        FrameInput input = (FrameInput) inputCombo.getSelectedItem();
+        boolean solved = false;
+
+        try {
+            double a = UnitsDisplay.getNaturalLength(Double.parseDouble(fieldA.getText()));
+            double b = UnitsDisplay.getNaturalLength(Double.parseDouble(fieldB.getText()));
+
+            _project.undoOpenGroup();
+            solved = frame.setStackReachFrom(input, a, b);
+            _project.undoCloseGroup();
+
+        } catch (NumberFormatException ex) {
+            solved = false;
+        }
+
+        if (!solved) {
+            JOptionPane.showMessageDialog(this, "The measurements could not be solved for this frame.");
+        }
+
+    }
+
     @Override
     public void bicycleDisplay(BicycleDisplay display) {
 
@@ -993,9 +1468,13 @@ public class BicycleGeometryWorkshopUI extends JFrame implements NavigatorListen
     @Override
     public void updateReport() {
 
+        long start = REPORT_TIMER.start();
+
         ReportValue data[][] = _project.getReportData();
         _reportModel.setDataVector(data, Report.getColumnHeads());
 
+        REPORT_TIMER.stop(start);
+
     }
 
     /**
@@ -1109,7 +1588,7 @@ public class BicycleGeometryWorkshopUI extends JFrame implements NavigatorListen
         
         String fullPath = workingDir + sep + helpPath;
         
-        System.out.println("Help file: " + fullPath);
+        LOG.info("Help file", "path", fullPath);
         
         File helpFile = new File(fullPath);
         
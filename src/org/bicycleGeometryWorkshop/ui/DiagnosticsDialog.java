@@ -0,0 +1,198 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2020 Tom.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.bicycleGeometryWorkshop.ui;
+
+import java.awt.BorderLayout;
+import java.awt.Dimension;
+import java.awt.FlowLayout;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import javax.swing.JButton;
+import javax.swing.JCheckBox;
+import javax.swing.JDialog;
+import javax.swing.JFrame;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTable;
+import javax.swing.Timer;
+import javax.swing.table.DefaultTableModel;
+import org.bicycleGeometryWorkshop.diagnostics.Metric;
+import org.bicycleGeometryWorkshop.diagnostics.Metrics;
+
+/**
+ * Diagnostics dialog.  Lists the application timers and counters (see
+ * Metrics) and refreshes them once a second while shown.  The percentiles
+ * are taken from the recent samples of each timer.  Not in the menus - opened
+ * with Ctrl+Shift+F12.  Opening the dialog turns recording on.
+ *
+ * @author Tom
+ */
+public class DiagnosticsDialog extends JDialog {
+
+    private static final int REFRESH_MILLIS = 1000;
+
+    private DefaultTableModel _metricModel;
+    private Timer _refreshTimer;
+
+    /**
+     * Class constructor.
+     *
+     * @param owner The owner frame.
+     */
+    public DiagnosticsDialog(JFrame owner) {
+        super(owner, false);
+
+        //nothing is recorded until asked for
+        Metrics.setEnabled(true);
+
+        init();
+
+    }
+
+    /**
+     * Initialize the components and do the layout.
+     */
+    private void init() {
+
+        this.setTitle("Diagnostics");
+        this.setLayout(new BorderLayout());
+
+        String[] metricHeads = {"Metric", "Count", "Total (ms)", "Mean (ms)", "p50 (ms)", "p99 (ms)", "Max (ms)"};
+        _metricModel = new DefaultTableModel(metricHeads, 0) {
+
+            @Override
+            public boolean isCellEditable(int row, int col) {
+                return false;
+            }
+
+        };
+
+        JTable metricTable = new JTable(_metricModel);
+        JScrollPane metricScroll = new JScrollPane(metricTable);
+        metricScroll.setPreferredSize(new Dimension(720, 260));
+
+        //controls
+        JCheckBox enabledBox = new JCheckBox("Record", Metrics.isEnabled());
+        JButton resetButton = new JButton("Reset");
+        JButton closeButton = new JButton("Close");
+
+        //record action
+        ActionListener enabledAction = (ActionEvent ev) -> {
+            Metrics.setEnabled(enabledBox.isSelected());
+        };
+        enabledBox.addActionListener(enabledAction);
+
+        //reset action
+        ActionListener resetAction = (ActionEvent ev) -> {
+            Metrics.reset();
+            refresh();
+        };
+        resetButton.addActionListener(resetAction);
+
+        //close action
+        ActionListener closeAction = (ActionEvent ev) -> {
+            this.setVisible(false);
+        };
+        closeButton.addActionListener(closeAction);
+
+        JPanel controlPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        controlPanel.add(enabledBox);
+        controlPanel.add(resetButton);
+        controlPanel.add(closeButton);
+
+        this.add(metricScroll, BorderLayout.CENTER);
+        this.add(controlPanel, BorderLayout.SOUTH);
+
+        //refresh only while shown
+        ActionListener refreshAction = (ActionEvent ev) -> {
+            refresh();
+        };
+        _refreshTimer = new Timer(REFRESH_MILLIS, refreshAction);
+
+        this.pack();
+        this.setLocationRelativeTo(this.getOwner());
+
+    }
+
+    /**
+     * Hide the dialog and stop refreshing.
+     *
+     * @param visible True to show.
+     */
+    @Override
+    public void setVisible(boolean visible) {
+
+        if (!visible) {
+            _refreshTimer.stop();
+        } else {
+            refresh();
+            _refreshTimer.start();
+        }
+
+        super.setVisible(visible);
+
+    }
+
+    /**
+     * Reload the table from the metrics.
+     */
+    private void refresh() {
+
+        _metricModel.setRowCount(0);
+
+        for (Metric m : Metrics.getMetrics()) {
+
+            Object[] row = new Object[7];
+            row[0] = m.getName();
+            row[1] = Long.toString(m.getCount());
+
+            if (m.isTimer()) {
+                double[] pct = m.getPercentileMillis(50, 99);
+                row[2] = format(m.getTotalMillis());
+                row[3] = format(m.getMeanMillis());
+                row[4] = format(pct[0]);
+                row[5] = format(pct[1]);
+                row[6] = format(m.getMaxMillis());
+            } else {
+                for (int i = 2; i < row.length; i++) {
+                    row[i] = "";
+                }
+            }
+
+            _metricModel.addRow(row);
+        }
+
+    }
+
+    /**
+     * Format a time.
+     *
+     * @param millis The time in milliseconds.
+     * @return The formatted time.
+     */
+    private String format(double millis) {
+        return String.format("%.3f", millis);
+    }
+
+}
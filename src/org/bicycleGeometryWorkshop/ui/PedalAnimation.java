@@ -0,0 +1,357 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2020 Tom.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.bicycleGeometryWorkshop.ui;
+
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import javax.swing.Timer;
+import org.bicycleGeometryWorkshop.analysis.BicycleEvaluator;
+import org.bicycleGeometryWorkshop.app.BGWProject;
+import org.bicycleGeometryWorkshop.attributes.DoubleAttribute;
+import org.bicycleGeometryWorkshop.components.Bicycle;
+import org.bicycleGeometryWorkshop.components.BicycleChangeEvent;
+import org.bicycleGeometryWorkshop.components.BicycleListener;
+import org.bicycleGeometryWorkshop.components.PedalFrame;
+import org.bicycleGeometryWorkshop.database.DataBaseKeys;
+
+/**
+ * Pedal stroke animation.  A frame timer steps the crank rotation through a
+ * full revolution at the set cadence.  The frames are computed on a worker
+ * thread from private copies of the visible bicycles (see BicycleEvaluator)
+ * into a ring of PedalFrame snapshots - one slot per step of the revolution -
+ * so the timer only picks the frame for the current time and repaints.  The
+ * stroke repeats, so the ring is filled once and then replayed.
+ * <p>
+ * The animation listens to the project for bicycle changes and restarts a
+ * running animation so the frames follow the edits.
+ * <p>
+ * The project pose is not changed.  All methods must be called on the event
+ * dispatch thread.
+ *
+ * @author Tom
+ */
+public class PedalAnimation implements BicycleListener {
+
+    private static final int FRAMES_PER_SECOND = 60;
+    private static final String CRANK_ROTATION = "CrankRotation";
+
+    private BGWProject _project;
+    private Runnable _repaint;
+
+    private double _cadence;
+
+    private ArrayList<Bicycle> _bicycles;
+    private AtomicReferenceArray<PedalFrame[]> _frames;
+    private AtomicInteger _ready;
+    private int _current;
+    //incremented on each start - frames of an older start are stale
+    private int _generation;
+
+    private ExecutorService _worker;
+    private Timer _timer;
+    private long _startTime;
+
+    /**
+     * Class constructor.
+     *
+     * @param project The project to animate.
+     * @param repaint Called on the event dispatch thread when the frame changes.
+     */
+    public PedalAnimation(BGWProject project, Runnable repaint) {
+
+        _project = project;
+        _repaint = repaint;
+
+        _cadence = 60;
+
+        _bicycles = new ArrayList();
+        _frames = null;
+        _ready = new AtomicInteger();
+        _current = 0;
+        _generation = 0;
+
+        _worker = null;
+
+        ActionListener tick = (ActionEvent ev) -> {
+            nextFrame();
+        };
+        _timer = new Timer(1000 / FRAMES_PER_SECOND, tick);
+        _timer.setCoalesce(true);
+
+        _project.addBicycleListener(this);
+
+    }
+
+    /**
+     * Set the project - used for new project.  Stops the animation.
+     *
+     * @param project The project to animate.
+     */
+    public void setProject(BGWProject project) {
+
+        stop();
+
+        _project.removeBicycleListener(this);
+        _project = project;
+        _project.addBicycleListener(this);
+
+    }
+
+    /**
+     * Set the cadence.  Restarts a running animation.
+     *
+     * @param cadence The cadence in revolutions per minute.
+     */
+    public void setCadence(double cadence) {
+
+        _cadence = Math.max(1, cadence);
+
+        if (isRunning()) {
+            restart();
+        }
+
+    }
+
+    /**
+     * Check if the animation is running.
+     *
+     * @return True if running.
+     */
+    public boolean isRunning() {
+        return _timer.isRunning();
+    }
+
+    /**
+     * Start the animation from the current crank rotation of the pose.
+     */
+    public void start() {
+
+        stop();
+
+        //one frame per timer tick at the cadence
+        int frameCount = Math.max(12, (int) Math.round(FRAMES_PER_SECOND * 60 / _cadence));
+
+        //copies of the visible bicycles, made here on the UI thread
+        ArrayList<BicycleEvaluator> evaluators = new ArrayList();
+        ArrayList<Point2D> offsets = new ArrayList();
+
+        for (Bicycle b : _project.getBicycles()) {
+
+            if (!b.getVisiblilty() || !_project.isBicycleLoaded(b)) {
+                continue;
+            }
+
+            BicycleEvaluator eval = new BicycleEvaluator(b, _project.getRiderSize(), _project.getRiderPose());
+
+            //the copy is laid out with default preferences - line it up with the bicycle
+            Point2D bb = _project.getDisplayBicycle(b).getBottomBracketPoint();
+            Point2D copyBB = eval.getBicycle().getBottomBracketPoint();
+
+            _bicycles.add(b);
+            evaluators.add(eval);
+            offsets.add(new Point2D.Double(bb.getX() - copyBB.getX(), bb.getY() - copyBB.getY()));
+        }
+
+        double startAngle = _project.getRiderPose().getCrankRotation();
+
+        _frames = new AtomicReferenceArray(frameCount);
+        _ready.set(0);
+        _current = 0;
+        _generation++;
+
+        AtomicReferenceArray<PedalFrame[]> frames = _frames;
+        AtomicInteger ready = _ready;
+
+        //daemon - the idle worker must not keep the application running
+        _worker = Executors.newSingleThreadExecutor((Runnable r) -> {
+            Thread t = new Thread(r, "Pedal Animation");
+            t.setDaemon(true);
+            return t;
+        });
+        _worker.submit(() -> {
+            buildFrames(evaluators, offsets, startAngle, frames, ready);
+        });
+
+        _startTime = System.nanoTime();
+        _timer.start();
+
+    }
+
+    /**
+     * Stop the animation.
+     */
+    public void stop() {
+
+        _timer.stop();
+
+        if (_worker != null) {
+            _worker.shutdownNow();
+            _worker = null;
+        }
+
+        _bicycles = new ArrayList();
+        _frames = null;
+
+        _repaint.run();
+
+    }
+
+    /**
+     * Restart the animation - used when the bicycles change.
+     */
+    public void restart() {
+
+        if (isRunning()) {
+            start();
+        }
+
+    }
+
+    /**
+     * Restart a running animation when a bicycle changes.
+     *
+     * @param bicycleEvent The bicycle change event.
+     */
+    @Override
+    public void bicycleChanged(BicycleChangeEvent bicycleEvent) {
+        restart();
+    }
+
+    /**
+     * Get the number of times the animation has been started.  This changes
+     * whenever the frames are rebuilt.
+     *
+     * @return The start count.
+     */
+    public int getGeneration() {
+        return _generation;
+    }
+
+    /**
+     * Get the bicycles of the animation in project order.
+     *
+     * @return The animated bicycles.
+     */
+    public ArrayList<Bicycle> getBicycles() {
+        return _bicycles;
+    }
+
+    /**
+     * Get the current frame.
+     *
+     * @return The snapshot of each animated bicycle (see getBicycles()), or
+     * null if no frame is ready.
+     */
+    public PedalFrame[] getCurrentFrame() {
+
+        if (_frames == null || _ready.get() == 0) {
+            return null;
+        }
+
+        return _frames.get(_current);
+    }
+
+    /**
+     * Timer tick - pick the frame for the current time.
+     */
+    private void nextFrame() {
+
+        if (_frames == null) {
+            return;
+        }
+
+        int frameCount = _frames.length();
+        double revolutions = (System.nanoTime() - _startTime) / 1.0e9 * _cadence / 60;
+        int index = (int) ((long) (revolutions * frameCount) % frameCount);
+
+        //hold the last ready frame until the worker catches up
+        int ready = _ready.get();
+        if (ready == 0) {
+            return;
+        }
+        if (index >= ready) {
+            index = ready - 1;
+        }
+
+        if (index != _current || ready == 1) {
+            _current = index;
+            _repaint.run();
+        }
+
+    }
+
+    /**
+     * Compute the frames of one revolution.  Runs on the worker thread.
+     *
+     * @param evaluators The bicycle copies.
+     * @param offsets The offset of each copy to its bicycle.
+     * @param startAngle The crank rotation of the first frame.
+     * @param frames The ring to fill.
+     * @param ready The number of frames filled.
+     */
+    private void buildFrames(ArrayList<BicycleEvaluator> evaluators, ArrayList<Point2D> offsets, double startAngle,
+            AtomicReferenceArray<PedalFrame[]> frames, AtomicInteger ready) {
+
+        int frameCount = frames.length();
+        int bikeCount = evaluators.size();
+
+        DoubleAttribute[] crank = new DoubleAttribute[bikeCount];
+        for (int i = 0; i < bikeCount; i++) {
+            crank[i] = evaluators.get(i).getDoubleAttribute(DataBaseKeys.POSE.toString(), CRANK_ROTATION);
+        }
+
+        for (int f = 0; f < frameCount; f++) {
+
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+
+            double angle = startAngle + 360.0 * f / frameCount;
+            angle = ((angle % 360) + 360) % 360;
+
+            PedalFrame[] frame = new PedalFrame[bikeCount];
+
+            for (int i = 0; i < bikeCount; i++) {
+
+                BicycleEvaluator eval = evaluators.get(i);
+                crank[i].setDouble(angle);
+                eval.evaluate();
+
+                Point2D offset = offsets.get(i);
+                frame[i] = eval.getBicycle().getPedalFrame(offset.getX(), offset.getY());
+            }
+
+            frames.set(f, frame);
+            ready.incrementAndGet();
+        }
+
+    }
+
+}
@@ -28,24 +28,39 @@ import org.bicycleGeometryWorkshop.ui.measure.Measure;
 import org.bicycleGeometryWorkshop.ui.measure.MeasureAngle;
 import org.bicycleGeometryWorkshop.ui.measure.MeasureDistance;
 
+import java.awt.BasicStroke;
 import java.awt.Color;
 import java.awt.Dimension;
+import java.awt.Font;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
 import java.awt.RenderingHints;
+import java.awt.Shape;
 import java.awt.event.KeyEvent;
 import java.awt.event.KeyListener;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseListener;
 import java.awt.event.MouseMotionListener;
+import java.awt.event.MouseWheelEvent;
+import java.awt.event.MouseWheelListener;
 import java.awt.geom.AffineTransform;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Path2D;
 import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
 import javax.swing.JPanel;
 import javax.swing.SwingUtilities;
+import org.bicycleGeometryWorkshop.analysis.ReachEnvelopeResult;
 import org.bicycleGeometryWorkshop.app.BGWProject;
 import org.bicycleGeometryWorkshop.app.VisualPreferences;
+import org.bicycleGeometryWorkshop.geometry.Utilities;
+import org.bicycleGeometryWorkshop.components.Bicycle;
 import org.bicycleGeometryWorkshop.components.BicycleChangeEvent;
+import org.bicycleGeometryWorkshop.components.KeyPoint;
+import org.bicycleGeometryWorkshop.components.PedalFrame;
+import org.bicycleGeometryWorkshop.diagnostics.Metric;
+import org.bicycleGeometryWorkshop.diagnostics.Metrics;
 
 /**
  * This class is the primary display component.  It is responsible for 
@@ -53,9 +68,29 @@ import org.bicycleGeometryWorkshop.components.BicycleChangeEvent;
  * measuring tools which are activated through this class.
  * @author Tom
  */
-public class ProjectViewer extends JPanel implements BicycleListener, MouseListener, MouseMotionListener, KeyListener {
+public class ProjectViewer extends JPanel implements BicycleListener, MouseListener, MouseMotionListener, MouseWheelListener, KeyListener {
+
+    //snap and pick radius in pixels
+    private static final double SNAP_RADIUS = 10;
+
+    //zoom factor per mouse wheel notch
+    private static final double WHEEL_ZOOM = 1.2;
+
+    //padding of the visible bounds in pixels so wide lines at the edges are drawn
+    private static final double CULL_PADDING = 20;
+
+    //distance the mouse must move before a press becomes a pan
+    private static final int DRAG_THRESHOLD = 3;
+
+    //difference overlay - only the first bicycles get numeric labels
+    private static final int MAX_DIFFERENCE_LABELS = 4;
+
+    //timer shown in the diagnostics dialog
+    private static final Metric PAINT_TIMER = Metrics.timer("ProjectViewer.paintComponent");
 
     private BGWProject _project;
+
+    private ViewerListener _viewerListener;
     
     private VisualPreferences _visualPreferences;
 
@@ -65,6 +100,31 @@ public class ProjectViewer extends JPanel implements BicycleListener, MouseListe
     private MeasureDistance _measureDistance;
     private MeasureAngle _measureAngle;
 
+    //reach envelope overlay
+    private Bicycle _envelopeBicycle;
+    private ReachEnvelopeResult _envelope;
+
+    //difference overlay reference bicycle
+    private Bicycle _differenceBicycle;
+    private Font _differenceFont;
+
+    //pedal stroke animation and the cached static layer drawn between its frames
+    private PedalAnimation _animation;
+    private BufferedImage _staticLayer;
+    private AffineTransform _staticTransform;
+    private int _staticGeneration;
+    private long _staticVersion;
+
+    //snapping and picking
+    private SnapIndex _snapIndex;
+    private AffineTransform _worldTransform;
+    private Point2D _snapPoint;
+
+    //pan and zoom
+    private Viewport _viewport;
+    private Point2D _dragPoint;
+    private boolean _isPanning;
+
     /**
      * Class constructor.  This sets the reference to the project.
      * @param project The project to display in the viewer.
@@ -82,6 +142,30 @@ public class ProjectViewer extends JPanel implements BicycleListener, MouseListe
         _measureDistance = new MeasureDistance();
         _measureAngle = new MeasureAngle();
 
+        _envelopeBicycle = null;
+        _envelope = null;
+
+        _differenceBicycle = null;
+        _differenceFont = new Font(Font.DIALOG, Font.PLAIN, 11);
+
+        Runnable repaint = () -> {
+            this.repaint();
+        };
+        _animation = new PedalAnimation(project, repaint);
+        _staticLayer = null;
+        _staticTransform = null;
+
+        _viewerListener = null;
+        _snapIndex = new SnapIndex();
+        _worldTransform = new AffineTransform();
+        _snapPoint = null;
+
+        _viewport = new Viewport();
+        _dragPoint = null;
+        _isPanning = false;
+
+        project.addBicycleListener(this);
+
         initViewer();
 
     }
@@ -92,11 +176,31 @@ public class ProjectViewer extends JPanel implements BicycleListener, MouseListe
      */
     public void setProject(BGWProject project) {
         
+        _project.removeBicycleListener(this);
         _project = project;
+        _project.addBicycleListener(this);
+
+        _snapIndex.invalidateAll();
+        _snapPoint = null;
 
+        _viewport.reset();
+
+        clearEnvelope();
+        clearDifference();
+
+        _animation.setProject(project);
+        _staticLayer = null;
         
     }
     
+    /**
+     * Set the listener for viewer events (bicycle picking).
+     * @param listener The viewer listener.
+     */
+    public void setViewerListener(ViewerListener listener) {
+        _viewerListener = listener;
+    }
+
     /**
      * Initial the viewer.
      */
@@ -110,13 +214,15 @@ public class ProjectViewer extends JPanel implements BicycleListener, MouseListe
 
         this.addMouseListener(this);
         this.addMouseMotionListener(this);
+        this.addMouseWheelListener(this);
         this.addKeyListener(this);
 
     }
 
     /**
-     * Paint the component.  This gets the calculated bounding box from the project, 
-     * does a "zoom extents" to center the project and then repaints the project (all the bicycles).  
+     * Paint the component.  This gets the world to screen transform from the viewport
+     * (a "zoom extents" of the project unless the view was panned or zoomed) and then 
+     * repaints the bicycles that are in view.  
      * A side product is that the measuring tools are updated with the transform calculated here.
      * @param g The graphics object to paint to.
      */
@@ -124,6 +230,8 @@ public class ProjectViewer extends JPanel implements BicycleListener, MouseListe
     public void paintComponent(Graphics g) {
         super.paintComponent(g);
 
+        long start = PAINT_TIMER.start();
+
         //graphics object
         Graphics2D g2 = (Graphics2D) g;
 
@@ -138,34 +246,12 @@ public class ProjectViewer extends JPanel implements BicycleListener, MouseListe
         //grab copy of current ransform
         AffineTransform origTrans = g2.getTransform();
 
-        double vw = this.getWidth();
-        double vh = this.getHeight();
-
-        Rectangle2D fbounds = _project.getBounds();
-        double fw = fbounds.getWidth();
-        double fh = fbounds.getHeight();
-
-        //width vs height scale
-        double sw = vw / fw;
-        double sh = vh / fh;
-
-        //use smaller
-        double scale = sw < sh ? sw : sh;
-
-        //add padding
-        scale *= 0.85;
+        //cached transform - the project bounds are only recalculated when a bicycle changes
+        AffineTransform gTrans = _viewport.getTransform(_project, this.getWidth(), this.getHeight());
+        double scale = _viewport.getScale();
 
-        //calc translation to center bounds
-        double tx = vw / 2 - scale * fbounds.getCenterX();
-        double ty = vh / 2 + scale * fbounds.getCenterY();
-
-        //perform transform
-//        g2.translate(tx,ty);
-//        g2.scale(scale,-scale);
-        //new version
-        AffineTransform gTrans = new AffineTransform();
-        gTrans.translate(tx, ty);
-        gTrans.scale(scale, -scale);
+        //the part of the world in view - bicycles outside of it are skipped
+        Rectangle2D visible = _viewport.getVisibleBounds(CULL_PADDING);
 
         //apply transform to graphics object
         g2.transform(gTrans);
@@ -174,6 +260,7 @@ public class ProjectViewer extends JPanel implements BicycleListener, MouseListe
         //update the transform regardless of measuring state
         _measureDistance.updateTransform(gTrans);
         _measureAngle.updateTransform(gTrans);
+        _worldTransform = gTrans;
 
         //calc lineweight scale and check
         float lwScale = (float) scale;
@@ -185,20 +272,37 @@ public class ProjectViewer extends JPanel implements BicycleListener, MouseListe
         /**
          *   Render the Project
          */
-        //render the project (all bicycles, etc)
-        _project.render(g2, lwScale);
+        PedalFrame[] frame = _animation.isRunning() ? _animation.getCurrentFrame() : null;
+
+        if (frame == null) {
+            //render the project (all bicycles in view, etc)
+            _project.render(g2, lwScale, visible);
+        } else {
+            renderAnimationFrame(g2, frame, origTrans, gTrans, visible, lwScale);
+        }
+
+        //reach envelope on top of the bicycles
+        renderEnvelope(g2, lwScale);
+
+        //difference vectors to the reference bicycle
+        renderDifference(g2, lwScale, visible);
 
         //render measure in world if it is active
         if (_isMeasureActive) {
             if (_measureActive != null) {
                 _measureActive.renderInWorld(g2, lwScale);
             }
+
+            renderSnapPoint(g2, lwScale);
         }
 
 
         //restore original transform
         g2.setTransform(origTrans);
 
+        //difference labels are drawn in screen space so the text is not scaled
+        renderDifferenceLabels(g2, gTrans, visible);
+
         //render measure screen if it is active
         if (_isMeasureActive) {
             if (_measureActive != null) {
@@ -206,15 +310,381 @@ public class ProjectViewer extends JPanel implements BicycleListener, MouseListe
             }
         }
 
+        PAINT_TIMER.stop(start);
+
+    }
+
+    /**
+     * Render an animation frame.  The moving parts on the far side are drawn
+     * first, then the cached static layer (the bicycles without the moving
+     * parts) and then the moving parts on the near side.  The static layer is
+     * only re-rendered when the view, the bicycles or their snapshots change.
+     * @param g2 The graphics object to render to, in world transform.
+     * @param frame The frame snapshot of each animated bicycle.
+     * @param origTrans The screen transform.
+     * @param gTrans The world to screen transform.
+     * @param visible The visible world bounds.
+     * @param scale The scale of the current view.
+     */
+    private void renderAnimationFrame(Graphics2D g2, PedalFrame[] frame, AffineTransform origTrans, AffineTransform gTrans, Rectangle2D visible, float scale) {
+
+        //device scale (HiDPI)
+        double sx = origTrans.getScaleX();
+        double sy = origTrans.getScaleY();
+        int w = Math.max(1, (int) Math.ceil(this.getWidth() * sx));
+        int h = Math.max(1, (int) Math.ceil(this.getHeight() * sy));
+
+        if (_staticLayer == null || _staticLayer.getWidth() != w || _staticLayer.getHeight() != h
+                || !gTrans.equals(_staticTransform) || _staticVersion != _project.getGeometryVersion()
+                || _staticGeneration != _animation.getGeneration()) {
+
+            _staticLayer = new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB_PRE);
+            _staticTransform = gTrans;
+            _staticGeneration = _animation.getGeneration();
+            _staticVersion = _project.getGeometryVersion();
+
+            Graphics2D sg = _staticLayer.createGraphics();
+            sg.setRenderingHints(g2.getRenderingHints());
+            sg.scale(sx, sy);
+            sg.transform(gTrans);
+            _project.renderStatic(sg, scale, visible);
+            sg.dispose();
+        }
+
+        //same order as the project - last bicycle at the back
+        for (int i = frame.length - 1; i >= 0; i--) {
+            frame[i].renderUnder(g2, scale);
+        }
+
+        AffineTransform worldTrans = g2.getTransform();
+        g2.setTransform(origTrans);
+        g2.drawImage(_staticLayer, 0, 0, this.getWidth(), this.getHeight(), null);
+        g2.setTransform(worldTrans);
+
+        for (int i = frame.length - 1; i >= 0; i--) {
+            frame[i].renderOver(g2, scale);
+        }
+
+    }
+
+    /**
+     * Start or stop the pedal stroke animation.
+     * @param animate True to start the animation, false to stop it.
+     */
+    public void setAnimating(boolean animate) {
+
+        _staticLayer = null;
+
+        if (animate) {
+            _animation.start();
+        } else {
+            _animation.stop();
+        }
+
+    }
+
+    /**
+     * Check if the pedal stroke animation is running.
+     * @return True if animating.
+     */
+    public boolean isAnimating() {
+        return _animation.isRunning();
+    }
+
+    /**
+     * Render the snap marker - a square around the snapped point.
+     * @param g2 The graphics object to render to.
+     * @param scale The scale of the current view.
+     */
+    private void renderSnapPoint(Graphics2D g2, float scale) {
+
+        if (_snapPoint == null) {
+            return;
+        }
+
+        double half = 6 / scale;
+        Rectangle2D marker = new Rectangle2D.Double(_snapPoint.getX() - half, _snapPoint.getY() - half, half * 2, half * 2);
+
+        g2.setColor(new Color(255, 160, 0));
+        g2.setStroke(new BasicStroke(1.5f / scale));
+        g2.draw(marker);
+
+    }
+
+    /**
+     * Get the mouse point for the measure tools - snapped to the nearest key
+     * point or segment of a bicycle unless shift is held down.  This also sets
+     * the snap marker.
+     * @param e The mouse event.
+     * @return The point in screen coordinates.
+     */
+    private Point2D getMeasurePoint(MouseEvent e) {
+
+        Point2D mousePoint = new Point2D.Double(e.getX(), e.getY());
+        _snapPoint = null;
+
+        if (e.isShiftDown()) {
+            return mousePoint;
+        }
+
+        Point2D worldPoint = toWorld(mousePoint);
+        if (worldPoint == null) {
+            return mousePoint;
+        }
+
+        _snapIndex.update(_project);
+        _snapPoint = _snapIndex.snap(worldPoint, SNAP_RADIUS / _worldTransform.getScaleX());
+
+        if (_snapPoint == null) {
+            return mousePoint;
+        }
+
+        return _worldTransform.transform(_snapPoint, null);
+    }
+
+    /**
+     * Convert a screen point to world coordinates with the last painted transform.
+     * @param screenPoint The point in screen coordinates.
+     * @return The point in world coordinates, or null if the transform can't be inverted.
+     */
+    private Point2D toWorld(Point2D screenPoint) {
+
+        try {
+            return _worldTransform.inverseTransform(screenPoint, null);
+        } catch (Exception ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Pick the bicycle under the mouse and notify the viewer listener.
+     * @param e The mouse event.
+     */
+    private void pickBicycle(MouseEvent e) {
+
+        if (_viewerListener == null) {
+            return;
+        }
+
+        Point2D worldPoint = toWorld(new Point2D.Double(e.getX(), e.getY()));
+        if (worldPoint == null) {
+            return;
+        }
+
+        _snapIndex.update(_project);
+        Bicycle picked = _snapIndex.pick(worldPoint, SNAP_RADIUS / _worldTransform.getScaleX());
+
+        if (picked != null) {
+            _viewerListener.bicyclePicked(picked);
+        }
+
+    }
+
+    /**
+     * Render the reach envelope overlay, placed on the current bottom bracket
+     * of its bicycle.  Nothing is drawn if the bicycle is hidden or no longer
+     * in the project.
+     * @param g2 The graphics object to render to.
+     * @param scale The scale of the current view.
+     */
+    private void renderEnvelope(Graphics2D g2, float scale) {
+
+        if (_envelope == null || !_project.getBicycles().contains(_envelopeBicycle) || !_envelopeBicycle.getVisiblilty()) {
+            return;
+        }
+
+        Shape hull = _envelope.getHull(_project.getDisplayBicycle(_envelopeBicycle).getBottomBracketPoint());
+
+        g2.setPaint(new Color(0, 160, 255, 60));
+        g2.fill(hull);
+
+        g2.setPaint(new Color(0, 120, 220));
+        g2.setStroke(new BasicStroke(2 / scale));
+        g2.draw(hull);
+
+    }
+
+    /**
+     * Show a reach envelope on a bicycle.
+     * @param bicycle The bicycle to place the envelope on.
+     * @param envelope The envelope.
+     */
+    public void setEnvelope(Bicycle bicycle, ReachEnvelopeResult envelope) {
+
+        _envelopeBicycle = bicycle;
+        _envelope = envelope;
+
+        this.repaint();
+
+    }
+
+    /**
+     * Remove the reach envelope overlay.
+     */
+    public void clearEnvelope() {
+
+        _envelopeBicycle = null;
+        _envelope = null;
+
+        this.repaint();
+
+    }
+
+    /**
+     * Check if a bicycle takes part in the difference overlay.
+     * @param bicycle The bicycle.
+     * @param visible The visible world bounds.
+     * @return True if the bicycle is shown, loaded and in view.
+     */
+    private boolean isDifferenceShown(Bicycle bicycle, Rectangle2D visible) {
+        return bicycle.getVisiblilty() && _project.isBicycleLoaded(bicycle) && _project.getDisplayBicycle(bicycle).isInView(visible);
+    }
+
+    /**
+     * Render the difference overlay - a vector from each key point of the
+     * reference bicycle to the same key point of every other visible bicycle.
+     * The points are read from the displayed geometry on each paint so the
+     * overlay follows edits.
+     * @param g2 The graphics object to render to.
+     * @param scale The scale of the current view.
+     * @param visible The visible world bounds.
+     */
+    private void renderDifference(Graphics2D g2, float scale, Rectangle2D visible) {
+
+        if (_differenceBicycle == null || !_project.getBicycles().contains(_differenceBicycle) || !_project.isBicycleLoaded(_differenceBicycle)) {
+            return;
+        }
+
+        Bicycle reference = _project.getDisplayBicycle(_differenceBicycle);
+        KeyPoint[] keys = KeyPoint.values();
+
+        Point2D[] refPoints = new Point2D[keys.length];
+        for (int k = 0; k < keys.length; k++) {
+            refPoints[k] = reference.getKeyPoint(keys[k]);
+        }
+
+        double dot = 3 / scale;
+
+        //one path for all the vectors and one for the end dots - two draw calls for hundreds of bicycles
+        Path2D vectors = new Path2D.Double();
+        Path2D dots = new Path2D.Double();
+
+        for (Bicycle b : _project.getBicycles()) {
+
+            if (b == _differenceBicycle || !isDifferenceShown(b, visible)) {
+                continue;
+            }
+
+            Bicycle display = _project.getDisplayBicycle(b);
+
+            for (int k = 0; k < keys.length; k++) {
+
+                Point2D p = display.getKeyPoint(keys[k]);
+
+                vectors.moveTo(refPoints[k].getX(), refPoints[k].getY());
+                vectors.lineTo(p.getX(), p.getY());
+                dots.append(new Ellipse2D.Double(p.getX() - dot, p.getY() - dot, dot * 2, dot * 2), false);
+            }
+        }
+
+        g2.setPaint(new Color(220, 60, 0));
+        g2.setStroke(new BasicStroke(1.5f / scale));
+        g2.draw(vectors);
+        g2.fill(dots);
+
+    }
+
+    /**
+     * Render the difference lengths next to the vectors of the first few
+     * bicycles in screen space.
+     * @param g2 The graphics object to render to, in screen transform.
+     * @param gTrans The world to screen transform.
+     * @param visible The visible world bounds.
+     */
+    private void renderDifferenceLabels(Graphics2D g2, AffineTransform gTrans, Rectangle2D visible) {
+
+        if (_differenceBicycle == null || !_project.getBicycles().contains(_differenceBicycle) || !_project.isBicycleLoaded(_differenceBicycle)) {
+            return;
+        }
+
+        Bicycle reference = _project.getDisplayBicycle(_differenceBicycle);
+        KeyPoint[] keys = KeyPoint.values();
+
+        g2.setFont(_differenceFont);
+        g2.setPaint(new Color(160, 40, 0));
+
+        int labeled = 0;
+
+        for (Bicycle b : _project.getBicycles()) {
+
+            if (labeled >= MAX_DIFFERENCE_LABELS) {
+                break;
+            }
+
+            if (b == _differenceBicycle || !isDifferenceShown(b, visible)) {
+                continue;
+            }
+
+            Bicycle display = _project.getDisplayBicycle(b);
+
+            for (KeyPoint key : keys) {
+
+                Point2D p = display.getKeyPoint(key);
+                double delta = p.distance(reference.getKeyPoint(key));
+
+                //nothing to show for coincident points
+                if (delta < 0.05) {
+                    continue;
+                }
+
+                Point2D sp = gTrans.transform(p, null);
+                g2.drawString(Utilities.formatLengthDisplayUnits(delta), (float) sp.getX() + 4, (float) sp.getY() - 4);
+            }
+
+            labeled++;
+        }
+
+    }
+
+    /**
+     * Show the differences of all the bicycles to a reference bicycle.
+     * @param bicycle The reference bicycle.
+     */
+    public void setDifference(Bicycle bicycle) {
+
+        _differenceBicycle = bicycle;
+
+        this.repaint();
+
+    }
+
+    /**
+     * Remove the difference overlay.
+     */
+    public void clearDifference() {
+
+        _differenceBicycle = null;
+
+        this.repaint();
+
     }
 
     /**
      * Called to notify the viewer that a bicycle has changed.  
-     * This calls a repaint on the viewer.
+     * This marks the bicycle for re-indexing and calls a repaint on the 
+     * viewer.  The animation restarts itself (it listens to the project).
      * @param bce The bicycle change event.
      */
     @Override
     public void bicycleChanged(BicycleChangeEvent bce) {
+
+        if (bce.isAllBicycles()) {
+            _snapIndex.invalidateAll();
+        } else {
+            _snapIndex.invalidate(bce.getBicycle());
+        }
+        _viewport.invalidateBounds();
+
         this.repaint();
     }
 
@@ -226,11 +696,16 @@ public class ProjectViewer extends JPanel implements BicycleListener, MouseListe
     public void mouseClicked(MouseEvent e) { }
 
     /**
-     * Mouse Pressed Event - not used.
+     * Mouse Pressed Event.  Record the point for panning.
      * @param e The mouse event.
      */     
     @Override
-    public void mousePressed(MouseEvent e) {  }
+    public void mousePressed(MouseEvent e) {
+
+        _dragPoint = new Point2D.Double(e.getX(), e.getY());
+        _isPanning = false;
+
+    }
 
     
     /**
@@ -240,13 +715,29 @@ public class ProjectViewer extends JPanel implements BicycleListener, MouseListe
     @Override
     public void mouseReleased(MouseEvent e) {
 
+        _dragPoint = null;
+
+        //the end of a pan is not a click
+        if (_isPanning) {
+            _isPanning = false;
+            return;
+        }
+
+        //middle button double click returns to zoom extents
+        if (SwingUtilities.isMiddleMouseButton(e) && e.getClickCount() == 2) {
+            zoomExtents();
+            return;
+        }
+
         if (SwingUtilities.isLeftMouseButton(e)) {
 
             if (_isMeasureActive) {
                 if (_measureActive != null) {
-                    Point2D mousePoint = new Point2D.Double(e.getX(), e.getY());
+                    Point2D mousePoint = getMeasurePoint(e);
                     _measureActive.pointClicked(mousePoint);
                 }
+            } else {
+                pickBicycle(e);
             }
 
         }
@@ -276,11 +767,50 @@ public class ProjectViewer extends JPanel implements BicycleListener, MouseListe
     public void mouseExited(MouseEvent e) { }
 
     /**
-     * Mouse Dragged Event - not used.
+     * Mouse Dragged Event.  Pan the view - with any button when no measuring tool is 
+     * active, otherwise with the middle or right button.
      * @param e The mouse event.
      */
     @Override
-    public void mouseDragged(MouseEvent e) {  }
+    public void mouseDragged(MouseEvent e) {
+
+        if (_dragPoint == null) {
+            return;
+        }
+
+        if (_isMeasureActive && SwingUtilities.isLeftMouseButton(e)) {
+            return;
+        }
+
+        double dx = e.getX() - _dragPoint.getX();
+        double dy = e.getY() - _dragPoint.getY();
+
+        //small moves are still clicks
+        if (!_isPanning && Math.abs(dx) < DRAG_THRESHOLD && Math.abs(dy) < DRAG_THRESHOLD) {
+            return;
+        }
+
+        _isPanning = true;
+        _dragPoint = new Point2D.Double(e.getX(), e.getY());
+
+        _viewport.pan(dx, dy);
+        this.repaint();
+
+    }
+
+    /**
+     * Mouse Wheel Event.  Zoom in or out about the mouse point.
+     * @param e The mouse wheel event.
+     */
+    @Override
+    public void mouseWheelMoved(MouseWheelEvent e) {
+
+        double factor = Math.pow(WHEEL_ZOOM, -e.getPreciseWheelRotation());
+
+        _viewport.zoomAt(factor, e.getX(), e.getY());
+        this.repaint();
+
+    }
 
     /**
      * Mouse Moved Event.  Update the dynamic point if  a measuring tool is active.
@@ -292,7 +822,7 @@ public class ProjectViewer extends JPanel implements BicycleListener, MouseListe
         if (_isMeasureActive) {
             if (_measureActive != null) {
                 
-                Point2D mousePoint = new Point2D.Double(e.getX(), e.getY());
+                Point2D mousePoint = getMeasurePoint(e);
                 _measureActive.dynamicPoint(mousePoint);
             }
         }
@@ -329,6 +859,21 @@ public class ProjectViewer extends JPanel implements BicycleListener, MouseListe
             cancelMeasure();
         }
 
+        //home key returns to zoom extents
+        if (e.getKeyCode() == KeyEvent.VK_HOME) {
+            zoomExtents();
+        }
+
+    }
+
+    /**
+     * Fit the project to the viewer and keep it fit as the bicycles change.
+     */
+    public void zoomExtents() {
+
+        _viewport.zoomExtents();
+        this.repaint();
+
     }
 
     /**
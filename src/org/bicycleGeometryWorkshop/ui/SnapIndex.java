@@ -0,0 +1,214 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2020 Tom.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.bicycleGeometryWorkshop.ui;
+
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import org.bicycleGeometryWorkshop.app.BGWProject;
+import org.bicycleGeometryWorkshop.components.Bicycle;
+import org.bicycleGeometryWorkshop.geometry.SpatialGrid;
+
+/**
+ * Spatial index of the key points and segments of the project bicycles used
+ * for measure snapping and bicycle picking in the viewer.  Only the bicycles
+ * that changed (see invalidate()) or were added are re-indexed on update().
+ * The displayed bicycle is indexed (the geometry snapshot when the project
+ * rebuilds geometry on a worker) so a newly published snapshot is re-indexed
+ * too.
+ *
+ * @author Tom
+ */
+public class SnapIndex {
+
+    //grid cell size in world units (mm)
+    private static final double CELL_SIZE = 50;
+
+    private SpatialGrid _grid;
+
+    //bicycles handled (indexed, hidden or pending) in project order
+    private ArrayList<Bicycle> _order;
+    //indexed bicycles and the geometry snapshot version indexed for each
+    private HashMap<Bicycle, Long> _indexed;
+    private long _geometryVersion;
+    //bicycles not loaded yet (lazy open)
+    private HashSet<Bicycle> _pending;
+    //bicycles changed since the last update
+    private HashSet<Bicycle> _dirty;
+    private boolean _allDirty;
+
+    /**
+     * Class constructor.
+     */
+    public SnapIndex() {
+
+        _grid = new SpatialGrid(CELL_SIZE);
+
+        _order = new ArrayList();
+        _indexed = new HashMap();
+        _geometryVersion = -1;
+        _pending = new HashSet();
+        _dirty = new HashSet();
+        _allDirty = true;
+
+    }
+
+    /**
+     * Mark a bicycle as changed.
+     *
+     * @param bicycle The bicycle.
+     */
+    public void invalidate(Bicycle bicycle) {
+        _dirty.add(bicycle);
+    }
+
+    /**
+     * Mark all the bicycles as changed - used for a new project.
+     */
+    public void invalidateAll() {
+        _allDirty = true;
+    }
+
+    /**
+     * Bring the index up to date with the project.  Removed bicycles are
+     * dropped and changed, added or newly loaded bicycles are re-indexed.
+     *
+     * @param project The project.
+     */
+    public void update(BGWProject project) {
+
+        ArrayList<Bicycle> bicycles = project.getBicycles();
+
+        if (_allDirty) {
+            _grid.clear();
+            _order.clear();
+            _indexed.clear();
+            _pending.clear();
+        }
+
+        boolean listChanged = !_order.equals(bicycles);
+        boolean published = _geometryVersion != project.getGeometryVersion();
+
+        //nothing to do
+        if (!listChanged && !published && _dirty.isEmpty() && _pending.isEmpty()) {
+            return;
+        }
+
+        if (listChanged) {
+
+            HashSet<Bicycle> current = new HashSet(bicycles);
+
+            for (Bicycle b : _order) {
+                if (!current.contains(b)) {
+                    _grid.remove(b);
+                    _indexed.remove(b);
+                    _pending.remove(b);
+                }
+            }
+
+            _order = new ArrayList(bicycles);
+        }
+
+        for (Bicycle b : bicycles) {
+
+            Long version = project.getGeometryVersion(b);
+
+            boolean stale = !version.equals(_indexed.get(b)) || _dirty.contains(b) || _pending.contains(b);
+            if (!stale) {
+                continue;
+            }
+
+            _grid.remove(b);
+            _indexed.put(b, version);
+
+            if (project.isBicycleLoaded(b)) {
+                project.getDisplayBicycle(b).addSnapGeometry(_grid, b);
+                _pending.remove(b);
+            } else {
+                _pending.add(b);
+            }
+        }
+
+        _dirty.clear();
+        _allDirty = false;
+        _geometryVersion = project.getGeometryVersion();
+
+    }
+
+    /**
+     * Snap a point to the nearest key point, or if there is none in range,
+     * to the nearest point on a segment.
+     *
+     * @param worldPoint The point in world coordinates.
+     * @param radius The snap radius in world units.
+     * @return The snapped point or null if nothing is in range.
+     */
+    public Point2D snap(Point2D worldPoint, double radius) {
+
+        double x = worldPoint.getX();
+        double y = worldPoint.getY();
+
+        SpatialGrid.Item item = _grid.nearestPoint(x, y, radius);
+        if (item != null) {
+            return item.getPoint();
+        }
+
+        Point2D closest = new Point2D.Double();
+        item = _grid.nearestSegment(x, y, radius, closest);
+        if (item != null) {
+            return closest;
+        }
+
+        return null;
+    }
+
+    /**
+     * Pick the bicycle nearest to a point.
+     *
+     * @param worldPoint The point in world coordinates.
+     * @param radius The pick radius in world units.
+     * @return The bicycle or null if none is in range.
+     */
+    public Bicycle pick(Point2D worldPoint, double radius) {
+
+        SpatialGrid.Item item = _grid.nearest(worldPoint.getX(), worldPoint.getY(), radius);
+
+        if (item == null) {
+            return null;
+        }
+
+        return (Bicycle) item.getOwner();
+    }
+
+    /**
+     * Get the number of indexed points and segments.
+     *
+     * @return The number of items.
+     */
+    public int size() {
+        return _grid.size();
+    }
+
+}
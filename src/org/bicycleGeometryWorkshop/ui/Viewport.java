@@ -0,0 +1,316 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2020 Tom.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.bicycleGeometryWorkshop.ui;
+
+import java.awt.geom.AffineTransform;
+import java.awt.geom.NoninvertibleTransformException;
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import org.bicycleGeometryWorkshop.app.BGWProject;
+import org.bicycleGeometryWorkshop.components.Bicycle;
+
+/**
+ * The world to screen transform of the project viewer.  The viewport starts
+ * in "zoom extents" where the project bounds are fit to the panel.  Panning
+ * and zooming change the transform in place so the view stays put while the
+ * bicycles are edited, until zoom extents is selected again.
+ * <p>
+ * The project bounds are cached and only recalculated when a bicycle changes,
+ * geometry snapshots are published, bicycles are added or removed, or pending
+ * bicycles finish loading.
+ *
+ * @author Tom
+ */
+public class Viewport {
+
+    //padding around the project when fit to the panel
+    private static final double EXTENTS_PADDING = 0.85;
+
+    //zoom limits relative to the zoom extents scale
+    private static final double MIN_ZOOM = 0.1;
+    private static final double MAX_ZOOM = 100;
+
+    private AffineTransform _transform;
+    private boolean _zoomExtents;
+    private boolean _transformValid;
+
+    //scale of the last zoom extents
+    private double _fitScale;
+
+    //panel size of the current transform
+    private int _width;
+    private int _height;
+
+    //cached project bounds and what they were calculated from
+    private Rectangle2D _bounds;
+    private boolean _boundsValid;
+    private ArrayList<Bicycle> _boundsBicycles;
+    private int _boundsLoaded;
+    private long _boundsVersion;
+
+    /**
+     * Class constructor.
+     */
+    public Viewport() {
+
+        _transform = new AffineTransform();
+        _zoomExtents = true;
+        _transformValid = false;
+        _fitScale = 1;
+
+        _width = 0;
+        _height = 0;
+
+        _bounds = null;
+        _boundsValid = false;
+        _boundsBicycles = new ArrayList();
+        _boundsLoaded = 0;
+        _boundsVersion = 0;
+
+    }
+
+    /**
+     * Mark the project bounds for recalculation - called when a bicycle changes.
+     */
+    public void invalidateBounds() {
+        _boundsValid = false;
+    }
+
+    /**
+     * Get the world to screen transform for a panel size.  The transform is
+     * only recalculated when the panel is resized or, in zoom extents, when
+     * the project bounds change.
+     *
+     * @param project The project.
+     * @param width The panel width.
+     * @param height The panel height.
+     * @return The transform.  This is a copy that can be kept by the caller.
+     */
+    public AffineTransform getTransform(BGWProject project, int width, int height) {
+
+        if (_zoomExtents) {
+
+            if (!_transformValid || width != _width || height != _height || !isBoundsCurrent(project)) {
+                fitBounds(getProjectBounds(project), width, height);
+            }
+
+        } else if (width != _width || height != _height) {
+
+            //keep the center of the view in place
+            AffineTransform shift = AffineTransform.getTranslateInstance((width - _width) / 2.0, (height - _height) / 2.0);
+            _transform.preConcatenate(shift);
+        }
+
+        _width = width;
+        _height = height;
+        _transformValid = true;
+
+        return new AffineTransform(_transform);
+    }
+
+    /**
+     * Get the scale of the current transform (screen pixels per world unit).
+     *
+     * @return The scale.
+     */
+    public double getScale() {
+        return _transform.getScaleX();
+    }
+
+    /**
+     * Get the part of the world visible in the panel, used for culling.
+     *
+     * @param padding The padding to add around the panel in pixels (line weights).
+     * @return The visible world rectangle.
+     */
+    public Rectangle2D getVisibleBounds(double padding) {
+
+        Rectangle2D screen = new Rectangle2D.Double(-padding, -padding, _width + padding * 2, _height + padding * 2);
+
+        try {
+            return _transform.createInverse().createTransformedShape(screen).getBounds2D();
+        } catch (NoninvertibleTransformException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Zoom in or out about a screen point.
+     *
+     * @param factor The zoom factor - greater than one zooms in.
+     * @param x The screen x of the point that stays put.
+     * @param y The screen y of the point that stays put.
+     */
+    public void zoomAt(double factor, double x, double y) {
+
+        //clamp to the zoom limits
+        double scale = getScale() * factor;
+        double minScale = _fitScale * MIN_ZOOM;
+        double maxScale = _fitScale * MAX_ZOOM;
+
+        if (scale < minScale) {
+            factor = minScale / getScale();
+        } else if (scale > maxScale) {
+            factor = maxScale / getScale();
+        }
+
+        AffineTransform zoom = new AffineTransform();
+        zoom.translate(x, y);
+        zoom.scale(factor, factor);
+        zoom.translate(-x, -y);
+
+        _transform.preConcatenate(zoom);
+        _zoomExtents = false;
+
+    }
+
+    /**
+     * Pan the view.
+     *
+     * @param dx The screen distance to move in x.
+     * @param dy The screen distance to move in y.
+     */
+    public void pan(double dx, double dy) {
+
+        _transform.preConcatenate(AffineTransform.getTranslateInstance(dx, dy));
+        _zoomExtents = false;
+
+    }
+
+    /**
+     * Fit the project to the panel on the next paint, and keep it fit as the
+     * bicycles change.
+     */
+    public void zoomExtents() {
+
+        _zoomExtents = true;
+        _transformValid = false;
+
+    }
+
+    /**
+     * Check if the view is in zoom extents.
+     *
+     * @return True if the project is fit to the panel.
+     */
+    public boolean isZoomExtents() {
+        return _zoomExtents;
+    }
+
+    /**
+     * Reset for a new project: invalidate the bounds and zoom extents.
+     */
+    public void reset() {
+
+        _boundsValid = false;
+        _boundsBicycles.clear();
+        zoomExtents();
+
+    }
+
+    /**
+     * Fit bounds to a panel size.
+     *
+     * @param bounds The world bounds.
+     * @param width The panel width.
+     * @param height The panel height.
+     */
+    private void fitBounds(Rectangle2D bounds, int width, int height) {
+
+        //width vs height scale
+        double sw = width / bounds.getWidth();
+        double sh = height / bounds.getHeight();
+
+        //use smaller
+        double scale = sw < sh ? sw : sh;
+
+        //add padding
+        scale *= EXTENTS_PADDING;
+
+        //calc translation to center bounds
+        double tx = width / 2.0 - scale * bounds.getCenterX();
+        double ty = height / 2.0 + scale * bounds.getCenterY();
+
+        _transform.setToIdentity();
+        _transform.translate(tx, ty);
+        _transform.scale(scale, -scale);
+
+        _fitScale = scale;
+
+    }
+
+    /**
+     * Check if the cached bounds are still current: no bicycle has changed,
+     * no geometry snapshot has been published, the bicycle list is the same
+     * and no pending bicycle has been loaded.
+     *
+     * @param project The project.
+     * @return True if the bounds are current.
+     */
+    private boolean isBoundsCurrent(BGWProject project) {
+
+        return _boundsValid && _boundsVersion == project.getGeometryVersion()
+                && _boundsBicycles.equals(project.getBicycles()) && _boundsLoaded == countLoaded(project);
+    }
+
+    /**
+     * Get the project bounds, recalculated if they are not current.
+     *
+     * @param project The project.
+     * @return The bounds.
+     */
+    private Rectangle2D getProjectBounds(BGWProject project) {
+
+        if (!isBoundsCurrent(project)) {
+
+            _bounds = project.getBounds();
+            _boundsBicycles = new ArrayList(project.getBicycles());
+            _boundsLoaded = countLoaded(project);
+            _boundsVersion = project.getGeometryVersion();
+            _boundsValid = true;
+        }
+
+        return _bounds;
+    }
+
+    /**
+     * Count the loaded bicycles of a project.
+     *
+     * @param project The project.
+     * @return The number of loaded bicycles.
+     */
+    private int countLoaded(BGWProject project) {
+
+        int count = 0;
+
+        for (Bicycle b : project.getBicycles()) {
+            if (project.isBicycleLoaded(b)) {
+                count++;
+            }
+        }
+
+        return count;
+    }
+
+}
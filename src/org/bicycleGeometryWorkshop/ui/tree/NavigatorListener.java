@@ -27,6 +27,7 @@ import org.bicycleGeometryWorkshop.attributes.AttributeSetPanel;
 import org.bicycleGeometryWorkshop.components.BaseComponent;
 import org.bicycleGeometryWorkshop.components.Bicycle;
 import org.bicycleGeometryWorkshop.components.BicycleDisplay;
+import org.bicycleGeometryWorkshop.components.FrameSet;
 
 /**
  * Listener object for the NavigatorTree.  The navigator calls these in response 
@@ -41,6 +42,12 @@ public interface NavigatorListener {
      * @param editor AttributeSetPanel selected for loading in UI.
      */
     public void editorSelected(AttributeSetPanel editor);
+
+    /**
+     * Called when a Bicycle node (or one of its component nodes) is selected, before the editor is requested.
+     * @param bicycle The Bicycle of the selected node.
+     */
+    public void bicycleSelected(Bicycle bicycle);
     
     /**
      * Called to add a Bicycle to the project.
@@ -82,6 +89,12 @@ public interface NavigatorListener {
     public void importComponent(BaseComponent component);
     
     
+    /**
+     * Called to set the stack and reach of a frame from other measurements.
+     * @param frame The frame to set.
+     */
+    public void frameStackReachFrom(FrameSet frame);
+
     /**
      * Called to set all the Bicycles Display.
      * @param display The Bicycle display mode to apply to all bicycles.
@@ -32,6 +32,7 @@ import java.awt.event.MouseEvent;
 import java.awt.event.MouseListener;
 import java.util.ArrayList;
 import java.util.Enumeration;
+import java.util.HashMap;
 import javax.swing.JFrame;
 import javax.swing.JMenu;
 import javax.swing.JMenuItem;
@@ -47,6 +48,7 @@ import javax.swing.tree.TreeModel;
 import javax.swing.tree.TreePath;
 import org.bicycleGeometryWorkshop.app.VisualPreferences;
 import org.bicycleGeometryWorkshop.components.BicycleDisplay;
+import org.bicycleGeometryWorkshop.components.FrameSet;
 import org.bicycleGeometryWorkshop.components.RiderMeasurements;
 import org.bicycleGeometryWorkshop.components.RiderPose;
 import org.bicycleGeometryWorkshop.ui.BicycleGeometryWorkshopUI;
@@ -66,6 +68,9 @@ public class NavigatorTree extends JTree implements TreeSelectionListener, Mouse
     private ComponentTreeNode _poseNode;
     
     private ComponentTreeNode _bicycleGroupNode;
+
+    //fit group (cluster) number of each grouped bicycle
+    private HashMap<Bicycle, Integer> _fitGroups;
     
     
     private NavigatorListener _listener;
@@ -80,6 +85,8 @@ public class NavigatorTree extends JTree implements TreeSelectionListener, Mouse
         
 
         _listener = listener;
+
+        _fitGroups = new HashMap();
         
  
         TreeModel tm = this.getModel();
@@ -135,6 +142,8 @@ public class NavigatorTree extends JTree implements TreeSelectionListener, Mouse
         _poseNode.setUserObject("null");
         
         _bicycleGroupNode.removeAllChildren();
+
+        _fitGroups.clear();
         
     }
 
@@ -246,7 +255,11 @@ public class NavigatorTree extends JTree implements TreeSelectionListener, Mouse
             AttributeSetPanel editor = component.getAttributeSet().getEditor();
             String ename = component.getName();
             ComponentTreeNode compNode = new ComponentTreeNode(editor);
-            compNode.setMenu(getComponentMenu(ename));
+            JPopupMenu compMenu = getComponentMenu(ename);
+            if (component instanceof FrameSet) {
+                addFrameMenuItems(compMenu);
+            }
+            compNode.setMenu(compMenu);
             compNode.setIcon(component.getIcon());
             compNode.setComponent(component);
             //add component node to bicycle node
@@ -286,6 +299,61 @@ public class NavigatorTree extends JTree implements TreeSelectionListener, Mouse
         
 
         
+    }
+
+    /**
+     * Show the fit groups (clusters of effectively identical bicycles) in the
+     * bicycle nodes.  Bicycles not in the map are not tagged.
+     *
+     * @param groups The group number of each grouped bicycle.
+     */
+    public void setFitGroups(HashMap<Bicycle, Integer> groups) {
+
+        _fitGroups = new HashMap(groups);
+
+        refreshBicycleNames();
+        this.repaint();
+
+    }
+
+    /**
+     * Remove the fit groups from the bicycle nodes.
+     */
+    public void clearFitGroups() {
+
+        setFitGroups(new HashMap());
+
+    }
+
+    /**
+     * Get the fit group of a bicycle.
+     *
+     * @param bicycle The bicycle.
+     * @return The group number or null if the bicycle is not grouped.
+     */
+    public Integer getFitGroup(Bicycle bicycle) {
+        return _fitGroups.get(bicycle);
+    }
+
+    /**
+     * Select the node of a bicycle and scroll it into view.
+     *
+     * @param bicycle The bicycle to select.
+     */
+    public void selectBicycle(Bicycle bicycle) {
+
+        Enumeration e = _bicycleGroupNode.children();
+        while (e.hasMoreElements()) {
+            Object node = e.nextElement();
+
+            if (node instanceof BicycleTreeNode && ((BicycleTreeNode) node).getBicycle() == bicycle) {
+                TreePath path = new TreePath(((BicycleTreeNode) node).getPath());
+                this.setSelectionPath(path);
+                this.scrollPathToVisible(path);
+                return;
+            }
+        }//end while
+
     }
 
     /**
@@ -304,6 +372,13 @@ public class NavigatorTree extends JTree implements TreeSelectionListener, Mouse
             return;
         }
         
+        //make sure the bicycle is loaded before the editor is shown
+        for (Object pathNode : selectedNode.getPath()) {
+            if (pathNode instanceof BicycleTreeNode) {
+                _listener.bicycleSelected(((BicycleTreeNode) pathNode).getBicycle());
+            }
+        }
+
         if(selectedNode instanceof ComponentTreeNode) {
             
             ComponentTreeNode ctn = (ComponentTreeNode)selectedNode;
@@ -581,6 +656,42 @@ public class NavigatorTree extends JTree implements TreeSelectionListener, Mouse
         
     }
 
+    /**
+     * Add the frame specific items to a component menu.
+     * @param compMenu The FrameSet component menu.
+     */
+    private void addFrameMenuItems(JPopupMenu compMenu) {
+
+        JMenuItem stackReachItem = new JMenuItem("Set Stack/Reach From...");
+        ActionListener alStackReach = (ActionEvent ev) -> {
+            menuFrameStackReach();
+        };
+
+        stackReachItem.addActionListener(alStackReach);
+
+        compMenu.addSeparator();
+        compMenu.add(stackReachItem);
+
+    }
+
+    /**
+     * Call to set the stack and reach of the selected frame from other measurements.
+     */
+    private void menuFrameStackReach() {
+
+        DefaultMutableTreeNode selectedNode = (DefaultMutableTreeNode) this.getLastSelectedPathComponent();
+
+        if (selectedNode instanceof ComponentTreeNode) {
+
+            BaseComponent comp = ((ComponentTreeNode) selectedNode).getComponent();
+
+            if (comp instanceof FrameSet) {
+                _listener.frameStackReachFrom((FrameSet) comp);
+            }
+        }
+
+    }
+
     /**
      * Call to add a bicycle for the menu item
      */
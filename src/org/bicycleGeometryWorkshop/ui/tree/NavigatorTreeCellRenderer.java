@@ -79,6 +79,13 @@ public class NavigatorTreeCellRenderer implements  TreeCellRenderer {
             Bicycle b = btn.getBicycle();
             
             _cellPanel.setBicycle(name, b.getDisplay(), b.getVisiblilty(), b.getRiderColor(), b.getFrameColor(), b.getComponentColor());            
+
+            //fit group tag
+            Integer group = null;
+            if (tree instanceof NavigatorTree) {
+                group = ((NavigatorTree) tree).getFitGroup(b);
+            }
+            _cellPanel.setFitGroup(group);
             
             
         } else if(value instanceof ComponentTreeNode) {
@@ -58,6 +58,7 @@ public class TreeCellRendererPanel extends JPanel {
     private JLabel _bicycleRiderLabel;
     private JLabel _bicycleFrameLabel;
     private JLabel _bicycleCompLabel;
+    private JLabel _fitGroupLabel;
 
     private JLabel _nameLabel;
     
@@ -94,6 +95,8 @@ public class TreeCellRendererPanel extends JPanel {
         _bicycleRiderLabel = makeColoredLabel("R"); //new JLabel("R");
         _bicycleFrameLabel = makeColoredLabel("F"); //new JLabel("F");
         _bicycleCompLabel = makeColoredLabel("C"); //new JLabel("C");
+        _fitGroupLabel = makeColoredLabel("");
+        _fitGroupLabel.setPreferredSize(null);
               
       
 
@@ -105,6 +108,7 @@ public class TreeCellRendererPanel extends JPanel {
         add(_bicycleRiderLabel);
         add(_bicycleFrameLabel);
         add(_bicycleCompLabel);
+        add(_fitGroupLabel);
 
         add(_nameLabel);
         
@@ -261,6 +265,26 @@ public class TreeCellRendererPanel extends JPanel {
         
     }
     
+    /**
+     * Set the fit group tag of a bicycle.  Each group gets its own color.
+     * @param group The group number or null to hide the tag.
+     */
+    public void setFitGroup(Integer group) {
+
+        if (group == null) {
+            _fitGroupLabel.setVisible(false);
+            return;
+        }
+
+        //spread the hues by the golden ratio so neighbouring groups differ
+        float hue = (float) ((group * 0.618034) % 1.0);
+
+        _fitGroupLabel.setText(" G" + group + " ");
+        _fitGroupLabel.setBackground(Color.getHSBColor(hue, 0.35f, 1.0f));
+        _fitGroupLabel.setVisible(true);
+
+    }
+
     /**
      * Hide the bicycle icons
      */
@@ -270,6 +294,7 @@ public class TreeCellRendererPanel extends JPanel {
         _bicycleRiderLabel.setVisible(false);
         _bicycleFrameLabel.setVisible(false);
         _bicycleCompLabel.setVisible(false);
+        _fitGroupLabel.setVisible(false);
         
     }
     